@@ -13,10 +13,14 @@ import com.ispirit.digitalsky.service.api.*;
 import com.ispirit.digitalsky.util.CustomValidator;
 import com.sendgrid.SendGrid;
 import freemarker.template.TemplateExceptionHandler;
+import io.jsonwebtoken.SignatureAlgorithm;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.io.ResourceLoader;
@@ -27,9 +31,16 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.validation.Validator;
 import org.springframework.web.client.RestTemplate;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
 @Configuration
 public class ApplicationConfiguration {
 
+    private static final Logger logger = LoggerFactory.getLogger(ApplicationConfiguration.class);
+
     @Value("${DEFAULT_FROM_EMAIL_ID:no-reply@digitalsky.com}")
     private String defaultFromEmailId;
 
@@ -60,6 +71,21 @@ public class ApplicationConfiguration {
     @Value("${JWT_EXPIRY_TIME_IN_DAYS:30}")
     private String jwtExpiryInDays;
 
+    @Value("${USER_PRINCIPAL_CACHE_SIZE:10000}")
+    private int userPrincipalCacheSize;
+
+    @Value("${USER_PRINCIPAL_CACHE_TTL_IN_SECONDS:300}")
+    private long userPrincipalCacheTimeToLiveInSeconds;
+
+    @Value("${JWT_SIGNATURE_ALGORITHM:RS256}")
+    private SignatureAlgorithm jwtSignatureAlgorithm;
+
+    @Value("${JWT_PROFILE_CLAIMS_ENABLED:false}")
+    private boolean jwtProfileClaimsEnabled;
+
+    @Value("${JWT_REVOCATION_REFRESH_INTERVAL_IN_SECONDS:30}")
+    private long jwtRevocationRefreshIntervalInSeconds;
+
     @Value("${FILE_STORAGE_LOCATION:uploads}")
     private String storageLocation;
 
@@ -75,12 +101,39 @@ public class ApplicationConfiguration {
     @Value("${DS_CERT_PRIVATE_KEY_PATH:classpath:key.pem}")
     private String digitalSkyPrivateKeyPath;
 
+    @Value("${DS_SIGNATURE_ALGORITHM:RSA_SHA1}")
+    private XmlSignatureAlgorithm digitalSkySignatureAlgorithm;
+
     @Value("${MANUFACTURER_DIGITAL_CERT_MANUFACTURER_ATTRIBUTE_NAME:cn}")
     private String manufacturerDigitalCertManufacturerAttributeName;
 
     @Value("${MANUFACTURER_DIGITAL_CERT_VALIDATION_ENABLED:true}")
     private boolean manufacturerDigitalCertValidationEnabled;
 
+    @Value("${MANUFACTURER_DIGITAL_CERT_CACHE_TTL_IN_MINUTES:60}")
+    private long manufacturerDigitalCertCacheTimeToLiveInMinutes;
+
+    @Value("${DRONE_DEVICE_VERIFICATION_THREADS:4}")
+    private int droneDeviceVerificationThreads;
+
+    @Value("${DRONE_DEVICE_REGISTRATION_RECORD_TTL_IN_HOURS:24}")
+    private long droneDeviceRegistrationRecordTimeToLiveInHours;
+
+    @Value("${DRONE_DEVICE_REGISTRATION_RECORD_CACHE_SIZE:10000}")
+    private int droneDeviceRegistrationRecordCacheSize;
+
+    @Value("${AIRSPACE_IMPACT_ANALYSIS_THREADS:2}")
+    private int airspaceImpactAnalysisThreads;
+
+    @Value("${PERMISSION_ARTIFACT_WORKERS:2}")
+    private int permissionArtifactWorkers;
+
+    @Value("${PERMISSION_ARTIFACT_POLL_INTERVAL_IN_MILLIS:1000}")
+    private long permissionArtifactPollIntervalInMillis;
+
+    @Value("${PERMISSION_ARTIFACT_EXPORT_THREADS:4}")
+    private int permissionArtifactExportThreads;
+
     @Bean
     public PasswordEncoder passwordEncoder() {
         return new BCryptPasswordEncoder();
@@ -104,7 +157,13 @@ public class ApplicationConfiguration {
                 importDroneService,
                 uaopApplicationService,
                 resetPasswordBasePath,
-                accountVerificationPath);
+                accountVerificationPath,
+                userPrincipalCache());
+    }
+
+    @Bean
+    UserPrincipalCache userPrincipalCache() {
+        return new UserPrincipalCache(userPrincipalCacheSize, TimeUnit.SECONDS.toMillis(userPrincipalCacheTimeToLiveInSeconds));
     }
 
     @Bean
@@ -113,13 +172,34 @@ public class ApplicationConfiguration {
     }
 
     @Bean
-    public SecurityTokenService securityTokenService(ResourceLoader resourceLoader) {
-        return new JwtTokenService(resourceLoader, Integer.parseInt(jwtExpiryInDays), jwtKeyStorePath, jwtKeyStorePassword, jwtKeyStoreType, jwtKeyAlias, jwtKeyPassword);
+    public SecurityTokenService securityTokenService(ResourceLoader resourceLoader, UserProfileService userProfileService) {
+        return new JwtTokenService(resourceLoader, Integer.parseInt(jwtExpiryInDays), jwtKeyStorePath, jwtKeyStorePassword, jwtKeyStoreType, jwtKeyAlias, jwtKeyPassword, jwtSignatureAlgorithm, userProfileService, jwtProfileClaimsEnabled);
+    }
+
+    @Bean
+    public JwtAuthenticationFilter jwtAuthenticationFilter(SecurityTokenService securityTokenService, UserService userService, TokenRevocationService tokenRevocationService) {
+        return new JwtAuthenticationFilter(userService, securityTokenService, userPrincipalCache(), tokenRevocationService);
+    }
+
+    @Bean
+    TokenRevocationService tokenRevocationService(UserActiveSessionRepository userActiveSessionRepository) {
+        return new TokenRevocationServiceImpl(userActiveSessionRepository, TimeUnit.DAYS.toMillis(Integer.parseInt(jwtExpiryInDays)));
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    ScheduledExecutorService tokenRevocationRefreshExecutor(){
+        return Executors.newSingleThreadScheduledExecutor();
     }
 
     @Bean
-    public JwtAuthenticationFilter jwtAuthenticationFilter(SecurityTokenService securityTokenService, UserService userService) {
-        return new JwtAuthenticationFilter(userService, securityTokenService);
+    ApplicationRunner tokenRevocationRefresh(TokenRevocationService tokenRevocationService){
+        return args -> tokenRevocationRefreshExecutor().scheduleWithFixedDelay(() -> {
+            try {
+                tokenRevocationService.refresh();
+            } catch (Exception e) {
+                logger.error("Token revocation refresh failed", e);
+            }
+        }, 0, jwtRevocationRefreshIntervalInSeconds, TimeUnit.SECONDS);
     }
 
     @Bean
@@ -144,23 +224,23 @@ public class ApplicationConfiguration {
     }
 
     @Bean
-    PilotService pilotService(PilotRepository pilotRepository, StorageService storageService) {
-        return new PilotServiceImpl(pilotRepository, storageService);
+    PilotService pilotService(PilotRepository pilotRepository, StorageService storageService, TokenRevocationService tokenRevocationService, UserPrincipalCache userPrincipalCache) {
+        return new PilotServiceImpl(pilotRepository, storageService, tokenRevocationService, userPrincipalCache);
     }
 
     @Bean
-    IndividualOperatorService individualOperatorService(IndividualOperatorRepository individualOperatorRepository, OrganizationOperatorRepository organizationOperatorRepository) {
-        return new IndividualOperatorServiceImpl(individualOperatorRepository, organizationOperatorRepository);
+    IndividualOperatorService individualOperatorService(IndividualOperatorRepository individualOperatorRepository, OrganizationOperatorRepository organizationOperatorRepository, TokenRevocationService tokenRevocationService, UserPrincipalCache userPrincipalCache) {
+        return new IndividualOperatorServiceImpl(individualOperatorRepository, organizationOperatorRepository, tokenRevocationService, userPrincipalCache);
     }
 
     @Bean
-    OrganizationOperatorService organizationOperatorService(OrganizationOperatorRepository organizationOperatorRepository, IndividualOperatorRepository individualOperatorRepository) {
-        return new OrganizationOperatorServiceImpl(organizationOperatorRepository, individualOperatorRepository);
+    OrganizationOperatorService organizationOperatorService(OrganizationOperatorRepository organizationOperatorRepository, IndividualOperatorRepository individualOperatorRepository, TokenRevocationService tokenRevocationService, UserPrincipalCache userPrincipalCache) {
+        return new OrganizationOperatorServiceImpl(organizationOperatorRepository, individualOperatorRepository, tokenRevocationService, userPrincipalCache);
     }
 
     @Bean
-    ManufacturerService manufacturerService(ManufacturerRepository manufacturerRepository, StorageService storageService) {
-        return new ManufacturerServiceImpl(manufacturerRepository, storageService);
+    ManufacturerService manufacturerService(ManufacturerRepository manufacturerRepository, StorageService storageService, DigitalSignatureVerifierService signatureVerifierService, TokenRevocationService tokenRevocationService, UserPrincipalCache userPrincipalCache) {
+        return new ManufacturerServiceImpl(manufacturerRepository, storageService, signatureVerifierService, tokenRevocationService, userPrincipalCache);
     }
 
     @Bean
@@ -219,12 +299,38 @@ public class ApplicationConfiguration {
                                           OrganizationOperatorRepository organizationOperatorRepository,
                                           OperatorDroneService operatorDroneService,
                                           ManufacturerService manufacturerService) {
-        return new DroneDeviceServiceImpl(droneRepository, signatureVerifierService,individualOperatorRepository, organizationOperatorRepository, operatorDroneService, manufacturerService );
+        return new DroneDeviceServiceImpl(droneRepository, signatureVerifierService,individualOperatorRepository, organizationOperatorRepository, operatorDroneService, manufacturerService, droneDeviceVerificationExecutor());
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    ExecutorService droneDeviceVerificationExecutor(){
+        return Executors.newFixedThreadPool(droneDeviceVerificationThreads);
+    }
+
+    @Bean
+    DroneDeviceRegistrationRecordService droneDeviceRegistrationRecordService(DroneDeviceRegistrationRecordRepository droneDeviceRegistrationRecordRepository) {
+        return new DroneDeviceRegistrationRecordServiceImpl(droneDeviceRegistrationRecordRepository, droneDeviceRegistrationRecordCacheSize, TimeUnit.HOURS.toMillis(droneDeviceRegistrationRecordTimeToLiveInHours));
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    ScheduledExecutorService droneDeviceRegistrationRecordCleanupExecutor(){
+        return Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @Bean
+    ApplicationRunner droneDeviceRegistrationRecordCleanup(DroneDeviceRegistrationRecordService droneDeviceRegistrationRecordService){
+        return args -> droneDeviceRegistrationRecordCleanupExecutor().scheduleWithFixedDelay(() -> {
+            try {
+                droneDeviceRegistrationRecordService.deleteExpired();
+            } catch (Exception e) {
+                logger.error("Drone device registration record cleanup failed", e);
+            }
+        }, 1, 1, TimeUnit.HOURS);
     }
 
     @Bean
-    DigitalSignatureVerifierService signatureVerifierService(ManufacturerService manufacturerService, DigitalCertificateValidatorService digitalCertificateValidatorService) {
-        return new DigitalSignatureVerifierServiceImpl(digitalCertificateValidatorService, manufacturerDigitalCertManufacturerAttributeName, manufacturerDigitalCertValidationEnabled);
+    DigitalSignatureVerifierService signatureVerifierService(DigitalCertificateValidatorService digitalCertificateValidatorService) {
+        return new DigitalSignatureVerifierServiceImpl(digitalCertificateValidatorService, manufacturerDigitalCertManufacturerAttributeName, manufacturerDigitalCertValidationEnabled, TimeUnit.MINUTES.toMillis(manufacturerDigitalCertCacheTimeToLiveInMinutes));
     }
 
     @Bean
@@ -258,18 +364,83 @@ public class ApplicationConfiguration {
     }
 
     @Bean
-    AirspaceCategoryService airspaceCategoryService(AirspaceCategoryRepository airspaceCategoryRepository){
-        return new AirspaceCategoryServiceImpl(airspaceCategoryRepository);
+    AirspaceCategoryService airspaceCategoryService(AirspaceCategoryRepository airspaceCategoryRepository, AirspaceImpactAnalysisService airspaceImpactAnalysisService){
+        return new AirspaceCategoryServiceImpl(airspaceCategoryRepository, airspaceImpactAnalysisService);
+    }
+
+    @Bean
+    AirspaceTileService airspaceTileService(AirspaceCategoryService airspaceCategoryService){
+        return new AirspaceTileServiceImpl(airspaceCategoryService);
+    }
+
+    @Bean
+    AirspaceImpactAnalysisService airspaceImpactAnalysisService(AirspaceImpactReportRepository reportRepository, AirspaceImpactReportChunkRepository reportChunkRepository, FlyDronePermissionApplicationRepository applicationRepository, FlightConflictService flightConflictService){
+        return new AirspaceImpactAnalysisServiceImpl(reportRepository, reportChunkRepository, applicationRepository, flightConflictService, airspaceImpactAnalysisExecutor());
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    ExecutorService airspaceImpactAnalysisExecutor(){
+        return Executors.newFixedThreadPool(airspaceImpactAnalysisThreads);
+    }
+
+    @Bean
+    FlyDronePermissionApplicationService flyDronePermissionApplicationService(FlyDronePermissionApplicationRepository repository, StorageService storageService, AirspaceCategoryService airspaceCategoryService, DigitalSignService digitalSignService, OperatorDroneService operatorDroneService, UserProfileService userProfileService, PilotService pilotService, FlightConflictService flightConflictService, PermissionArtifactJobRepository permissionArtifactJobRepository){
+        return new FlyDronePermissionApplicationServiceImpl(repository, storageService, airspaceCategoryService, digitalSignService, operatorDroneService, userProfileService, pilotService, flightConflictService, permissionArtifactJobRepository, permissionArtifactExportExecutor());
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    ExecutorService permissionArtifactExportExecutor(){
+        return Executors.newFixedThreadPool(permissionArtifactExportThreads);
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    ScheduledExecutorService permissionArtifactWorkerExecutor(){
+        return Executors.newScheduledThreadPool(permissionArtifactWorkers);
+    }
+
+    @Bean
+    ApplicationRunner permissionArtifactGeneration(FlyDronePermissionApplicationService flyDronePermissionApplicationService){
+        return args -> {
+            ScheduledExecutorService executor = permissionArtifactWorkerExecutor();
+            for (int worker = 0; worker < permissionArtifactWorkers; worker++) {
+                executor.scheduleWithFixedDelay(() -> {
+                    try {
+                        while (flyDronePermissionApplicationService.processNextPermissionArtifactJob()) ;
+                    } catch (Exception e) {
+                        logger.error("Permission artifact worker failed", e);
+                    }
+                }, 0, permissionArtifactPollIntervalInMillis, TimeUnit.MILLISECONDS);
+            }
+        };
+    }
+
+    @Bean
+    ApplicationRunner flyAreaGeometryBackfill(FlyDronePermissionApplicationService flyDronePermissionApplicationService){
+        return args -> {
+            Thread backfill = new Thread(flyDronePermissionApplicationService::backfillFlyAreaGeometries, "fly-area-geometry-backfill");
+            backfill.setDaemon(true);
+            backfill.start();
+        };
+    }
+
+    @Bean
+    FlightWindowService flightWindowService(){
+        return new FlightWindowServiceImpl();
     }
 
     @Bean
-    FlyDronePermissionApplicationService flyDronePermissionApplicationService(FlyDronePermissionApplicationRepository repository, StorageService storageService, AirspaceCategoryService airspaceCategoryService, freemarker.template.Configuration freemarkerConfiguration, DigitalSignService digitalSignService, OperatorDroneService operatorDroneService, UserProfileService userProfileService, PilotService pilotService){
-        return new FlyDronePermissionApplicationServiceImpl(repository, storageService, airspaceCategoryService, digitalSignService, operatorDroneService, userProfileService, pilotService, freemarkerConfiguration);
+    FlightConflictService flightConflictService(FlyDronePermissionApplicationRepository repository, FlightWindowService flightWindowService){
+        return new FlightConflictServiceImpl(repository, flightWindowService);
     }
 
     @Bean
     DigitalSignService digitalSignService(ResourceLoader resourceLoader){
-        return new DigitalSignServiceImpl(resourceLoader, digitalSkyPrivateKeyPath, digitalSkyCertificatePath);
+        return new DigitalSignServiceImpl(resourceLoader, digitalSkyPrivateKeyPath, digitalSkyCertificatePath, digitalSkySignatureAlgorithm, digitalSignMetrics());
+    }
+
+    @Bean
+    DigitalSignMetrics digitalSignMetrics(){
+        return new DigitalSignMetrics();
     }
 
     @Bean
@@ -1,12 +1,13 @@
 package com.ispirit.digitalsky.configuration;
 
 import com.ispirit.digitalsky.domain.UserPrincipal;
+import com.ispirit.digitalsky.service.UserPrincipalCache;
 import com.ispirit.digitalsky.service.api.SecurityTokenService;
+import com.ispirit.digitalsky.service.api.TokenRevocationService;
 import com.ispirit.digitalsky.service.api.UserService;
+import io.jsonwebtoken.Claims;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -23,9 +24,15 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private SecurityTokenService securityTokenService;
 
-    public JwtAuthenticationFilter(UserService userService, SecurityTokenService securityTokenService) {
+    private UserPrincipalCache userPrincipalCache;
+
+    private TokenRevocationService tokenRevocationService;
+
+    public JwtAuthenticationFilter(UserService userService, SecurityTokenService securityTokenService, UserPrincipalCache userPrincipalCache, TokenRevocationService tokenRevocationService) {
         this.userService = userService;
         this.securityTokenService = securityTokenService;
+        this.userPrincipalCache = userPrincipalCache;
+        this.tokenRevocationService = tokenRevocationService;
     }
 
     @Override
@@ -33,10 +40,17 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         try {
             String jwt = getJwtFromRequest(httpServletRequest);
 
-            if (StringUtils.hasText(jwt) && securityTokenService.validateToken(jwt)) {
-                String userId = securityTokenService.getUserIdFromJWT(jwt);
-
-                UserDetails userDetails = new UserPrincipal(userService.findUserById(Long.parseLong(userId)));
+            Claims claims = StringUtils.hasText(jwt) ? securityTokenService.verifyToken(jwt) : null;
+            if (claims != null && !tokenRevocationService.isRevoked(claims)) {
+                UserPrincipal userDetails = tokenRevocationService.hasRevokedClaims(claims) ? null : securityTokenService.principalFromClaims(claims);
+                if (userDetails == null) {
+                    long userId = Long.parseLong(claims.getSubject());
+                    userDetails = userPrincipalCache.get(userId);
+                    if (userDetails == null) {
+                        userDetails = new UserPrincipal(userService.findUserById(userId));
+                        userPrincipalCache.put(userDetails);
+                    }
+                }
                 UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
                 authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(httpServletRequest));
 
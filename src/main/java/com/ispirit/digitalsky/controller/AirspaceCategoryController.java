@@ -1,8 +1,12 @@
 package com.ispirit.digitalsky.controller;
 
 import com.ispirit.digitalsky.domain.AirspaceCategory;
+import com.ispirit.digitalsky.domain.AirspaceTile;
 import com.ispirit.digitalsky.service.api.AirspaceCategoryService;
+import com.ispirit.digitalsky.service.api.AirspaceTileService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -10,6 +14,7 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
+import java.util.Locale;
 
 import static com.ispirit.digitalsky.controller.AirspaceCategoryController.AIRSPACE_CATEGORY_BASE_PATH;
 
@@ -21,9 +26,12 @@ public class AirspaceCategoryController {
 
     private AirspaceCategoryService airspaceCategoryService;
 
+    private AirspaceTileService airspaceTileService;
+
     @Autowired
-    public AirspaceCategoryController(AirspaceCategoryService airspaceCategoryService) {
+    public AirspaceCategoryController(AirspaceCategoryService airspaceCategoryService, AirspaceTileService airspaceTileService) {
         this.airspaceCategoryService = airspaceCategoryService;
+        this.airspaceTileService = airspaceTileService;
     }
 
     @RequestMapping(method = RequestMethod.POST, consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
@@ -47,10 +55,66 @@ public class AirspaceCategoryController {
         return new ResponseEntity<>(airspaceCategoryService.find(id), HttpStatus.OK);
     }
 
+    @RequestMapping(value = "/{id}/impactReports", method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getImpactReports(@PathVariable(value = "id") long id) {
+        return new ResponseEntity<>(airspaceCategoryService.findImpactReports(id), HttpStatus.OK);
+    }
+
     @RequestMapping(value = "/list", method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<?> getAllAirspaceCategory() {
         return new ResponseEntity<>(airspaceCategoryService.findAll(), HttpStatus.OK);
     }
 
-}
+    @RequestMapping(value = "/tiles/{z}/{x}/{y}", method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> getAirspaceTile(@PathVariable(value = "z") int z, @PathVariable(value = "x") int x, @PathVariable(value = "y") int y,
+                                             @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                             @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        AirspaceTile tile = airspaceTileService.tile(z, x, y);
+        boolean gzip = acceptsGzip(acceptEncoding);
+        //the gzip and identity bodies differ byte for byte, so each gets its own strong validator
+        String eTag = gzip ? tile.getETag().replaceFirst("\"$", "-gzip\"") : tile.getETag();
+        if (ifNoneMatch != null && (ifNoneMatch.contains(eTag) || ifNoneMatch.trim().equals("*"))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING).build();
+        }
 
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(CacheControl.noCache())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .contentType(MediaType.APPLICATION_JSON);
+        if (gzip) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(tile.getGzippedContent());
+        }
+        return response.body(tile.getContent());
+    }
+
+    //gzip is served when listed, or covered by *, with a non-zero q-value
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) return false;
+        Double gzipQuality = null;
+        Double wildcardQuality = null;
+        for (String token : acceptEncoding.split(",")) {
+            String[] parts = token.split(";");
+            String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+            double quality = 1;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.length() > 2 && parameter.substring(0, 2).equalsIgnoreCase("q=")) {
+                    try {
+                        quality = Double.parseDouble(parameter.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                gzipQuality = gzipQuality == null ? quality : Math.max(gzipQuality, quality);
+            } else if (coding.equals("*")) {
+                wildcardQuality = quality;
+            }
+        }
+        if (gzipQuality != null) return gzipQuality > 0;
+        return wildcardQuality != null && wildcardQuality > 0;
+    }
+}
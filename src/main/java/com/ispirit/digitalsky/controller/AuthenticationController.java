@@ -11,8 +11,10 @@ import com.ispirit.digitalsky.repository.IndividualOperatorRepository;
 import com.ispirit.digitalsky.repository.OrganizationOperatorRepository;
 import com.ispirit.digitalsky.repository.PilotRepository;
 import com.ispirit.digitalsky.service.api.SecurityTokenService;
+import com.ispirit.digitalsky.service.api.TokenRevocationService;
 import com.ispirit.digitalsky.service.api.UserProfileService;
 import com.ispirit.digitalsky.util.AuthenticationUtil;
+import io.jsonwebtoken.Claims;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -21,8 +23,10 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -41,12 +45,15 @@ public class AuthenticationController {
 
     private UserProfileService userProfileService;
 
+    private TokenRevocationService tokenRevocationService;
+
 
     @Autowired
-    public AuthenticationController(AuthenticationManager authenticationManager, SecurityTokenService securityTokenService, UserProfileService userProfileService) {
+    public AuthenticationController(AuthenticationManager authenticationManager, SecurityTokenService securityTokenService, UserProfileService userProfileService, TokenRevocationService tokenRevocationService) {
         this.authenticationManager = authenticationManager;
         this.securityTokenService = securityTokenService;
         this.userProfileService = userProfileService;
+        this.tokenRevocationService = tokenRevocationService;
     }
 
     @PostMapping("/token")
@@ -73,4 +80,14 @@ public class AuthenticationController {
 
         return generateTokenResponse(userPrincipal, userProfileService.profile(userPrincipal.getId()), accessToken);
     }
+
+    @DeleteMapping("/token")
+    public ResponseEntity<?> revokeToken(@RequestHeader("Authorization") String authorization) {
+        Claims claims = authorization.startsWith("Bearer ") ? securityTokenService.verifyToken(authorization.substring(7)) : null;
+        if (claims == null) {
+            return new ResponseEntity<>(new Errors("Invalid token"), HttpStatus.BAD_REQUEST);
+        }
+        tokenRevocationService.revoke(claims);
+        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    }
 }
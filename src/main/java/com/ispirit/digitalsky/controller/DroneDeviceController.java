@@ -3,21 +3,28 @@ package com.ispirit.digitalsky.controller;
 import com.ispirit.digitalsky.domain.*;
 import com.ispirit.digitalsky.dto.Errors;
 import com.ispirit.digitalsky.exception.*;
+import com.ispirit.digitalsky.service.api.DroneDeviceRegistrationRecordService;
 import com.ispirit.digitalsky.service.api.DroneDeviceService;
 
 import com.ispirit.digitalsky.service.api.UserProfileService;
 
 import com.ispirit.digitalsky.util.CustomValidator;
 
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
 
 import static com.ispirit.digitalsky.controller.DroneDeviceController.DRONEDEVICE_RESOURCE_BASE_PATH;
+import static java.util.Arrays.asList;
 
 
 @RestController
@@ -25,21 +32,45 @@ import static com.ispirit.digitalsky.controller.DroneDeviceController.DRONEDEVIC
 public class DroneDeviceController {
     public static final String DRONEDEVICE_RESOURCE_BASE_PATH = "/api/droneDevice";
 
+    static final int MAX_BATCH_SIZE = 50000;
+
 
     private final DroneDeviceService droneDeviceService;
     private final UserProfileService userProfileService;
     private final CustomValidator validator;
+    private final DroneDeviceRegistrationRecordService registrationRecordService;
 
-    public DroneDeviceController(DroneDeviceService droneDeviceService, UserProfileService userProfileService, CustomValidator validator) {
+    public DroneDeviceController(DroneDeviceService droneDeviceService, UserProfileService userProfileService, CustomValidator validator, DroneDeviceRegistrationRecordService registrationRecordService) {
         this.droneDeviceService = droneDeviceService;
         this.userProfileService = userProfileService;
         this.validator = validator;
+        this.registrationRecordService = registrationRecordService;
     }
 
     @RequestMapping(value = "/register/{manufacturerBusinessIdentifier}", method = RequestMethod.POST, consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<?> registerDrone(@PathVariable String manufacturerBusinessIdentifier, @Valid @RequestBody RegisterDroneRequestPayload payload) {
 
+        //a retried transaction gets the original answer without redoing signature and certificate verification,
+        //but only when it is the very request that passed them; anything else reusing the transaction is a conflict
+        String requestDigest = registrationRecordService.requestDigest(payload);
+        RegisterDroneResponsePayload recordedPayload;
+        try {
+            recordedPayload = registrationRecordService.claim(manufacturerBusinessIdentifier, payload.getDrone().getTxn(), requestDigest);
+        } catch (DroneDeviceRegistrationConflictException | DroneDeviceRegistrationInProgressException e) {
+            return new ResponseEntity<>(getErrorPayload(RegisterDroneResponseCode.REGISTRATION_FAILED, payload.getDrone().getTxn(), new Errors(e.getMessage())), HttpStatus.CONFLICT);
+        }
+        if (recordedPayload != null) {
+            HttpStatus status = recordedPayload.getResponseCode() == RegisterDroneResponseCode.REGISTERED ? HttpStatus.CREATED : HttpStatus.BAD_REQUEST;
+            return new ResponseEntity<>(recordedPayload, status);
+        }
+
         RegisterDroneResponsePayload responsePayload = new RegisterDroneResponsePayload();
+        ResponseEntity<?> response = register(manufacturerBusinessIdentifier, payload, responsePayload);
+        registrationRecordService.record(manufacturerBusinessIdentifier, requestDigest, responsePayload);
+        return response;
+    }
+
+    private ResponseEntity<?> register(String manufacturerBusinessIdentifier, RegisterDroneRequestPayload payload, RegisterDroneResponsePayload responsePayload) {
         try {
             validator.validate(payload.getDrone());
             DroneDevice savedDevice = droneDeviceService.register(manufacturerBusinessIdentifier, payload);
@@ -96,6 +127,16 @@ public class DroneDeviceController {
         }
     }
 
+    @RequestMapping(value = "/batch/register/{manufacturerBusinessIdentifier}", method = RequestMethod.POST, consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> registerDrones(@PathVariable String manufacturerBusinessIdentifier, @RequestBody List<RegisterDroneRequestPayload> payloads) {
+        return processBatch(payloads, valid -> droneDeviceService.registerAll(manufacturerBusinessIdentifier, valid));
+    }
+
+    @RequestMapping(value = "/batch/deregister/{manufacturerBusinessIdentifier}", method = RequestMethod.PATCH, consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> deregisterDrones(@PathVariable String manufacturerBusinessIdentifier, @RequestBody List<RegisterDroneRequestPayload> payloads) {
+        return processBatch(payloads, valid -> droneDeviceService.deregisterAll(manufacturerBusinessIdentifier, valid));
+    }
+
     @RequestMapping(value = "/list", method = RequestMethod.GET, consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<?> list() {
         UserProfile profile = userProfileService.profile(UserPrincipal.securityContext().getId());
@@ -111,6 +152,61 @@ public class DroneDeviceController {
         return new ResponseEntity<>(operatorDrones, HttpStatus.OK);
     }
 
+    private ResponseEntity<?> processBatch(List<RegisterDroneRequestPayload> payloads, Function<List<RegisterDroneRequestPayload>, List<RegisterDroneResponsePayload>> processor) {
+        if (payloads.size() > MAX_BATCH_SIZE) {
+            return new ResponseEntity<>(new Errors("Batch cannot have more than " + MAX_BATCH_SIZE + " drone devices"), HttpStatus.BAD_REQUEST);
+        }
+
+        RegisterDroneResponsePayload[] responses = new RegisterDroneResponsePayload[payloads.size()];
+        List<RegisterDroneRequestPayload> validPayloads = new ArrayList<>();
+        List<Integer> validPositions = new ArrayList<>();
+        for (int index = 0; index < payloads.size(); index++) {
+            RegisterDroneRequestPayload payload = payloads.get(index);
+            try {
+                if (payload == null || payload.getDrone() == null || payload.getSignature() == null || payload.getDigitalCertificate() == null) {
+                    throw new ValidationException(new Errors("drone, signature and digitalCertificate are required"));
+                }
+                validator.validate(payload.getDrone());
+                validPayloads.add(payload);
+                validPositions.add(index);
+            } catch (ValidationException e) {
+                responses[index] = getErrorPayload(RegisterDroneResponseCode.BAD_REQUEST_PAYLOAD, payload != null && payload.getDrone() != null ? payload.getDrone().getTxn() : null, e.getErrors());
+            }
+        }
+
+        List<RegisterDroneResponsePayload> processed;
+        try {
+            processed = validPayloads.isEmpty() ? Collections.emptyList() : processor.apply(validPayloads);
+        } catch (ManufacturerNotFoundException e) {
+            return getResponseEntityForBatchErrors(payloads, RegisterDroneResponseCode.MANUFACTURER_BUSINESS_IDENTIFIER_INVALID, e.getMessage(), HttpStatus.BAD_REQUEST);
+        } catch (ManufacturerTrustedCertificateNotFoundException e) {
+            return getResponseEntityForBatchErrors(payloads, RegisterDroneResponseCode.MANUFACTURER_TRUSTED_CERTIFICATE_NOT_FOUND, e.getMessage(), HttpStatus.BAD_REQUEST);
+        } catch (DuplicateKeyException e) {
+            //a concurrent batch registered some of these devices first and this batch was rolled back, a retry reports them per item
+            return getResponseEntityForBatchErrors(payloads, RegisterDroneResponseCode.REGISTRATION_FAILED, "Drone devices were registered concurrently, retry the batch", HttpStatus.CONFLICT);
+        }
+        for (int index = 0; index < processed.size(); index++) {
+            responses[validPositions.get(index)] = processed.get(index);
+        }
+        return new ResponseEntity<>(asList(responses), HttpStatus.OK);
+    }
+
+    private ResponseEntity<?> getResponseEntityForBatchErrors(List<RegisterDroneRequestPayload> payloads, RegisterDroneResponseCode responseCode, String errorMessage, HttpStatus status) {
+        List<RegisterDroneResponsePayload> responses = new ArrayList<>(payloads.size());
+        for (RegisterDroneRequestPayload payload : payloads) {
+            responses.add(getErrorPayload(responseCode, payload != null && payload.getDrone() != null ? payload.getDrone().getTxn() : null, new Errors(errorMessage)));
+        }
+        return new ResponseEntity<>(responses, status);
+    }
+
+    private RegisterDroneResponsePayload getErrorPayload(RegisterDroneResponseCode responseCode, String txn, Errors errors) {
+        RegisterDroneResponsePayload payload = new RegisterDroneResponsePayload();
+        payload.setResponseCode(responseCode);
+        payload.setTxn(txn);
+        payload.setError(errors);
+        return payload;
+    }
+
     private ResponseEntity<?> getResponseEntityForRegistration(RegisterDroneResponsePayload payload, RegisterDroneResponseCode responseCode, String txn ) {
         payload.setResponseCode(responseCode);
         payload.setTxn(txn);
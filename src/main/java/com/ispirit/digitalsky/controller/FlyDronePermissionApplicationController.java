@@ -5,24 +5,33 @@ import com.cronutils.model.definition.CronDefinition;
 import com.cronutils.model.definition.CronDefinitionBuilder;
 import com.cronutils.parser.CronParser;
 import com.ispirit.digitalsky.document.FlyDronePermissionApplication;
+import com.ispirit.digitalsky.document.LatLong;
 import com.ispirit.digitalsky.domain.*;
 import com.ispirit.digitalsky.dto.Errors;
+import com.ispirit.digitalsky.dto.FlyAreaClassification;
+import com.ispirit.digitalsky.dto.PagedResponse;
 import com.ispirit.digitalsky.exception.*;
 import com.ispirit.digitalsky.service.api.FlyDronePermissionApplicationService;
 import com.ispirit.digitalsky.service.api.OperatorDroneService;
 import com.ispirit.digitalsky.service.api.UserProfileService;
 import com.ispirit.digitalsky.util.CustomValidator;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.Resource;
+import org.springframework.data.domain.Page;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -37,6 +46,10 @@ public class FlyDronePermissionApplicationController {
 
     public static final String APPLICATION_RESOURCE_BASE_PATH = "/api/applicationForm/flyDronePermissionApplication";
 
+    public static final int MAX_FLY_AREA_BATCH_SIZE = 1000;
+
+    public static final String PERMISSION_ARTIFACT_RETRY_AFTER_IN_SECONDS = "5";
+
     private FlyDronePermissionApplicationService service;
     private OperatorDroneService operatorDroneService;
     private UserProfileService userProfileService;
@@ -124,7 +137,7 @@ public class FlyDronePermissionApplicationController {
     }
 
     @RequestMapping(value = "/{applicationId}/document/permissionArtifact", method = RequestMethod.GET)
-    public ResponseEntity<?> getFile(@PathVariable String applicationId) {
+    public ResponseEntity<?> getFile(@PathVariable String applicationId, @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
 
         try {
             FlyDronePermissionApplication application = service.get(applicationId);
@@ -136,10 +149,22 @@ public class FlyDronePermissionApplicationController {
             if (!application.getStatus().equals(ApplicationStatus.APPROVED)) {
                 return new ResponseEntity<>(new Errors("Application Not Approved Yet"), HttpStatus.BAD_REQUEST);
             }
-            Resource resourceFile = service.getPermissionArtifact(applicationId);
+            if (application.getPermissionArtifactStatus() == PermissionArtifactStatus.READY && application.getPermissionArtifactHash() != null) {
+                String eTag = eTag(application.getPermissionArtifactHash());
+                if (ifNoneMatch != null && ifNoneMatch.contains(eTag)) {
+                    return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+                }
+            }
+            PermissionArtifact artifact = service.getPermissionArtifact(applicationId);
 
-            return ResponseEntity.ok().header(HttpHeaders.CONTENT_DISPOSITION,
-                    "attachment; filename=\"" + resourceFile.getFilename() + "\"").body(resourceFile);
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok().header(HttpHeaders.CONTENT_DISPOSITION,
+                    "attachment; filename=\"" + artifact.getResource().getFilename() + "\"");
+            if (artifact.getContentHash() != null) {
+                response.eTag(eTag(artifact.getContentHash())).cacheControl(CacheControl.noCache());
+            }
+            return response.body(artifact.getResource());
+        } catch (PermissionArtifactNotReadyException e) {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).header(HttpHeaders.RETRY_AFTER, PERMISSION_ARTIFACT_RETRY_AFTER_IN_SECONDS).body(new Errors(e.getMessage()));
         } catch (StorageFileNotFoundException e) {
             return new ResponseEntity<>(new Errors(e.getMessage()), HttpStatus.NOT_FOUND);
         }
@@ -158,6 +183,57 @@ public class FlyDronePermissionApplicationController {
         return new ResponseEntity<>(submittedApplications, HttpStatus.OK);
     }
 
+    @RequestMapping(value = "/region", method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> listApplicationsInRegion(@RequestParam("minLatitude") double minLatitude,
+                                                      @RequestParam("minLongitude") double minLongitude,
+                                                      @RequestParam("maxLatitude") double maxLatitude,
+                                                      @RequestParam("maxLongitude") double maxLongitude,
+                                                      @RequestParam("from") @DateTimeFormat(pattern = "dd-MM-yyyy HH:mm:ss") LocalDateTime from,
+                                                      @RequestParam("to") @DateTimeFormat(pattern = "dd-MM-yyyy HH:mm:ss") LocalDateTime to,
+                                                      @RequestParam(value = "page", defaultValue = "0") int page,
+                                                      @RequestParam(value = "size", defaultValue = "100") int size) {
+        Page<FlyDronePermissionApplication> applications = service.getApplicationsInRegion(minLatitude, minLongitude, maxLatitude, maxLongitude, from, to, page, size);
+        return new ResponseEntity<>(new PagedResponse<>(applications), HttpStatus.OK);
+    }
+
+    @RequestMapping(value = "/export/permissionArtifacts", method = RequestMethod.GET)
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> exportPermissionArtifacts(@RequestParam("approvedFrom") @DateTimeFormat(pattern = "dd-MM-yyyy HH:mm:ss") LocalDateTime approvedFrom,
+                                                       @RequestParam("approvedTo") @DateTimeFormat(pattern = "dd-MM-yyyy HH:mm:ss") LocalDateTime approvedTo) {
+        if (!approvedFrom.isBefore(approvedTo)) {
+            throw new ValidationException(new Errors("Invalid approved date range"));
+        }
+        Date from = Date.from(approvedFrom.atZone(ZoneId.systemDefault()).toInstant());
+        Date to = Date.from(approvedTo.atZone(ZoneId.systemDefault()).toInstant());
+        StreamingResponseBody body = outputStream -> service.exportPermissionArtifacts(from, to, outputStream);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"permissionArtifacts.zip\"")
+                .body(body);
+    }
+
+    @RequestMapping(value = "/flyArea/classify", method = RequestMethod.POST, consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> classifyFlyAreas(@RequestBody List<List<LatLong>> flyAreas) {
+        if (flyAreas == null || flyAreas.isEmpty()) {
+            throw new ValidationException(new Errors("Fly Areas required"));
+        }
+        if (flyAreas.size() > MAX_FLY_AREA_BATCH_SIZE) {
+            throw new ValidationException(new Errors(String.format("At most %d Fly Areas can be classified at once", MAX_FLY_AREA_BATCH_SIZE)));
+        }
+        List<FlyAreaClassification> classifications = service.classifyFlyAreas(flyAreas);
+        return new ResponseEntity<>(classifications, HttpStatus.OK);
+    }
+
+    @RequestMapping(value = "/flyArea/precheck", method = RequestMethod.POST, consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> precheckFlyArea(@RequestBody List<LatLong> flyArea) {
+        return new ResponseEntity<>(service.precheckFlyArea(flyArea), HttpStatus.OK);
+    }
+
+    private String eTag(String contentHash) {
+        return "\"" + contentHash + "\"";
+    }
+
     private void validateDroneId(long droneId) {
         OperatorDrone operatorDrone = operatorDroneService.find(droneId);
         if (operatorDrone == null) {
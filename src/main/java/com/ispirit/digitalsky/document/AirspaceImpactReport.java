@@ -0,0 +1,119 @@
+package com.ispirit.digitalsky.document;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.ispirit.digitalsky.domain.AirspaceCategory;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.annotation.TypeAlias;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+@Document(collection = "airspaceImpactReports")
+@TypeAlias("airspaceImpactReport")
+public class AirspaceImpactReport {
+
+    public enum Status {
+        IN_PROGRESS, COMPLETED, FAILED
+    }
+
+    @Id
+    @Field("id")
+    private String id;
+
+    @Field("airspaceCategoryId")
+    private long airspaceCategoryId;
+
+    @Field("airspaceCategoryType")
+    private AirspaceCategory.Type airspaceCategoryType;
+
+    @Field("airspaceSnapshotVersion")
+    private long airspaceSnapshotVersion;
+
+    @Field("status")
+    private Status status;
+
+    @Field("evaluatedApplicationCount")
+    private long evaluatedApplicationCount;
+
+    //stored one AirspaceImpactReportChunk per evaluated chunk, so the report itself stays small
+    @Transient
+    private List<String> affectedApplicationIds = new ArrayList<>();
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "dd-MM-yyyy HH:mm:ss")
+    @Field("createdDate")
+    private Date createdDate;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "dd-MM-yyyy HH:mm:ss")
+    @Field("completedDate")
+    private Date completedDate;
+
+    private AirspaceImpactReport() {
+        //for serialization and de-serialization
+    }
+
+    public AirspaceImpactReport(long airspaceCategoryId, AirspaceCategory.Type airspaceCategoryType, long airspaceSnapshotVersion) {
+        this.airspaceCategoryId = airspaceCategoryId;
+        this.airspaceCategoryType = airspaceCategoryType;
+        this.airspaceSnapshotVersion = airspaceSnapshotVersion;
+        this.status = Status.IN_PROGRESS;
+        this.createdDate = new Date();
+    }
+
+    public void addEvaluatedApplicationCount(int evaluatedCount) {
+        this.evaluatedApplicationCount += evaluatedCount;
+    }
+
+    public void addAffectedApplicationIds(List<String> applicationIds) {
+        this.affectedApplicationIds.addAll(applicationIds);
+    }
+
+    public void complete() {
+        this.status = Status.COMPLETED;
+        this.completedDate = new Date();
+    }
+
+    public void fail() {
+        this.status = Status.FAILED;
+        this.completedDate = new Date();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public long getAirspaceCategoryId() {
+        return airspaceCategoryId;
+    }
+
+    public AirspaceCategory.Type getAirspaceCategoryType() {
+        return airspaceCategoryType;
+    }
+
+    public long getAirspaceSnapshotVersion() {
+        return airspaceSnapshotVersion;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public long getEvaluatedApplicationCount() {
+        return evaluatedApplicationCount;
+    }
+
+    public List<String> getAffectedApplicationIds() {
+        return affectedApplicationIds;
+    }
+
+    public Date getCreatedDate() {
+        return createdDate;
+    }
+
+    public Date getCompletedDate() {
+        return completedDate;
+    }
+}
@@ -0,0 +1,62 @@
+package com.ispirit.digitalsky.document;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.TypeAlias;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.util.List;
+
+@Document(collection = "airspaceImpactReportChunks")
+@TypeAlias("airspaceImpactReportChunk")
+@CompoundIndex(name = "airspaceCategoryId_chunkIndex", def = "{'airspaceCategoryId': 1, 'chunkIndex': 1}")
+public class AirspaceImpactReportChunk {
+
+    @Id
+    @Field("id")
+    private String id;
+
+    @Field("reportId")
+    private String reportId;
+
+    @Field("airspaceCategoryId")
+    private long airspaceCategoryId;
+
+    @Field("chunkIndex")
+    private int chunkIndex;
+
+    @Field("affectedApplicationIds")
+    private List<String> affectedApplicationIds;
+
+    private AirspaceImpactReportChunk() {
+        //for serialization and de-serialization
+    }
+
+    public AirspaceImpactReportChunk(String reportId, long airspaceCategoryId, int chunkIndex, List<String> affectedApplicationIds) {
+        this.reportId = reportId;
+        this.airspaceCategoryId = airspaceCategoryId;
+        this.chunkIndex = chunkIndex;
+        this.affectedApplicationIds = affectedApplicationIds;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getReportId() {
+        return reportId;
+    }
+
+    public long getAirspaceCategoryId() {
+        return airspaceCategoryId;
+    }
+
+    public int getChunkIndex() {
+        return chunkIndex;
+    }
+
+    public List<String> getAffectedApplicationIds() {
+        return affectedApplicationIds;
+    }
+}
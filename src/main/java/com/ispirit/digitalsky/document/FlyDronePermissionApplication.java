@@ -1,12 +1,18 @@
 package com.ispirit.digitalsky.document;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.ispirit.digitalsky.domain.PermissionArtifactStatus;
 import com.ispirit.digitalsky.util.CustomLocalDateTimeDeSerializer;
 import com.ispirit.digitalsky.util.CustomLocalDateTimeSerializer;
 import com.ispirit.digitalsky.util.LocalDateTimeAttributeConverter;
 import org.springframework.data.annotation.TypeAlias;
+import org.springframework.data.mongodb.core.geo.GeoJsonPolygon;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.GeoSpatialIndexType;
+import org.springframework.data.mongodb.core.index.GeoSpatialIndexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 
@@ -19,6 +25,7 @@ import java.util.List;
 
 @Document(collection = "flyDronePermissionApplications")
 @TypeAlias("flyDronePermissionApplications")
+@CompoundIndex(name = "status_approvedDate", def = "{'status': 1, 'approvedDate': 1}")
 public class FlyDronePermissionApplication extends BasicApplication {
 
     @Field("pilotBusinessIdentifier")
@@ -34,6 +41,11 @@ public class FlyDronePermissionApplication extends BasicApplication {
     @NotNull
     private List<LatLong> flyArea;
 
+    @Field("flyAreaGeometry")
+    @GeoSpatialIndexed(type = GeoSpatialIndexType.GEO_2DSPHERE)
+    @JsonIgnore
+    private GeoJsonPolygon flyAreaGeometry;
+
     @Field("droneId")
     @NotNull
     private long droneId;
@@ -84,6 +96,22 @@ public class FlyDronePermissionApplication extends BasicApplication {
     @Size(max = 50)
     private String recurringTimeExpressionType;
 
+    @Field("airspaceSnapshotVersion")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long airspaceSnapshotVersion;
+
+    @Field("conflictingApplicationIds")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private List<String> conflictingApplicationIds;
+
+    @Field("permissionArtifactStatus")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private PermissionArtifactStatus permissionArtifactStatus;
+
+    @Field("permissionArtifactHash")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private String permissionArtifactHash;
+
 
     public FlyDronePermissionApplication() {
         setCreatedDate(new Date());
@@ -99,6 +127,14 @@ public class FlyDronePermissionApplication extends BasicApplication {
         this.flyArea = flyArea;
     }
 
+    public GeoJsonPolygon getFlyAreaGeometry() {
+        return flyAreaGeometry;
+    }
+
+    public void setFlyAreaGeometry(GeoJsonPolygon flyAreaGeometry) {
+        this.flyAreaGeometry = flyAreaGeometry;
+    }
+
     public long getDroneId() {
         return droneId;
     }
@@ -190,4 +226,36 @@ public class FlyDronePermissionApplication extends BasicApplication {
     public void setPilotId(long pilotId) {
         this.pilotId = pilotId;
     }
+
+    public Long getAirspaceSnapshotVersion() {
+        return airspaceSnapshotVersion;
+    }
+
+    public void setAirspaceSnapshotVersion(Long airspaceSnapshotVersion) {
+        this.airspaceSnapshotVersion = airspaceSnapshotVersion;
+    }
+
+    public List<String> getConflictingApplicationIds() {
+        return conflictingApplicationIds;
+    }
+
+    public void setConflictingApplicationIds(List<String> conflictingApplicationIds) {
+        this.conflictingApplicationIds = conflictingApplicationIds;
+    }
+
+    public PermissionArtifactStatus getPermissionArtifactStatus() {
+        return permissionArtifactStatus;
+    }
+
+    public void setPermissionArtifactStatus(PermissionArtifactStatus permissionArtifactStatus) {
+        this.permissionArtifactStatus = permissionArtifactStatus;
+    }
+
+    public String getPermissionArtifactHash() {
+        return permissionArtifactHash;
+    }
+
+    public void setPermissionArtifactHash(String permissionArtifactHash) {
+        this.permissionArtifactHash = permissionArtifactHash;
+    }
 }
@@ -0,0 +1,88 @@
+package com.ispirit.digitalsky.document;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.TypeAlias;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.util.Date;
+
+@Document(collection = "permissionArtifactJobs")
+@TypeAlias("permissionArtifactJob")
+@CompoundIndex(name = "status_availableAt", def = "{'status': 1, 'availableAt': 1}")
+public class PermissionArtifactJob {
+
+    public enum Status {
+        QUEUED, RUNNING
+    }
+
+    //keyed by application, so enqueueing the same application twice keeps a single job
+    @Id
+    @Field("id")
+    private String applicationId;
+
+    @Field("status")
+    private Status status;
+
+    @Field("attempts")
+    private int attempts;
+
+    @Field("availableAt")
+    private Date availableAt;
+
+    @Field("leaseExpiresAt")
+    private Date leaseExpiresAt;
+
+    @Field("lastError")
+    private String lastError;
+
+    @Field("createdDate")
+    private Date createdDate;
+
+    private PermissionArtifactJob() {
+        //for serialization and de-serialization
+    }
+
+    public PermissionArtifactJob(String applicationId) {
+        this.applicationId = applicationId;
+        this.status = Status.QUEUED;
+        this.createdDate = new Date();
+        this.availableAt = this.createdDate;
+    }
+
+    public void retryAt(Date availableAt, String error) {
+        this.status = Status.QUEUED;
+        this.availableAt = availableAt;
+        this.leaseExpiresAt = null;
+        this.lastError = error;
+    }
+
+    public String getApplicationId() {
+        return applicationId;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public Date getAvailableAt() {
+        return availableAt;
+    }
+
+    public Date getLeaseExpiresAt() {
+        return leaseExpiresAt;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public Date getCreatedDate() {
+        return createdDate;
+    }
+}
@@ -1,10 +1,15 @@
 package com.ispirit.digitalsky.domain;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonRawValue;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ispirit.digitalsky.util.GeometryUtil;
 import com.ispirit.digitalsky.util.LocalDateTimeAttributeConverter;
 import org.geojson.GeoJsonObject;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
@@ -12,6 +17,7 @@ import javax.validation.constraints.Size;
 import java.io.IOException;
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Entity
 @Table(name = "ds_airspace_category")
@@ -52,6 +58,31 @@ public class AirspaceCategory {
     @JsonIgnore
     private String geoJsonString;
 
+    @Lob
+    @Column(name = "GEOMETRY_WKB")
+    @JsonIgnore
+    private byte[] geometryWkb;
+
+    @Column(name = "MIN_LONGITUDE")
+    @JsonIgnore
+    private Double minLongitude;
+
+    @Column(name = "MIN_LATITUDE")
+    @JsonIgnore
+    private Double minLatitude;
+
+    @Column(name = "MAX_LONGITUDE")
+    @JsonIgnore
+    private Double maxLongitude;
+
+    @Column(name = "MAX_LATITUDE")
+    @JsonIgnore
+    private Double maxLatitude;
+
+    @Transient
+    @JsonIgnore
+    private volatile List<Geometry> geometries;
+
     @Column(name = "CREATED_BY_ID")
     @JsonIgnore
     private long createdById;
@@ -119,9 +150,35 @@ public class AirspaceCategory {
     }
 
     public GeoJsonObject getGeoJson() {
+        if (geoJson == null && geoJsonString != null) {
+            setGeoJsonFromString();
+        }
         return geoJson;
     }
 
+    @JsonIgnore
+    public List<Geometry> getGeometries() {
+        List<Geometry> result = geometries;
+        if (result == null) {
+            result = geometryWkb != null ? GeometryUtil.fromWkb(geometryWkb) : GeometryUtil.toGeometries(getGeoJson());
+            geometries = result;
+        }
+        return result;
+    }
+
+    @JsonIgnore
+    public Envelope getEnvelope() {
+        if (minLongitude == null) return GeometryUtil.envelopeOf(getGeometries());
+        return new Envelope(minLongitude, maxLongitude, minLatitude, maxLatitude);
+    }
+
+    @JsonProperty("geoJson")
+    @JsonRawValue
+    private String getRawGeoJson() {
+        //stored text is already GeoJSON, so responses can skip parsing and re-serializing it
+        return geoJsonString;
+    }
+
     public void setCreatedById(long createdById) {
         this.createdById = createdById;
     }
@@ -164,12 +221,36 @@ public class AirspaceCategory {
 
     public void setGeoJson(GeoJsonObject geoJson) {
         this.geoJson = geoJson;
+        this.geometries = null;
+        this.geometryWkb = null;
+        this.minLongitude = this.minLatitude = this.maxLongitude = this.maxLatitude = null;
     }
 
     public void setGeoJsonString(String geoJsonString) {
         this.geoJsonString = geoJsonString;
     }
 
+    @PrePersist
+    @PreUpdate
+    void encodeGeometry() {
+        if (geometryWkb != null || getGeoJson() == null) return;
+        List<Geometry> geometries;
+        try {
+            geometries = getGeometries();
+        } catch (IllegalArgumentException e) {
+            //malformed rings stay readable through the GeoJSON column
+            return;
+        }
+        geometryWkb = GeometryUtil.toWkb(geometries);
+        Envelope envelope = GeometryUtil.envelopeOf(geometries);
+        if (!envelope.isNull()) {
+            minLongitude = envelope.getMinX();
+            minLatitude = envelope.getMinY();
+            maxLongitude = envelope.getMaxX();
+            maxLatitude = envelope.getMaxY();
+        }
+    }
+
     public void setGeoJsonFromString(){
         try {
             this.geoJson = new ObjectMapper().readValue(geoJsonString, GeoJsonObject.class);
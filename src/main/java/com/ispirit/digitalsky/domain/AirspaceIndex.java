@@ -0,0 +1,115 @@
+package com.ispirit.digitalsky.domain;
+
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.prep.PreparedGeometry;
+import org.locationtech.jts.geom.prep.PreparedGeometryFactory;
+import org.locationtech.jts.index.strtree.STRtree;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+public class AirspaceIndex {
+
+    private final Map<AirspaceCategory.Type, STRtree> zonesByType;
+
+    private AirspaceIndex(Map<AirspaceCategory.Type, STRtree> zonesByType) {
+        this.zonesByType = zonesByType;
+    }
+
+    public static AirspaceIndex build(Collection<AirspaceCategory> airspaceCategories) {
+        Map<AirspaceCategory.Type, STRtree> zonesByType = new EnumMap<>(AirspaceCategory.Type.class);
+        for (AirspaceCategory.Type type : AirspaceCategory.Type.values()) {
+            zonesByType.put(type, new STRtree());
+        }
+
+        PreparedGeometryFactory preparedGeometryFactory = new PreparedGeometryFactory();
+        for (AirspaceCategory airspaceCategory : airspaceCategories) {
+            STRtree tree = zonesByType.get(airspaceCategory.getType());
+            for (Geometry geometry : airspaceCategory.getGeometries()) {
+                Zone zone = new Zone(airspaceCategory.getId(), airspaceCategory.getType(), geometry, preparedGeometryFactory.create(geometry));
+                tree.insert(geometry.getEnvelopeInternal(), zone);
+            }
+        }
+
+        //building upfront makes the trees read-only, so queries are safe from any thread
+        for (STRtree tree : zonesByType.values()) {
+            tree.build();
+        }
+        return new AirspaceIndex(zonesByType);
+    }
+
+    public boolean isWithin(AirspaceCategory.Type type, Geometry geometry) {
+        for (Zone zone : candidates(type, geometry)) {
+            if (zone.getPreparedGeometry().contains(geometry)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean intersects(AirspaceCategory.Type type, Geometry geometry) {
+        for (Zone zone : candidates(type, geometry)) {
+            if (zone.getPreparedGeometry().intersects(geometry)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public List<Long> intersectingCategoryIds(AirspaceCategory.Type type, Geometry geometry) {
+        TreeSet<Long> result = new TreeSet<>();
+        for (Zone zone : candidates(type, geometry)) {
+            if (!result.contains(zone.getAirspaceCategoryId()) && zone.getPreparedGeometry().intersects(geometry)) {
+                result.add(zone.getAirspaceCategoryId());
+            }
+        }
+        return new ArrayList<>(result);
+    }
+
+    public int size(AirspaceCategory.Type type) {
+        return zonesByType.get(type).size();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Zone> candidates(AirspaceCategory.Type type, Geometry geometry) {
+        return zonesByType.get(type).query(geometry.getEnvelopeInternal());
+    }
+
+    public static class Zone {
+
+        private final long airspaceCategoryId;
+
+        private final AirspaceCategory.Type type;
+
+        private final Geometry geometry;
+
+        private final PreparedGeometry preparedGeometry;
+
+        Zone(long airspaceCategoryId, AirspaceCategory.Type type, Geometry geometry, PreparedGeometry preparedGeometry) {
+            this.airspaceCategoryId = airspaceCategoryId;
+            this.type = type;
+            this.geometry = geometry;
+            this.preparedGeometry = preparedGeometry;
+        }
+
+        public long getAirspaceCategoryId() {
+            return airspaceCategoryId;
+        }
+
+        public AirspaceCategory.Type getType() {
+            return type;
+        }
+
+        public Geometry getGeometry() {
+            return geometry;
+        }
+
+        public PreparedGeometry getPreparedGeometry() {
+            return preparedGeometry;
+        }
+    }
+}
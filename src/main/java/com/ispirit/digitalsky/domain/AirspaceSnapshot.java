@@ -0,0 +1,71 @@
+package com.ispirit.digitalsky.domain;
+
+import org.geojson.FeatureCollection;
+import org.geojson.GeoJsonObject;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+public class AirspaceSnapshot {
+
+    private final long version;
+
+    private final AirspaceIndex index;
+
+    private final Collection<AirspaceCategory> airspaceCategories;
+
+    private volatile Map<AirspaceCategory.Type, GeoJsonObject> geoJsonByType;
+
+    private AirspaceSnapshot(long version, AirspaceIndex index, Collection<AirspaceCategory> airspaceCategories) {
+        this.version = version;
+        this.index = index;
+        this.airspaceCategories = airspaceCategories;
+    }
+
+    public static AirspaceSnapshot build(long version, Collection<AirspaceCategory> airspaceCategories) {
+        return new AirspaceSnapshot(version, AirspaceIndex.build(airspaceCategories), Collections.unmodifiableList(new ArrayList<>(airspaceCategories)));
+    }
+
+    private static Map<AirspaceCategory.Type, GeoJsonObject> groupGeoJsonByType(Collection<AirspaceCategory> airspaceCategories) {
+        Map<AirspaceCategory.Type, GeoJsonObject> geoJsonByType = new EnumMap<>(AirspaceCategory.Type.class);
+        for (AirspaceCategory airspaceCategory : airspaceCategories) {
+            FeatureCollection featureCollection = (FeatureCollection) geoJsonByType.get(airspaceCategory.getType());
+            if (featureCollection == null) {
+                featureCollection = new FeatureCollection();
+                geoJsonByType.put(airspaceCategory.getType(), featureCollection);
+            }
+            featureCollection.getFeatures().addAll(((FeatureCollection) airspaceCategory.getGeoJson()).getFeatures());
+        }
+        return Collections.unmodifiableMap(geoJsonByType);
+    }
+
+    /**
+     * Assigned by the publisher and strictly increasing across publishes, so caches keyed by it never serve an older snapshot.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public AirspaceIndex getIndex() {
+        return index;
+    }
+
+    public Collection<AirspaceCategory> getAirspaceCategories() {
+        return airspaceCategories;
+    }
+
+    /**
+     * Grouped on first use, so the validation path never has to parse GeoJSON.
+     */
+    public Map<AirspaceCategory.Type, GeoJsonObject> getGeoJsonByType() {
+        Map<AirspaceCategory.Type, GeoJsonObject> result = geoJsonByType;
+        if (result == null) {
+            result = groupGeoJsonByType(airspaceCategories);
+            geoJsonByType = result;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,35 @@
+package com.ispirit.digitalsky.domain;
+
+public class AirspaceTile {
+
+    private final long airspaceSnapshotVersion;
+
+    private final String eTag;
+
+    private final byte[] content;
+
+    private final byte[] gzippedContent;
+
+    public AirspaceTile(long airspaceSnapshotVersion, String eTag, byte[] content, byte[] gzippedContent) {
+        this.airspaceSnapshotVersion = airspaceSnapshotVersion;
+        this.eTag = eTag;
+        this.content = content;
+        this.gzippedContent = gzippedContent;
+    }
+
+    public long getAirspaceSnapshotVersion() {
+        return airspaceSnapshotVersion;
+    }
+
+    public String getETag() {
+        return eTag;
+    }
+
+    public byte[] getContent() {
+        return content;
+    }
+
+    public byte[] getGzippedContent() {
+        return gzippedContent;
+    }
+}
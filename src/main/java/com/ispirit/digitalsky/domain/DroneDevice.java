@@ -15,6 +15,9 @@ import java.time.LocalDate;
 @Table(name = "ds_drone_device")
 public class DroneDevice implements Serializable {
 
+    //manufacturers sign the java serialized form, so the stream must not change with the class shape
+    private static final long serialVersionUID = 3959963754430743379L;
+
     @JsonIgnore
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO)
@@ -96,6 +99,9 @@ public class DroneDevice implements Serializable {
         this.idHash = idHash;
     }
 
+    public long getId() {
+        return id;
+    }
 
     public long getDroneTypeId() {
         return droneTypeId;
@@ -168,4 +174,21 @@ public class DroneDevice implements Serializable {
     public DroneDeviceRegistrationStatus getRegistrationStatus() { return registrationStatus; }
 
     public void setRegistrationStatus(DroneDeviceRegistrationStatus registrationStatus) { this.registrationStatus = registrationStatus; }
+
+    //derived through accessors rather than fields so the serialized fields stay the same
+    @Access(AccessType.PROPERTY)
+    @Column(name = "LOWER_CASE_UNIQUE_DEVICE_ID")
+    String getLowerCaseDeviceId() { return LookupKeyUtil.toLookupKey(deviceId); }
+
+    private void setLowerCaseDeviceId(String lowerCaseDeviceId) {
+        //derived from deviceId
+    }
+
+    @Access(AccessType.PROPERTY)
+    @Column(name = "LOWER_CASE_OPERATOR_BUSINESS_IDENTIFIER")
+    String getLowerCaseOperatorBusinessIdentifier() { return LookupKeyUtil.toLookupKey(operatorBusinessIdentifier); }
+
+    private void setLowerCaseOperatorBusinessIdentifier(String lowerCaseOperatorBusinessIdentifier) {
+        //derived from operatorBusinessIdentifier
+    }
 }
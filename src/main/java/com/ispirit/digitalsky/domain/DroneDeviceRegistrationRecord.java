@@ -0,0 +1,103 @@
+package com.ispirit.digitalsky.domain;
+
+import com.ispirit.digitalsky.util.LocalDateTimeAttributeConverter;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+import java.util.Date;
+
+@Entity
+@Table(name = "ds_drone_device_registration_record")
+public class DroneDeviceRegistrationRecord {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private long id;
+
+    @Column(name = "MANUFACTURER_BUSINESS_IDENTIFIER", nullable = false)
+    private String manufacturerBusinessIdentifier;
+
+    @Column(name = "TXN", nullable = false)
+    private String txn;
+
+    @Column(name = "REQUEST_DIGEST", nullable = false)
+    private String requestDigest;
+
+    //null while the registration that claimed the transaction is in progress
+    @Column(name = "RESPONSE_CODE")
+    @Enumerated(EnumType.STRING)
+    private RegisterDroneResponseCode responseCode;
+
+    @Column(name = "ERROR_MESSAGE")
+    private String errorMessage;
+
+    @Column(name = "RESPONSE_TIMESTAMP")
+    @Convert(converter = LocalDateTimeAttributeConverter.class)
+    private LocalDateTime responseTimeStamp;
+
+    @Column(name = "EXPIRES_AT", nullable = false)
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date expiresAt;
+
+    private DroneDeviceRegistrationRecord() {
+        //for serialization and de-serialization
+    }
+
+    public DroneDeviceRegistrationRecord(String manufacturerBusinessIdentifier, String txn, String requestDigest) {
+        this.manufacturerBusinessIdentifier = manufacturerBusinessIdentifier;
+        this.txn = txn;
+        this.requestDigest = requestDigest;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getManufacturerBusinessIdentifier() {
+        return manufacturerBusinessIdentifier;
+    }
+
+    public String getTxn() {
+        return txn;
+    }
+
+    public String getRequestDigest() {
+        return requestDigest;
+    }
+
+    public boolean isPending() {
+        return responseCode == null;
+    }
+
+    public RegisterDroneResponseCode getResponseCode() {
+        return responseCode;
+    }
+
+    public void setResponseCode(RegisterDroneResponseCode responseCode) {
+        this.responseCode = responseCode;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+
+    public LocalDateTime getResponseTimeStamp() {
+        return responseTimeStamp;
+    }
+
+    public void setResponseTimeStamp(LocalDateTime responseTimeStamp) {
+        this.responseTimeStamp = responseTimeStamp;
+    }
+
+    public Date getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Date expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
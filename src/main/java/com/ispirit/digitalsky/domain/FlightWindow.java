@@ -0,0 +1,31 @@
+package com.ispirit.digitalsky.domain;
+
+import java.time.LocalDateTime;
+
+public class FlightWindow {
+
+    private final LocalDateTime start;
+
+    private final LocalDateTime end;
+
+    public FlightWindow(LocalDateTime start, LocalDateTime end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    public LocalDateTime getStart() {
+        return start;
+    }
+
+    public LocalDateTime getEnd() {
+        return end;
+    }
+
+    public boolean overlaps(FlightWindow other) {
+        return start.isBefore(other.end) && other.start.isBefore(end);
+    }
+
+    public boolean contains(LocalDateTime instant) {
+        return !instant.isBefore(start) && instant.isBefore(end);
+    }
+}
@@ -4,6 +4,7 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import com.ispirit.digitalsky.util.BusinessIdentifierGenerator;
+import com.ispirit.digitalsky.util.LookupKeyUtil;
 import org.springframework.web.multipart.MultipartFile;
 
 import javax.persistence.*;
@@ -36,6 +37,10 @@ public class Manufacturer extends Organisation {
     @JsonProperty(access = JsonProperty.Access.READ_ONLY)
     private String businessIdentifier;
 
+    @Column(name = "SIGNING_PAYLOAD_FORMAT")
+    @Enumerated(EnumType.STRING)
+    private SigningPayloadFormat signingPayloadFormat = SigningPayloadFormat.JAVA_SERIALIZATION;
+
     private Manufacturer() {
         //for serialization and de-serialization
         businessIdentifier = BusinessIdentifierGenerator.generateManufacturerBusinessIdentifier();
@@ -81,4 +86,15 @@ public class Manufacturer extends Organisation {
 
     public String getBusinessIdentifier() { return businessIdentifier; }
 
+    public SigningPayloadFormat getSigningPayloadFormat() { return signingPayloadFormat; }
+
+    public void setSigningPayloadFormat(SigningPayloadFormat signingPayloadFormat) { this.signingPayloadFormat = signingPayloadFormat; }
+
+    @Access(AccessType.PROPERTY)
+    @Column(name = "LOWER_CASE_BUSINESS_IDENTIFIER")
+    String getLowerCaseBusinessIdentifier() { return LookupKeyUtil.toLookupKey(businessIdentifier); }
+
+    private void setLowerCaseBusinessIdentifier(String lowerCaseBusinessIdentifier) {
+        //derived from businessIdentifier
+    }
 }
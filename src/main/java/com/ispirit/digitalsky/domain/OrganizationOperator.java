@@ -4,6 +4,7 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import com.ispirit.digitalsky.util.BusinessIdentifierGenerator;
+import com.ispirit.digitalsky.util.LookupKeyUtil;
 
 import javax.persistence.*;
 import java.util.List;
@@ -68,4 +69,12 @@ public class OrganizationOperator extends Organisation {
     }
 
     public String getBusinessIdentifier() { return businessIdentifier; }
+
+    @Access(AccessType.PROPERTY)
+    @Column(name = "LOWER_CASE_BUSINESS_IDENTIFIER")
+    String getLowerCaseBusinessIdentifier() { return LookupKeyUtil.toLookupKey(businessIdentifier); }
+
+    private void setLowerCaseBusinessIdentifier(String lowerCaseBusinessIdentifier) {
+        //derived from businessIdentifier
+    }
 }
@@ -0,0 +1,26 @@
+package com.ispirit.digitalsky.domain;
+
+import org.springframework.core.io.Resource;
+
+public class PermissionArtifact {
+
+    private final Resource resource;
+
+    private final String contentHash;
+
+    public PermissionArtifact(Resource resource, String contentHash) {
+        this.resource = resource;
+        this.contentHash = contentHash;
+    }
+
+    public Resource getResource() {
+        return resource;
+    }
+
+    /**
+     * Hex encoded SHA-256 of the stored artifact.
+     */
+    public String getContentHash() {
+        return contentHash;
+    }
+}
@@ -0,0 +1,5 @@
+package com.ispirit.digitalsky.domain;
+
+public enum PermissionArtifactStatus {
+    PENDING, READY, FAILED
+}
@@ -5,6 +5,7 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import com.ispirit.digitalsky.util.BusinessIdentifierGenerator;
+import com.ispirit.digitalsky.util.LookupKeyUtil;
 import org.springframework.web.multipart.MultipartFile;
 
 import javax.persistence.*;
@@ -113,4 +114,12 @@ public class Pilot extends Person {
     public void setEmail(String email) {
         this.email = email;
     }
+
+    @Access(AccessType.PROPERTY)
+    @Column(name = "LOWER_CASE_BUSINESS_IDENTIFIER")
+    String getLowerCaseBusinessIdentifier() { return LookupKeyUtil.toLookupKey(businessIdentifier); }
+
+    private void setLowerCaseBusinessIdentifier(String lowerCaseBusinessIdentifier) {
+        //derived from businessIdentifier
+    }
 }
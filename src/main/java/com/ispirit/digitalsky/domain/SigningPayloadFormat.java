@@ -0,0 +1,12 @@
+package com.ispirit.digitalsky.domain;
+
+public enum SigningPayloadFormat {
+
+    JAVA_SERIALIZATION,
+
+    /**
+     * UTF-8 JSON object of the drone's string fields with keys in lexicographic order, no whitespace,
+     * nulls written as null and only quote, backslash and control characters escaped.
+     */
+    CANONICAL_JSON_V1
+}
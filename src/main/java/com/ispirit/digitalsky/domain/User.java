@@ -2,6 +2,7 @@ package com.ispirit.digitalsky.domain;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.ispirit.digitalsky.util.LookupKeyUtil;
 import org.hibernate.validator.constraints.Email;
 
 import javax.persistence.*;
@@ -58,7 +59,7 @@ public class User {
     private List<UserRole> roles = new ArrayList<>();
 
     @OneToMany(fetch = FetchType.LAZY)
-    @JoinColumn(name = "USER_ID")
+    @JoinColumn(name = "USER_ID", insertable = false, updatable = false)
     @JsonIgnore
     private List<UserActiveSession> activeSessions = new ArrayList<>();
 
@@ -149,4 +150,12 @@ public class User {
     public void setReCaptcha(String reCaptcha) {
         this.reCaptcha = reCaptcha;
     }
+
+    @Access(AccessType.PROPERTY)
+    @Column(name = "LOWER_CASE_EMAIL")
+    String getLowerCaseEmail() { return LookupKeyUtil.toLookupKey(email); }
+
+    private void setLowerCaseEmail(String lowerCaseEmail) {
+        //derived from email
+    }
 }
@@ -1,7 +1,7 @@
 package com.ispirit.digitalsky.domain;
 
 import javax.persistence.*;
-import java.time.LocalDateTime;
+import java.util.Date;
 
 @Entity
 @Table(name = "ds_user_active_session")
@@ -11,18 +11,29 @@ public class UserActiveSession {
     @GeneratedValue(strategy =  GenerationType.AUTO)
     private long id;
 
+    @Column(name = "USER_ID")
+    private long userId;
+
+    //id of a revoked token, or null when the row revokes the claims of every token issued before issuedBefore
     @Column(name = "TOKEN")
     private String token;
 
-    @Column(name = "TIMESTAMP")
-    private LocalDateTime validity;
+    @Column(name = "ISSUED_BEFORE")
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date issuedBefore;
+
+    @Column(name = "VALIDITY", nullable = false)
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date validity;
 
     private UserActiveSession() {
         //for serialization and de-serialization
     }
 
-    public UserActiveSession(String token, LocalDateTime validity) {
+    public UserActiveSession(long userId, String token, Date issuedBefore, Date validity) {
+        this.userId = userId;
         this.token = token;
+        this.issuedBefore = issuedBefore;
         this.validity = validity;
     }
 
@@ -30,11 +41,19 @@ public class UserActiveSession {
         return id;
     }
 
+    public long getUserId() {
+        return userId;
+    }
+
     public String getToken() {
         return token;
     }
 
-    public LocalDateTime getValidity() {
+    public Date getIssuedBefore() {
+        return issuedBefore;
+    }
+
+    public Date getValidity() {
         return validity;
     }
 }
@@ -18,6 +18,7 @@ public class UserPrincipal implements UserDetails {
     private String password;
     private List<GrantedAuthority> authorityList;
     private boolean accountVerified = false;
+    private UserProfile profile;
 
     public static UserPrincipal securityContext() {
         return (UserPrincipal) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
@@ -34,6 +35,15 @@ public class UserPrincipal implements UserDetails {
 
     }
 
+    public UserPrincipal(long id, String name, String email, List<String> roles, UserProfile profile) {
+        this.id = id;
+        this.name = name;
+        this.email = email;
+        this.accountVerified = true;
+        this.authorityList = unmodifiableList(toAuthorityGrantList(roles));
+        this.profile = profile;
+    }
+
     private List<GrantedAuthority> toAuthorityGrantList(List<String> roles) {
         List<GrantedAuthority> authorityGrantList = new ArrayList<>();
         if (roles == null) return authorityGrantList;
@@ -64,6 +74,10 @@ public class UserPrincipal implements UserDetails {
         return email;
     }
 
+    public UserProfile getProfile() {
+        return profile;
+    }
+
     @Override
     public boolean isAccountNonExpired() {
         return true;
@@ -0,0 +1,73 @@
+package com.ispirit.digitalsky.dto;
+
+import java.util.Collections;
+import java.util.List;
+
+public class FlyAreaClassification {
+
+    private long airspaceSnapshotVersion;
+
+    private boolean withinGreenZone;
+
+    private boolean intersectsAmberZone;
+
+    private boolean intersectsRedZone;
+
+    private List<Long> amberZoneIds = Collections.emptyList();
+
+    private List<Long> redZoneIds = Collections.emptyList();
+
+    private String error;
+
+    private FlyAreaClassification() {
+        //for serialization and de-serialization
+    }
+
+    public FlyAreaClassification(long airspaceSnapshotVersion, boolean withinGreenZone, boolean intersectsAmberZone, boolean intersectsRedZone) {
+        this.airspaceSnapshotVersion = airspaceSnapshotVersion;
+        this.withinGreenZone = withinGreenZone;
+        this.intersectsAmberZone = intersectsAmberZone;
+        this.intersectsRedZone = intersectsRedZone;
+    }
+
+    public FlyAreaClassification(long airspaceSnapshotVersion, boolean withinGreenZone, List<Long> amberZoneIds, List<Long> redZoneIds) {
+        this(airspaceSnapshotVersion, withinGreenZone, !amberZoneIds.isEmpty(), !redZoneIds.isEmpty());
+        this.amberZoneIds = amberZoneIds;
+        this.redZoneIds = redZoneIds;
+    }
+
+    public static FlyAreaClassification invalid(long airspaceSnapshotVersion, String error) {
+        FlyAreaClassification classification = new FlyAreaClassification();
+        classification.airspaceSnapshotVersion = airspaceSnapshotVersion;
+        classification.error = error;
+        return classification;
+    }
+
+    public long getAirspaceSnapshotVersion() {
+        return airspaceSnapshotVersion;
+    }
+
+    public boolean isWithinGreenZone() {
+        return withinGreenZone;
+    }
+
+    public boolean isIntersectsAmberZone() {
+        return intersectsAmberZone;
+    }
+
+    public boolean isIntersectsRedZone() {
+        return intersectsRedZone;
+    }
+
+    public List<Long> getAmberZoneIds() {
+        return amberZoneIds;
+    }
+
+    public List<Long> getRedZoneIds() {
+        return redZoneIds;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
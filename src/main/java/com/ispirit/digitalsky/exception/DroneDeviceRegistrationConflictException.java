@@ -0,0 +1,8 @@
+package com.ispirit.digitalsky.exception;
+
+public class DroneDeviceRegistrationConflictException extends RuntimeException {
+
+    public DroneDeviceRegistrationConflictException() {
+        super("Transaction was already used for a different registration request");
+    }
+}
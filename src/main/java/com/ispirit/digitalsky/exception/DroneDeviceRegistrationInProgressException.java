@@ -0,0 +1,8 @@
+package com.ispirit.digitalsky.exception;
+
+public class DroneDeviceRegistrationInProgressException extends RuntimeException {
+
+    public DroneDeviceRegistrationInProgressException() {
+        super("Registration request with this transaction is still in progress");
+    }
+}
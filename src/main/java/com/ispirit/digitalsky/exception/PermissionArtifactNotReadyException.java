@@ -0,0 +1,8 @@
+package com.ispirit.digitalsky.exception;
+
+public class PermissionArtifactNotReadyException extends RuntimeException {
+
+    public PermissionArtifactNotReadyException() {
+        super("Permission artifact is being generated, try again shortly");
+    }
+}
@@ -0,0 +1,11 @@
+package com.ispirit.digitalsky.repository;
+
+import com.ispirit.digitalsky.document.AirspaceImpactReportChunk;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.util.List;
+
+public interface AirspaceImpactReportChunkRepository extends MongoRepository<AirspaceImpactReportChunk, String> {
+
+    List<AirspaceImpactReportChunk> findByAirspaceCategoryIdOrderByChunkIndexAsc(long airspaceCategoryId);
+}
@@ -0,0 +1,11 @@
+package com.ispirit.digitalsky.repository;
+
+import com.ispirit.digitalsky.document.AirspaceImpactReport;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.util.List;
+
+public interface AirspaceImpactReportRepository extends MongoRepository<AirspaceImpactReport, String> {
+
+    List<AirspaceImpactReport> findByAirspaceCategoryIdOrderByCreatedDateDesc(long airspaceCategoryId);
+}
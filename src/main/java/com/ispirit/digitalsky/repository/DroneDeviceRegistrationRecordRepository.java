@@ -0,0 +1,31 @@
+package com.ispirit.digitalsky.repository;
+
+import com.ispirit.digitalsky.domain.DroneDeviceRegistrationRecord;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Date;
+
+public interface DroneDeviceRegistrationRecordRepository extends CrudRepository<DroneDeviceRegistrationRecord, Long> {
+
+    @Query("SELECT r FROM DroneDeviceRegistrationRecord r WHERE r.manufacturerBusinessIdentifier = :manufacturerBusinessIdentifier AND r.txn = :txn")
+    DroneDeviceRegistrationRecord find(@Param("manufacturerBusinessIdentifier") String manufacturerBusinessIdentifier, @Param("txn") String txn);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM DroneDeviceRegistrationRecord r WHERE r.expiresAt <= :now")
+    int deleteExpired(@Param("now") Date now);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM DroneDeviceRegistrationRecord r WHERE r.id = :id AND r.expiresAt <= :now")
+    int deleteIfExpired(@Param("id") long id, @Param("now") Date now);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM DroneDeviceRegistrationRecord r WHERE r.manufacturerBusinessIdentifier = :manufacturerBusinessIdentifier AND r.txn = :txn AND r.requestDigest = :requestDigest AND r.responseCode IS NULL")
+    int deleteClaim(@Param("manufacturerBusinessIdentifier") String manufacturerBusinessIdentifier, @Param("txn") String txn, @Param("requestDigest") String requestDigest);
+}
@@ -6,13 +6,17 @@ import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
 
 import java.util.Collection;
+import java.util.List;
 
-public interface DroneDeviceRepository extends CrudRepository<DroneDevice, Long> {
+public interface DroneDeviceRepository extends CrudRepository<DroneDevice, Long>, DroneDeviceRepositoryCustom {
 
-    @Query("SELECT d FROM DroneDevice d WHERE LOWER(d.deviceId) = LOWER(:uniqueDeviceCode)")
+    @Query("SELECT d FROM DroneDevice d WHERE d.lowerCaseDeviceId = LOWER(:uniqueDeviceCode)")
     DroneDevice findByDeviceId(@Param("uniqueDeviceCode") String uniqueDeviceCode);
 
-    @Query("SELECT d.deviceId FROM DroneDevice d WHERE LOWER(d.operatorBusinessIdentifier) = LOWER(:operatorBusinessIdentifier) AND d.registrationStatus = 'REGISTERED'")
+    @Query("SELECT d.deviceId FROM DroneDevice d WHERE d.lowerCaseOperatorBusinessIdentifier = LOWER(:operatorBusinessIdentifier) AND d.registrationStatus = 'REGISTERED'")
     Collection<String> findRegisteredDroneDeviceIds(@Param("operatorBusinessIdentifier") String operatorBusinessIdentifier);
 
+    @Query("SELECT d FROM DroneDevice d WHERE d.lowerCaseDeviceId IN :lowerCaseDeviceIds")
+    List<DroneDevice> findByLowerCaseDeviceIds(@Param("lowerCaseDeviceIds") Collection<String> lowerCaseDeviceIds);
+
 }
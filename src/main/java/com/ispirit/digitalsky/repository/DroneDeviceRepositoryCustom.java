@@ -0,0 +1,15 @@
+package com.ispirit.digitalsky.repository;
+
+import com.ispirit.digitalsky.domain.DroneDevice;
+
+import java.util.List;
+
+public interface DroneDeviceRepositoryCustom {
+
+    /**
+     * Throws DuplicateKeyException when any of the device ids is already stored, leaving the caller's transaction to discard the batch.
+     */
+    void insertAll(List<DroneDevice> drones);
+
+    void updateRegistrationStatuses(List<DroneDevice> drones);
+}
@@ -0,0 +1,54 @@
+package com.ispirit.digitalsky.repository;
+
+import com.ispirit.digitalsky.domain.DroneDevice;
+import com.ispirit.digitalsky.util.LookupKeyUtil;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.util.List;
+
+public class DroneDeviceRepositoryImpl implements DroneDeviceRepositoryCustom {
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final String INSERT = "INSERT INTO ds_drone_device (MANUFACTURER_BUSINESS_IDENTIFIER, UNIQUE_DEVICE_ID, DEVICE_MODEL_ID, DRONE_TYPE_ID, " +
+            "OPERATOR_BUSINESS_IDENTIFIER, VERSION, TXN, ID_HASH, CREATED_DATE, REGISTRATION_STATUS, LOWER_CASE_UNIQUE_DEVICE_ID, " +
+            "LOWER_CASE_OPERATOR_BUSINESS_IDENTIFIER) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String UPDATE_REGISTRATION_STATUS = "UPDATE ds_drone_device SET REGISTRATION_STATUS = ?, LAST_MODIFIED_DATE = ? WHERE ID = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public DroneDeviceRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void insertAll(List<DroneDevice> drones) {
+        //identity ids rule out hibernate insert batching, so the rows go through a plain JDBC batch
+        //the unique lower case device id index rejects devices a concurrent batch inserted after the caller's existence check
+        jdbcTemplate.batchUpdate(INSERT, drones, BATCH_SIZE, (statement, drone) -> {
+            statement.setString(1, drone.getManufacturerBusinessIdentifier());
+            statement.setString(2, drone.getDeviceId());
+            statement.setString(3, drone.getDeviceModelId());
+            statement.setLong(4, drone.getDroneTypeId());
+            statement.setString(5, drone.getOperatorBusinessIdentifier());
+            statement.setString(6, drone.getVersion());
+            statement.setString(7, drone.getTxn());
+            statement.setString(8, drone.getIdHash());
+            statement.setDate(9, drone.getCreatedDate() != null ? Date.valueOf(drone.getCreatedDate()) : null);
+            statement.setString(10, drone.getRegistrationStatus().name());
+            statement.setString(11, LookupKeyUtil.toLookupKey(drone.getDeviceId()));
+            statement.setString(12, LookupKeyUtil.toLookupKey(drone.getOperatorBusinessIdentifier()));
+        });
+    }
+
+    @Override
+    public void updateRegistrationStatuses(List<DroneDevice> drones) {
+        jdbcTemplate.batchUpdate(UPDATE_REGISTRATION_STATUS, drones, BATCH_SIZE, (statement, drone) -> {
+            statement.setString(1, drone.getRegistrationStatus().name());
+            statement.setDate(2, drone.getLastModifiedDate() != null ? Date.valueOf(drone.getLastModifiedDate()) : null);
+            statement.setLong(3, drone.getId());
+        });
+    }
+}
@@ -1,14 +1,32 @@
 package com.ispirit.digitalsky.repository;
 
 import com.ispirit.digitalsky.document.FlyDronePermissionApplication;
+import com.ispirit.digitalsky.domain.ApplicationStatus;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.geo.GeoJsonPolygon;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.Collection;
+import java.util.Date;
+import java.util.stream.Stream;
 
-public interface FlyDronePermissionApplicationRepository extends MongoRepository<FlyDronePermissionApplication, String> {
+public interface FlyDronePermissionApplicationRepository extends MongoRepository<FlyDronePermissionApplication, String>, FlyDronePermissionApplicationRepositoryCustom {
 
     FlyDronePermissionApplication findById(@Param("id") String id);
 
     Collection<FlyDronePermissionApplication> findByDroneId(long droneId);
+
+    Collection<FlyDronePermissionApplication> findByStatus(ApplicationStatus status);
+
+    @Query("{ 'flyAreaGeometry' : { $geoIntersects : { $geometry : ?0 } }, 'startDateTime' : { $lt : ?2 }, 'endDateTime' : { $gt : ?1 }, 'status' : { $ne : 'DRAFT' } }")
+    Page<FlyDronePermissionApplication> findInRegion(GeoJsonPolygon region, LocalDateTime from, LocalDateTime to, Pageable pageable);
+
+    Stream<FlyDronePermissionApplication> streamByFlyAreaGeometryIsNullAndFlyAreaIsNotNull();
+
+    @Query("{ 'status' : 'APPROVED', 'approvedDate' : { $gte : ?0, $lt : ?1 } }")
+    Stream<FlyDronePermissionApplication> streamApprovedBetween(Date from, Date to);
 }
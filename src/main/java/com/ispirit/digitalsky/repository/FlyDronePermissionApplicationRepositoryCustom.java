@@ -0,0 +1,19 @@
+package com.ispirit.digitalsky.repository;
+
+import com.ispirit.digitalsky.domain.PermissionArtifactStatus;
+import org.springframework.data.mongodb.core.geo.GeoJsonPolygon;
+
+import java.util.Map;
+
+public interface FlyDronePermissionApplicationRepositoryCustom {
+
+    /**
+     * Sets only the fly area geometry of applications still missing one, keyed by application id, and returns how many were updated.
+     */
+    int updateFlyAreaGeometries(Map<String, GeoJsonPolygon> flyAreaGeometries);
+
+    /**
+     * Sets only the permission artifact status and content hash, leaving the rest of the application untouched.
+     */
+    void updatePermissionArtifactStatus(String id, PermissionArtifactStatus status, String contentHash);
+}
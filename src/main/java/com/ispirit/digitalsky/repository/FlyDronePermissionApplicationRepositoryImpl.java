@@ -0,0 +1,38 @@
+package com.ispirit.digitalsky.repository;
+
+import com.ispirit.digitalsky.document.FlyDronePermissionApplication;
+import com.ispirit.digitalsky.domain.PermissionArtifactStatus;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.geo.GeoJsonPolygon;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Map;
+
+public class FlyDronePermissionApplicationRepositoryImpl implements FlyDronePermissionApplicationRepositoryCustom {
+
+    private final MongoOperations mongoOperations;
+
+    public FlyDronePermissionApplicationRepositoryImpl(MongoOperations mongoOperations) {
+        this.mongoOperations = mongoOperations;
+    }
+
+    @Override
+    public int updateFlyAreaGeometries(Map<String, GeoJsonPolygon> flyAreaGeometries) {
+        if (flyAreaGeometries.isEmpty()) return 0;
+        BulkOperations bulkOperations = mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, FlyDronePermissionApplication.class);
+        for (Map.Entry<String, GeoJsonPolygon> entry : flyAreaGeometries.entrySet()) {
+            Query query = new Query(Criteria.where("id").is(entry.getKey()).and("flyAreaGeometry").is(null));
+            bulkOperations.updateOne(query, Update.update("flyAreaGeometry", entry.getValue()));
+        }
+        return bulkOperations.execute().getModifiedCount();
+    }
+
+    @Override
+    public void updatePermissionArtifactStatus(String id, PermissionArtifactStatus status, String contentHash) {
+        Update update = Update.update("permissionArtifactStatus", status).set("permissionArtifactHash", contentHash);
+        mongoOperations.updateFirst(new Query(Criteria.where("id").is(id)), update, FlyDronePermissionApplication.class);
+    }
+}
@@ -5,11 +5,17 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
+
 public interface IndividualOperatorRepository extends CrudRepository<IndividualOperator, Long> {
 
     @Query("SELECT o FROM IndividualOperator o WHERE  o.resourceOwnerId = :resourceOwnerId")
     IndividualOperator loadByResourceOwner(@Param("resourceOwnerId") long resourceOwnerId);
 
-    @Query("SELECT o FROM IndividualOperator o WHERE  Lower(o.businessIdentifier) = Lower(:businessIdentifier)")
+    @Query("SELECT o FROM IndividualOperator o WHERE  o.lowerCaseBusinessIdentifier = Lower(:businessIdentifier)")
     IndividualOperator loadByBusinessIdentifier(@Param("businessIdentifier") String businessIdentifier);
+
+    @Query("SELECT o.lowerCaseBusinessIdentifier FROM IndividualOperator o WHERE o.lowerCaseBusinessIdentifier IN :lowerCaseBusinessIdentifiers")
+    List<String> findLowerCaseBusinessIdentifiers(@Param("lowerCaseBusinessIdentifiers") Collection<String> lowerCaseBusinessIdentifiers);
 }
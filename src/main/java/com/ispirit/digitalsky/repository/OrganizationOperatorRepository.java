@@ -5,11 +5,17 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
+
 public interface OrganizationOperatorRepository extends CrudRepository<OrganizationOperator, Long> {
 
     @Query("SELECT o FROM OrganizationOperator o WHERE  o.resourceOwnerId = :resourceOwnerId")
     OrganizationOperator loadByResourceOwner(@Param("resourceOwnerId") long resourceOwnerId);
 
-    @Query("SELECT o FROM OrganizationOperator o WHERE  Lower(o.businessIdentifier) = Lower(:businessIdentifier)")
+    @Query("SELECT o FROM OrganizationOperator o WHERE  o.lowerCaseBusinessIdentifier = Lower(:businessIdentifier)")
     OrganizationOperator loadByBusinessIdentifier(@Param("businessIdentifier") String businessIdentifier);
+
+    @Query("SELECT o.lowerCaseBusinessIdentifier FROM OrganizationOperator o WHERE o.lowerCaseBusinessIdentifier IN :lowerCaseBusinessIdentifiers")
+    List<String> findLowerCaseBusinessIdentifiers(@Param("lowerCaseBusinessIdentifiers") Collection<String> lowerCaseBusinessIdentifiers);
 }
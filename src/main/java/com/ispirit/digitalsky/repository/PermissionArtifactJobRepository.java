@@ -0,0 +1,7 @@
+package com.ispirit.digitalsky.repository;
+
+import com.ispirit.digitalsky.document.PermissionArtifactJob;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface PermissionArtifactJobRepository extends MongoRepository<PermissionArtifactJob, String>, PermissionArtifactJobRepositoryCustom {
+}
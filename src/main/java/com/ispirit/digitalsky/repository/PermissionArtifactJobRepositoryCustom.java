@@ -0,0 +1,13 @@
+package com.ispirit.digitalsky.repository;
+
+import com.ispirit.digitalsky.document.PermissionArtifactJob;
+
+import java.util.Date;
+
+public interface PermissionArtifactJobRepositoryCustom {
+
+    /**
+     * Atomically leases the oldest runnable job, including running jobs whose lease has expired because their worker died.
+     */
+    PermissionArtifactJob claimNext(Date now, Date leaseExpiresAt);
+}
@@ -0,0 +1,33 @@
+package com.ispirit.digitalsky.repository;
+
+import com.ispirit.digitalsky.document.PermissionArtifactJob;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Date;
+
+public class PermissionArtifactJobRepositoryImpl implements PermissionArtifactJobRepositoryCustom {
+
+    private final MongoOperations mongoOperations;
+
+    public PermissionArtifactJobRepositoryImpl(MongoOperations mongoOperations) {
+        this.mongoOperations = mongoOperations;
+    }
+
+    @Override
+    public PermissionArtifactJob claimNext(Date now, Date leaseExpiresAt) {
+        Query query = new Query(new Criteria().orOperator(
+                Criteria.where("status").is(PermissionArtifactJob.Status.QUEUED).and("availableAt").lte(now),
+                Criteria.where("status").is(PermissionArtifactJob.Status.RUNNING).and("leaseExpiresAt").lte(now)))
+                .with(new Sort(Sort.Direction.ASC, "availableAt"));
+        Update update = new Update()
+                .set("status", PermissionArtifactJob.Status.RUNNING)
+                .set("leaseExpiresAt", leaseExpiresAt)
+                .inc("attempts", 1);
+        return mongoOperations.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), PermissionArtifactJob.class);
+    }
+}
@@ -10,7 +10,7 @@ public interface PilotRepository extends CrudRepository<Pilot, Long> {
     @Query("SELECT p FROM Pilot p WHERE  p.resourceOwnerId = :resourceOwnerId")
     Pilot loadByResourceOwner(@Param("resourceOwnerId") long resourceOwnerId);
 
-    @Query("SELECT p FROM Pilot p WHERE  Lower(p.businessIdentifier) = Lower(:businessIdentifier)")
+    @Query("SELECT p FROM Pilot p WHERE  p.lowerCaseBusinessIdentifier = Lower(:businessIdentifier)")
     Pilot loadByBusinessIdentifier(@Param("businessIdentifier") String businessIdentifier);
 
 }
@@ -0,0 +1,22 @@
+package com.ispirit.digitalsky.repository;
+
+import com.ispirit.digitalsky.domain.UserActiveSession;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Date;
+import java.util.List;
+
+public interface UserActiveSessionRepository extends CrudRepository<UserActiveSession, Long> {
+
+    @Query("SELECT s FROM UserActiveSession s WHERE s.validity > :now")
+    List<UserActiveSession> findUnexpired(@Param("now") Date now);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM UserActiveSession s WHERE s.validity <= :now")
+    int deleteExpired(@Param("now") Date now);
+}
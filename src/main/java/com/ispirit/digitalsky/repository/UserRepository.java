@@ -7,7 +7,7 @@ import org.springframework.data.repository.query.Param;
 
 public interface UserRepository extends CrudRepository<User, Long> {
 
-    @Query("SELECT u FROM User u WHERE LOWER(u.email) = LOWER(:email)")
+    @Query("SELECT u FROM User u WHERE u.lowerCaseEmail = LOWER(:email)")
     User loadByEmail(@Param("email") String email);
 
     @Query("SELECT u FROM User u WHERE u.resetPasswordToken = :resetPasswordToken")
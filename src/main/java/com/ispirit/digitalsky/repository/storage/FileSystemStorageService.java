@@ -9,9 +9,11 @@ import org.springframework.core.io.UrlResource;
 import org.springframework.util.FileSystemUtils;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.MalformedURLException;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -86,6 +88,36 @@ public class FileSystemStorageService implements StorageService {
         }
     }
 
+    @Override
+    public void store(String fileName, StorageContentWriter contentWriter, String directoryName) throws StorageException {
+        if (fileName.contains("..")) {
+            throw new StorageException("Cannot store file with relative path outside current directory " + fileName);
+        }
+        File directory = new File(this.rootLocation.resolve(directoryName).toString());
+        if (!directory.exists()) {
+            directory.mkdir();
+        }
+        Path target = directory.toPath().resolve(fileName);
+        Path temporary = null;
+        try {
+            //written next to the target and moved into place, so readers never see a partially written file
+            temporary = Files.createTempFile(directory.toPath(), fileName, ".tmp");
+            try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(temporary))) {
+                contentWriter.writeTo(outputStream);
+            }
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new StorageException("Failed to store file " + fileName, e);
+        } finally {
+            if (temporary != null) {
+                try {
+                    Files.deleteIfExists(temporary);
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
     @Override
     public Stream<Path> loadAll() {
         try {
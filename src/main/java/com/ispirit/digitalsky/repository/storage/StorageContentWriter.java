@@ -0,0 +1,10 @@
+package com.ispirit.digitalsky.repository.storage;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+@FunctionalInterface
+public interface StorageContentWriter {
+
+    void writeTo(OutputStream outputStream) throws IOException;
+}
@@ -20,6 +20,8 @@ public interface StorageService {
 
     void store(String fileName, String content, String directory) throws StorageException;
 
+    void store(String fileName, StorageContentWriter contentWriter, String directory) throws StorageException;
+
     Stream<Path> loadAll() throws StorageException;
 
     Path load(String filename);
@@ -1,20 +1,24 @@
 package com.ispirit.digitalsky.service;
 
+import com.ispirit.digitalsky.document.AirspaceImpactReport;
 import com.ispirit.digitalsky.domain.AirspaceCategory;
+import com.ispirit.digitalsky.domain.AirspaceSnapshot;
 import com.ispirit.digitalsky.domain.UserPrincipal;
 import com.ispirit.digitalsky.dto.Errors;
 import com.ispirit.digitalsky.exception.EntityNotFoundException;
 import com.ispirit.digitalsky.exception.ValidationException;
 import com.ispirit.digitalsky.repository.AirspaceCategoryRepository;
 import com.ispirit.digitalsky.service.api.AirspaceCategoryService;
+import com.ispirit.digitalsky.service.api.AirspaceImpactAnalysisService;
 import org.geojson.Feature;
 import org.geojson.FeatureCollection;
 import org.geojson.GeoJsonObject;
 import org.geojson.Polygon;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -22,8 +26,15 @@ public class AirspaceCategoryServiceImpl implements AirspaceCategoryService {
 
     private AirspaceCategoryRepository airspaceCategoryRepository;
 
-    public AirspaceCategoryServiceImpl(AirspaceCategoryRepository airspaceCategoryRepository) {
+    private AirspaceImpactAnalysisService airspaceImpactAnalysisService;
+
+    private volatile AirspaceSnapshot currentSnapshot;
+
+    private long lastSnapshotVersion;
+
+    public AirspaceCategoryServiceImpl(AirspaceCategoryRepository airspaceCategoryRepository, AirspaceImpactAnalysisService airspaceImpactAnalysisService) {
         this.airspaceCategoryRepository = airspaceCategoryRepository;
+        this.airspaceImpactAnalysisService = airspaceImpactAnalysisService;
     }
 
     @Override
@@ -33,20 +44,25 @@ public class AirspaceCategoryServiceImpl implements AirspaceCategoryService {
         airspaceCategory.setModifiedDate(LocalDateTime.now());
         airspaceCategory.setCreatedById(UserPrincipal.securityContext().getId());
         airspaceCategory.setModifiedById(UserPrincipal.securityContext().getId());
-        return airspaceCategoryRepository.save(airspaceCategory);
+        AirspaceCategory savedEntity = airspaceCategoryRepository.save(airspaceCategory);
+        afterCommit(() -> airspaceImpactAnalysisService.analyse(null, savedEntity, publishSnapshot()));
+        return savedEntity;
     }
 
     @Override
     public AirspaceCategory updateAirspaceCategory(long id, AirspaceCategory airspaceCategory) {
         AirspaceCategory currentEntity = find(id);
         validatePolygonGeometry(airspaceCategory);
+        AirspaceCategory previousCategory = new AirspaceCategory(currentEntity.getName(), currentEntity.getType(), currentEntity.getGeoJson());
         currentEntity.setModifiedById(UserPrincipal.securityContext().getId());
         currentEntity.setModifiedDate(LocalDateTime.now());
         currentEntity.setName(airspaceCategory.getName());
         currentEntity.setType(airspaceCategory.getType());
         currentEntity.setGeoJson(airspaceCategory.getGeoJson());
         currentEntity.setGeoJsonString(airspaceCategory.getGeoJsonString());
-        return airspaceCategoryRepository.save(currentEntity);
+        AirspaceCategory savedEntity = airspaceCategoryRepository.save(currentEntity);
+        afterCommit(() -> airspaceImpactAnalysisService.analyse(previousCategory, savedEntity, publishSnapshot()));
+        return savedEntity;
     }
 
     @Override
@@ -55,18 +71,13 @@ public class AirspaceCategoryServiceImpl implements AirspaceCategoryService {
         if (airspaceCategory == null) {
             throw new EntityNotFoundException("AirspaceCategory", id);
         }
-        airspaceCategory.setGeoJsonFromString();
         return airspaceCategory;
     }
 
     @Override
     public List<AirspaceCategory> findAll() {
-        Iterable<AirspaceCategory> categories = airspaceCategoryRepository.findAll();
         List<AirspaceCategory> result = new ArrayList<>();
-        for (AirspaceCategory category : categories) {
-            category.setGeoJsonFromString();
-            result.add(category);
-        }
+        airspaceCategoryRepository.findAll().forEach(result::add);
 
         result.sort((o1, o2) -> o2.getModifiedDate().compareTo(o1.getModifiedDate()));
         return result;
@@ -74,18 +85,44 @@ public class AirspaceCategoryServiceImpl implements AirspaceCategoryService {
 
     @Override
     public Map<AirspaceCategory.Type, GeoJsonObject> findGeoJsonMapByType() {
-        HashMap<AirspaceCategory.Type, GeoJsonObject> result = new HashMap<>();
-        List<AirspaceCategory> airspaceCategories = findAll();
-        for (AirspaceCategory airspaceCategory : airspaceCategories) {
-            if (result.containsKey(airspaceCategory.getType())) {
-                FeatureCollection featureCollection = (FeatureCollection) result.get(airspaceCategory.getType());
-                featureCollection.getFeatures().addAll(((FeatureCollection) airspaceCategory.getGeoJson()).getFeatures());
-            } else {
-                result.put(airspaceCategory.getType(),airspaceCategory.getGeoJson());
-            }
+        return airspaceSnapshot().getGeoJsonByType();
+    }
+
+    @Override
+    public AirspaceSnapshot airspaceSnapshot() {
+        AirspaceSnapshot snapshot = currentSnapshot;
+        if (snapshot != null) return snapshot;
+        synchronized (this) {
+            return currentSnapshot != null ? currentSnapshot : publishSnapshot();
         }
+    }
 
-        return result;
+    @Override
+    public List<AirspaceImpactReport> findImpactReports(long id) {
+        find(id);
+        return airspaceImpactAnalysisService.reportsOf(id);
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    //serialized so a later publish always reads data at least as new as the one before it; versions stay time-like across restarts
+    private synchronized AirspaceSnapshot publishSnapshot() {
+        List<AirspaceCategory> airspaceCategories = findAll();
+        lastSnapshotVersion = Math.max(lastSnapshotVersion + 1, System.currentTimeMillis());
+        AirspaceSnapshot snapshot = AirspaceSnapshot.build(lastSnapshotVersion, airspaceCategories);
+        currentSnapshot = snapshot;
+        return snapshot;
     }
 
     private void validatePolygonGeometry(AirspaceCategory airspaceCategory) {
@@ -0,0 +1,133 @@
+package com.ispirit.digitalsky.service;
+
+import com.ispirit.digitalsky.document.AirspaceImpactReport;
+import com.ispirit.digitalsky.document.AirspaceImpactReportChunk;
+import com.ispirit.digitalsky.document.FlyDronePermissionApplication;
+import com.ispirit.digitalsky.domain.AirspaceCategory;
+import com.ispirit.digitalsky.domain.AirspaceIndex;
+import com.ispirit.digitalsky.domain.AirspaceSnapshot;
+import com.ispirit.digitalsky.domain.ApplicationStatus;
+import com.ispirit.digitalsky.repository.AirspaceImpactReportChunkRepository;
+import com.ispirit.digitalsky.repository.AirspaceImpactReportRepository;
+import com.ispirit.digitalsky.repository.FlyDronePermissionApplicationRepository;
+import com.ispirit.digitalsky.service.api.AirspaceImpactAnalysisService;
+import com.ispirit.digitalsky.service.api.FlightConflictService;
+import com.ispirit.digitalsky.util.GeometryUtil;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.Polygon;
+import org.locationtech.jts.geom.TopologyException;
+import org.locationtech.jts.operation.union.UnaryUnionOp;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import static java.util.stream.Collectors.toList;
+
+public class AirspaceImpactAnalysisServiceImpl implements AirspaceImpactAnalysisService {
+
+    static final int CHUNK_SIZE = 500;
+
+    private static final Logger logger = LoggerFactory.getLogger(AirspaceImpactAnalysisServiceImpl.class);
+
+    private AirspaceImpactReportRepository reportRepository;
+
+    private AirspaceImpactReportChunkRepository reportChunkRepository;
+
+    private FlyDronePermissionApplicationRepository applicationRepository;
+
+    private FlightConflictService flightConflictService;
+
+    private Executor executor;
+
+    public AirspaceImpactAnalysisServiceImpl(AirspaceImpactReportRepository reportRepository, AirspaceImpactReportChunkRepository reportChunkRepository, FlyDronePermissionApplicationRepository applicationRepository, FlightConflictService flightConflictService, Executor executor) {
+        this.reportRepository = reportRepository;
+        this.reportChunkRepository = reportChunkRepository;
+        this.applicationRepository = applicationRepository;
+        this.flightConflictService = flightConflictService;
+        this.executor = executor;
+    }
+
+    @Override
+    public AirspaceImpactReport analyse(AirspaceCategory previousCategory, AirspaceCategory changedCategory, AirspaceSnapshot airspaceSnapshot) {
+        AirspaceImpactReport report = reportRepository.insert(new AirspaceImpactReport(changedCategory.getId(), changedCategory.getType(), airspaceSnapshot.getVersion()));
+        executor.execute(() -> run(report, previousCategory, changedCategory, airspaceSnapshot.getIndex()));
+        return report;
+    }
+
+    @Override
+    public List<AirspaceImpactReport> reportsOf(long airspaceCategoryId) {
+        List<AirspaceImpactReport> reports = reportRepository.findByAirspaceCategoryIdOrderByCreatedDateDesc(airspaceCategoryId);
+        Map<String, AirspaceImpactReport> reportsById = new HashMap<>();
+        reports.forEach(report -> reportsById.put(report.getId(), report));
+        for (AirspaceImpactReportChunk chunk : reportChunkRepository.findByAirspaceCategoryIdOrderByChunkIndexAsc(airspaceCategoryId)) {
+            AirspaceImpactReport report = reportsById.get(chunk.getReportId());
+            if (report != null) {
+                report.addAffectedApplicationIds(chunk.getAffectedApplicationIds());
+            }
+        }
+        return reports;
+    }
+
+    private void run(AirspaceImpactReport report, AirspaceCategory previousCategory, AirspaceCategory changedCategory, AirspaceIndex airspaceIndex) {
+        try {
+            Geometry changedRegion = changedRegion(previousCategory, changedCategory);
+            List<String> candidateIds = flightConflictService.findApprovedIntersecting(changedRegion);
+            for (int from = 0, chunkIndex = 0; from < candidateIds.size(); from += CHUNK_SIZE, chunkIndex++) {
+                List<String> chunk = candidateIds.subList(from, Math.min(from + CHUNK_SIZE, candidateIds.size()));
+                List<FlyDronePermissionApplication> applications = new ArrayList<>();
+                applicationRepository.findAll(chunk).forEach(applications::add);
+                List<String> affectedIds = applications.parallelStream()
+                        .filter(application -> isAffected(airspaceIndex, application))
+                        .map(FlyDronePermissionApplication::getId)
+                        .sorted()
+                        .collect(toList());
+                if (!affectedIds.isEmpty()) {
+                    reportChunkRepository.insert(new AirspaceImpactReportChunk(report.getId(), changedCategory.getId(), chunkIndex, affectedIds));
+                }
+                report.addEvaluatedApplicationCount(applications.size());
+                reportRepository.save(report);
+            }
+            report.complete();
+        } catch (RuntimeException e) {
+            logger.error("Airspace impact analysis failed for category " + changedCategory.getId(), e);
+            report.fail();
+        }
+        reportRepository.save(report);
+    }
+
+    static Geometry changedRegion(AirspaceCategory previousCategory, AirspaceCategory changedCategory) {
+        Geometry current = union(changedCategory);
+        if (previousCategory == null) return current;
+        Geometry previous = union(previousCategory);
+        if (previous.isEmpty()) return current;
+        if (current.isEmpty()) return previous;
+        if (previousCategory.getType() != changedCategory.getType()) {
+            return previous.union(current);
+        }
+        try {
+            return previous.symDifference(current);
+        } catch (TopologyException e) {
+            return previous.union(current);
+        }
+    }
+
+    private static Geometry union(AirspaceCategory airspaceCategory) {
+        return UnaryUnionOp.union(airspaceCategory.getGeometries(), GeometryUtil.geometryFactory());
+    }
+
+    private boolean isAffected(AirspaceIndex airspaceIndex, FlyDronePermissionApplication application) {
+        if (application.getStatus() != ApplicationStatus.APPROVED) return false;
+        if (application.getFlyArea() == null || application.getFlyArea().isEmpty()) return false;
+        try {
+            Polygon flyArea = GeometryUtil.toPolygon(application.getFlyArea());
+            return airspaceIndex.intersects(AirspaceCategory.Type.RED, flyArea) || !airspaceIndex.isWithin(AirspaceCategory.Type.GREEN, flyArea);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
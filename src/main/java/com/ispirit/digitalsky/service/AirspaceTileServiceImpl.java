@@ -0,0 +1,235 @@
+package com.ispirit.digitalsky.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ispirit.digitalsky.domain.AirspaceCategory;
+import com.ispirit.digitalsky.domain.AirspaceSnapshot;
+import com.ispirit.digitalsky.domain.AirspaceTile;
+import com.ispirit.digitalsky.dto.Errors;
+import com.ispirit.digitalsky.exception.ValidationException;
+import com.ispirit.digitalsky.service.api.AirspaceCategoryService;
+import com.ispirit.digitalsky.service.api.AirspaceTileService;
+import com.ispirit.digitalsky.util.BoundedCache;
+import com.ispirit.digitalsky.util.GeometryUtil;
+import org.geojson.Feature;
+import org.geojson.FeatureCollection;
+import org.geojson.GeoJsonObject;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.TopologyException;
+import org.locationtech.jts.index.strtree.STRtree;
+import org.locationtech.jts.simplify.TopologyPreservingSimplifier;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.GZIPOutputStream;
+
+public class AirspaceTileServiceImpl implements AirspaceTileService {
+
+    public static final int MAX_ZOOM = 20;
+
+    static final int TILE_SIZE_IN_PIXELS = 256;
+
+    static final int TILE_CACHE_SIZE = 5000;
+
+    private AirspaceCategoryService airspaceCategoryService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final BoundedCache<LayerKey, STRtree> layers = new BoundedCache<>(2 * (MAX_ZOOM + 1));
+
+    private final BoundedCache<TileKey, AirspaceTile> tiles = new BoundedCache<>(TILE_CACHE_SIZE);
+
+    public AirspaceTileServiceImpl(AirspaceCategoryService airspaceCategoryService) {
+        this.airspaceCategoryService = airspaceCategoryService;
+    }
+
+    @Override
+    public AirspaceTile tile(int zoom, int x, int y) {
+        if (zoom < 0 || zoom > MAX_ZOOM) {
+            throw new ValidationException(new Errors("Zoom must be between 0 and " + MAX_ZOOM));
+        }
+        if (x < 0 || y < 0 || x >= (1 << zoom) || y >= (1 << zoom)) {
+            throw new ValidationException(new Errors("Tile coordinates out of range for zoom " + zoom));
+        }
+
+        AirspaceSnapshot snapshot = airspaceCategoryService.airspaceSnapshot();
+        TileKey key = new TileKey(snapshot.getVersion(), zoom, x, y);
+        AirspaceTile tile = tiles.get(key);
+        if (tile == null) {
+            tile = render(snapshot, zoom, x, y);
+            tiles.put(key, tile);
+        }
+        return tile;
+    }
+
+    private AirspaceTile render(AirspaceSnapshot snapshot, int zoom, int x, int y) {
+        Envelope bounds = tileBounds(zoom, x, y);
+        Geometry clip = GeometryUtil.geometryFactory().toGeometry(bounds);
+
+        List<TileFeature> candidates = new ArrayList<>();
+        for (Object item : layer(snapshot, zoom).query(bounds)) {
+            candidates.add((TileFeature) item);
+        }
+        candidates.sort(Comparator.comparingInt((TileFeature feature) -> feature.type.getLayerOrder()).thenComparingLong(feature -> feature.airspaceCategoryId));
+
+        FeatureCollection featureCollection = new FeatureCollection();
+        for (TileFeature candidate : candidates) {
+            GeoJsonObject geometry = GeometryUtil.toGeoJson(clip(candidate.geometry, clip));
+            if (geometry == null) continue;
+            Feature feature = new Feature();
+            feature.setGeometry(geometry);
+            feature.setProperty("id", candidate.airspaceCategoryId);
+            feature.setProperty("name", candidate.name);
+            feature.setProperty("type", candidate.type);
+            featureCollection.add(feature);
+        }
+
+        try {
+            byte[] content = objectMapper.writeValueAsBytes(featureCollection);
+            return new AirspaceTile(snapshot.getVersion(), eTag(content), content, gzip(content));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private STRtree layer(AirspaceSnapshot snapshot, int zoom) {
+        LayerKey key = new LayerKey(snapshot.getVersion(), zoom);
+        STRtree layer = layers.get(key);
+        if (layer != null) return layer;
+
+        double tolerance = 360.0 / ((1L << zoom) * TILE_SIZE_IN_PIXELS);
+        layer = new STRtree();
+        for (AirspaceCategory airspaceCategory : snapshot.getAirspaceCategories()) {
+            for (Geometry geometry : airspaceCategory.getGeometries()) {
+                Geometry simplified = TopologyPreservingSimplifier.simplify(geometry, tolerance);
+                if (simplified.isEmpty()) continue;
+                layer.insert(simplified.getEnvelopeInternal(), new TileFeature(airspaceCategory.getId(), airspaceCategory.getName(), airspaceCategory.getType(), simplified));
+            }
+        }
+        layer.build();
+        layers.put(key, layer);
+        return layer;
+    }
+
+    private Geometry clip(Geometry geometry, Geometry clip) {
+        if (clip.getEnvelopeInternal().contains(geometry.getEnvelopeInternal())) return geometry;
+        try {
+            return geometry.intersection(clip);
+        } catch (TopologyException e) {
+            return geometry;
+        }
+    }
+
+    static Envelope tileBounds(int zoom, int x, int y) {
+        double tiles = 1L << zoom;
+        double minLongitude = x / tiles * 360.0 - 180.0;
+        double maxLongitude = (x + 1) / tiles * 360.0 - 180.0;
+        double maxLatitude = Math.toDegrees(Math.atan(Math.sinh(Math.PI * (1 - 2 * y / tiles))));
+        double minLatitude = Math.toDegrees(Math.atan(Math.sinh(Math.PI * (1 - 2 * (y + 1) / tiles))));
+        return new Envelope(minLongitude, maxLongitude, minLatitude, maxLatitude);
+    }
+
+    private String eTag(byte[] content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            StringBuilder result = new StringBuilder("\"");
+            for (byte b : digest) {
+                result.append(String.format("%02x", b));
+            }
+            return result.append('"').toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private byte[] gzip(byte[] content) {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream)) {
+            gzipOutputStream.write(content);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return outputStream.toByteArray();
+    }
+
+    private static class TileFeature {
+
+        private final long airspaceCategoryId;
+
+        private final String name;
+
+        private final AirspaceCategory.Type type;
+
+        private final Geometry geometry;
+
+        TileFeature(long airspaceCategoryId, String name, AirspaceCategory.Type type, Geometry geometry) {
+            this.airspaceCategoryId = airspaceCategoryId;
+            this.name = name;
+            this.type = type;
+            this.geometry = geometry;
+        }
+    }
+
+    private static class LayerKey {
+
+        private final long version;
+
+        private final int zoom;
+
+        LayerKey(long version, int zoom) {
+            this.version = version;
+            this.zoom = zoom;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            LayerKey layerKey = (LayerKey) o;
+            return version == layerKey.version && zoom == layerKey.zoom;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(version, zoom);
+        }
+    }
+
+    private static class TileKey {
+
+        private final long version;
+
+        private final int zoom;
+
+        private final int x;
+
+        private final int y;
+
+        TileKey(long version, int zoom, int x, int y) {
+            this.version = version;
+            this.zoom = zoom;
+            this.x = x;
+            this.y = y;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            TileKey tileKey = (TileKey) o;
+            return version == tileKey.version && zoom == tileKey.zoom && x == tileKey.x && y == tileKey.y;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(version, zoom, x, y);
+        }
+    }
+}
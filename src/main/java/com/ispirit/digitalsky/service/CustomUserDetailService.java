@@ -26,6 +26,7 @@ public class CustomUserDetailService implements UserService {
     private UAOPApplicationService uaopApplicationService;
     private String resetPasswordBasePath;
     private String accountVerificationBasePath;
+    private UserPrincipalCache userPrincipalCache;
 
     public CustomUserDetailService(
             UserRepository userRepository,
@@ -34,7 +35,8 @@ public class CustomUserDetailService implements UserService {
             DroneAcquisitionApplicationService<ImportDroneApplication> importDroneService,
             UAOPApplicationService uaopApplicationService,
             String resetPasswordBasePath,
-            String accountVerificationBasePath) {
+            String accountVerificationBasePath,
+            UserPrincipalCache userPrincipalCache) {
         this.userRepository = userRepository;
         this.emailService = emailService;
         this.localDroneService = localDroneService;
@@ -42,6 +44,7 @@ public class CustomUserDetailService implements UserService {
         this.uaopApplicationService = uaopApplicationService;
         this.resetPasswordBasePath = resetPasswordBasePath;
         this.accountVerificationBasePath = accountVerificationBasePath;
+        this.userPrincipalCache = userPrincipalCache;
     }
 
     @Override
@@ -94,7 +97,9 @@ public class CustomUserDetailService implements UserService {
         }
         user.setResetPasswordToken(null);
         user.setPassword(newPasswordHash);
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        userPrincipalCache.invalidate(user.getId());
+        return savedUser;
     }
 
     @Override
@@ -126,6 +131,8 @@ public class CustomUserDetailService implements UserService {
         }
         user.setAccountVerificationToken(null);
         user.setAccountVerified(true);
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        userPrincipalCache.invalidate(user.getId());
+        return savedUser;
     }
 }
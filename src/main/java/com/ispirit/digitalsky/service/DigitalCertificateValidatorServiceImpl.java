@@ -2,19 +2,33 @@ package com.ispirit.digitalsky.service;
 
 import com.ispirit.digitalsky.exception.InvalidDigitalCertificateException;
 import com.ispirit.digitalsky.service.api.DigitalCertificateValidatorService;
-import org.apache.commons.io.IOUtils;
+import com.ispirit.digitalsky.util.BoundedCache;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import org.bouncycastle.openssl.PEMReader;
 
 import java.io.*;
 import java.security.*;
 import java.security.cert.*;
-import java.security.cert.Certificate;
 import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 public class DigitalCertificateValidatorServiceImpl implements DigitalCertificateValidatorService {
 
+    private static final int TRUSTED_CERTIFICATE_CHAIN_CACHE_SIZE = 1000;
+
+    private static final Pattern CN_PATTERN = Pattern.compile("cn=[\\w\\s\\.\\-]+", Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern O_PATTERN = Pattern.compile("o=[\\w\\s\\.\\-]+", Pattern.CASE_INSENSITIVE);
+
+    static {
+        if (Security.getProvider(BouncyCastleProvider.PROVIDER_NAME) == null) {
+            Security.addProvider(new BouncyCastleProvider());
+        }
+    }
+
+    private final BoundedCache<String, TrustedCertificateChain> trustedCertificateChains = new BoundedCache<>(TRUSTED_CERTIFICATE_CHAIN_CACHE_SIZE);
+
     public DigitalCertificateValidatorServiceImpl() {
 
     }
@@ -24,45 +38,16 @@ public class DigitalCertificateValidatorServiceImpl implements DigitalCertificat
 
         boolean found = false;
         try {
-            InputStream inputstream = new FileInputStream(manufacturerCertificateChainPath);
-            String certificateChainString = IOUtils.toString(inputstream, "UTF-8");
-            Security.addProvider(new org.bouncycastle.jce.provider.BouncyCastleProvider());
-            final List<X509Certificate> certs = new ArrayList<>();
-            final PEMReader reader = new PEMReader(new StringReader(certificateChainString));
-            Certificate crt;
-
-            while ((crt = (Certificate) reader.readObject()) != null) {
-                if (crt instanceof X509Certificate) {
-                    certs.add((X509Certificate) crt);
-                }
-            }
-            if (certs.size() == 0) {
-                throw new InvalidDigitalCertificateException();
-            }
-
-            CertificateFactory cf = CertificateFactory.getInstance("X.509");
-            CertPathValidator validator = CertPathValidator.getInstance("PKIX", "BC");
-            Set<TrustAnchor> anchors = new HashSet<>();
-            for (X509Certificate cert : certs) {
-                anchors.add(new TrustAnchor(cert, null));
-            }
-            CertPath path = cf.generateCertPath(certs);
-            PKIXParameters params = new PKIXParameters(anchors);
-            params.setRevocationEnabled(false);
-
-            validator.validate(path, params);
-            for (X509Certificate trustedCertificate : certs) {
+            TrustedCertificateChain chain = loadTrustedCertificateChain(manufacturerCertificateChainPath);
+            for (int index = 0; index < chain.certificates.size(); index++) {
+                X509Certificate trustedCertificate = chain.certificates.get(index);
                 if (!isDNMatching(clientCertificate.getIssuerDN().getName(), trustedCertificate.getSubjectDN().getName())) {
                     throw new InvalidDigitalCertificateException();
                 }
-                try {
-                    if (isSelfSigned(trustedCertificate)) {
-                        found = true;
-                    } else if (!clientCertificate.equals(trustedCertificate)) {
-                        clientCertificate = trustedCertificate;
-                    }
-                } catch (NoSuchProviderException e) {
-                    throw new InvalidDigitalCertificateException();
+                if (chain.selfSigned[index]) {
+                    found = true;
+                } else if (!clientCertificate.equals(trustedCertificate)) {
+                    clientCertificate = trustedCertificate;
                 }
             }
         } catch(Exception e) {
@@ -71,15 +56,62 @@ public class DigitalCertificateValidatorServiceImpl implements DigitalCertificat
         return found;
     }
 
+    @Override
+    public void invalidateTrustedCertificateChain(String manufacturerCertificateChainPath) {
+        trustedCertificateChains.invalidate(manufacturerCertificateChainPath);
+    }
+
+    private TrustedCertificateChain loadTrustedCertificateChain(String manufacturerCertificateChainPath) throws Exception {
+        TrustedCertificateChain chain = trustedCertificateChains.get(manufacturerCertificateChainPath);
+        if (chain != null) {
+            return chain;
+        }
+
+        final List<X509Certificate> certs = new ArrayList<>();
+        try (PEMReader reader = new PEMReader(new InputStreamReader(new FileInputStream(manufacturerCertificateChainPath), "UTF-8"))) {
+            Object crt;
+            while ((crt = reader.readObject()) != null) {
+                if (crt instanceof X509Certificate) {
+                    certs.add((X509Certificate) crt);
+                }
+            }
+        }
+        if (certs.size() == 0) {
+            throw new InvalidDigitalCertificateException();
+        }
+
+        CertificateFactory cf = CertificateFactory.getInstance("X.509");
+        CertPathValidator validator = CertPathValidator.getInstance("PKIX", BouncyCastleProvider.PROVIDER_NAME);
+        Set<TrustAnchor> anchors = new HashSet<>();
+        for (X509Certificate cert : certs) {
+            anchors.add(new TrustAnchor(cert, null));
+        }
+        CertPath path = cf.generateCertPath(certs);
+        PKIXParameters params = new PKIXParameters(anchors);
+        params.setRevocationEnabled(false);
+        validator.validate(path, params);
+
+        boolean[] selfSigned = new boolean[certs.size()];
+        long expiresAt = Long.MAX_VALUE;
+        for (int index = 0; index < certs.size(); index++) {
+            selfSigned[index] = isSelfSigned(certs.get(index));
+            expiresAt = Math.min(expiresAt, certs.get(index).getNotAfter().getTime());
+        }
+
+        //the chain only validates until its first certificate expires, so it must not stay cached beyond that
+        chain = new TrustedCertificateChain(Collections.unmodifiableList(certs), selfSigned);
+        trustedCertificateChains.put(manufacturerCertificateChainPath, chain, expiresAt);
+        return chain;
+    }
+
     private boolean isDNMatching(String issuerDNName, String subjectDNName) {
 
-        return isDNMatching(issuerDNName, subjectDNName, "cn")
-                && isDNMatching(issuerDNName, subjectDNName, "o");
+        return isDNMatching(issuerDNName, subjectDNName, CN_PATTERN, "cn")
+                && isDNMatching(issuerDNName, subjectDNName, O_PATTERN, "o");
     }
 
-    private boolean isDNMatching(String issuerDNName, String subjectDNName, String attribute) {
+    private boolean isDNMatching(String issuerDNName, String subjectDNName, Pattern pattern, String attribute) {
         boolean match = false;
-        Pattern pattern = Pattern.compile(attribute + "=[\\w\\s\\.\\-]+",Pattern.CASE_INSENSITIVE);
         Matcher matcher1 = pattern.matcher(issuerDNName);
         Matcher matcher2 = pattern.matcher(subjectDNName);
 
@@ -103,5 +135,16 @@ public class DigitalCertificateValidatorServiceImpl implements DigitalCertificat
             return false;
         }
     }
-}
 
+    private static class TrustedCertificateChain {
+
+        private final List<X509Certificate> certificates;
+
+        private final boolean[] selfSigned;
+
+        TrustedCertificateChain(List<X509Certificate> certificates, boolean[] selfSigned) {
+            this.certificates = certificates;
+            this.selfSigned = selfSigned;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.ispirit.digitalsky.service;
+
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+public class DigitalSignMetrics implements PublicMetrics {
+
+    private final LongAdder signCount = new LongAdder();
+
+    private final LongAdder failureCount = new LongAdder();
+
+    private final LongAdder totalLatencyInNanos = new LongAdder();
+
+    private final AtomicLong maxLatencyInNanos = new AtomicLong();
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    /**
+     * Marks a signing as started, returning the start time to pass back to {@link #record(long, boolean)}.
+     */
+    public long signStarted() {
+        inFlight.incrementAndGet();
+        return System.nanoTime();
+    }
+
+    public void record(long latencyInNanos, boolean success) {
+        inFlight.decrementAndGet();
+        signCount.increment();
+        if (!success) {
+            failureCount.increment();
+        }
+        totalLatencyInNanos.add(latencyInNanos);
+        maxLatencyInNanos.accumulateAndGet(latencyInNanos, Math::max);
+    }
+
+    public long getSignCount() {
+        return signCount.sum();
+    }
+
+    public long getFailureCount() {
+        return failureCount.sum();
+    }
+
+    public double getAverageLatencyInMillis() {
+        long count = signCount.sum();
+        return count == 0 ? 0 : (double) TimeUnit.NANOSECONDS.toMicros(totalLatencyInNanos.sum()) / 1000 / count;
+    }
+
+    public double getMaxLatencyInMillis() {
+        return (double) TimeUnit.NANOSECONDS.toMicros(maxLatencyInNanos.get()) / 1000;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        List<Metric<?>> metrics = new ArrayList<>();
+        metrics.add(new Metric<>("digitalSign.count", getSignCount()));
+        metrics.add(new Metric<>("digitalSign.failures", getFailureCount()));
+        metrics.add(new Metric<>("digitalSign.latency.avgMillis", getAverageLatencyInMillis()));
+        metrics.add(new Metric<>("digitalSign.latency.maxMillis", getMaxLatencyInMillis()));
+        metrics.add(new Metric<>("digitalSign.inFlight", getInFlight()));
+        return metrics;
+    }
+}
@@ -28,15 +28,34 @@ import static java.util.Collections.singletonList;
 
 public class DigitalSignServiceImpl implements DigitalSignService {
 
+    //factory instances are not guaranteed to be thread-safe, the structures they create are immutable and can be shared
+    private static final ThreadLocal<XMLSignatureFactory> SIGNATURE_FACTORY = ThreadLocal.withInitial(() -> XMLSignatureFactory.getInstance("DOM"));
 
     private final X509Certificate certificate;
     private final PrivateKey privateKey;
+    private final DigitalSignMetrics metrics;
 
-    public DigitalSignServiceImpl(ResourceLoader resourceLoader, String digitalSkyPrivateKeyPath, String digitalSkyCertificate) {
+    private final KeyInfo keyInfo;
+    private final CanonicalizationMethod canonicalizationMethod;
+    private final SignatureMethod signatureMethod;
+    private final DigestMethod digestMethod;
+    private final List<Transform> transforms;
+
+    public DigitalSignServiceImpl(ResourceLoader resourceLoader, String digitalSkyPrivateKeyPath, String digitalSkyCertificate, XmlSignatureAlgorithm algorithm, DigitalSignMetrics metrics) {
+        this.metrics = metrics;
         try {
             certificate = loadCertificate(resourceLoader.getResource(digitalSkyCertificate).getInputStream());
-            privateKey = loadPrivateKey(resourceLoader.getResource(digitalSkyPrivateKeyPath).getInputStream());
-
+            if (!algorithm.getKeyAlgorithm().equals(certificate.getPublicKey().getAlgorithm())) {
+                throw new IllegalArgumentException(String.format("Certificate key type %s cannot be used with %s", certificate.getPublicKey().getAlgorithm(), algorithm));
+            }
+            privateKey = loadPrivateKey(resourceLoader.getResource(digitalSkyPrivateKeyPath).getInputStream(), algorithm.getKeyAlgorithm());
+
+            XMLSignatureFactory xmlSigFactory = SIGNATURE_FACTORY.get();
+            keyInfo = getKeyInfo(xmlSigFactory);
+            canonicalizationMethod = xmlSigFactory.newCanonicalizationMethod(CanonicalizationMethod.INCLUSIVE, (C14NMethodParameterSpec) null);
+            signatureMethod = xmlSigFactory.newSignatureMethod(algorithm.getSignatureMethod(), null);
+            digestMethod = xmlSigFactory.newDigestMethod(algorithm.getDigestMethod(), null);
+            transforms = singletonList(xmlSigFactory.newTransform(Transform.ENVELOPED, (TransformParameterSpec) null));
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
@@ -48,7 +67,7 @@ public class DigitalSignServiceImpl implements DigitalSignService {
         return (X509Certificate) fact.generateCertificate(certificateStream);
     }
 
-    private PrivateKey loadPrivateKey(InputStream privateKey) throws Exception {
+    private PrivateKey loadPrivateKey(InputStream privateKey, String keyAlgorithm) throws Exception {
 
         String privateKeyString = IOUtils.toString(privateKey, "UTF-8");
 
@@ -56,7 +75,7 @@ public class DigitalSignServiceImpl implements DigitalSignService {
 
         PKCS8EncodedKeySpec spec = new PKCS8EncodedKeySpec(Base64.getDecoder().decode(privateKeyString));
 
-        KeyFactory kf = KeyFactory.getInstance("RSA");
+        KeyFactory kf = KeyFactory.getInstance(keyAlgorithm);
 
         return kf.generatePrivate(spec);
     }
@@ -64,40 +83,43 @@ public class DigitalSignServiceImpl implements DigitalSignService {
 
     @Override
     public String sign(String xmlDocument) {
+        Document document = XmlUtil.fromString(xmlDocument);
+        sign(document);
+        return XmlUtil.documentToString(document);
+    }
+
+    @Override
+    public void sign(Document document) {
+        long start = metrics.signStarted();
+        boolean success = false;
         try {
-            Document document = XmlUtil.fromString(xmlDocument);
-            XMLSignatureFactory xmlSigFactory = XMLSignatureFactory.getInstance("DOM");
+            signDocument(document);
+            success = true;
+        } finally {
+            metrics.record(System.nanoTime() - start, success);
+        }
+    }
+
+    //signed on the caller's thread, only the factory and the immutable signing structures are shared
+    private void signDocument(Document document) {
+        try {
+            XMLSignatureFactory xmlSigFactory = SIGNATURE_FACTORY.get();
             DOMSignContext domSignCtx = new DOMSignContext(privateKey, document.getDocumentElement());
 
-            Reference ref = xmlSigFactory.newReference(
-                    "",
-                    xmlSigFactory.newDigestMethod(DigestMethod.SHA1, null),
-                    singletonList(xmlSigFactory.newTransform(Transform.ENVELOPED, (TransformParameterSpec) null)),
-                    null,
-                    null
-            );
+            //references hold the computed digest, so they are created per document
+            Reference ref = xmlSigFactory.newReference("", digestMethod, transforms, null, null);
 
-            SignedInfo signedInfo = xmlSigFactory.newSignedInfo(
-                    xmlSigFactory.newCanonicalizationMethod(
-                            CanonicalizationMethod.INCLUSIVE,
-                            (C14NMethodParameterSpec) null),
-                    xmlSigFactory.newSignatureMethod(SignatureMethod.RSA_SHA1, null),
-                    singletonList(ref)
-            );
+            SignedInfo signedInfo = xmlSigFactory.newSignedInfo(canonicalizationMethod, signatureMethod, singletonList(ref));
 
-            XMLSignature xmlSignature = xmlSigFactory.newXMLSignature(signedInfo, getKeyInfo());
+            XMLSignature xmlSignature = xmlSigFactory.newXMLSignature(signedInfo, keyInfo);
 
             xmlSignature.sign(domSignCtx);
-
-            return XmlUtil.documentToString(document);
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
-
     }
 
-    private KeyInfo getKeyInfo() {
-        XMLSignatureFactory fac = XMLSignatureFactory.getInstance("DOM");
+    private KeyInfo getKeyInfo(XMLSignatureFactory fac) {
         KeyInfoFactory keyInfoFactory = fac.getKeyInfoFactory();
         List x509Content = new ArrayList();
         x509Content.add(certificate.getSubjectX500Principal().getName());
@@ -2,13 +2,16 @@
 package com.ispirit.digitalsky.service;
 
 import com.ispirit.digitalsky.domain.DroneDevice;
+import com.ispirit.digitalsky.domain.Manufacturer;
 import com.ispirit.digitalsky.domain.RegisterDroneRequestPayload;
+import com.ispirit.digitalsky.domain.SigningPayloadFormat;
 import com.ispirit.digitalsky.exception.InvalidDigitalCertificateException;
 import com.ispirit.digitalsky.exception.InvalidDigitalSignatureException;
 import com.ispirit.digitalsky.exception.InvalidManufacturerException;
 import com.ispirit.digitalsky.service.api.DigitalCertificateValidatorService;
 import com.ispirit.digitalsky.service.api.DigitalSignatureVerifierService;
 
+import com.ispirit.digitalsky.util.BoundedCache;
 import org.springframework.util.Base64Utils;
 
 import java.io.*;
@@ -18,46 +21,68 @@ import java.security.cert.CertificateException;
 import java.security.cert.CertificateFactory;
 import java.security.cert.X509Certificate;
 
+import java.util.Objects;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 public class DigitalSignatureVerifierServiceImpl implements DigitalSignatureVerifierService {
 
+    private static final int VERIFIED_CERTIFICATE_CACHE_SIZE = 10000;
+
 	private final String manufacturerAttributeNameInCertificate;
 	private final DigitalCertificateValidatorService digitalCertificateValidatorService;
 	private final boolean digitalCertificateValidationEnabled;
+	private final Pattern manufacturerAttributePattern;
+	private final BoundedCache<VerifiedCertificateKey, VerifiedCertificate> verifiedCertificates;
 
     public DigitalSignatureVerifierServiceImpl(DigitalCertificateValidatorService digitalCertificateValidatorService,
                                                String manufacturerAttributeNameInCertificate,
-                                               boolean digitalCertificateValidationEnabled) {
+                                               boolean digitalCertificateValidationEnabled,
+                                               long verifiedCertificateTimeToLiveInMillis) {
 		this.manufacturerAttributeNameInCertificate = manufacturerAttributeNameInCertificate;
 		this.digitalCertificateValidatorService = digitalCertificateValidatorService;
 		this.digitalCertificateValidationEnabled = digitalCertificateValidationEnabled;
+		this.manufacturerAttributePattern = Pattern.compile(manufacturerAttributeNameInCertificate + "=[\\w\\s\\.\\-]+", Pattern.CASE_INSENSITIVE);
+		this.verifiedCertificates = new BoundedCache<>(VERIFIED_CERTIFICATE_CACHE_SIZE, verifiedCertificateTimeToLiveInMillis);
 	}
 
 	@Override
-	public boolean isValidSignature(RegisterDroneRequestPayload payload, String orgName, String orgTrustedCertificatePath) throws InvalidDigitalCertificateException, InvalidManufacturerException, SignatureException {
+	public boolean isValidSignature(RegisterDroneRequestPayload payload, Manufacturer manufacturer, String orgTrustedCertificatePath) throws InvalidDigitalCertificateException, InvalidManufacturerException, SignatureException {
+
+        byte[] encodedCertificate = decodeCertificate(payload.getDigitalCertificate());
+        VerifiedCertificateKey key = new VerifiedCertificateKey(fingerprint(encodedCertificate), manufacturer.getId(), manufacturer.getName());
+        VerifiedCertificate verified = verifiedCertificates.get(key);
+        if (verified != null) {
+            return verifySignature(payload.getSignature(), payload.getDrone(), manufacturer.getSigningPayloadFormat(), verified.certificate) && verified.valid;
+        }
 
-        X509Certificate certificate = generateX509CertificateFromBase64EncodedString(payload.getDigitalCertificate());
+        X509Certificate certificate = generateX509Certificate(encodedCertificate);
 
-        boolean isValid =  verifySignature(payload.getSignature(), payload.getDrone(), certificate)
-                            && isValidCertificate(certificate, orgTrustedCertificatePath)
-                            && verifyOrganizationInTheCertificate(certificate, orgName);
+        if (!verifySignature(payload.getSignature(), payload.getDrone(), manufacturer.getSigningPayloadFormat(), certificate)) {
+            return false;
+        }
+        boolean isValid = isValidCertificate(certificate, orgTrustedCertificatePath)
+                            && verifyOrganizationInTheCertificate(certificate, manufacturer.getName());
 
+        verifiedCertificates.put(key, new VerifiedCertificate(certificate, isValid), certificate.getNotAfter().getTime());
         return isValid;
     }
 
-    private boolean verifySignature(String signature, DroneDevice drone, X509Certificate certificate) throws SignatureException, InvalidDigitalSignatureException {
+    @Override
+    public void invalidateTrustedCertificates(String orgTrustedCertificatePath) {
+        digitalCertificateValidatorService.invalidateTrustedCertificateChain(orgTrustedCertificatePath);
+        //outcomes are keyed by certificate rather than chain, and trust updates are rare admin actions
+        verifiedCertificates.invalidateAll();
+    }
+
+    private boolean verifySignature(String signature, DroneDevice drone, SigningPayloadFormat format, X509Certificate certificate) throws SignatureException, InvalidDigitalSignatureException {
 
         boolean isValid;
         try {
             Signature rsa = Signature.getInstance("SHA256withRSA");
             rsa.initVerify(certificate);
-            try (ByteArrayOutputStream baos = new ByteArrayOutputStream();
-                 ObjectOutputStream oos = new ObjectOutputStream(baos);) {
-                oos.writeObject(drone);
-                oos.flush();
-                rsa.update(baos.toByteArray());
+            try {
+                SigningPayloadWriter.write(format, drone, rsa);
                 isValid = rsa.verify(Base64Utils.decodeFromString(signature));
             } catch (IOException e) {
                throw new InvalidDigitalSignatureException();
@@ -73,8 +98,7 @@ public class DigitalSignatureVerifierServiceImpl implements DigitalSignatureVeri
         Principal principal = certificate.getSubjectDN();
         String subjectDn = principal.getName();
         String attributeName = manufacturerAttributeNameInCertificate + "=";
-        Pattern pattern = Pattern.compile(attributeName + "[\\w\\s\\.\\-]+",Pattern.CASE_INSENSITIVE);
-        Matcher matcher = pattern.matcher(subjectDn);
+        Matcher matcher = manufacturerAttributePattern.matcher(subjectDn);
         if(!matcher.find()) { throw new InvalidDigitalCertificateException(); }
 
         String manufacturerOrgName = matcher.group(0).substring(attributeName.length());
@@ -83,25 +107,34 @@ public class DigitalSignatureVerifierServiceImpl implements DigitalSignatureVeri
 
 	}
 
-    private X509Certificate generateX509CertificateFromBase64EncodedString(String certString) throws InvalidDigitalCertificateException{
-        InputStream inputStream = null;
+    private byte[] decodeCertificate(String certString) throws InvalidDigitalCertificateException {
+        try {
+            return Base64Utils.decode(certString.getBytes());
+        } catch (RuntimeException e) {
+            throw new InvalidDigitalCertificateException();
+        }
+    }
+
+    private X509Certificate generateX509Certificate(byte[] encodedCertificate) throws InvalidDigitalCertificateException{
         try {
-            X509Certificate certificate = (X509Certificate) CertificateFactory
+            return (X509Certificate) CertificateFactory
                     .getInstance("X509")
-                    .generateCertificate(
-                            new ByteArrayInputStream(Base64Utils.decode(certString.getBytes()))
-                    );
-            return certificate;
+                    .generateCertificate(new ByteArrayInputStream(encodedCertificate));
         } catch (CertificateException e) {
            throw new InvalidDigitalCertificateException();
-        } finally {
-            if (inputStream != null) {
-                try {
-                    inputStream.close();
-                } catch (IOException e) {
-                    throw new InvalidDigitalCertificateException();
-                }
+        }
+    }
+
+    private static String fingerprint(byte[] encodedCertificate) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(encodedCertificate);
+            StringBuilder result = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                result.append(String.format("%02x", b));
             }
+            return result.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
         }
     }
 
@@ -112,4 +145,45 @@ public class DigitalSignatureVerifierServiceImpl implements DigitalSignatureVeri
                 : true;
     }
 
+    private static class VerifiedCertificateKey {
+
+        private final String fingerprint;
+
+        private final long manufacturerId;
+
+        //the outcome includes the organization check, so a renamed manufacturer must not reuse it
+        private final String manufacturerName;
+
+        VerifiedCertificateKey(String fingerprint, long manufacturerId, String manufacturerName) {
+            this.fingerprint = fingerprint;
+            this.manufacturerId = manufacturerId;
+            this.manufacturerName = manufacturerName;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            VerifiedCertificateKey that = (VerifiedCertificateKey) o;
+            return manufacturerId == that.manufacturerId && fingerprint.equals(that.fingerprint) && Objects.equals(manufacturerName, that.manufacturerName);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(fingerprint, manufacturerId, manufacturerName);
+        }
+    }
+
+    private static class VerifiedCertificate {
+
+        private final X509Certificate certificate;
+
+        private final boolean valid;
+
+        VerifiedCertificate(X509Certificate certificate, boolean valid) {
+            this.certificate = certificate;
+            this.valid = valid;
+        }
+    }
+
 }
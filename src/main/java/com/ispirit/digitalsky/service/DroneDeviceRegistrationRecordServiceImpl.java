@@ -0,0 +1,249 @@
+package com.ispirit.digitalsky.service;
+
+import com.ispirit.digitalsky.domain.DroneDeviceRegistrationRecord;
+import com.ispirit.digitalsky.domain.RegisterDroneRequestPayload;
+import com.ispirit.digitalsky.domain.RegisterDroneResponseCode;
+import com.ispirit.digitalsky.domain.RegisterDroneResponsePayload;
+import com.ispirit.digitalsky.dto.Errors;
+import com.ispirit.digitalsky.exception.DroneDeviceRegistrationConflictException;
+import com.ispirit.digitalsky.exception.DroneDeviceRegistrationInProgressException;
+import com.ispirit.digitalsky.repository.DroneDeviceRegistrationRecordRepository;
+import com.ispirit.digitalsky.service.api.DroneDeviceRegistrationRecordService;
+import com.ispirit.digitalsky.util.BoundedCache;
+import org.apache.commons.io.output.NullOutputStream;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.Set;
+
+public class DroneDeviceRegistrationRecordServiceImpl implements DroneDeviceRegistrationRecordService {
+
+    private static final int MAX_ERROR_MESSAGE_LENGTH = 500;
+
+    //a claim left behind by a crashed attempt is taken over once its lease runs out
+    static final long CLAIM_LEASE_IN_MILLIS = 60000;
+
+    static final long CLAIM_POLL_INTERVAL_IN_MILLIS = 100;
+
+    static final int CLAIM_POLLS = 100;
+
+    //only outcomes reached after the signature and certificate were verified, which a retry of the same request would get again
+    private static final Set<RegisterDroneResponseCode> RECORDED_RESPONSE_CODES = EnumSet.of(
+            RegisterDroneResponseCode.REGISTERED,
+            RegisterDroneResponseCode.DRONE_ALREADY_REGISTERED,
+            RegisterDroneResponseCode.OPERATOR_BUSINESS_IDENTIFIER_MISSING);
+
+    private final DroneDeviceRegistrationRecordRepository repository;
+
+    private final long timeToLiveInMillis;
+
+    private final Clock clock;
+
+    private final long claimPollIntervalInMillis;
+
+    private final BoundedCache<RecordKey, RecordedResponse> responses;
+
+    public DroneDeviceRegistrationRecordServiceImpl(DroneDeviceRegistrationRecordRepository repository, int cacheSize, long timeToLiveInMillis) {
+        this(repository, cacheSize, timeToLiveInMillis, Clock.systemUTC(), CLAIM_POLL_INTERVAL_IN_MILLIS);
+    }
+
+    DroneDeviceRegistrationRecordServiceImpl(DroneDeviceRegistrationRecordRepository repository, int cacheSize, long timeToLiveInMillis, Clock clock, long claimPollIntervalInMillis) {
+        this.repository = repository;
+        this.timeToLiveInMillis = timeToLiveInMillis;
+        this.clock = clock;
+        this.claimPollIntervalInMillis = claimPollIntervalInMillis;
+        this.responses = new BoundedCache<>(cacheSize, timeToLiveInMillis, clock);
+    }
+
+    @Override
+    public String requestDigest(RegisterDroneRequestPayload payload) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        //base64 never contains a zero byte, so the separators keep signature and certificate apart
+        digest.update(String.valueOf(payload.getSignature()).getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(String.valueOf(payload.getDigitalCertificate()).getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        try (ObjectOutputStream oos = new ObjectOutputStream(new DigestOutputStream(NullOutputStream.NULL_OUTPUT_STREAM, digest))) {
+            oos.writeObject(payload.getDrone());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return toHex(digest.digest());
+    }
+
+    @Override
+    public RegisterDroneResponsePayload claim(String manufacturerBusinessIdentifier, String txn, String requestDigest) {
+        if (txn == null) return null;
+        RecordKey key = new RecordKey(manufacturerBusinessIdentifier, txn);
+        RecordedResponse recorded = responses.get(key);
+        if (recorded != null) return replay(recorded, requestDigest);
+
+        for (int poll = 0; poll <= CLAIM_POLLS; poll++) {
+            DroneDeviceRegistrationRecord record = repository.find(manufacturerBusinessIdentifier, txn);
+            if (record != null && isExpired(record)) {
+                //an abandoned claim or an outdated answer, whoever removes it competes for the claim like everyone else
+                repository.deleteIfExpired(record.getId(), new Date(clock.millis()));
+                record = null;
+            }
+            if (record == null) {
+                //the unique key on manufacturer and transaction lets exactly one concurrent request win
+                if (insertClaim(manufacturerBusinessIdentifier, txn, requestDigest)) return null;
+                continue;
+            }
+            if (!record.isPending()) {
+                recorded = new RecordedResponse(record.getRequestDigest(), toResponse(record));
+                responses.put(key, recorded, record.getExpiresAt().getTime());
+                return replay(recorded, requestDigest);
+            }
+            if (!record.getRequestDigest().equals(requestDigest)) {
+                throw new DroneDeviceRegistrationConflictException();
+            }
+            //the very same request is being registered by another attempt, wait for its answer
+            waitForClaim();
+        }
+        throw new DroneDeviceRegistrationInProgressException();
+    }
+
+    @Override
+    public void record(String manufacturerBusinessIdentifier, String requestDigest, RegisterDroneResponsePayload response) {
+        if (response.getTxn() == null) return;
+        if (!RECORDED_RESPONSE_CODES.contains(response.getResponseCode())) {
+            //nothing worth replaying, a retry gets to claim the transaction again
+            repository.deleteClaim(manufacturerBusinessIdentifier, response.getTxn(), requestDigest);
+            return;
+        }
+
+        DroneDeviceRegistrationRecord record = repository.find(manufacturerBusinessIdentifier, response.getTxn());
+        if (record == null) {
+            //the claim expired and was removed meanwhile
+            record = new DroneDeviceRegistrationRecord(manufacturerBusinessIdentifier, response.getTxn(), requestDigest);
+        } else if (!record.isPending() || !record.getRequestDigest().equals(requestDigest)) {
+            //the transaction was taken over after this claim expired, the other answer stays authoritative
+            return;
+        }
+        record.setResponseCode(response.getResponseCode());
+        record.setErrorMessage(errorMessageOf(response));
+        record.setResponseTimeStamp(response.getResponseTimeStamp());
+        record.setExpiresAt(new Date(clock.millis() + timeToLiveInMillis));
+        try {
+            repository.save(record);
+        } catch (DataIntegrityViolationException e) {
+            return;
+        }
+        responses.put(new RecordKey(manufacturerBusinessIdentifier, response.getTxn()), new RecordedResponse(requestDigest, response), record.getExpiresAt().getTime());
+    }
+
+    @Override
+    public int deleteExpired() {
+        return repository.deleteExpired(new Date(clock.millis()));
+    }
+
+    private boolean insertClaim(String manufacturerBusinessIdentifier, String txn, String requestDigest) {
+        DroneDeviceRegistrationRecord claim = new DroneDeviceRegistrationRecord(manufacturerBusinessIdentifier, txn, requestDigest);
+        claim.setExpiresAt(new Date(clock.millis() + CLAIM_LEASE_IN_MILLIS));
+        try {
+            repository.save(claim);
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            return false;
+        }
+    }
+
+    private void waitForClaim() {
+        try {
+            Thread.sleep(claimPollIntervalInMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DroneDeviceRegistrationInProgressException();
+        }
+    }
+
+    //the recorded answer was reached after verification, so it is only replayed for the very same request
+    private static RegisterDroneResponsePayload replay(RecordedResponse recorded, String requestDigest) {
+        if (!recorded.requestDigest.equals(requestDigest)) {
+            throw new DroneDeviceRegistrationConflictException();
+        }
+        return recorded.response;
+    }
+
+    private boolean isExpired(DroneDeviceRegistrationRecord record) {
+        return record.getExpiresAt().getTime() <= clock.millis();
+    }
+
+    private static RegisterDroneResponsePayload toResponse(DroneDeviceRegistrationRecord record) {
+        RegisterDroneResponsePayload response = new RegisterDroneResponsePayload();
+        response.setTxn(record.getTxn());
+        response.setResponseCode(record.getResponseCode());
+        response.setResponseTimeStamp(record.getResponseTimeStamp());
+        if (record.getResponseCode() != RegisterDroneResponseCode.REGISTERED) {
+            response.setError(new Errors(record.getErrorMessage()));
+        }
+        return response;
+    }
+
+    private static String errorMessageOf(RegisterDroneResponsePayload response) {
+        if (response.getError() == null || response.getError().getErrors().isEmpty()) return null;
+        String message = response.getError().getErrors().get(0);
+        return message != null && message.length() > MAX_ERROR_MESSAGE_LENGTH ? message.substring(0, MAX_ERROR_MESSAGE_LENGTH) : message;
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder result = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            result.append(String.format("%02x", b));
+        }
+        return result.toString();
+    }
+
+    private static class RecordedResponse {
+
+        private final String requestDigest;
+
+        private final RegisterDroneResponsePayload response;
+
+        RecordedResponse(String requestDigest, RegisterDroneResponsePayload response) {
+            this.requestDigest = requestDigest;
+            this.response = response;
+        }
+    }
+
+    private static class RecordKey {
+
+        private final String manufacturerBusinessIdentifier;
+
+        private final String txn;
+
+        RecordKey(String manufacturerBusinessIdentifier, String txn) {
+            this.manufacturerBusinessIdentifier = manufacturerBusinessIdentifier;
+            this.txn = txn;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            RecordKey that = (RecordKey) o;
+            return Objects.equals(manufacturerBusinessIdentifier, that.manufacturerBusinessIdentifier) && txn.equals(that.txn);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(manufacturerBusinessIdentifier, txn);
+        }
+    }
+}
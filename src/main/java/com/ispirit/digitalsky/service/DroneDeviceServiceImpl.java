@@ -1,6 +1,7 @@
 package com.ispirit.digitalsky.service;
 
 import com.ispirit.digitalsky.domain.*;
+import com.ispirit.digitalsky.dto.Errors;
 import com.ispirit.digitalsky.exception.*;
 import com.ispirit.digitalsky.repository.DroneDeviceRepository;
 import com.ispirit.digitalsky.repository.IndividualOperatorRepository;
@@ -13,7 +14,11 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.security.SignatureException;
 import java.time.LocalDate;
-import java.util.Collection;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import static com.ispirit.digitalsky.util.LookupKeyUtil.toLookupKey;
 
 public class DroneDeviceServiceImpl implements DroneDeviceService {
 
@@ -23,19 +28,24 @@ public class DroneDeviceServiceImpl implements DroneDeviceService {
     private OperatorDroneService operatorDroneService;
     private DigitalSignatureVerifierService signatureVerifierService;
     private ManufacturerService manufacturerService;
+    private Executor verificationExecutor;
+
+    private static final int LOOKUP_CHUNK_SIZE = 1000;
 
     public DroneDeviceServiceImpl(DroneDeviceRepository droneDeviceRepository,
                                   DigitalSignatureVerifierService signatureVerifierService,
                                   IndividualOperatorRepository individualOperatorRepository,
                                   OrganizationOperatorRepository organizationOperatorRepository,
                                   OperatorDroneService operatorDroneService,
-                                  ManufacturerService manufacturerService) {
+                                  ManufacturerService manufacturerService,
+                                  Executor verificationExecutor) {
         this.droneDeviceRepository = droneDeviceRepository;
         this.signatureVerifierService = signatureVerifierService;
         this.individualOperatorRepository = individualOperatorRepository;
         this.organizationOperatorRepository = organizationOperatorRepository;
         this.operatorDroneService = operatorDroneService;
         this.manufacturerService = manufacturerService;
+        this.verificationExecutor = verificationExecutor;
     }
 
     @Override
@@ -47,7 +57,7 @@ public class DroneDeviceServiceImpl implements DroneDeviceService {
 
         String trustedCertificatePath = manufacturerService.getCAAndTrustedCertificatePath(manufacturer.getId());
         try {
-            if (!signatureVerifierService.isValidSignature(payload, manufacturer.getName(), trustedCertificatePath)) {
+            if (!signatureVerifierService.isValidSignature(payload, manufacturer, trustedCertificatePath)) {
                 throw new InvalidDigitalSignatureException();
             }
         } catch (SignatureException e) {
@@ -82,7 +92,7 @@ public class DroneDeviceServiceImpl implements DroneDeviceService {
         String trustedCertificatePath = manufacturerService.getCAAndTrustedCertificatePath(manufacturer.getId());
 
         try {
-            if (!signatureVerifierService.isValidSignature(payload, manufacturer.getName(), trustedCertificatePath)) {
+            if (!signatureVerifierService.isValidSignature(payload, manufacturer, trustedCertificatePath)) {
                 throw new InvalidDigitalSignatureException();
             }
         } catch (SignatureException e) {
@@ -103,12 +113,174 @@ public class DroneDeviceServiceImpl implements DroneDeviceService {
         return savedDrone;
     }
 
+    @Override
+    @Transactional
+    public List<RegisterDroneResponsePayload> registerAll(String manufacturerBusinessIdentifier, List<RegisterDroneRequestPayload> payloads) throws ManufacturerNotFoundException, ManufacturerTrustedCertificateNotFoundException {
+        Manufacturer manufacturer = manufacturerService.loadByBusinessIdentifier(manufacturerBusinessIdentifier);
+
+        if( manufacturer == null) { throw new ManufacturerNotFoundException(); }
+
+        String trustedCertificatePath = manufacturerService.getCAAndTrustedCertificatePath(manufacturer.getId());
+        RegisterDroneResponseCode[] responseCodes = verifySignatures(manufacturer, trustedCertificatePath, payloads);
+
+        Set<String> deviceIds = new HashSet<>();
+        Set<String> operatorBusinessIdentifiers = new HashSet<>();
+        for (int index = 0; index < payloads.size(); index++) {
+            if (responseCodes[index] != null) continue;
+            DroneDevice drone = payloads.get(index).getDrone();
+            deviceIds.add(toLookupKey(drone.getDeviceId()));
+            if (drone.getOperatorBusinessIdentifier() != null) {
+                operatorBusinessIdentifiers.add(toLookupKey(drone.getOperatorBusinessIdentifier()));
+            }
+        }
+        Set<String> existingDeviceIds = new HashSet<>();
+        for (DroneDevice existing : findByDeviceIds(deviceIds)) {
+            existingDeviceIds.add(toLookupKey(existing.getDeviceId()));
+        }
+        Set<String> existingOperators = findExistingOperators(operatorBusinessIdentifiers);
+
+        LocalDate now = LocalDate.now();
+        List<DroneDevice> drones = new ArrayList<>();
+        for (int index = 0; index < payloads.size(); index++) {
+            if (responseCodes[index] != null) continue;
+            DroneDevice drone = payloads.get(index).getDrone();
+            //a device repeated within the batch counts as registered by its first occurrence
+            if (!existingDeviceIds.add(toLookupKey(drone.getDeviceId()))) {
+                responseCodes[index] = RegisterDroneResponseCode.DRONE_ALREADY_REGISTERED;
+            } else if (drone.getOperatorBusinessIdentifier() == null) {
+                responseCodes[index] = RegisterDroneResponseCode.OPERATOR_BUSINESS_IDENTIFIER_MISSING;
+            } else if (!existingOperators.contains(toLookupKey(drone.getOperatorBusinessIdentifier()))) {
+                responseCodes[index] = RegisterDroneResponseCode.OPERATOR_BUSINESS_IDENTIFIER_INVALID;
+            } else {
+                drone.setCreatedDate(now);
+                drone.setManufacturerBusinessIdentifier(manufacturerBusinessIdentifier);
+                drone.setRegistrationStatus(DroneDeviceRegistrationStatus.REGISTERED);
+                drones.add(drone);
+                responseCodes[index] = RegisterDroneResponseCode.REGISTERED;
+            }
+        }
+        droneDeviceRepository.insertAll(drones);
+        return toResponses(payloads, responseCodes);
+    }
+
+    @Override
+    @Transactional
+    public List<RegisterDroneResponsePayload> deregisterAll(String manufacturerBusinessIdentifier, List<RegisterDroneRequestPayload> payloads) throws ManufacturerNotFoundException, ManufacturerTrustedCertificateNotFoundException {
+        Manufacturer manufacturer = manufacturerService.loadByBusinessIdentifier(manufacturerBusinessIdentifier);
+
+        if( manufacturer == null) { throw new ManufacturerNotFoundException(); }
+
+        String trustedCertificatePath = manufacturerService.getCAAndTrustedCertificatePath(manufacturer.getId());
+        RegisterDroneResponseCode[] responseCodes = verifySignatures(manufacturer, trustedCertificatePath, payloads);
+
+        Set<String> deviceIds = new HashSet<>();
+        for (int index = 0; index < payloads.size(); index++) {
+            if (responseCodes[index] == null) deviceIds.add(toLookupKey(payloads.get(index).getDrone().getDeviceId()));
+        }
+        Map<String, DroneDevice> existingDrones = new HashMap<>();
+        for (DroneDevice existing : findByDeviceIds(deviceIds)) {
+            existingDrones.put(toLookupKey(existing.getDeviceId()), existing);
+        }
+
+        LocalDate now = LocalDate.now();
+        List<DroneDevice> drones = new ArrayList<>();
+        for (int index = 0; index < payloads.size(); index++) {
+            if (responseCodes[index] != null) continue;
+            DroneDevice actualDrone = existingDrones.get(toLookupKey(payloads.get(index).getDrone().getDeviceId()));
+            if (actualDrone == null) {
+                responseCodes[index] = RegisterDroneResponseCode.DRONE_NOT_FOUND;
+            } else if (actualDrone.getRegistrationStatus() != DroneDeviceRegistrationStatus.REGISTERED) {
+                responseCodes[index] = RegisterDroneResponseCode.DRONE_NOT_REGISTERED;
+            } else {
+                actualDrone.setLastModifiedDate(now);
+                actualDrone.setRegistrationStatus(DroneDeviceRegistrationStatus.DEREGISTERED);
+                drones.add(actualDrone);
+                responseCodes[index] = RegisterDroneResponseCode.DEREGISTERED;
+            }
+        }
+        droneDeviceRepository.updateRegistrationStatuses(drones);
+        return toResponses(payloads, responseCodes);
+    }
+
     @Override
     public Collection<String> getRegisteredDroneDeviceIds(String operatorBusinessIdentifier) {
         Collection<String> droneDeviceIds =  droneDeviceRepository.findRegisteredDroneDeviceIds(operatorBusinessIdentifier);
         return operatorDroneService.getAvailableDroneDeviceIds(droneDeviceIds);
     }
 
+    private RegisterDroneResponseCode[] verifySignatures(Manufacturer manufacturer, String trustedCertificatePath, List<RegisterDroneRequestPayload> payloads) {
+        List<CompletableFuture<RegisterDroneResponseCode>> verifications = new ArrayList<>(payloads.size());
+        for (RegisterDroneRequestPayload payload : payloads) {
+            verifications.add(CompletableFuture.supplyAsync(() -> verifySignature(manufacturer, trustedCertificatePath, payload), verificationExecutor));
+        }
+        RegisterDroneResponseCode[] responseCodes = new RegisterDroneResponseCode[payloads.size()];
+        for (int index = 0; index < verifications.size(); index++) {
+            responseCodes[index] = verifications.get(index).join();
+        }
+        return responseCodes;
+    }
+
+    private RegisterDroneResponseCode verifySignature(Manufacturer manufacturer, String trustedCertificatePath, RegisterDroneRequestPayload payload) {
+        try {
+            if (payload == null || payload.getDrone() == null || payload.getDrone().getDeviceId() == null) {
+                return RegisterDroneResponseCode.BAD_REQUEST_PAYLOAD;
+            }
+            if (!signatureVerifierService.isValidSignature(payload, manufacturer, trustedCertificatePath)) {
+                return RegisterDroneResponseCode.INVALID_SIGNATURE;
+            }
+            return null;
+        } catch (SignatureException | InvalidDigitalSignatureException e) {
+            return RegisterDroneResponseCode.INVALID_SIGNATURE;
+        } catch (InvalidDigitalCertificateException e) {
+            return RegisterDroneResponseCode.INVALID_DIGITAL_CERTIFICATE;
+        } catch (InvalidManufacturerException e) {
+            return RegisterDroneResponseCode.INVALID_MANUFACTURER;
+        } catch (Exception e) {
+            return RegisterDroneResponseCode.BAD_REQUEST_PAYLOAD;
+        }
+    }
+
+    private List<DroneDevice> findByDeviceIds(Set<String> lowerCaseDeviceIds) {
+        List<DroneDevice> result = new ArrayList<>();
+        for (List<String> chunk : chunks(lowerCaseDeviceIds)) {
+            result.addAll(droneDeviceRepository.findByLowerCaseDeviceIds(chunk));
+        }
+        return result;
+    }
+
+    private Set<String> findExistingOperators(Set<String> lowerCaseBusinessIdentifiers) {
+        Set<String> result = new HashSet<>();
+        for (List<String> chunk : chunks(lowerCaseBusinessIdentifiers)) {
+            result.addAll(individualOperatorRepository.findLowerCaseBusinessIdentifiers(chunk));
+            result.addAll(organizationOperatorRepository.findLowerCaseBusinessIdentifiers(chunk));
+        }
+        return result;
+    }
+
+    private static List<List<String>> chunks(Set<String> values) {
+        List<String> all = new ArrayList<>(values);
+        List<List<String>> result = new ArrayList<>();
+        for (int from = 0; from < all.size(); from += LOOKUP_CHUNK_SIZE) {
+            result.add(all.subList(from, Math.min(all.size(), from + LOOKUP_CHUNK_SIZE)));
+        }
+        return result;
+    }
+
+    private static List<RegisterDroneResponsePayload> toResponses(List<RegisterDroneRequestPayload> payloads, RegisterDroneResponseCode[] responseCodes) {
+        List<RegisterDroneResponsePayload> responses = new ArrayList<>(payloads.size());
+        for (int index = 0; index < payloads.size(); index++) {
+            RegisterDroneRequestPayload payload = payloads.get(index);
+            RegisterDroneResponsePayload response = new RegisterDroneResponsePayload();
+            response.setResponseCode(responseCodes[index]);
+            response.setTxn(payload != null && payload.getDrone() != null ? payload.getDrone().getTxn() : null);
+            if (responseCodes[index] != RegisterDroneResponseCode.REGISTERED && responseCodes[index] != RegisterDroneResponseCode.DEREGISTERED) {
+                response.setError(new Errors(responseCodes[index].getReasonPhrase()));
+            }
+            responses.add(response);
+        }
+        return responses;
+    }
+
     private boolean droneExists(String uniqueDeviceCode) {
         DroneDevice drone = droneDeviceRepository.findByDeviceId(uniqueDeviceCode) ;
         boolean droneExists = (drone != null) ? true : false ;
@@ -0,0 +1,251 @@
+package com.ispirit.digitalsky.service;
+
+import com.ispirit.digitalsky.document.FlyDronePermissionApplication;
+import com.ispirit.digitalsky.domain.ApplicationStatus;
+import com.ispirit.digitalsky.domain.FlightWindow;
+import com.ispirit.digitalsky.exception.ValidationException;
+import com.ispirit.digitalsky.repository.FlyDronePermissionApplicationRepository;
+import com.ispirit.digitalsky.service.api.FlightConflictService;
+import com.ispirit.digitalsky.service.api.FlightWindowService;
+import com.ispirit.digitalsky.util.GeometryUtil;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.Polygon;
+import org.locationtech.jts.geom.prep.PreparedGeometry;
+import org.locationtech.jts.geom.prep.PreparedGeometryFactory;
+import org.locationtech.jts.index.quadtree.Quadtree;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+public class FlightConflictServiceImpl implements FlightConflictService {
+
+    private FlyDronePermissionApplicationRepository repository;
+
+    private FlightWindowService flightWindowService;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, IndexedFlight> flightsById = new HashMap<>();
+
+    private final Quadtree flyAreaIndex = new Quadtree();
+
+    //windows bucketed by duration class, so a query looks back at most the longest duration of each class
+    private final Map<Integer, TreeMap<LocalDateTime, List<IndexedWindow>>> windowsByDurationClass = new HashMap<>();
+
+    private volatile boolean loaded;
+
+    public FlightConflictServiceImpl(FlyDronePermissionApplicationRepository repository, FlightWindowService flightWindowService) {
+        this.repository = repository;
+        this.flightWindowService = flightWindowService;
+    }
+
+    @Override
+    public List<String> findConflicts(FlyDronePermissionApplication application) {
+        if (application.getFlyArea() == null || application.getFlyArea().isEmpty()) return Collections.emptyList();
+        ensureLoaded();
+        IndexedFlight flight = index(application);
+
+        lock.readLock().lock();
+        try {
+            return conflicts(flight);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<String> findApprovedIntersecting(Geometry region) {
+        if (region == null || region.isEmpty()) return Collections.emptyList();
+        ensureLoaded();
+        PreparedGeometry preparedRegion = PreparedGeometryFactory.prepare(region);
+
+        lock.readLock().lock();
+        try {
+            Set<String> result = new TreeSet<>();
+            for (Object item : flyAreaIndex.query(region.getEnvelopeInternal())) {
+                IndexedFlight flight = (IndexedFlight) item;
+                if (flight.envelope.intersects(region.getEnvelopeInternal()) && preparedRegion.intersects(flight.flyArea)) {
+                    result.add(flight.applicationId);
+                }
+            }
+            return new ArrayList<>(result);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void register(FlyDronePermissionApplication application) {
+        if (application.getId() == null) return;
+        if (application.getStatus() != ApplicationStatus.APPROVED || application.getFlyArea() == null || application.getFlyArea().isEmpty()) {
+            //an application leaving APPROVED must not keep blocking others
+            unregister(application.getId());
+            return;
+        }
+        ensureLoaded();
+        IndexedFlight flight = index(application);
+        lock.writeLock().lock();
+        try {
+            remove(application.getId());
+            add(flight);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<String> registerIfNoConflicts(FlyDronePermissionApplication application) {
+        if (application.getId() == null) throw new IllegalArgumentException("Application id required");
+        if (application.getFlyArea() == null || application.getFlyArea().isEmpty()) return Collections.emptyList();
+        ensureLoaded();
+        IndexedFlight flight = index(application);
+        //checked and registered under one lock, two overlapping submissions can not both pass the check
+        lock.writeLock().lock();
+        try {
+            List<String> conflicts = conflicts(flight);
+            if (conflicts.isEmpty()) {
+                remove(application.getId());
+                add(flight);
+            }
+            return conflicts;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void unregister(String applicationId) {
+        lock.writeLock().lock();
+        try {
+            remove(applicationId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void ensureLoaded() {
+        if (loaded) return;
+        lock.writeLock().lock();
+        try {
+            if (loaded) return;
+            for (FlyDronePermissionApplication application : repository.findByStatus(ApplicationStatus.APPROVED)) {
+                if (application.getFlyArea() == null || application.getFlyArea().isEmpty()) continue;
+                try {
+                    add(index(application));
+                } catch (IllegalArgumentException | ValidationException e) {
+                    //malformed fly area, recurrence expression or a recurrence approved before occurrences were capped, nothing to index
+                }
+            }
+            loaded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private List<String> conflicts(IndexedFlight candidate) {
+        Set<String> spatialCandidates = new HashSet<>();
+        for (Object item : flyAreaIndex.query(candidate.envelope)) {
+            IndexedFlight flight = (IndexedFlight) item;
+            if (!flight.applicationId.equals(candidate.applicationId) && flight.envelope.intersects(candidate.envelope)) {
+                spatialCandidates.add(flight.applicationId);
+            }
+        }
+        if (spatialCandidates.isEmpty()) return Collections.emptyList();
+
+        Set<String> conflicts = new TreeSet<>();
+        for (FlightWindow window : candidate.windows) {
+            for (Map.Entry<Integer, TreeMap<LocalDateTime, List<IndexedWindow>>> entry : windowsByDurationClass.entrySet()) {
+                LocalDateTime earliestStart = window.getStart().minus(longestDurationOf(entry.getKey()));
+                for (List<IndexedWindow> indexedWindows : entry.getValue().subMap(earliestStart, true, window.getEnd(), false).values()) {
+                    for (IndexedWindow indexedWindow : indexedWindows) {
+                        String applicationId = indexedWindow.applicationId;
+                        if (conflicts.contains(applicationId) || !spatialCandidates.contains(applicationId)) continue;
+                        if (indexedWindow.window.overlaps(window) && flightsById.get(applicationId).flyArea.intersects(candidate.flyArea)) {
+                            conflicts.add(applicationId);
+                        }
+                    }
+                }
+            }
+        }
+        return new ArrayList<>(conflicts);
+    }
+
+    private IndexedFlight index(FlyDronePermissionApplication application) {
+        Polygon flyArea = GeometryUtil.toPolygon(application.getFlyArea());
+        return new IndexedFlight(application.getId(), flyArea, flightWindowService.windows(application));
+    }
+
+    private void add(IndexedFlight flight) {
+        flightsById.put(flight.applicationId, flight);
+        flyAreaIndex.insert(flight.envelope, flight);
+        for (FlightWindow window : flight.windows) {
+            windowsByDurationClass.computeIfAbsent(durationClass(window), durationClass -> new TreeMap<>())
+                    .computeIfAbsent(window.getStart(), start -> new ArrayList<>())
+                    .add(new IndexedWindow(flight.applicationId, window));
+        }
+    }
+
+    private void remove(String applicationId) {
+        IndexedFlight flight = flightsById.remove(applicationId);
+        if (flight == null) return;
+        flyAreaIndex.remove(flight.envelope, flight);
+        for (FlightWindow window : flight.windows) {
+            int durationClass = durationClass(window);
+            TreeMap<LocalDateTime, List<IndexedWindow>> windowsByStart = windowsByDurationClass.get(durationClass);
+            if (windowsByStart == null) continue;
+            List<IndexedWindow> indexedWindows = windowsByStart.get(window.getStart());
+            if (indexedWindows == null) continue;
+            indexedWindows.removeIf(indexedWindow -> indexedWindow.applicationId.equals(applicationId));
+            if (indexedWindows.isEmpty()) {
+                windowsByStart.remove(window.getStart());
+            }
+            if (windowsByStart.isEmpty()) {
+                windowsByDurationClass.remove(durationClass);
+            }
+        }
+    }
+
+    //windows of class n last less than 2^n seconds
+    private static int durationClass(FlightWindow window) {
+        long seconds = Duration.between(window.getStart(), window.getEnd()).getSeconds();
+        return 64 - Long.numberOfLeadingZeros(Math.max(seconds, 1));
+    }
+
+    private static Duration longestDurationOf(int durationClass) {
+        return Duration.ofSeconds(1L << durationClass);
+    }
+
+    private static class IndexedFlight {
+
+        private final String applicationId;
+
+        private final Polygon flyArea;
+
+        private final Envelope envelope;
+
+        private final List<FlightWindow> windows;
+
+        IndexedFlight(String applicationId, Polygon flyArea, List<FlightWindow> windows) {
+            this.applicationId = applicationId;
+            this.flyArea = flyArea;
+            this.envelope = flyArea.getEnvelopeInternal();
+            this.windows = windows;
+        }
+    }
+
+    private static class IndexedWindow {
+
+        private final String applicationId;
+
+        private final FlightWindow window;
+
+        IndexedWindow(String applicationId, FlightWindow window) {
+            this.applicationId = applicationId;
+            this.window = window;
+        }
+    }
+}
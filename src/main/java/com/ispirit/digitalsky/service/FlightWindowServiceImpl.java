@@ -0,0 +1,184 @@
+package com.ispirit.digitalsky.service;
+
+import com.cronutils.model.definition.CronDefinitionBuilder;
+import com.cronutils.model.time.ExecutionTime;
+import com.cronutils.parser.CronParser;
+import com.ispirit.digitalsky.document.FlyDronePermissionApplication;
+import com.ispirit.digitalsky.domain.FlightWindow;
+import com.ispirit.digitalsky.dto.Errors;
+import com.ispirit.digitalsky.exception.ValidationException;
+import com.ispirit.digitalsky.service.api.FlightWindowService;
+import com.ispirit.digitalsky.util.BoundedCache;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+import static com.cronutils.model.CronType.QUARTZ;
+import static org.apache.commons.lang3.StringUtils.isEmpty;
+
+public class FlightWindowServiceImpl implements FlightWindowService {
+
+    public static final int MAX_OCCURRENCES = 10000;
+
+    public static final int EXECUTION_TIME_CACHE_SIZE = 1000;
+
+    public static final int WINDOW_CACHE_SIZE = 10000;
+
+    //cached in place of the windows of a recurrence over the cap, so it is not expanded again on every lookup
+    private static final List<FlightWindow> TOO_MANY_OCCURRENCES = Collections.unmodifiableList(new ArrayList<>());
+
+    private final CronParser cronParser = new CronParser(CronDefinitionBuilder.instanceDefinitionFor(QUARTZ));
+
+    private final BoundedCache<String, ExecutionTime> executionTimes = new BoundedCache<>(EXECUTION_TIME_CACHE_SIZE);
+
+    private final BoundedCache<WindowKey, List<FlightWindow>> windowsByPermission = new BoundedCache<>(WINDOW_CACHE_SIZE);
+
+    @Override
+    public List<FlightWindow> windows(FlyDronePermissionApplication application) {
+        List<FlightWindow> windows = cachedWindows(application);
+        if (windows == TOO_MANY_OCCURRENCES) throw tooManyOccurrences();
+        return windows;
+    }
+
+    @Override
+    public boolean isActiveAt(FlyDronePermissionApplication application, LocalDateTime instant) {
+        LocalDateTime startDateTime = application.getStartDateTime();
+        LocalDateTime endDateTime = application.getEndDateTime();
+        if (startDateTime == null || endDateTime == null) return false;
+        if (instant.isBefore(startDateTime) || !instant.isBefore(endDateTime)) return false;
+        if (!isRecurring(application)) return true;
+
+        List<FlightWindow> windows = cachedWindows(application);
+        if (windows != TOO_MANY_OCCURRENCES) {
+            int index = lastWindowStartingAtOrBefore(windows, instant);
+            return index >= 0 && windows.get(index).contains(instant);
+        }
+
+        //too many windows to materialize, ask the cron expression directly
+        ZonedDateTime before = instant.truncatedTo(ChronoUnit.SECONDS).plusSeconds(1).atZone(ZoneId.systemDefault());
+        Optional<ZonedDateTime> lastExecution = executionTime(application.getRecurringTimeExpression()).lastExecution(before);
+        if (!lastExecution.isPresent()) return false;
+        LocalDateTime windowStart = lastExecution.get().toLocalDateTime();
+        if (windowStart.isBefore(startDateTime)) return false;
+        LocalDateTime windowEnd = windowStart.plusMinutes(application.getRecurringTimeDurationInMinutes());
+        return new FlightWindow(windowStart, windowEnd.isAfter(endDateTime) ? endDateTime : windowEnd).contains(instant);
+    }
+
+    private List<FlightWindow> cachedWindows(FlyDronePermissionApplication application) {
+        WindowKey key = new WindowKey(application);
+        List<FlightWindow> windows = windowsByPermission.get(key);
+        if (windows == null) {
+            try {
+                windows = Collections.unmodifiableList(expand(application));
+            } catch (ValidationException e) {
+                windows = TOO_MANY_OCCURRENCES;
+            }
+            windowsByPermission.put(key, windows);
+        }
+        return windows;
+    }
+
+    List<FlightWindow> expand(FlyDronePermissionApplication application) {
+        LocalDateTime startDateTime = application.getStartDateTime();
+        LocalDateTime endDateTime = application.getEndDateTime();
+        if (startDateTime == null || endDateTime == null || !startDateTime.isBefore(endDateTime)) {
+            return Collections.emptyList();
+        }
+        if (!isRecurring(application)) {
+            return Collections.singletonList(new FlightWindow(startDateTime, endDateTime));
+        }
+
+        ExecutionTime executionTime = executionTime(application.getRecurringTimeExpression());
+        long durationInMinutes = application.getRecurringTimeDurationInMinutes();
+
+        List<FlightWindow> windows = new ArrayList<>();
+        ZonedDateTime cursor = startDateTime.atZone(ZoneId.systemDefault()).minusSeconds(1);
+        while (true) {
+            Optional<ZonedDateTime> next = executionTime.nextExecution(cursor);
+            if (!next.isPresent() || !next.get().toLocalDateTime().isBefore(endDateTime)) break;
+            if (windows.size() == MAX_OCCURRENCES) {
+                //truncating would leave the later windows out of every conflict check
+                throw tooManyOccurrences();
+            }
+            LocalDateTime windowStart = next.get().toLocalDateTime();
+            LocalDateTime windowEnd = windowStart.plusMinutes(durationInMinutes);
+            windows.add(new FlightWindow(windowStart, windowEnd.isAfter(endDateTime) ? endDateTime : windowEnd));
+            cursor = next.get();
+        }
+        return windows;
+    }
+
+    private ValidationException tooManyOccurrences() {
+        return new ValidationException(new Errors(String.format("Recurring flight has more than %d occurrences, shorten the period or the recurrence", MAX_OCCURRENCES)));
+    }
+
+    private ExecutionTime executionTime(String expression) {
+        ExecutionTime executionTime = executionTimes.get(expression);
+        if (executionTime == null) {
+            executionTime = ExecutionTime.forCron(cronParser.parse(expression));
+            executionTimes.put(expression, executionTime);
+        }
+        return executionTime;
+    }
+
+    private boolean isRecurring(FlyDronePermissionApplication application) {
+        return !isEmpty(application.getRecurringTimeExpression()) && application.getRecurringTimeDurationInMinutes() != null;
+    }
+
+    private int lastWindowStartingAtOrBefore(List<FlightWindow> windows, LocalDateTime instant) {
+        int low = 0;
+        int high = windows.size() - 1;
+        int result = -1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (windows.get(middle).getStart().isAfter(instant)) {
+                high = middle - 1;
+            } else {
+                result = middle;
+                low = middle + 1;
+            }
+        }
+        return result;
+    }
+
+    private static class WindowKey {
+
+        private final LocalDateTime startDateTime;
+
+        private final LocalDateTime endDateTime;
+
+        private final String recurringTimeExpression;
+
+        private final Long recurringTimeDurationInMinutes;
+
+        WindowKey(FlyDronePermissionApplication application) {
+            this.startDateTime = application.getStartDateTime();
+            this.endDateTime = application.getEndDateTime();
+            this.recurringTimeExpression = application.getRecurringTimeExpression();
+            this.recurringTimeDurationInMinutes = application.getRecurringTimeDurationInMinutes();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            WindowKey that = (WindowKey) o;
+            return Objects.equals(startDateTime, that.startDateTime)
+                    && Objects.equals(endDateTime, that.endDateTime)
+                    && Objects.equals(recurringTimeExpression, that.recurringTimeExpression)
+                    && Objects.equals(recurringTimeDurationInMinutes, that.recurringTimeDurationInMinutes);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(startDateTime, endDateTime, recurringTimeExpression, recurringTimeDurationInMinutes);
+        }
+    }
+}
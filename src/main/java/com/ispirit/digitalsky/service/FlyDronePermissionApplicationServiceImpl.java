@@ -1,34 +1,56 @@
 package com.ispirit.digitalsky.service;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.ispirit.digitalsky.document.FlyDronePermissionApplication;
 import com.ispirit.digitalsky.document.LatLong;
+import com.ispirit.digitalsky.document.PermissionArtifactJob;
 import com.ispirit.digitalsky.domain.*;
 import com.ispirit.digitalsky.dto.Errors;
+import com.ispirit.digitalsky.dto.FlyAreaClassification;
 import com.ispirit.digitalsky.exception.*;
 import com.ispirit.digitalsky.repository.FlyDronePermissionApplicationRepository;
+import com.ispirit.digitalsky.repository.PermissionArtifactJobRepository;
 import com.ispirit.digitalsky.repository.storage.StorageService;
 import com.ispirit.digitalsky.service.api.*;
-import freemarker.template.Configuration;
-import freemarker.template.Template;
-import org.apache.commons.lang3.StringUtils;
-import org.geojson.GeoJsonObject;
-import org.geotools.data.simple.SimpleFeatureIterator;
-import org.geotools.feature.DefaultFeatureCollection;
-import org.geotools.geojson.feature.FeatureJSON;
-import org.locationtech.jts.geom.Coordinate;
+import com.ispirit.digitalsky.util.BoundedCache;
+import com.ispirit.digitalsky.util.GeometryUtil;
+import com.ispirit.digitalsky.util.SingleFlight;
+import com.ispirit.digitalsky.util.XmlUtil;
+import org.bson.types.ObjectId;
 import org.locationtech.jts.geom.Polygon;
-import org.opengis.feature.simple.SimpleFeature;
+import org.locationtech.jts.geom.TopologyException;
+import org.locationtech.jts.util.AssertionFailedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.core.io.Resource;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.geo.GeoJsonPolygon;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StreamUtils;
+import org.w3c.dom.Document;
 
 import java.io.IOException;
-import java.io.StringWriter;
-import java.time.format.DateTimeFormatter;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
-import static org.apache.commons.io.IOUtils.toInputStream;
 import static org.apache.commons.lang3.StringUtils.isEmpty;
 
 public class FlyDronePermissionApplicationServiceImpl implements FlyDronePermissionApplicationService {
@@ -36,14 +58,32 @@ public class FlyDronePermissionApplicationServiceImpl implements FlyDronePermiss
 
     public static final String PERMISSION_ARTIFACT_XML = "permissionArtifact.xml";
 
+    public static final int PRECHECK_CACHE_SIZE = 10000;
+
+    public static final double PRECHECK_QUANTIZATION_IN_DEGREES = 0.00001;
+
+    public static final int MAX_REGION_PAGE_SIZE = 1000;
+
+    static final int BACKFILL_BATCH_SIZE = 500;
+
+    public static final int PERMISSION_ARTIFACT_MAX_ATTEMPTS = 5;
+
+    static final long PERMISSION_ARTIFACT_LEASE_IN_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    static final long PERMISSION_ARTIFACT_RETRY_DELAY_IN_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    public static final int PERMISSION_ARTIFACT_EXPORT_WINDOW = 32;
+
+    static final String PERMISSION_ARTIFACT_EXPORT_FAILURES = "failedApplicationIds.txt";
+
+    private static final Logger logger = LoggerFactory.getLogger(FlyDronePermissionApplicationServiceImpl.class);
+
     private FlyDronePermissionApplicationRepository repository;
 
     private StorageService storageService;
 
     private AirspaceCategoryService airspaceCategoryService;
 
-    private Configuration configuration;
-
     private DigitalSignService digitalSignService;
 
     private OperatorDroneService operatorDroneService;
@@ -52,6 +92,18 @@ public class FlyDronePermissionApplicationServiceImpl implements FlyDronePermiss
 
     private PilotService pilotService;
 
+    private FlightConflictService flightConflictService;
+
+    private PermissionArtifactJobRepository permissionArtifactJobRepository;
+
+    private ExecutorService permissionArtifactExportExecutor;
+
+    private final BoundedCache<QuantizedFlyArea, FlyAreaClassification> precheckCache = new BoundedCache<>(PRECHECK_CACHE_SIZE);
+
+    private final SingleFlight<String, Boolean> permissionArtifactRegenerations = new SingleFlight<>();
+
+    private final SingleFlight<String, String> permissionArtifactHashBackfills = new SingleFlight<>();
+
 
     public FlyDronePermissionApplicationServiceImpl(
             FlyDronePermissionApplicationRepository repository,
@@ -60,7 +112,10 @@ public class FlyDronePermissionApplicationServiceImpl implements FlyDronePermiss
             DigitalSignService digitalSignService,
             OperatorDroneService operatorDroneService,
             UserProfileService userProfileService,
-            PilotService pilotService, Configuration freemarkerConfiguration) {
+            PilotService pilotService,
+            FlightConflictService flightConflictService,
+            PermissionArtifactJobRepository permissionArtifactJobRepository,
+            ExecutorService permissionArtifactExportExecutor) {
         this.repository = repository;
         this.storageService = storageService;
         this.airspaceCategoryService = airspaceCategoryService;
@@ -68,7 +123,9 @@ public class FlyDronePermissionApplicationServiceImpl implements FlyDronePermiss
         this.operatorDroneService = operatorDroneService;
         this.userProfileService = userProfileService;
         this.pilotService = pilotService;
-        this.configuration = freemarkerConfiguration;
+        this.flightConflictService = flightConflictService;
+        this.permissionArtifactJobRepository = permissionArtifactJobRepository;
+        this.permissionArtifactExportExecutor = permissionArtifactExportExecutor;
     }
 
     @Override
@@ -82,16 +139,28 @@ public class FlyDronePermissionApplicationServiceImpl implements FlyDronePermiss
         application.setApplicantType(operatorDrone.getOperatorType());
         application.setOperatorId(operatorDrone.getOperatorId());
         setPilotId(application);
-        validateFlyArea(application);
+        AirspaceSnapshot airspaceSnapshot = airspaceCategoryService.airspaceSnapshot();
+        validateFlyArea(application, airspaceSnapshot);
+        application.setFlyAreaGeometry(GeometryUtil.toGeoJsonPolygon(application.getFlyArea()));
 
         if (application.getStatus() == ApplicationStatus.SUBMITTED) {
             if (application.getFlyArea() == null || application.getFlyArea().isEmpty()) {
                 throw new ValidationException(new Errors("Fly Area coordinates required"));
             }
             application.setSubmittedDate(new Date());
-            handleSubmit(application);
-            FlyDronePermissionApplication document = repository.insert(application);
-            generatePermissionArtifact(document);
+            //self approval registers the flight under this id before the insert
+            application.setId(new ObjectId().toHexString());
+            handleSubmit(application, airspaceSnapshot);
+            markPermissionArtifactPending(application);
+            FlyDronePermissionApplication document;
+            try {
+                document = repository.insert(application);
+            } catch (RuntimeException e) {
+                flightConflictService.unregister(application.getId());
+                throw e;
+            }
+            flightConflictService.register(document);
+            enqueuePermissionArtifact(document);
             return document;
         } else {
             return repository.insert(application);
@@ -118,19 +187,25 @@ public class FlyDronePermissionApplicationServiceImpl implements FlyDronePermiss
         actualForm.setLastModifiedDate(new Date());
         actualForm.setRecurringTimeExpression(application.getRecurringTimeExpression());
         actualForm.setRecurringTimeDurationInMinutes(application.getRecurringTimeDurationInMinutes());
-        validateFlyArea(actualForm);
+        AirspaceSnapshot airspaceSnapshot = airspaceCategoryService.airspaceSnapshot();
+        validateFlyArea(actualForm, airspaceSnapshot);
+        actualForm.setFlyAreaGeometry(GeometryUtil.toGeoJsonPolygon(actualForm.getFlyArea()));
         setPilotId(actualForm);
         if (application.getStatus() == ApplicationStatus.SUBMITTED) {
             if (actualForm.getFlyArea() == null || actualForm.getFlyArea().isEmpty()) {
                 throw new ValidationException(new Errors("Fly Area coordinates required"));
             }
             actualForm.setSubmittedDate(new Date());
-            handleSubmit(actualForm);
+            handleSubmit(actualForm, airspaceSnapshot);
+            markPermissionArtifactPending(actualForm);
             FlyDronePermissionApplication savedForm = repository.save(actualForm);
-            generatePermissionArtifact(actualForm);
+            flightConflictService.register(actualForm);
+            enqueuePermissionArtifact(actualForm);
             return savedForm;
         } else {
-            return repository.save(actualForm);
+            FlyDronePermissionApplication savedForm = repository.save(actualForm);
+            flightConflictService.register(actualForm);
+            return savedForm;
         }
     }
 
@@ -152,8 +227,11 @@ public class FlyDronePermissionApplicationServiceImpl implements FlyDronePermiss
         actualForm.setApprovedDate(new Date());
         actualForm.setApproverComments(approveRequestBody.getComments());
         actualForm.setStatus(approveRequestBody.getStatus());
+        markPermissionArtifactPending(actualForm);
 
         FlyDronePermissionApplication savedForm = repository.save(actualForm);
+        flightConflictService.register(actualForm);
+        enqueuePermissionArtifact(actualForm);
         return savedForm;
     }
 
@@ -177,162 +255,329 @@ public class FlyDronePermissionApplicationServiceImpl implements FlyDronePermiss
     }
 
     @Override
+    public Page<FlyDronePermissionApplication> getApplicationsInRegion(double minLatitude, double minLongitude, double maxLatitude, double maxLongitude, LocalDateTime from, LocalDateTime to, int page, int size) {
+        if (minLatitude < -90 || maxLatitude > 90 || minLongitude < -180 || maxLongitude > 180 || minLatitude >= maxLatitude || minLongitude >= maxLongitude) {
+            throw new ValidationException(new Errors("Invalid region bounds"));
+        }
+        if (from == null || to == null || !from.isBefore(to)) {
+            throw new ValidationException(new Errors("Invalid time range"));
+        }
+        if (page < 0 || size <= 0 || size > MAX_REGION_PAGE_SIZE) {
+            throw new ValidationException(new Errors(String.format("Page size should be between 1 and %d", MAX_REGION_PAGE_SIZE)));
+        }
+        GeoJsonPolygon region = GeometryUtil.toGeoJsonPolygon(minLatitude, minLongitude, maxLatitude, maxLongitude);
+        return repository.findInRegion(region, from, to, new PageRequest(page, size, new Sort(Sort.Direction.DESC, "lastModifiedDate")));
+    }
 
-    public Resource getPermissionArtifact(String applicationId) throws StorageFileNotFoundException {
-        try {
-            return storageService.loadAsResource(applicationId, PERMISSION_ARTIFACT_XML);
-        } catch (StorageFileNotFoundException e) {
-            generatePermissionArtifact(get(applicationId));
-            return storageService.loadAsResource(applicationId, PERMISSION_ARTIFACT_XML);
+    @Override
+    public long backfillFlyAreaGeometries() {
+        long updated = 0;
+        //only the geometry is written, so applications edited while the backfill runs keep their changes
+        Map<String, GeoJsonPolygon> batch = new LinkedHashMap<>();
+        try (Stream<FlyDronePermissionApplication> applications = repository.streamByFlyAreaGeometryIsNullAndFlyAreaIsNotNull()) {
+            Iterator<FlyDronePermissionApplication> iterator = applications.iterator();
+            while (iterator.hasNext()) {
+                FlyDronePermissionApplication application = iterator.next();
+                GeoJsonPolygon flyAreaGeometry = GeometryUtil.toGeoJsonPolygon(application.getFlyArea());
+                if (flyAreaGeometry == null) continue;
+                batch.put(application.getId(), flyAreaGeometry);
+                if (batch.size() == BACKFILL_BATCH_SIZE) {
+                    updated += repository.updateFlyAreaGeometries(batch);
+                    batch.clear();
+                }
+            }
         }
+        if (!batch.isEmpty()) {
+            updated += repository.updateFlyAreaGeometries(batch);
+        }
+        return updated;
     }
 
-    void handleSubmit(FlyDronePermissionApplication application) {
-        try {
-            Map<AirspaceCategory.Type, GeoJsonObject> geoJsonMapByType = airspaceCategoryService.findGeoJsonMapByType();
-
-            GeoJsonObject amberCategories = geoJsonMapByType.get(AirspaceCategory.Type.AMBER);
-
-            boolean result = isFlyAreaIntersects(new ObjectMapper().writeValueAsString(amberCategories), application.getFlyArea());
-            if (!result) {
-                UserPrincipal userPrincipal = UserPrincipal.securityContext();
-                application.setApproverId(userPrincipal.getId());
-                application.setApprover(userPrincipal.getUsername());
-                application.setApprovedDate(new Date());
-                application.setApproverComments("Self approval, within green zone");
-                application.setStatus(ApplicationStatus.APPROVED);
+    @Override
+    public PermissionArtifact getPermissionArtifact(String applicationId) throws StorageFileNotFoundException {
+        FlyDronePermissionApplication application = get(applicationId);
+        if (application.getPermissionArtifactStatus() != PermissionArtifactStatus.PENDING) {
+            Resource resource;
+            try {
+                resource = storageService.loadAsResource(applicationId, PERMISSION_ARTIFACT_XML);
+            } catch (StorageFileNotFoundException e) {
+                //applications approved before the queue existed, or whose generation failed, are queued on first download
+                requeuePermissionArtifact(application);
+                throw new PermissionArtifactNotReadyException();
             }
-        } catch (RuntimeException e) {
-            throw e;
-        } catch (Exception e) {
-            throw new RuntimeException(e);
+            String contentHash = application.getPermissionArtifactHash();
+            if (contentHash == null) {
+                contentHash = permissionArtifactHashBackfills.execute(applicationId, () -> backfillPermissionArtifactHash(applicationId, resource));
+            }
+            return new PermissionArtifact(resource, contentHash);
         }
+        throw new PermissionArtifactNotReadyException();
     }
 
-    void validateFlyArea(FlyDronePermissionApplication application) {
+    @Override
+    public void exportPermissionArtifacts(Date approvedFrom, Date approvedTo, OutputStream outputStream) throws IOException {
+        if (approvedFrom == null || approvedTo == null || !approvedFrom.before(approvedTo)) {
+            throw new ValidationException(new Errors("Invalid approved date range"));
+        }
+        ZipOutputStream zipOutputStream = new ZipOutputStream(outputStream);
+        List<String> failedApplicationIds = new ArrayList<>();
+        //artifacts are loaded ahead of the writer, but never more than the window, so memory stays flat
+        Deque<ExportEntry> window = new ArrayDeque<>();
+        try (Stream<FlyDronePermissionApplication> applications = repository.streamApprovedBetween(approvedFrom, approvedTo)) {
+            Iterator<FlyDronePermissionApplication> iterator = applications.iterator();
+            while (iterator.hasNext()) {
+                FlyDronePermissionApplication application = iterator.next();
+                if (window.size() == PERMISSION_ARTIFACT_EXPORT_WINDOW) {
+                    writeExportEntry(zipOutputStream, window.poll(), failedApplicationIds);
+                }
+                window.add(new ExportEntry(application.getId(), permissionArtifactExportExecutor.submit(() -> loadPermissionArtifact(application))));
+            }
+            while (!window.isEmpty()) {
+                writeExportEntry(zipOutputStream, window.poll(), failedApplicationIds);
+            }
+        } finally {
+            for (ExportEntry entry : window) {
+                entry.artifact.cancel(true);
+            }
+        }
+        if (!failedApplicationIds.isEmpty()) {
+            zipOutputStream.putNextEntry(new ZipEntry(PERMISSION_ARTIFACT_EXPORT_FAILURES));
+            zipOutputStream.write(String.join("\n", failedApplicationIds).getBytes(StandardCharsets.UTF_8));
+            zipOutputStream.closeEntry();
+        }
+        zipOutputStream.finish();
+    }
+
+    Resource loadPermissionArtifact(FlyDronePermissionApplication application) {
+        //generation is left to the queue worker, an artifact not ready yet is listed as not exported
+        if (application.getPermissionArtifactStatus() == PermissionArtifactStatus.PENDING) {
+            throw new PermissionArtifactNotReadyException();
+        }
         try {
-            if (application.getFlyArea() == null || application.getFlyArea().isEmpty()) return;
-            Map<AirspaceCategory.Type, GeoJsonObject> geoJsonMapByType = airspaceCategoryService.findGeoJsonMapByType();
+            return storageService.loadAsResource(application.getId(), PERMISSION_ARTIFACT_XML);
+        } catch (StorageFileNotFoundException e) {
+            requeuePermissionArtifact(application);
+            throw new PermissionArtifactNotReadyException();
+        }
+    }
 
-            GeoJsonObject greenCategories = geoJsonMapByType.get(AirspaceCategory.Type.GREEN);
-            validateFlyAreaWithin(new ObjectMapper().writeValueAsString(greenCategories), application.getFlyArea());
+    private void requeuePermissionArtifact(FlyDronePermissionApplication application) {
+        String applicationId = application.getId();
+        permissionArtifactRegenerations.execute(applicationId, () -> {
+            //written in place, the application read above may already be outdated
+            if (application.getStatus() == ApplicationStatus.APPROVED) {
+                updatePermissionArtifactStatus(applicationId, PermissionArtifactStatus.PENDING, null);
+                enqueuePermissionArtifact(applicationId);
+            }
+            return true;
+        });
+    }
 
-            GeoJsonObject redCategories = geoJsonMapByType.get(AirspaceCategory.Type.RED);
-            validateFlyAreaIntersectsRedZones(new ObjectMapper().writeValueAsString(redCategories), application.getFlyArea());
-        } catch (RuntimeException e) {
-            throw e;
-        } catch (Exception e) {
-            throw new RuntimeException(e);
+    private void writeExportEntry(ZipOutputStream zipOutputStream, ExportEntry entry, List<String> failedApplicationIds) throws IOException {
+        Resource artifact;
+        try {
+            artifact = entry.artifact.get();
+        } catch (ExecutionException e) {
+            logger.warn("Permission artifact of application {} could not be exported", entry.applicationId, e.getCause());
+            failedApplicationIds.add(entry.applicationId);
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Permission artifact export interrupted");
         }
+        zipOutputStream.putNextEntry(new ZipEntry(entry.applicationId + ".xml"));
+        try (InputStream inputStream = artifact.getInputStream()) {
+            StreamUtils.copy(inputStream, zipOutputStream);
+        }
+        zipOutputStream.closeEntry();
     }
 
-    public void generatePermissionArtifact(FlyDronePermissionApplication application) {
-        if (!application.getStatus().equals(ApplicationStatus.APPROVED)) {
-            throw new ValidationException(new Errors("Cannot generate permission artifact if application is not approved"));
+    @Override
+    public boolean processNextPermissionArtifactJob() {
+        Date now = new Date();
+        PermissionArtifactJob job = permissionArtifactJobRepository.claimNext(now, new Date(now.getTime() + PERMISSION_ARTIFACT_LEASE_IN_MILLIS));
+        if (job == null) return false;
+
+        FlyDronePermissionApplication application = repository.findById(job.getApplicationId());
+        if (application == null || application.getStatus() != ApplicationStatus.APPROVED) {
+            permissionArtifactJobRepository.delete(job.getApplicationId());
+            return true;
         }
-        String artifactContent = getPermissionArtifactContent(application);
-        String signedArtifactContent = digitalSignService.sign(artifactContent);
-        storageService.store(PERMISSION_ARTIFACT_XML, signedArtifactContent, application.getId());
+        try {
+            String contentHash = generatePermissionArtifact(application);
+            updatePermissionArtifactStatus(application.getId(), PermissionArtifactStatus.READY, contentHash);
+            permissionArtifactJobRepository.delete(job.getApplicationId());
+        } catch (Exception e) {
+            logger.warn("Permission artifact generation failed for application {}, attempt {}", application.getId(), job.getAttempts(), e);
+            if (job.getAttempts() >= PERMISSION_ARTIFACT_MAX_ATTEMPTS) {
+                updatePermissionArtifactStatus(application.getId(), PermissionArtifactStatus.FAILED, null);
+                permissionArtifactJobRepository.delete(job.getApplicationId());
+            } else {
+                long delay = PERMISSION_ARTIFACT_RETRY_DELAY_IN_MILLIS << Math.max(0, job.getAttempts() - 1);
+                job.retryAt(new Date(System.currentTimeMillis() + delay), e.getMessage());
+                permissionArtifactJobRepository.save(job);
+            }
+        }
+        return true;
     }
 
-    void validateFlyAreaWithin(String greenZones, List<LatLong> flyArea) throws IOException {
-        FeatureJSON featureJSON = new FeatureJSON();
-
-        DefaultFeatureCollection featureCollection = (DefaultFeatureCollection) featureJSON.readFeatureCollection(
-                toInputStream(greenZones, "UTF-8"));
+    @Override
+    public List<FlyAreaClassification> classifyFlyAreas(List<List<LatLong>> flyAreas) {
+        AirspaceSnapshot airspaceSnapshot = airspaceCategoryService.airspaceSnapshot();
+        return flyAreas.parallelStream()
+                .map(flyArea -> classifyFlyArea(airspaceSnapshot, flyArea))
+                .collect(Collectors.toList());
+    }
 
-        Coordinate[] flyAreaCoordinates = new Coordinate[flyArea.size()];
-        for (int index = 0; index < flyArea.size(); index++) {
-            LatLong latLong = flyArea.get(index);
-            flyAreaCoordinates[index] = new Coordinate(latLong.getLongitude(), latLong.getLatitude());
+    @Override
+    public FlyAreaClassification precheckFlyArea(List<LatLong> flyArea) {
+        AirspaceSnapshot airspaceSnapshot = airspaceCategoryService.airspaceSnapshot();
+        if (flyArea == null || flyArea.isEmpty()) {
+            return FlyAreaClassification.invalid(airspaceSnapshot.getVersion(), "Fly Area coordinates required");
         }
-
-        boolean result = false;
-        SimpleFeatureIterator featureIterator = featureCollection.features();
-        while (featureIterator.hasNext()) {
-            SimpleFeature feature = featureIterator.next();
-            Polygon airspaceCategory = (Polygon) feature.getDefaultGeometry();
-            Polygon polygon = airspaceCategory.getFactory().createPolygon(flyAreaCoordinates);
-            if (polygon.within(airspaceCategory)) {
-                result = true;
-                break;
-            }
+        QuantizedFlyArea quantizedFlyArea = new QuantizedFlyArea(airspaceSnapshot.getVersion(), flyArea);
+        FlyAreaClassification classification = precheckCache.get(quantizedFlyArea);
+        if (classification == null) {
+            classification = classifyFlyArea(airspaceSnapshot, quantizedFlyArea.toFlyArea());
+            precheckCache.put(quantizedFlyArea, classification);
         }
+        return classification;
+    }
 
-        if (!result) {
-            throw new ValidationException(new Errors("Fly Area should be within Green zone"));
+    FlyAreaClassification classifyFlyArea(AirspaceSnapshot airspaceSnapshot, List<LatLong> flyArea) {
+        if (flyArea == null || flyArea.isEmpty()) {
+            return FlyAreaClassification.invalid(airspaceSnapshot.getVersion(), "Fly Area coordinates required");
+        }
+        try {
+            Polygon polygon = GeometryUtil.toPolygon(flyArea);
+            AirspaceIndex airspaceIndex = airspaceSnapshot.getIndex();
+            return new FlyAreaClassification(
+                    airspaceSnapshot.getVersion(),
+                    airspaceIndex.isWithin(AirspaceCategory.Type.GREEN, polygon),
+                    airspaceIndex.intersectingCategoryIds(AirspaceCategory.Type.AMBER, polygon),
+                    airspaceIndex.intersectingCategoryIds(AirspaceCategory.Type.RED, polygon));
+        } catch (IllegalArgumentException | TopologyException | AssertionFailedException e) {
+            //one degenerate polygon must not fail the whole batch
+            return FlyAreaClassification.invalid(airspaceSnapshot.getVersion(), "Invalid Fly Area coordinates");
         }
     }
 
-    void validateFlyAreaIntersectsRedZones(String zones, List<LatLong> flyArea) throws IOException {
-        if (isFlyAreaIntersects(zones, flyArea)) {
-            throw new ValidationException(new Errors("Fly Area cannot intersect with Red Zones"));
+    void handleSubmit(FlyDronePermissionApplication application, AirspaceSnapshot airspaceSnapshot) {
+        boolean result = isFlyAreaIntersects(airspaceSnapshot.getIndex(), AirspaceCategory.Type.AMBER, application.getFlyArea());
+        if (result) {
+            application.setConflictingApplicationIds(flightConflictService.findConflicts(application));
+            return;
+        }
+        //a concurrent overlapping submission either sees this flight as a conflict or is seen as one
+        List<String> conflictingApplicationIds = flightConflictService.registerIfNoConflicts(application);
+        application.setConflictingApplicationIds(conflictingApplicationIds);
+        if (conflictingApplicationIds.isEmpty()) {
+            UserPrincipal userPrincipal = UserPrincipal.securityContext();
+            application.setApproverId(userPrincipal.getId());
+            application.setApprover(userPrincipal.getUsername());
+            application.setApprovedDate(new Date());
+            application.setApproverComments("Self approval, within green zone");
+            application.setStatus(ApplicationStatus.APPROVED);
         }
     }
 
-    boolean isFlyAreaIntersects(String zones, List<LatLong> flyArea) throws IOException {
-        FeatureJSON featureJSON = new FeatureJSON();
+    void validateFlyArea(FlyDronePermissionApplication application, AirspaceSnapshot airspaceSnapshot) {
+        if (application.getFlyArea() == null || application.getFlyArea().isEmpty()) return;
+        validateFlyAreaWithin(airspaceSnapshot.getIndex(), application.getFlyArea());
+        validateFlyAreaIntersectsRedZones(airspaceSnapshot.getIndex(), application.getFlyArea());
+        application.setAirspaceSnapshotVersion(airspaceSnapshot.getVersion());
+    }
+
+    void markPermissionArtifactPending(FlyDronePermissionApplication application) {
+        if (application.getStatus() == ApplicationStatus.APPROVED) {
+            application.setPermissionArtifactStatus(PermissionArtifactStatus.PENDING);
+        }
+    }
 
-        DefaultFeatureCollection featureCollection = (DefaultFeatureCollection) featureJSON.readFeatureCollection(
-                toInputStream(zones, "UTF-8"));
+    void enqueuePermissionArtifact(FlyDronePermissionApplication application) {
+        if (application.getStatus() != ApplicationStatus.APPROVED) return;
+        enqueuePermissionArtifact(application.getId());
+    }
 
-        Coordinate[] flyAreaCoordinates = new Coordinate[flyArea.size()];
-        for (int index = 0; index < flyArea.size(); index++) {
-            LatLong latLong = flyArea.get(index);
-            flyAreaCoordinates[index] = new Coordinate(latLong.getLongitude(), latLong.getLatitude());
+    void enqueuePermissionArtifact(String applicationId) {
+        try {
+            //insert rather than save, so a job already leased by a worker is not reset and generated twice
+            permissionArtifactJobRepository.insert(new PermissionArtifactJob(applicationId));
+        } catch (DuplicateKeyException e) {
+            logger.debug("Permission artifact of application {} is already queued", applicationId);
         }
+    }
 
-        boolean result = false;
-        SimpleFeatureIterator featureIterator = featureCollection.features();
-        while (featureIterator.hasNext()) {
-            SimpleFeature feature = featureIterator.next();
-            Polygon airspaceCategory = (Polygon) feature.getDefaultGeometry();
-            Polygon polygon = airspaceCategory.getFactory().createPolygon(flyAreaCoordinates);
-            if (polygon.intersects(airspaceCategory)) {
-                result = true;
-                break;
-            }
+    private void updatePermissionArtifactStatus(String applicationId, PermissionArtifactStatus status, String contentHash) {
+        //written in place so a slow generation does not overwrite changes made to the application meanwhile
+        repository.updatePermissionArtifactStatus(applicationId, status, contentHash);
+    }
+
+    private String backfillPermissionArtifactHash(String applicationId, Resource resource) {
+        MessageDigest digest = sha256();
+        try (InputStream inputStream = new DigestInputStream(resource.getInputStream(), digest)) {
+            byte[] buffer = new byte[8192];
+            while (inputStream.read(buffer) != -1) ;
+        } catch (IOException e) {
+            throw new StorageException("Failed to read permission artifact of application " + applicationId, e);
         }
+        String contentHash = toHex(digest.digest());
+        updatePermissionArtifactStatus(applicationId, PermissionArtifactStatus.READY, contentHash);
+        return contentHash;
+    }
 
-        return result;
+    /**
+     * Signs and stores the artifact, returning the hex encoded SHA-256 of the stored bytes.
+     */
+    public String generatePermissionArtifact(FlyDronePermissionApplication application) {
+        if (!application.getStatus().equals(ApplicationStatus.APPROVED)) {
+            throw new ValidationException(new Errors("Cannot generate permission artifact if application is not approved"));
+        }
+        OperatorDrone operatorDrone = operatorDroneService.find(application.getDroneId());
+        String operatorId = userProfileService.resolveOperatorBusinessIdentifier(operatorDrone.getOperatorType(), operatorDrone.getOperatorId());
+        Document artifact = PermissionArtifactBuilder.build(application, operatorId, operatorDrone.getUinApplicationId());
+        digitalSignService.sign(artifact);
+        MessageDigest digest = sha256();
+        storageService.store(PERMISSION_ARTIFACT_XML, outputStream -> {
+            DigestOutputStream digestOutputStream = new DigestOutputStream(outputStream, digest);
+            XmlUtil.writeDocument(artifact, digestOutputStream);
+            digestOutputStream.flush();
+        }, application.getId());
+        return toHex(digest.digest());
     }
 
-    private String getPermissionArtifactContent(FlyDronePermissionApplication application) {
+    private static MessageDigest sha256() {
         try {
-            Template template = configuration.getTemplate("permissionArtifactXmlTemplate.ftl");
-            HashMap<Object, Object> parameters = new HashMap<>();
-
-            OperatorDrone operatorDrone = operatorDroneService.find(application.getDroneId());
-            String operatorId = userProfileService.resolveOperatorBusinessIdentifier(operatorDrone.getOperatorType(), operatorDrone.getOperatorId());
-
-            parameters.put("operatorId", operatorId);
-            parameters.put("pilotId", application.getPilotBusinessIdentifier());
-            parameters.put("uinNumber", operatorDrone.getUinApplicationId());
-            parameters.put("purposeOfFlight", application.getFlightPurpose());
-            parameters.put("payloadWeightInKg", application.getPayloadWeightInKg());
-            parameters.put("payloadDetails", application.getPayloadDetails());
-            parameters.put("startDateTime", application.getStartDateTime().format(DateTimeFormatter.ISO_DATE_TIME));
-            parameters.put("endDateTime", application.getEndDateTime().format(DateTimeFormatter.ISO_DATE_TIME));
-            parameters.put("recurrenceTimeExpression", application.getRecurringTimeExpression());
-            parameters.put("recurrenceTimeExpressionType", application.getRecurringTimeExpressionType());
-            parameters.put("recurringTimeDurationInMinutes", application.getRecurringTimeDurationInMinutes());
-
-            List<String> coordinates = new ArrayList<>();
-
-            for (LatLong latLong : application.getFlyArea()) {
-                coordinates.add(String.format("<Coordinate latitude=\"%s\" longitude=\"%s\"/>", latLong.getLatitude(), latLong.getLongitude()));
-            }
-            parameters.put("coordinates", StringUtils.join(coordinates, ""));
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
 
+    private static String toHex(byte[] bytes) {
+        StringBuilder result = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            result.append(String.format("%02x", b));
+        }
+        return result.toString();
+    }
 
-            StringWriter stringWriter = new StringWriter();
-            template.process(parameters, stringWriter);
-            return stringWriter.toString();
-        } catch (Exception e) {
-            throw new RuntimeException(e);
+    void validateFlyAreaWithin(AirspaceIndex airspaceIndex, List<LatLong> flyArea) {
+        if (!airspaceIndex.isWithin(AirspaceCategory.Type.GREEN, GeometryUtil.toPolygon(flyArea))) {
+            throw new ValidationException(new Errors("Fly Area should be within Green zone"));
         }
     }
 
+    void validateFlyAreaIntersectsRedZones(AirspaceIndex airspaceIndex, List<LatLong> flyArea) {
+        if (isFlyAreaIntersects(airspaceIndex, AirspaceCategory.Type.RED, flyArea)) {
+            throw new ValidationException(new Errors("Fly Area cannot intersect with Red Zones"));
+        }
+    }
+
+    boolean isFlyAreaIntersects(AirspaceIndex airspaceIndex, AirspaceCategory.Type type, List<LatLong> flyArea) {
+        return airspaceIndex.intersects(type, GeometryUtil.toPolygon(flyArea));
+    }
+
     private void setPilotId(FlyDronePermissionApplication application) {
         if (isEmpty(application.getPilotBusinessIdentifier())) {
             throw new ValidationException(new Errors("Pilot Identifier required"));
@@ -346,4 +591,52 @@ public class FlyDronePermissionApplicationServiceImpl implements FlyDronePermiss
         application.setPilotId(pilot.getId());
     }
 
+    private static class ExportEntry {
+
+        private final String applicationId;
+
+        private final Future<Resource> artifact;
+
+        ExportEntry(String applicationId, Future<Resource> artifact) {
+            this.applicationId = applicationId;
+            this.artifact = artifact;
+        }
+    }
+
+    static class QuantizedFlyArea {
+
+        private final long airspaceSnapshotVersion;
+
+        private final long[] coordinates;
+
+        QuantizedFlyArea(long airspaceSnapshotVersion, List<LatLong> flyArea) {
+            this.airspaceSnapshotVersion = airspaceSnapshotVersion;
+            this.coordinates = new long[flyArea.size() * 2];
+            for (int index = 0; index < flyArea.size(); index++) {
+                coordinates[2 * index] = Math.round(flyArea.get(index).getLatitude() / PRECHECK_QUANTIZATION_IN_DEGREES);
+                coordinates[2 * index + 1] = Math.round(flyArea.get(index).getLongitude() / PRECHECK_QUANTIZATION_IN_DEGREES);
+            }
+        }
+
+        List<LatLong> toFlyArea() {
+            List<LatLong> flyArea = new ArrayList<>(coordinates.length / 2);
+            for (int index = 0; index < coordinates.length; index += 2) {
+                flyArea.add(new LatLong(coordinates[index] * PRECHECK_QUANTIZATION_IN_DEGREES, coordinates[index + 1] * PRECHECK_QUANTIZATION_IN_DEGREES));
+            }
+            return flyArea;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            QuantizedFlyArea that = (QuantizedFlyArea) o;
+            return airspaceSnapshotVersion == that.airspaceSnapshotVersion && Arrays.equals(coordinates, that.coordinates);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Long.hashCode(airspaceSnapshotVersion) + Arrays.hashCode(coordinates);
+        }
+    }
 }
@@ -5,6 +5,7 @@ import com.ispirit.digitalsky.exception.OperatorProfileAlreadyExist;
 import com.ispirit.digitalsky.repository.IndividualOperatorRepository;
 import com.ispirit.digitalsky.repository.OrganizationOperatorRepository;
 import com.ispirit.digitalsky.service.api.IndividualOperatorService;
+import com.ispirit.digitalsky.service.api.TokenRevocationService;
 import org.springframework.transaction.annotation.Transactional;
 
 public class IndividualOperatorServiceImpl implements IndividualOperatorService {
@@ -13,9 +14,15 @@ public class IndividualOperatorServiceImpl implements IndividualOperatorService
 
     private OrganizationOperatorRepository organizationOperatorRepository;
 
-    public IndividualOperatorServiceImpl(IndividualOperatorRepository IndividualOperatorRepository, OrganizationOperatorRepository organizationOperatorRepository) {
+    private TokenRevocationService tokenRevocationService;
+
+    private UserPrincipalCache userPrincipalCache;
+
+    public IndividualOperatorServiceImpl(IndividualOperatorRepository IndividualOperatorRepository, OrganizationOperatorRepository organizationOperatorRepository, TokenRevocationService tokenRevocationService, UserPrincipalCache userPrincipalCache) {
         this.individualOperatorRepository = IndividualOperatorRepository;
         this.organizationOperatorRepository = organizationOperatorRepository;
+        this.tokenRevocationService = tokenRevocationService;
+        this.userPrincipalCache = userPrincipalCache;
     }
 
     @Override
@@ -26,7 +33,10 @@ public class IndividualOperatorServiceImpl implements IndividualOperatorService
                 || organizationOperatorRepository.loadByResourceOwner(resourceOwnerId) != null) {
             throw new OperatorProfileAlreadyExist();
         }
-        return individualOperatorRepository.save(individualOperator);
+        IndividualOperator savedEntity = individualOperatorRepository.save(individualOperator);
+        tokenRevocationService.revokeClaims(resourceOwnerId);
+        userPrincipalCache.invalidate(resourceOwnerId);
+        return savedEntity;
     }
 
     @Override
@@ -1,37 +1,71 @@
 package com.ispirit.digitalsky.service;
 
 import com.ispirit.digitalsky.domain.UserPrincipal;
+import com.ispirit.digitalsky.domain.UserProfile;
 import com.ispirit.digitalsky.service.api.SecurityTokenService;
+import com.ispirit.digitalsky.service.api.UserProfileService;
+import com.ispirit.digitalsky.util.BoundedCache;
 import io.jsonwebtoken.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
 import java.security.KeyStore;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
 public class JwtTokenService implements SecurityTokenService {
 
     private static final Logger logger = LoggerFactory.getLogger(JwtTokenService.class);
 
+    private static final int VERIFIED_TOKEN_CACHE_SIZE = 10000;
+
+    private static final String NAME_CLAIM = "name";
+    private static final String EMAIL_CLAIM = "email";
+    private static final String ROLES_CLAIM = "roles";
+    private static final String PROFILE_CLAIM = "profile";
+
     private int jwtExpirationInDays;
+    private final SignatureAlgorithm signatureAlgorithm;
     private final Key key;
+    private final Key verificationKey;
+    private final BoundedCache<String, Claims> verifiedTokens = new BoundedCache<>(VERIFIED_TOKEN_CACHE_SIZE);
+    private final UserProfileService userProfileService;
+    private final boolean profileClaimsEnabled;
 
-    public JwtTokenService(ResourceLoader resourceLoader, int jwtExpirationInDays, String jwtKeyStorePath, String jwtKeyStorePassword, String jwtKeyStoreType, String jwtKeyAlias, String jwtKeyPassword) {
+    public JwtTokenService(ResourceLoader resourceLoader, int jwtExpirationInDays, String jwtKeyStorePath, String jwtKeyStorePassword, String jwtKeyStoreType, String jwtKeyAlias, String jwtKeyPassword, SignatureAlgorithm signatureAlgorithm) {
+        this(resourceLoader, jwtExpirationInDays, jwtKeyStorePath, jwtKeyStorePassword, jwtKeyStoreType, jwtKeyAlias, jwtKeyPassword, signatureAlgorithm, null, false);
+    }
+
+    public JwtTokenService(ResourceLoader resourceLoader, int jwtExpirationInDays, String jwtKeyStorePath, String jwtKeyStorePassword, String jwtKeyStoreType, String jwtKeyAlias, String jwtKeyPassword, SignatureAlgorithm signatureAlgorithm, UserProfileService userProfileService, boolean profileClaimsEnabled) {
         this.jwtExpirationInDays = jwtExpirationInDays;
+        this.signatureAlgorithm = signatureAlgorithm;
+        this.userProfileService = userProfileService;
+        this.profileClaimsEnabled = profileClaimsEnabled;
         try {
             KeyStore keyStore = KeyStore.getInstance(jwtKeyStoreType);
             keyStore.load(resourceLoader.getResource(jwtKeyStorePath).getInputStream(), jwtKeyStorePassword.toCharArray());
             key = keyStore.getKey(jwtKeyAlias, jwtKeyPassword.toCharArray());
-
-
+            //verifying with the public key avoids a private key operation per request, and is what ECDSA requires
+            verificationKey = keyStore.getCertificate(jwtKeyAlias).getPublicKey();
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
-
+        if ((signatureAlgorithm.isRsa() && !"RSA".equals(key.getAlgorithm())) || (signatureAlgorithm.isEllipticCurve() && !"EC".equals(key.getAlgorithm()))) {
+            throw new IllegalArgumentException(String.format("Key %s of type %s cannot be used with %s", jwtKeyAlias, key.getAlgorithm(), signatureAlgorithm));
+        }
     }
 
     @Override
@@ -42,29 +76,51 @@ public class JwtTokenService implements SecurityTokenService {
         now.setTime(new Date());
         now.add(Calendar.DAY_OF_MONTH, jwtExpirationInDays);
 
-        return Jwts.builder()
+        JwtBuilder builder = Jwts.builder()
+                .setId(UUID.randomUUID().toString())
                 .setSubject(String.valueOf(userPrincipal.getId()))
                 .setIssuedAt(new Date())
-                .setExpiration(now.getTime())
-                .signWith(SignatureAlgorithm.RS256, key)
-                .compact();
+                .setExpiration(now.getTime());
+
+        if (profileClaimsEnabled) {
+            List<String> roles = new ArrayList<>();
+            for (GrantedAuthority authority : userPrincipal.getAuthorities()) {
+                roles.add(authority.getAuthority());
+            }
+            builder.claim(NAME_CLAIM, userPrincipal.getUsername())
+                    .claim(EMAIL_CLAIM, userPrincipal.getEmail())
+                    .claim(ROLES_CLAIM, roles)
+                    .claim(PROFILE_CLAIM, profileClaim(userProfileService.profile(userPrincipal.getId())));
+        }
+        return builder.signWith(signatureAlgorithm, key).compact();
     }
 
     @Override
-    public String getUserIdFromJWT(String token) {
-        Claims claims = Jwts.parser()
-                .setSigningKey(key)
-                .parseClaimsJws(token)
-                .getBody();
+    public UserPrincipal principalFromClaims(Claims claims) {
+        List<?> roles = claims.get(ROLES_CLAIM, List.class);
+        Map<?, ?> profile = claims.get(PROFILE_CLAIM, Map.class);
+        String email = claims.get(EMAIL_CLAIM, String.class);
+        //tokens issued before the email claim existed fall back to the stored user
+        if (roles == null || profile == null || email == null) return null;
 
-        return claims.getSubject();
+        long id = Long.parseLong(claims.getSubject());
+        List<String> roleNames = new ArrayList<>();
+        roles.forEach(role -> roleNames.add(String.valueOf(role)));
+        UserProfile userProfile = new UserProfile(id,
+                longValue(profile.get("pilotProfileId")),
+                longValue(profile.get("individualOperatorId")),
+                longValue(profile.get("orgOperatorId")),
+                longValue(profile.get("manufacturerId")),
+                (String) profile.get("pilotBusinessIdentifier"),
+                (String) profile.get("operatorBusinessIdentifier"),
+                (String) profile.get("manufacturerBusinessIdentifier"));
+        return new UserPrincipal(id, claims.get(NAME_CLAIM, String.class), email, roleNames, userProfile);
     }
 
     @Override
-    public boolean validateToken(String token) {
+    public Claims verifyToken(String token) {
         try {
-            Jwts.parser().setSigningKey(key).parseClaimsJws(token);
-            return true;
+            return parseVerifiedClaims(token);
         } catch (SignatureException ex) {
             logger.error("Invalid JWT signature");
         } catch (MalformedJwtException ex) {
@@ -76,6 +132,64 @@ public class JwtTokenService implements SecurityTokenService {
         } catch (IllegalArgumentException ex) {
             logger.error("JWT claims string is empty.");
         }
-        return false;
+        return null;
+    }
+
+    @Override
+    public String getUserIdFromJWT(String token) {
+        return parseVerifiedClaims(token).getSubject();
+    }
+
+    @Override
+    public boolean validateToken(String token) {
+        return verifyToken(token) != null;
+    }
+
+    private Claims parseVerifiedClaims(String token) {
+        if (token == null || token.isEmpty()) {
+            throw new IllegalArgumentException("JWT String argument cannot be null or empty.");
+        }
+        String digest = digest(token);
+        Claims claims = verifiedTokens.get(digest);
+        if (claims != null) {
+            return claims;
+        }
+
+        claims = Jwts.parser()
+                .setSigningKey(verificationKey)
+                .parseClaimsJws(token)
+                .getBody();
+
+        //a verified token stays valid until it expires, so repeated calls with it skip the signature check
+        if (claims.getExpiration() != null) {
+            verifiedTokens.put(digest, claims, claims.getExpiration().getTime());
+        }
+        return claims;
+    }
+
+    private static Map<String, Object> profileClaim(UserProfile profile) {
+        Map<String, Object> claim = new HashMap<>();
+        claim.put("pilotProfileId", profile.getPilotProfileId());
+        claim.put("individualOperatorId", profile.getIndividualOperatorId());
+        claim.put("orgOperatorId", profile.getOrgOperatorId());
+        claim.put("manufacturerId", profile.getManufacturerId());
+        claim.put("pilotBusinessIdentifier", profile.getPilotBusinessIdentifier());
+        claim.put("operatorBusinessIdentifier", profile.getOperatorBusinessIdentifier());
+        claim.put("manufacturerBusinessIdentifier", profile.getManufacturerBusinessIdentifier());
+        return claim;
+    }
+
+    //json numbers come back as Integer or Long depending on their size
+    private static long longValue(Object value) {
+        return value != null ? ((Number) value).longValue() : 0;
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 }
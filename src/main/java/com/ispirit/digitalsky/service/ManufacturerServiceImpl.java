@@ -7,7 +7,9 @@ import com.ispirit.digitalsky.exception.ManufacturerTrustedCertificateNotFoundEx
 import com.ispirit.digitalsky.exception.StorageException;
 import com.ispirit.digitalsky.repository.ManufacturerRepository;
 import com.ispirit.digitalsky.repository.storage.StorageService;
+import com.ispirit.digitalsky.service.api.DigitalSignatureVerifierService;
 import com.ispirit.digitalsky.service.api.ManufacturerService;
+import com.ispirit.digitalsky.service.api.TokenRevocationService;
 
 import org.springframework.transaction.annotation.Transactional;
 
@@ -19,11 +21,17 @@ public class ManufacturerServiceImpl implements ManufacturerService {
 
     private ManufacturerRepository manufacturerRepository;
     private StorageService storageService;
+    private DigitalSignatureVerifierService signatureVerifierService;
+    private TokenRevocationService tokenRevocationService;
+    private UserPrincipalCache userPrincipalCache;
     private static final String MANUFACTURER_DIGITALCERTIFICATE_ROOT_PATH = "manufacturer_digital_certificates";
 
-    public ManufacturerServiceImpl(ManufacturerRepository manufacturerRepository, StorageService storageService) {
+    public ManufacturerServiceImpl(ManufacturerRepository manufacturerRepository, StorageService storageService, DigitalSignatureVerifierService signatureVerifierService, TokenRevocationService tokenRevocationService, UserPrincipalCache userPrincipalCache) {
         this.manufacturerRepository = manufacturerRepository;
         this.storageService = storageService;
+        this.signatureVerifierService = signatureVerifierService;
+        this.tokenRevocationService = tokenRevocationService;
+        this.userPrincipalCache = userPrincipalCache;
     }
 
     @Override
@@ -34,6 +42,8 @@ public class ManufacturerServiceImpl implements ManufacturerService {
             throw new ManufacturerExistsException();
         }
         Manufacturer savedManufacturer =  manufacturerRepository.save(manufacturer);
+        tokenRevocationService.revokeClaims(resourceOwnerId);
+        userPrincipalCache.invalidate(resourceOwnerId);
 
         if(manufacturer.getTrustedCertificateDoc() != null) {
             storageService.storeUnderSection( singletonList(manufacturer.getTrustedCertificateDoc()), String.valueOf(savedManufacturer.getId()), MANUFACTURER_DIGITALCERTIFICATE_ROOT_PATH);
@@ -49,6 +59,7 @@ public class ManufacturerServiceImpl implements ManufacturerService {
 
         if(manufacturer.getTrustedCertificateDoc() != null) {
             storageService.storeUnderSection(singletonList(manufacturer.getTrustedCertificateDoc()), String.valueOf(id), MANUFACTURER_DIGITALCERTIFICATE_ROOT_PATH);
+            signatureVerifierService.invalidateTrustedCertificates(trustedCertificatePath(id, savedManufacturer.getTrustedCertificateDocName()));
         }
         return savedManufacturer;
     }
@@ -71,7 +82,11 @@ public class ManufacturerServiceImpl implements ManufacturerService {
         if (manufacturer == null) {  throw new ManufacturerNotFoundException(); }
         if(manufacturer.getTrustedCertificateDocName() == null) { throw new ManufacturerTrustedCertificateNotFoundException(); }
 
-        String fileName = MANUFACTURER_DIGITALCERTIFICATE_ROOT_PATH + "//" + manufacturerId + "//" + manufacturer.getTrustedCertificateDocName();
+        return trustedCertificatePath(manufacturerId, manufacturer.getTrustedCertificateDocName());
+    }
+
+    private String trustedCertificatePath(long manufacturerId, String trustedCertificateDocName) {
+        String fileName = MANUFACTURER_DIGITALCERTIFICATE_ROOT_PATH + "//" + manufacturerId + "//" + trustedCertificateDocName;
         Path path = storageService.load(fileName);
         return path.toString();
     }
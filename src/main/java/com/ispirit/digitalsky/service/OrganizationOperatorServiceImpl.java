@@ -5,6 +5,7 @@ import com.ispirit.digitalsky.exception.OperatorProfileAlreadyExist;
 import com.ispirit.digitalsky.repository.IndividualOperatorRepository;
 import com.ispirit.digitalsky.repository.OrganizationOperatorRepository;
 import com.ispirit.digitalsky.service.api.OrganizationOperatorService;
+import com.ispirit.digitalsky.service.api.TokenRevocationService;
 import org.springframework.transaction.annotation.Transactional;
 
 public class OrganizationOperatorServiceImpl implements OrganizationOperatorService {
@@ -13,9 +14,15 @@ public class OrganizationOperatorServiceImpl implements OrganizationOperatorServ
 
     private IndividualOperatorRepository individualOperatorRepository;
 
-    public OrganizationOperatorServiceImpl(OrganizationOperatorRepository organizationOperatorRepository, IndividualOperatorRepository individualOperatorRepository) {
+    private TokenRevocationService tokenRevocationService;
+
+    private UserPrincipalCache userPrincipalCache;
+
+    public OrganizationOperatorServiceImpl(OrganizationOperatorRepository organizationOperatorRepository, IndividualOperatorRepository individualOperatorRepository, TokenRevocationService tokenRevocationService, UserPrincipalCache userPrincipalCache) {
         this.organizationOperatorRepository = organizationOperatorRepository;
         this.individualOperatorRepository = individualOperatorRepository;
+        this.tokenRevocationService = tokenRevocationService;
+        this.userPrincipalCache = userPrincipalCache;
     }
 
     @Override
@@ -27,7 +34,10 @@ public class OrganizationOperatorServiceImpl implements OrganizationOperatorServ
             throw new OperatorProfileAlreadyExist();
         }
 
-        return organizationOperatorRepository.save(organizationOperator);
+        OrganizationOperator savedEntity = organizationOperatorRepository.save(organizationOperator);
+        tokenRevocationService.revokeClaims(resourceOwnerId);
+        userPrincipalCache.invalidate(resourceOwnerId);
+        return savedEntity;
     }
 
     @Override
@@ -0,0 +1,71 @@
+package com.ispirit.digitalsky.service;
+
+import com.ispirit.digitalsky.document.FlyDronePermissionApplication;
+import com.ispirit.digitalsky.document.LatLong;
+import com.ispirit.digitalsky.util.XmlUtil;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import java.math.BigDecimal;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Builds the UAPermission artifact as a DOM ready to be signed, with attribute values escaped by the DOM rather than by hand.
+ */
+public class PermissionArtifactBuilder {
+
+    private final Document document;
+
+    private final Element coordinates;
+
+    private PermissionArtifactBuilder(FlyDronePermissionApplication application, String operatorId, String uinNumber) {
+        document = XmlUtil.newDocument();
+        Element permission = child(document.appendChild(document.createElement("UAPermission")), "Permission");
+
+        Element owner = child(permission, "Owner");
+        owner.setAttribute("operatorID", operatorId);
+        Element pilot = child(owner, "Pilot");
+        pilot.setAttribute("id", application.getPilotBusinessIdentifier());
+        pilot.setAttribute("validTo", "NA");
+
+        Element flightDetails = child(permission, "FlightDetails");
+        child(flightDetails, "UADetails").setAttribute("uinNo", uinNumber);
+        child(flightDetails, "FlightPurpose").setAttribute("shortDesc", application.getFlightPurpose());
+        Element payloadDetails = child(flightDetails, "PayloadDetails");
+        payloadDetails.setAttribute("payLoadWeightInKg", BigDecimal.valueOf(application.getPayloadWeightInKg()).stripTrailingZeros().toPlainString());
+        payloadDetails.setAttribute("payloadDetails", application.getPayloadDetails());
+
+        Element flightParameters = child(flightDetails, "FlightParameters");
+        flightParameters.setAttribute("flightStartTime", application.getStartDateTime().format(DateTimeFormatter.ISO_DATE_TIME));
+        flightParameters.setAttribute("flightEndTime", application.getEndDateTime().format(DateTimeFormatter.ISO_DATE_TIME));
+        flightParameters.setAttribute("recurrenceTimeExpression", valueOrEmpty(application.getRecurringTimeExpression()));
+        flightParameters.setAttribute("recurrenceTimeExpressionType", valueOrEmpty(application.getRecurringTimeExpressionType()));
+        flightParameters.setAttribute("recurringTimeDurationInMinutes", valueOrEmpty(application.getRecurringTimeDurationInMinutes()));
+        coordinates = child(flightParameters, "Coordinates");
+    }
+
+    public static Document build(FlyDronePermissionApplication application, String operatorId, String uinNumber) {
+        PermissionArtifactBuilder builder = new PermissionArtifactBuilder(application, operatorId, uinNumber);
+        for (LatLong latLong : application.getFlyArea()) {
+            builder.addCoordinate(latLong);
+        }
+        return builder.document;
+    }
+
+    private void addCoordinate(LatLong latLong) {
+        Element coordinate = child(coordinates, "Coordinate");
+        coordinate.setAttribute("latitude", Double.toString(latLong.getLatitude()));
+        coordinate.setAttribute("longitude", Double.toString(latLong.getLongitude()));
+    }
+
+    private Element child(Node parent, String name) {
+        Element element = document.createElement(name);
+        parent.appendChild(element);
+        return element;
+    }
+
+    private static String valueOrEmpty(Object value) {
+        return value == null ? "" : value.toString();
+    }
+}
@@ -5,6 +5,7 @@ import com.ispirit.digitalsky.exception.PilotProfileAlreadyExist;
 import com.ispirit.digitalsky.repository.PilotRepository;
 import com.ispirit.digitalsky.repository.storage.StorageService;
 import com.ispirit.digitalsky.service.api.PilotService;
+import com.ispirit.digitalsky.service.api.TokenRevocationService;
 import org.springframework.core.io.Resource;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
@@ -16,10 +17,14 @@ public class PilotServiceImpl implements PilotService {
 
     private PilotRepository pilotRepository;
     private StorageService storageService;
+    private TokenRevocationService tokenRevocationService;
+    private UserPrincipalCache userPrincipalCache;
 
-    public PilotServiceImpl(PilotRepository pilotRepository, StorageService storageService) {
+    public PilotServiceImpl(PilotRepository pilotRepository, StorageService storageService, TokenRevocationService tokenRevocationService, UserPrincipalCache userPrincipalCache) {
         this.pilotRepository = pilotRepository;
         this.storageService = storageService;
+        this.tokenRevocationService = tokenRevocationService;
+        this.userPrincipalCache = userPrincipalCache;
     }
 
     @Override
@@ -29,6 +34,8 @@ public class PilotServiceImpl implements PilotService {
             throw new PilotProfileAlreadyExist();
         }
         Pilot savedEntity = pilotRepository.save(pilot);
+        tokenRevocationService.revokeClaims(pilot.getResourceOwnerId());
+        userPrincipalCache.invalidate(pilot.getResourceOwnerId());
         MultipartFile trainingCertificate = pilot.getTrainingCertificate();
         if (trainingCertificate != null && !trainingCertificate.isEmpty()) {
             storageService.store(singletonList(trainingCertificate), pilotDocumentFolder(pilot));
@@ -0,0 +1,108 @@
+package com.ispirit.digitalsky.service;
+
+import com.ispirit.digitalsky.domain.DroneDevice;
+import com.ispirit.digitalsky.domain.SigningPayloadFormat;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.security.Signature;
+import java.security.SignatureException;
+
+class SigningPayloadWriter {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    static void write(SigningPayloadFormat format, DroneDevice drone, Signature signature) throws IOException {
+        OutputStream out = new SignatureOutputStream(signature);
+        switch (format) {
+            case CANONICAL_JSON_V1:
+                Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+                writeCanonicalJson(drone, writer);
+                writer.flush();
+                break;
+            default:
+                ObjectOutputStream oos = new ObjectOutputStream(out);
+                oos.writeObject(drone);
+                oos.flush();
+        }
+    }
+
+    static void writeCanonicalJson(DroneDevice drone, Writer writer) throws IOException {
+        //keys are written in lexicographic order; adding a field means a new format version
+        writer.write('{');
+        writeField(writer, "deviceId", drone.getDeviceId(), true);
+        writeField(writer, "deviceModelId", drone.getDeviceModelId(), false);
+        writeField(writer, "idHash", drone.getIdHash(), false);
+        writeField(writer, "operatorBusinessIdentifier", drone.getOperatorBusinessIdentifier(), false);
+        writeField(writer, "txn", drone.getTxn(), false);
+        writeField(writer, "version", drone.getVersion(), false);
+        writer.write('}');
+    }
+
+    private static void writeField(Writer writer, String name, String value, boolean first) throws IOException {
+        if (!first) writer.write(',');
+        writeString(writer, name);
+        writer.write(':');
+        if (value == null) {
+            writer.write("null");
+        } else {
+            writeString(writer, value);
+        }
+    }
+
+    private static void writeString(Writer writer, String value) throws IOException {
+        writer.write('"');
+        for (int index = 0; index < value.length(); index++) {
+            char c = value.charAt(index);
+            switch (c) {
+                case '"': writer.write("\\\""); break;
+                case '\\': writer.write("\\\\"); break;
+                case '\b': writer.write("\\b"); break;
+                case '\f': writer.write("\\f"); break;
+                case '\n': writer.write("\\n"); break;
+                case '\r': writer.write("\\r"); break;
+                case '\t': writer.write("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        writer.write("\\u00");
+                        writer.write(HEX[c >> 4]);
+                        writer.write(HEX[c & 0xf]);
+                    } else {
+                        writer.write(c);
+                    }
+            }
+        }
+        writer.write('"');
+    }
+
+    private static class SignatureOutputStream extends OutputStream {
+
+        private final Signature signature;
+
+        SignatureOutputStream(Signature signature) {
+            this.signature = signature;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            try {
+                signature.update((byte) b);
+            } catch (SignatureException e) {
+                throw new IOException(e);
+            }
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            try {
+                signature.update(bytes, offset, length);
+            } catch (SignatureException e) {
+                throw new IOException(e);
+            }
+        }
+    }
+}
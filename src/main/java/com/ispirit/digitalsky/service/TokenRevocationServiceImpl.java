@@ -0,0 +1,92 @@
+package com.ispirit.digitalsky.service;
+
+import com.ispirit.digitalsky.domain.UserActiveSession;
+import com.ispirit.digitalsky.repository.UserActiveSessionRepository;
+import com.ispirit.digitalsky.service.api.TokenRevocationService;
+import io.jsonwebtoken.Claims;
+
+import java.time.Clock;
+import java.util.*;
+
+public class TokenRevocationServiceImpl implements TokenRevocationService {
+
+    private final UserActiveSessionRepository userActiveSessionRepository;
+
+    private final long tokenTimeToLiveInMillis;
+
+    private final Clock clock;
+
+    private volatile Revocations revocations = new Revocations(new HashSet<>(), new HashMap<>());
+
+    public TokenRevocationServiceImpl(UserActiveSessionRepository userActiveSessionRepository, long tokenTimeToLiveInMillis) {
+        this(userActiveSessionRepository, tokenTimeToLiveInMillis, Clock.systemUTC());
+    }
+
+    TokenRevocationServiceImpl(UserActiveSessionRepository userActiveSessionRepository, long tokenTimeToLiveInMillis, Clock clock) {
+        this.userActiveSessionRepository = userActiveSessionRepository;
+        this.tokenTimeToLiveInMillis = tokenTimeToLiveInMillis;
+        this.clock = clock;
+    }
+
+    @Override
+    public boolean isRevoked(Claims claims) {
+        return claims.getId() != null && revocations.tokenIds.contains(claims.getId());
+    }
+
+    @Override
+    public boolean hasRevokedClaims(Claims claims) {
+        Date issuedBefore = revocations.claimsIssuedBefore.get(Long.parseLong(claims.getSubject()));
+        //iat only has second precision, so a token issued in the same second is treated as stale too
+        return issuedBefore != null && (claims.getIssuedAt() == null || !claims.getIssuedAt().after(issuedBefore));
+    }
+
+    @Override
+    public synchronized void revoke(Claims claims) {
+        if (claims.getId() == null || claims.getExpiration() == null) return;
+        userActiveSessionRepository.save(new UserActiveSession(Long.parseLong(claims.getSubject()), claims.getId(), null, claims.getExpiration()));
+
+        Set<String> tokenIds = new HashSet<>(revocations.tokenIds);
+        tokenIds.add(claims.getId());
+        revocations = new Revocations(tokenIds, revocations.claimsIssuedBefore);
+    }
+
+    @Override
+    public synchronized void revokeClaims(long userId) {
+        Date now = new Date(clock.millis());
+        userActiveSessionRepository.save(new UserActiveSession(userId, null, now, new Date(now.getTime() + tokenTimeToLiveInMillis)));
+
+        Map<Long, Date> claimsIssuedBefore = new HashMap<>(revocations.claimsIssuedBefore);
+        claimsIssuedBefore.put(userId, now);
+        revocations = new Revocations(revocations.tokenIds, claimsIssuedBefore);
+    }
+
+    @Override
+    public synchronized void refresh() {
+        Date now = new Date(clock.millis());
+        userActiveSessionRepository.deleteExpired(now);
+
+        Set<String> tokenIds = new HashSet<>();
+        Map<Long, Date> claimsIssuedBefore = new HashMap<>();
+        for (UserActiveSession session : userActiveSessionRepository.findUnexpired(now)) {
+            if (session.getToken() != null) {
+                tokenIds.add(session.getToken());
+            }
+            if (session.getIssuedBefore() != null) {
+                claimsIssuedBefore.merge(session.getUserId(), session.getIssuedBefore(), (a, b) -> a.after(b) ? a : b);
+            }
+        }
+        revocations = new Revocations(tokenIds, claimsIssuedBefore);
+    }
+
+    private static class Revocations {
+
+        private final Set<String> tokenIds;
+
+        private final Map<Long, Date> claimsIssuedBefore;
+
+        Revocations(Set<String> tokenIds, Map<Long, Date> claimsIssuedBefore) {
+            this.tokenIds = tokenIds;
+            this.claimsIssuedBefore = claimsIssuedBefore;
+        }
+    }
+}
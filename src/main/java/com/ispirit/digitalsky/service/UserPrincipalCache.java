@@ -0,0 +1,40 @@
+package com.ispirit.digitalsky.service;
+
+import com.ispirit.digitalsky.domain.UserPrincipal;
+import com.ispirit.digitalsky.util.BoundedCache;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+public class UserPrincipalCache implements PublicMetrics {
+
+    private final BoundedCache<Long, UserPrincipal> principals;
+
+    public UserPrincipalCache(int maxSize, long timeToLiveInMillis) {
+        this.principals = new BoundedCache<>(maxSize, timeToLiveInMillis);
+    }
+
+    public UserPrincipal get(long userId) {
+        return principals.get(userId);
+    }
+
+    public void put(UserPrincipal principal) {
+        principals.put(principal.getId(), principal);
+    }
+
+    public void invalidate(long userId) {
+        principals.invalidate(userId);
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        List<Metric<?>> metrics = new ArrayList<>();
+        metrics.add(new Metric<>("userPrincipalCache.hits", principals.getHitCount()));
+        metrics.add(new Metric<>("userPrincipalCache.misses", principals.getMissCount()));
+        metrics.add(new Metric<>("userPrincipalCache.size", principals.size()));
+        return metrics;
+    }
+}
@@ -6,6 +6,8 @@ import com.ispirit.digitalsky.repository.ManufacturerRepository;
 import com.ispirit.digitalsky.repository.OrganizationOperatorRepository;
 import com.ispirit.digitalsky.repository.PilotRepository;
 import com.ispirit.digitalsky.service.api.UserProfileService;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 
 public class UserProfileServiceImpl implements UserProfileService {
 
@@ -24,6 +26,9 @@ public class UserProfileServiceImpl implements UserProfileService {
 
     @Override
     public UserProfile profile(long id) {
+        UserProfile tokenProfile = tokenProfile(id);
+        if (tokenProfile != null) return tokenProfile;
+
         Pilot pilot = pilotRepository.loadByResourceOwner(id);
         IndividualOperator individualOperator = individualOperatorRepository.loadByResourceOwner(id);
         OrganizationOperator organizationOperator = organizationOperatorRepository.loadByResourceOwner(id);
@@ -51,6 +56,13 @@ public class UserProfileServiceImpl implements UserProfileService {
         );
     }
 
+    private UserProfile tokenProfile(long id) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getPrincipal() instanceof UserPrincipal)) return null;
+        UserPrincipal principal = (UserPrincipal) authentication.getPrincipal();
+        return principal.getId() == id ? principal.getProfile() : null;
+    }
+
     @Override
     public String resolveOperatorBusinessIdentifier(ApplicantType applicantType, long operatorId) {
         if (applicantType == ApplicantType.INDIVIDUAL) {
@@ -0,0 +1,35 @@
+package com.ispirit.digitalsky.service;
+
+import javax.xml.crypto.dsig.DigestMethod;
+import javax.xml.crypto.dsig.SignatureMethod;
+
+public enum XmlSignatureAlgorithm {
+
+    RSA_SHA1(SignatureMethod.RSA_SHA1, DigestMethod.SHA1, "RSA"),
+    RSA_SHA256("http://www.w3.org/2001/04/xmldsig-more#rsa-sha256", DigestMethod.SHA256, "RSA"),
+    ECDSA_SHA256("http://www.w3.org/2001/04/xmldsig-more#ecdsa-sha256", DigestMethod.SHA256, "EC");
+
+    private final String signatureMethod;
+
+    private final String digestMethod;
+
+    private final String keyAlgorithm;
+
+    XmlSignatureAlgorithm(String signatureMethod, String digestMethod, String keyAlgorithm) {
+        this.signatureMethod = signatureMethod;
+        this.digestMethod = digestMethod;
+        this.keyAlgorithm = keyAlgorithm;
+    }
+
+    public String getSignatureMethod() {
+        return signatureMethod;
+    }
+
+    public String getDigestMethod() {
+        return digestMethod;
+    }
+
+    public String getKeyAlgorithm() {
+        return keyAlgorithm;
+    }
+}
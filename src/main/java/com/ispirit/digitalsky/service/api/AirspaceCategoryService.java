@@ -1,7 +1,9 @@
 package com.ispirit.digitalsky.service.api;
 
 
+import com.ispirit.digitalsky.document.AirspaceImpactReport;
 import com.ispirit.digitalsky.domain.AirspaceCategory;
+import com.ispirit.digitalsky.domain.AirspaceSnapshot;
 import org.geojson.GeoJsonObject;
 
 import java.util.List;
@@ -18,4 +20,8 @@ public interface AirspaceCategoryService {
     List<AirspaceCategory> findAll();
 
     Map<AirspaceCategory.Type, GeoJsonObject> findGeoJsonMapByType();
+
+    AirspaceSnapshot airspaceSnapshot();
+
+    List<AirspaceImpactReport> findImpactReports(long id);
 }
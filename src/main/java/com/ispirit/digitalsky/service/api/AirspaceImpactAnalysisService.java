@@ -0,0 +1,14 @@
+package com.ispirit.digitalsky.service.api;
+
+import com.ispirit.digitalsky.document.AirspaceImpactReport;
+import com.ispirit.digitalsky.domain.AirspaceCategory;
+import com.ispirit.digitalsky.domain.AirspaceSnapshot;
+
+import java.util.List;
+
+public interface AirspaceImpactAnalysisService {
+
+    AirspaceImpactReport analyse(AirspaceCategory previousCategory, AirspaceCategory changedCategory, AirspaceSnapshot airspaceSnapshot);
+
+    List<AirspaceImpactReport> reportsOf(long airspaceCategoryId);
+}
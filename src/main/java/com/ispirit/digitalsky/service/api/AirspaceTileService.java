@@ -0,0 +1,8 @@
+package com.ispirit.digitalsky.service.api;
+
+import com.ispirit.digitalsky.domain.AirspaceTile;
+
+public interface AirspaceTileService {
+
+    AirspaceTile tile(int zoom, int x, int y);
+}
@@ -6,4 +6,6 @@ import java.security.cert.X509Certificate;
 
 public interface DigitalCertificateValidatorService {
     boolean isValidCertificate(X509Certificate clientCertificate, String manufacturerCertificateChainPath) throws InvalidDigitalCertificateException;
+
+    void invalidateTrustedCertificateChain(String manufacturerCertificateChainPath);
 }
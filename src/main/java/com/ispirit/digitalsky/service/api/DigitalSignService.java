@@ -1,6 +1,10 @@
 package com.ispirit.digitalsky.service.api;
 
+import org.w3c.dom.Document;
+
 public interface DigitalSignService {
 
     String sign(String xmlDocument);
+
+    void sign(Document document);
 }
@@ -1,9 +1,12 @@
 package com.ispirit.digitalsky.service.api;
 
+import com.ispirit.digitalsky.domain.Manufacturer;
 import com.ispirit.digitalsky.domain.RegisterDroneRequestPayload;
 
 import java.security.SignatureException;
 
 public interface DigitalSignatureVerifierService {
-    boolean isValidSignature(RegisterDroneRequestPayload payload, String orgName, String orgTrustedCertificatePath) throws SignatureException;
+    boolean isValidSignature(RegisterDroneRequestPayload payload, Manufacturer manufacturer, String orgTrustedCertificatePath) throws SignatureException;
+
+    void invalidateTrustedCertificates(String orgTrustedCertificatePath);
 }
@@ -0,0 +1,26 @@
+package com.ispirit.digitalsky.service.api;
+
+import com.ispirit.digitalsky.domain.RegisterDroneRequestPayload;
+import com.ispirit.digitalsky.domain.RegisterDroneResponsePayload;
+
+public interface DroneDeviceRegistrationRecordService {
+
+    /**
+     * Digest of the signature, certificate and drone of a request, taken before registration changes the drone.
+     */
+    String requestDigest(RegisterDroneRequestPayload payload);
+
+    /**
+     * Returns the recorded response of the transaction, or null when the caller claimed it and has to register and record the outcome.
+     * Waits while the same request is registered by another attempt. Throws DroneDeviceRegistrationConflictException when the
+     * transaction belongs to a request with a different digest, and DroneDeviceRegistrationInProgressException when waiting times out.
+     */
+    RegisterDroneResponsePayload claim(String manufacturerBusinessIdentifier, String txn, String requestDigest);
+
+    /**
+     * Completes the claim with the response, or releases it when the response is not replayed.
+     */
+    void record(String manufacturerBusinessIdentifier, String requestDigest, RegisterDroneResponsePayload response);
+
+    int deleteExpired();
+}
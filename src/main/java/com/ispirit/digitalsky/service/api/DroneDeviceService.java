@@ -2,15 +2,21 @@ package com.ispirit.digitalsky.service.api;
 
 import com.ispirit.digitalsky.domain.DroneDevice;
 import com.ispirit.digitalsky.domain.RegisterDroneRequestPayload;
+import com.ispirit.digitalsky.domain.RegisterDroneResponsePayload;
 import com.ispirit.digitalsky.exception.DroneDeviceAlreadyExistException;
 import com.ispirit.digitalsky.exception.DroneDeviceNotFoundException;
 import com.ispirit.digitalsky.exception.InvalidDigitalSignatureException;
 import com.ispirit.digitalsky.exception.InvalidOperatorBusinessIdentifierException;
+import com.ispirit.digitalsky.exception.ManufacturerNotFoundException;
+import com.ispirit.digitalsky.exception.ManufacturerTrustedCertificateNotFoundException;
 
 import java.util.Collection;
+import java.util.List;
 
 public interface DroneDeviceService {
     DroneDevice register(String manufacturerId, RegisterDroneRequestPayload drone) throws InvalidOperatorBusinessIdentifierException, DroneDeviceAlreadyExistException, InvalidDigitalSignatureException;
     DroneDevice deregister(String manufacturerId, RegisterDroneRequestPayload drone) throws DroneDeviceNotFoundException, InvalidDigitalSignatureException;
+    List<RegisterDroneResponsePayload> registerAll(String manufacturerId, List<RegisterDroneRequestPayload> drones) throws ManufacturerNotFoundException, ManufacturerTrustedCertificateNotFoundException;
+    List<RegisterDroneResponsePayload> deregisterAll(String manufacturerId, List<RegisterDroneRequestPayload> drones) throws ManufacturerNotFoundException, ManufacturerTrustedCertificateNotFoundException;
     Collection<String> getRegisteredDroneDeviceIds(String operatorCode);
 }
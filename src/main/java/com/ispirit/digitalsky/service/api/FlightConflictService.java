@@ -0,0 +1,19 @@
+package com.ispirit.digitalsky.service.api;
+
+import com.ispirit.digitalsky.document.FlyDronePermissionApplication;
+import org.locationtech.jts.geom.Geometry;
+
+import java.util.List;
+
+public interface FlightConflictService {
+
+    List<String> findConflicts(FlyDronePermissionApplication application);
+
+    List<String> findApprovedIntersecting(Geometry region);
+
+    void register(FlyDronePermissionApplication application);
+
+    List<String> registerIfNoConflicts(FlyDronePermissionApplication application);
+
+    void unregister(String applicationId);
+}
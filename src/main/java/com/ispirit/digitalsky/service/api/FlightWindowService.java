@@ -0,0 +1,14 @@
+package com.ispirit.digitalsky.service.api;
+
+import com.ispirit.digitalsky.document.FlyDronePermissionApplication;
+import com.ispirit.digitalsky.domain.FlightWindow;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface FlightWindowService {
+
+    List<FlightWindow> windows(FlyDronePermissionApplication application);
+
+    boolean isActiveAt(FlyDronePermissionApplication application, LocalDateTime instant);
+}
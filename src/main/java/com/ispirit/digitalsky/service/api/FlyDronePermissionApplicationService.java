@@ -1,14 +1,22 @@
 package com.ispirit.digitalsky.service.api;
 
 import com.ispirit.digitalsky.document.FlyDronePermissionApplication;
+import com.ispirit.digitalsky.document.LatLong;
 import com.ispirit.digitalsky.domain.ApproveRequestBody;
+import com.ispirit.digitalsky.domain.PermissionArtifact;
+import com.ispirit.digitalsky.dto.FlyAreaClassification;
 import com.ispirit.digitalsky.exception.ApplicationNotFoundException;
 import com.ispirit.digitalsky.exception.StorageException;
 import com.ispirit.digitalsky.exception.StorageFileNotFoundException;
 import com.ispirit.digitalsky.exception.UnAuthorizedAccessException;
-import org.springframework.core.io.Resource;
+import org.springframework.data.domain.Page;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
 import java.util.Collection;
+import java.util.Date;
+import java.util.List;
 
 public interface FlyDronePermissionApplicationService {
 
@@ -24,6 +32,18 @@ public interface FlyDronePermissionApplicationService {
 
     Collection<FlyDronePermissionApplication> getAllApplications();
 
-    Resource getPermissionArtifact(String applicationId) throws StorageFileNotFoundException;
+    Page<FlyDronePermissionApplication> getApplicationsInRegion(double minLatitude, double minLongitude, double maxLatitude, double maxLongitude, LocalDateTime from, LocalDateTime to, int page, int size);
+
+    long backfillFlyAreaGeometries();
+
+    PermissionArtifact getPermissionArtifact(String applicationId) throws StorageFileNotFoundException;
+
+    boolean processNextPermissionArtifactJob();
+
+    void exportPermissionArtifacts(Date approvedFrom, Date approvedTo, OutputStream outputStream) throws IOException;
+
+    List<FlyAreaClassification> classifyFlyAreas(List<List<LatLong>> flyAreas);
+
+    FlyAreaClassification precheckFlyArea(List<LatLong> flyArea);
 
 }
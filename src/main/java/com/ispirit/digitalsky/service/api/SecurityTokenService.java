@@ -1,11 +1,17 @@
 package com.ispirit.digitalsky.service.api;
 
+import com.ispirit.digitalsky.domain.UserPrincipal;
+import io.jsonwebtoken.Claims;
 import org.springframework.security.core.Authentication;
 
 public interface SecurityTokenService {
 
     String generateToken(Authentication authentication);
 
+    Claims verifyToken(String token);
+
+    UserPrincipal principalFromClaims(Claims claims);
+
     String getUserIdFromJWT(String token);
 
     boolean validateToken(String token);
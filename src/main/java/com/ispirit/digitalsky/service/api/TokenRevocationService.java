@@ -0,0 +1,16 @@
+package com.ispirit.digitalsky.service.api;
+
+import io.jsonwebtoken.Claims;
+
+public interface TokenRevocationService {
+
+    boolean isRevoked(Claims claims);
+
+    boolean hasRevokedClaims(Claims claims);
+
+    void revoke(Claims claims);
+
+    void revokeClaims(long userId);
+
+    void refresh();
+}
@@ -0,0 +1,104 @@
+package com.ispirit.digitalsky.util;
+
+import java.time.Clock;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class BoundedCache<K, V> {
+
+    private final Map<K, Entry<V>> entries;
+
+    private final long timeToLiveInMillis;
+
+    private final Clock clock;
+
+    private final AtomicLong hitCount = new AtomicLong();
+
+    private final AtomicLong missCount = new AtomicLong();
+
+    public BoundedCache(int maxSize) {
+        this(maxSize, 0, Clock.systemUTC());
+    }
+
+    public BoundedCache(int maxSize, long timeToLiveInMillis) {
+        this(maxSize, timeToLiveInMillis, Clock.systemUTC());
+    }
+
+    public BoundedCache(int maxSize, long timeToLiveInMillis, Clock clock) {
+        this.timeToLiveInMillis = timeToLiveInMillis;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<K, Entry<V>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    public V get(K key) {
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null && entry.expiresAt > clock.millis()) {
+                hitCount.incrementAndGet();
+                return entry.value;
+            }
+            if (entry != null) {
+                entries.remove(key);
+            }
+        }
+        missCount.incrementAndGet();
+        return null;
+    }
+
+    public void put(K key, V value) {
+        put(key, value, timeToLiveInMillis > 0 ? clock.millis() + timeToLiveInMillis : Long.MAX_VALUE);
+    }
+
+    public void put(K key, V value, long expiresAt) {
+        if (timeToLiveInMillis > 0) {
+            expiresAt = Math.min(expiresAt, clock.millis() + timeToLiveInMillis);
+        }
+        synchronized (entries) {
+            entries.put(key, new Entry<>(value, expiresAt));
+        }
+    }
+
+    public void invalidate(K key) {
+        synchronized (entries) {
+            entries.remove(key);
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    private static class Entry<V> {
+
+        private final V value;
+
+        private final long expiresAt;
+
+        Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.ispirit.digitalsky.util;
+
+import com.ispirit.digitalsky.document.LatLong;
+import org.geojson.Feature;
+import org.geojson.FeatureCollection;
+import org.geojson.GeoJsonObject;
+import org.geojson.LngLatAlt;
+import org.geojson.MultiPolygon;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LinearRing;
+import org.locationtech.jts.geom.Polygon;
+import org.locationtech.jts.io.ParseException;
+import org.locationtech.jts.io.WKBReader;
+import org.locationtech.jts.io.WKBWriter;
+import org.springframework.data.geo.Point;
+import org.springframework.data.mongodb.core.geo.GeoJsonPolygon;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class GeometryUtil {
+
+    private static final GeometryFactory GEOMETRY_FACTORY = new GeometryFactory();
+
+    public static GeometryFactory geometryFactory() {
+        return GEOMETRY_FACTORY;
+    }
+
+    public static Polygon toPolygon(List<LatLong> flyArea) {
+        Coordinate[] coordinates = new Coordinate[flyArea.size()];
+        for (int index = 0; index < flyArea.size(); index++) {
+            LatLong latLong = flyArea.get(index);
+            coordinates[index] = new Coordinate(latLong.getLongitude(), latLong.getLatitude());
+        }
+        return GEOMETRY_FACTORY.createPolygon(coordinates);
+    }
+
+    /**
+     * Fly area as a 2dsphere-indexable polygon, or null when Mongo would reject it (open, self-intersecting or out of range rings).
+     */
+    public static GeoJsonPolygon toGeoJsonPolygon(List<LatLong> flyArea) {
+        if (flyArea == null || flyArea.size() < 4) return null;
+        List<Point> points = new ArrayList<>(flyArea.size());
+        for (LatLong latLong : flyArea) {
+            if (Math.abs(latLong.getLatitude()) > 90 || Math.abs(latLong.getLongitude()) > 180) return null;
+            points.add(new Point(latLong.getLongitude(), latLong.getLatitude()));
+        }
+        try {
+            if (!toPolygon(flyArea).isValid()) return null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        return new GeoJsonPolygon(points);
+    }
+
+    public static GeoJsonPolygon toGeoJsonPolygon(double minLatitude, double minLongitude, double maxLatitude, double maxLongitude) {
+        return new GeoJsonPolygon(
+                new Point(minLongitude, minLatitude),
+                new Point(maxLongitude, minLatitude),
+                new Point(maxLongitude, maxLatitude),
+                new Point(minLongitude, maxLatitude),
+                new Point(minLongitude, minLatitude));
+    }
+
+    public static List<Geometry> toGeometries(GeoJsonObject geoJson) {
+        List<Geometry> result = new ArrayList<>();
+        if (geoJson instanceof FeatureCollection) {
+            for (Feature feature : ((FeatureCollection) geoJson).getFeatures()) {
+                addGeometry(feature.getGeometry(), result);
+            }
+        } else if (geoJson instanceof Feature) {
+            addGeometry(((Feature) geoJson).getGeometry(), result);
+        } else {
+            addGeometry(geoJson, result);
+        }
+        return result;
+    }
+
+    public static byte[] toWkb(List<Geometry> geometries) {
+        return new WKBWriter().write(GEOMETRY_FACTORY.buildGeometry(geometries));
+    }
+
+    public static List<Geometry> fromWkb(byte[] wkb) {
+        Geometry geometry;
+        try {
+            geometry = new WKBReader(GEOMETRY_FACTORY).read(wkb);
+        } catch (ParseException e) {
+            throw new IllegalArgumentException(e);
+        }
+        List<Geometry> result = new ArrayList<>(geometry.getNumGeometries());
+        for (int index = 0; index < geometry.getNumGeometries(); index++) {
+            result.add(geometry.getGeometryN(index));
+        }
+        return result;
+    }
+
+    public static Envelope envelopeOf(List<Geometry> geometries) {
+        Envelope envelope = new Envelope();
+        for (Geometry geometry : geometries) {
+            envelope.expandToInclude(geometry.getEnvelopeInternal());
+        }
+        return envelope;
+    }
+
+    /**
+     * Polygonal parts only, as produced when clipping zones; returns null when nothing polygonal is left.
+     */
+    public static GeoJsonObject toGeoJson(Geometry geometry) {
+        List<Polygon> polygons = new ArrayList<>();
+        collectPolygons(geometry, polygons);
+        if (polygons.isEmpty()) return null;
+        if (polygons.size() == 1) return toGeoJsonPolygon(polygons.get(0));
+        MultiPolygon multiPolygon = new MultiPolygon();
+        for (Polygon polygon : polygons) {
+            multiPolygon.add(toGeoJsonPolygon(polygon));
+        }
+        return multiPolygon;
+    }
+
+    private static void collectPolygons(Geometry geometry, List<Polygon> polygons) {
+        if (geometry instanceof Polygon) {
+            if (!geometry.isEmpty()) polygons.add((Polygon) geometry);
+            return;
+        }
+        for (int index = 0; index < geometry.getNumGeometries(); index++) {
+            Geometry part = geometry.getGeometryN(index);
+            if (part != geometry) collectPolygons(part, polygons);
+        }
+    }
+
+    private static org.geojson.Polygon toGeoJsonPolygon(Polygon polygon) {
+        List<List<LngLatAlt>> rings = new ArrayList<>();
+        rings.add(toGeoJsonRing(polygon.getExteriorRing().getCoordinates()));
+        for (int index = 0; index < polygon.getNumInteriorRing(); index++) {
+            rings.add(toGeoJsonRing(polygon.getInteriorRingN(index).getCoordinates()));
+        }
+        org.geojson.Polygon result = new org.geojson.Polygon();
+        result.setCoordinates(rings);
+        return result;
+    }
+
+    private static List<LngLatAlt> toGeoJsonRing(Coordinate[] coordinates) {
+        List<LngLatAlt> ring = new ArrayList<>(coordinates.length);
+        for (Coordinate coordinate : coordinates) {
+            ring.add(new LngLatAlt(coordinate.x, coordinate.y));
+        }
+        return ring;
+    }
+
+    private static void addGeometry(GeoJsonObject geometry, List<Geometry> result) {
+        if (geometry instanceof org.geojson.Polygon) {
+            result.add(toPolygonFromRings(((org.geojson.Polygon) geometry).getCoordinates()));
+        } else if (geometry instanceof MultiPolygon) {
+            for (List<List<LngLatAlt>> polygon : ((MultiPolygon) geometry).getCoordinates()) {
+                result.add(toPolygonFromRings(polygon));
+            }
+        }
+    }
+
+    private static Polygon toPolygonFromRings(List<List<LngLatAlt>> rings) {
+        LinearRing shell = toLinearRing(rings.get(0));
+        LinearRing[] holes = new LinearRing[rings.size() - 1];
+        for (int index = 1; index < rings.size(); index++) {
+            holes[index - 1] = toLinearRing(rings.get(index));
+        }
+        return GEOMETRY_FACTORY.createPolygon(shell, holes);
+    }
+
+    private static LinearRing toLinearRing(List<LngLatAlt> ring) {
+        Coordinate[] coordinates = new Coordinate[ring.size()];
+        for (int index = 0; index < ring.size(); index++) {
+            LngLatAlt point = ring.get(index);
+            coordinates[index] = new Coordinate(point.getLongitude(), point.getLatitude());
+        }
+        return GEOMETRY_FACTORY.createLinearRing(coordinates);
+    }
+}
@@ -0,0 +1,12 @@
+package com.ispirit.digitalsky.util;
+
+import java.util.Locale;
+
+public class LookupKeyUtil {
+
+    //matches the LOWER() used by the backfill and by the repository queries for the ascii identifiers stored here
+    public static String toLookupKey(String value) {
+        return value != null ? value.toLowerCase(Locale.ROOT) : null;
+    }
+
+}
@@ -5,32 +5,69 @@ import org.w3c.dom.Document;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.StringWriter;
 
 public class XmlUtil {
 
+    //builders and transformers are not thread-safe, but are cheap to reuse on the thread that created them
+    private static final ThreadLocal<DocumentBuilder> DOCUMENT_BUILDER = ThreadLocal.withInitial(() -> {
+        try {
+            return DocumentBuilderFactory.newInstance().newDocumentBuilder();
+        } catch (ParserConfigurationException e) {
+            throw new RuntimeException(e);
+        }
+    });
+
+    private static final ThreadLocal<Transformer> TRANSFORMER = ThreadLocal.withInitial(() -> {
+        try {
+            return TransformerFactory.newInstance().newTransformer();
+        } catch (TransformerConfigurationException e) {
+            throw new RuntimeException(e);
+        }
+    });
+
     public static Document fromString(String content) {
         try {
             InputStream inputStream = IOUtils.toInputStream(content, "UTF-8");
-            DocumentBuilder db = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+            DocumentBuilder db = DOCUMENT_BUILDER.get();
+            db.reset();
             return db.parse(inputStream);
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
     }
 
+    public static Document newDocument() {
+        DocumentBuilder db = DOCUMENT_BUILDER.get();
+        db.reset();
+        return db.newDocument();
+    }
+
+    public static void writeDocument(Document document, OutputStream outputStream) {
+        try {
+            Transformer transformer = TRANSFORMER.get();
+            transformer.reset();
+            transformer.transform(new DOMSource(document), new StreamResult(outputStream));
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     public static String documentToString(Document document) {
         try {
             DOMSource domSource = new DOMSource(document);
             StringWriter writer = new StringWriter();
             StreamResult result = new StreamResult(writer);
-            TransformerFactory tf = TransformerFactory.newInstance();
-            Transformer transformer = tf.newTransformer();
+            Transformer transformer = TRANSFORMER.get();
+            transformer.reset();
             transformer.transform(domSource, result);
             return writer.toString();
         } catch (Exception e) {
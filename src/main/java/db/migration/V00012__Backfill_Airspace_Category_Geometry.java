@@ -0,0 +1,43 @@
+package db.migration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ispirit.digitalsky.util.GeometryUtil;
+import org.flywaydb.core.api.migration.spring.SpringJdbcMigration;
+import org.geojson.GeoJsonObject;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class V00012__Backfill_Airspace_Category_Geometry implements SpringJdbcMigration {
+
+    @Override
+    public void migrate(JdbcTemplate jdbcTemplate) throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        List<Object[]> updates = new ArrayList<>();
+        for (Map<String, Object> row : jdbcTemplate.queryForList("SELECT ID, GEO_JSON FROM ds_airspace_category WHERE GEOMETRY_WKB IS NULL AND GEO_JSON IS NOT NULL")) {
+            List<Geometry> geometries;
+            try {
+                geometries = GeometryUtil.toGeometries(objectMapper.readValue((String) row.get("GEO_JSON"), GeoJsonObject.class));
+            } catch (IOException | IllegalArgumentException e) {
+                //left for the application to read from GEO_JSON
+                continue;
+            }
+            Envelope envelope = GeometryUtil.envelopeOf(geometries);
+            updates.add(new Object[]{
+                    GeometryUtil.toWkb(geometries),
+                    envelope.isNull() ? null : envelope.getMinX(),
+                    envelope.isNull() ? null : envelope.getMinY(),
+                    envelope.isNull() ? null : envelope.getMaxX(),
+                    envelope.isNull() ? null : envelope.getMaxY(),
+                    row.get("ID")});
+        }
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE ds_airspace_category SET GEOMETRY_WKB = ?, MIN_LONGITUDE = ?, MIN_LATITUDE = ?, MAX_LONGITUDE = ?, MAX_LATITUDE = ? WHERE ID = ?", updates);
+        }
+    }
+}
@@ -0,0 +1,5 @@
+ALTER TABLE ds_airspace_category ADD COLUMN GEOMETRY_WKB MEDIUMBLOB,
+      ADD COLUMN MIN_LONGITUDE DOUBLE,
+      ADD COLUMN MIN_LATITUDE DOUBLE,
+      ADD COLUMN MAX_LONGITUDE DOUBLE,
+      ADD COLUMN MAX_LATITUDE DOUBLE;
@@ -0,0 +1 @@
+ALTER TABLE ds_manufacturer ADD COLUMN SIGNING_PAYLOAD_FORMAT VARCHAR(30) NOT NULL DEFAULT 'JAVA_SERIALIZATION';
@@ -0,0 +1,12 @@
+CREATE TABLE ds_drone_device_registration_record (
+    ID INT AUTO_INCREMENT PRIMARY KEY,
+    MANUFACTURER_BUSINESS_IDENTIFIER VARCHAR(36) NOT NULL,
+    TXN VARCHAR(50) NOT NULL,
+    REQUEST_DIGEST VARCHAR(64) NOT NULL,
+    RESPONSE_CODE VARCHAR(50),
+    ERROR_MESSAGE VARCHAR(500),
+    RESPONSE_TIMESTAMP DATETIME,
+    EXPIRES_AT DATETIME NOT NULL,
+    UNIQUE KEY UK_REGISTRATION_RECORD_MANUFACTURER_TXN (MANUFACTURER_BUSINESS_IDENTIFIER, TXN),
+    INDEX IDX_REGISTRATION_RECORD_EXPIRES_AT (EXPIRES_AT)
+);
@@ -0,0 +1,26 @@
+ALTER TABLE ds_user ADD LOWER_CASE_EMAIL VARCHAR(255);
+UPDATE ds_user SET LOWER_CASE_EMAIL = LOWER(EMAIL);
+CREATE INDEX IDX_USER_LOWER_CASE_EMAIL ON ds_user (LOWER_CASE_EMAIL);
+
+ALTER TABLE ds_manufacturer ADD LOWER_CASE_BUSINESS_IDENTIFIER VARCHAR(36);
+UPDATE ds_manufacturer SET LOWER_CASE_BUSINESS_IDENTIFIER = LOWER(BUSINESS_IDENTIFIER);
+CREATE UNIQUE INDEX UK_MANUFACTURER_LOWER_CASE_BUSINESS_IDENTIFIER ON ds_manufacturer (LOWER_CASE_BUSINESS_IDENTIFIER);
+
+ALTER TABLE ds_pilot ADD LOWER_CASE_BUSINESS_IDENTIFIER VARCHAR(36);
+UPDATE ds_pilot SET LOWER_CASE_BUSINESS_IDENTIFIER = LOWER(BUSINESS_IDENTIFIER);
+CREATE UNIQUE INDEX UK_PILOT_LOWER_CASE_BUSINESS_IDENTIFIER ON ds_pilot (LOWER_CASE_BUSINESS_IDENTIFIER);
+
+ALTER TABLE ds_individual_operator ADD LOWER_CASE_BUSINESS_IDENTIFIER VARCHAR(36);
+UPDATE ds_individual_operator SET LOWER_CASE_BUSINESS_IDENTIFIER = LOWER(BUSINESS_IDENTIFIER);
+CREATE UNIQUE INDEX UK_INDIVIDUAL_OPERATOR_LOWER_CASE_BUSINESS_IDENTIFIER ON ds_individual_operator (LOWER_CASE_BUSINESS_IDENTIFIER);
+
+ALTER TABLE ds_organization_operator ADD LOWER_CASE_BUSINESS_IDENTIFIER VARCHAR(36);
+UPDATE ds_organization_operator SET LOWER_CASE_BUSINESS_IDENTIFIER = LOWER(BUSINESS_IDENTIFIER);
+CREATE UNIQUE INDEX UK_ORGANIZATION_OPERATOR_LOWER_CASE_BUSINESS_IDENTIFIER ON ds_organization_operator (LOWER_CASE_BUSINESS_IDENTIFIER);
+
+ALTER TABLE ds_drone_device ADD LOWER_CASE_UNIQUE_DEVICE_ID VARCHAR(50),
+      ADD LOWER_CASE_OPERATOR_BUSINESS_IDENTIFIER VARCHAR(36);
+UPDATE ds_drone_device SET LOWER_CASE_UNIQUE_DEVICE_ID = LOWER(UNIQUE_DEVICE_ID),
+      LOWER_CASE_OPERATOR_BUSINESS_IDENTIFIER = LOWER(OPERATOR_BUSINESS_IDENTIFIER);
+CREATE UNIQUE INDEX UK_DRONE_DEVICE_LOWER_CASE_UNIQUE_DEVICE_ID ON ds_drone_device (LOWER_CASE_UNIQUE_DEVICE_ID);
+CREATE INDEX IDX_DRONE_DEVICE_OPERATOR_REGISTERED_DEVICES ON ds_drone_device (LOWER_CASE_OPERATOR_BUSINESS_IDENTIFIER, REGISTRATION_STATUS, UNIQUE_DEVICE_ID);
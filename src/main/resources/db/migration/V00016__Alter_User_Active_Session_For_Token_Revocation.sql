@@ -0,0 +1,3 @@
+ALTER TABLE ds_user_active_session MODIFY VALIDITY DATETIME NOT NULL;
+ALTER TABLE ds_user_active_session ADD ISSUED_BEFORE DATETIME;
+CREATE INDEX IDX_USER_ACTIVE_SESSION_VALIDITY ON ds_user_active_session (VALIDITY);
@@ -4,9 +4,12 @@ package com.ispirit.digitalsky.controller;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.ispirit.digitalsky.TestContext;
+import com.ispirit.digitalsky.document.AirspaceImpactReport;
 import com.ispirit.digitalsky.domain.AirspaceCategory;
 import com.ispirit.digitalsky.exception.EntityNotFoundException;
+import com.ispirit.digitalsky.domain.AirspaceTile;
 import com.ispirit.digitalsky.service.api.AirspaceCategoryService;
+import com.ispirit.digitalsky.service.api.AirspaceTileService;
 import org.apache.commons.io.IOUtils;
 import org.geojson.GeoJsonObject;
 import org.junit.Test;
@@ -16,6 +19,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockHttpServletResponse;
@@ -25,6 +29,7 @@ import org.springframework.test.web.servlet.MockMvc;
 import java.util.List;
 
 import static com.ispirit.digitalsky.AssertionHelper.assertPreAuthorizeWithAdmin;
+import static com.ispirit.digitalsky.HandlerMethodHelper.getMethod;
 import static com.ispirit.digitalsky.HandlerMethodHelper.postMethod;
 import static com.ispirit.digitalsky.HandlerMethodHelper.putMethod;
 import static java.util.Arrays.asList;
@@ -46,6 +51,9 @@ public class AirspaceCategoryControllerTest {
     @MockBean
     AirspaceCategoryService airspaceCategoryService;
 
+    @MockBean
+    AirspaceTileService airspaceTileService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -206,9 +214,148 @@ public class AirspaceCategoryControllerTest {
         assertThat(responseList.get(1).getGeoJson(), is(airspaceCategoryTwo.getGeoJson()));
     }
 
+    @Test
+    public void shouldGetImpactReportsOfAirspaceCategory() throws Exception {
+        //given
+        AirspaceImpactReport report = new AirspaceImpactReport(1L, AirspaceCategory.Type.RED, 10L);
+        when(airspaceCategoryService.findImpactReports(1L)).thenReturn(asList(report));
+
+        //when
+        MockHttpServletResponse response = mvc
+                .perform(get("/api/airspaceCategory/1/impactReports"))
+                .andReturn()
+                .getResponse();
+
+        //then
+        assertThat(response.getStatus(), is(HttpStatus.OK.value()));
+        List<AirspaceImpactReport> responseList = objectMapper.readValue(response.getContentAsString(), new TypeReference<List<AirspaceImpactReport>>() {
+        });
+        assertThat(responseList.size(), is(1));
+        assertThat(responseList.get(0).getStatus(), is(AirspaceImpactReport.Status.IN_PROGRESS));
+    }
+
+    @Test
+    public void shouldServeGzippedAirspaceTileWithETag() throws Exception {
+        //given
+        AirspaceTile tile = new AirspaceTile(1L, "\"abc\"", "{}".getBytes(), new byte[]{1, 2, 3});
+        when(airspaceTileService.tile(3, 4, 5)).thenReturn(tile);
+
+        //when
+        MockHttpServletResponse response = mvc
+                .perform(get("/api/airspaceCategory/tiles/3/4/5").header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                .andReturn()
+                .getResponse();
+
+        //then
+        assertThat(response.getStatus(), is(HttpStatus.OK.value()));
+        assertThat(response.getHeader(HttpHeaders.ETAG), is("\"abc-gzip\""));
+        assertThat(response.getHeader(HttpHeaders.VARY), is(HttpHeaders.ACCEPT_ENCODING));
+        assertThat(response.getHeader(HttpHeaders.CONTENT_ENCODING), is("gzip"));
+        assertThat(response.getContentAsByteArray(), is(new byte[]{1, 2, 3}));
+    }
+
+    @Test
+    public void shouldServePlainAirspaceTileWhenGzipNotAccepted() throws Exception {
+        //given
+        AirspaceTile tile = new AirspaceTile(1L, "\"abc\"", "{}".getBytes(), new byte[]{1, 2, 3});
+        when(airspaceTileService.tile(3, 4, 5)).thenReturn(tile);
+
+        //when
+        MockHttpServletResponse response = mvc
+                .perform(get("/api/airspaceCategory/tiles/3/4/5"))
+                .andReturn()
+                .getResponse();
+
+        //then
+        assertThat(response.getStatus(), is(HttpStatus.OK.value()));
+        assertThat(response.getHeader(HttpHeaders.ETAG), is("\"abc\""));
+        assertThat(response.getHeader(HttpHeaders.CONTENT_ENCODING), is((String) null));
+        assertThat(response.getContentAsString(), is("{}"));
+    }
+
+    @Test
+    public void shouldServePlainAirspaceTileWhenGzipIsRefusedOrOnlyLookalike() throws Exception {
+        //given
+        AirspaceTile tile = new AirspaceTile(1L, "\"abc\"", "{}".getBytes(), new byte[]{1, 2, 3});
+        when(airspaceTileService.tile(3, 4, 5)).thenReturn(tile);
+
+        //when
+        MockHttpServletResponse refused = mvc
+                .perform(get("/api/airspaceCategory/tiles/3/4/5").header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0, deflate"))
+                .andReturn()
+                .getResponse();
+        MockHttpServletResponse lookalike = mvc
+                .perform(get("/api/airspaceCategory/tiles/3/4/5").header(HttpHeaders.ACCEPT_ENCODING, "x-gzip-foo"))
+                .andReturn()
+                .getResponse();
+
+        //then
+        assertThat(refused.getHeader(HttpHeaders.CONTENT_ENCODING), is((String) null));
+        assertThat(refused.getContentAsString(), is("{}"));
+        assertThat(lookalike.getHeader(HttpHeaders.CONTENT_ENCODING), is((String) null));
+        assertThat(lookalike.getContentAsString(), is("{}"));
+    }
+
+    @Test
+    public void shouldParseAcceptEncodingQualityValues() throws Exception {
+        assertThat(AirspaceCategoryController.acceptsGzip("deflate, gzip;q=0.5"), is(true));
+        assertThat(AirspaceCategoryController.acceptsGzip("GZIP"), is(true));
+        assertThat(AirspaceCategoryController.acceptsGzip("*"), is(true));
+        assertThat(AirspaceCategoryController.acceptsGzip("*, gzip;q=0"), is(false));
+        assertThat(AirspaceCategoryController.acceptsGzip("gzip; q=0.000"), is(false));
+        assertThat(AirspaceCategoryController.acceptsGzip("identity"), is(false));
+    }
+
+    @Test
+    public void shouldReturnNotModifiedForUnchangedAirspaceTile() throws Exception {
+        //given
+        AirspaceTile tile = new AirspaceTile(1L, "\"abc\"", "{}".getBytes(), new byte[]{1, 2, 3});
+        when(airspaceTileService.tile(3, 4, 5)).thenReturn(tile);
+
+        //when
+        MockHttpServletResponse response = mvc
+                .perform(get("/api/airspaceCategory/tiles/3/4/5").header(HttpHeaders.IF_NONE_MATCH, "\"abc\""))
+                .andReturn()
+                .getResponse();
+
+        //then
+        assertThat(response.getStatus(), is(HttpStatus.NOT_MODIFIED.value()));
+        assertThat(response.getContentAsByteArray().length, is(0));
+    }
+
+    @Test
+    public void shouldNotServeNotModifiedAcrossEncodings() throws Exception {
+        //given
+        AirspaceTile tile = new AirspaceTile(1L, "\"abc\"", "{}".getBytes(), new byte[]{1, 2, 3});
+        when(airspaceTileService.tile(3, 4, 5)).thenReturn(tile);
+
+        //when
+        MockHttpServletResponse gzipResponse = mvc
+                .perform(get("/api/airspaceCategory/tiles/3/4/5").header(HttpHeaders.ACCEPT_ENCODING, "gzip").header(HttpHeaders.IF_NONE_MATCH, "\"abc\""))
+                .andReturn()
+                .getResponse();
+        MockHttpServletResponse identityResponse = mvc
+                .perform(get("/api/airspaceCategory/tiles/3/4/5").header(HttpHeaders.IF_NONE_MATCH, "\"abc-gzip\""))
+                .andReturn()
+                .getResponse();
+        MockHttpServletResponse notModifiedResponse = mvc
+                .perform(get("/api/airspaceCategory/tiles/3/4/5").header(HttpHeaders.ACCEPT_ENCODING, "gzip").header(HttpHeaders.IF_NONE_MATCH, "\"abc-gzip\""))
+                .andReturn()
+                .getResponse();
+
+        //then
+        assertThat(gzipResponse.getStatus(), is(HttpStatus.OK.value()));
+        assertThat(gzipResponse.getHeader(HttpHeaders.ETAG), is("\"abc-gzip\""));
+        assertThat(identityResponse.getStatus(), is(HttpStatus.OK.value()));
+        assertThat(identityResponse.getHeader(HttpHeaders.ETAG), is("\"abc\""));
+        assertThat(notModifiedResponse.getStatus(), is(HttpStatus.NOT_MODIFIED.value()));
+        assertThat(notModifiedResponse.getHeader(HttpHeaders.VARY), is(HttpHeaders.ACCEPT_ENCODING));
+    }
+
     @Test
     public void shouldMakeSureOnlyAdminAccess() throws Exception {
         assertPreAuthorizeWithAdmin(postMethod(mvc, "/api/airspaceCategory", MediaType.APPLICATION_JSON));
         assertPreAuthorizeWithAdmin(putMethod(mvc, "/api/airspaceCategory/1", MediaType.APPLICATION_JSON));
+        assertPreAuthorizeWithAdmin(getMethod(mvc, "/api/airspaceCategory/1/impactReports"));
     }
 }
\ No newline at end of file
@@ -9,7 +9,10 @@ import com.ispirit.digitalsky.domain.UserRole;
 import com.ispirit.digitalsky.dto.TokenRequest;
 import com.ispirit.digitalsky.dto.TokenResponse;
 import com.ispirit.digitalsky.service.api.SecurityTokenService;
+import com.ispirit.digitalsky.service.api.TokenRevocationService;
 import com.ispirit.digitalsky.service.api.UserProfileService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -29,8 +32,10 @@ import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
 import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 
 @RunWith(SpringRunner.class)
@@ -50,6 +55,9 @@ public class AuthenticationControllerTest {
     @MockBean
     private SecurityTokenService securityTokenService;
 
+    @MockBean
+    private TokenRevocationService tokenRevocationService;
+
 
     @Autowired
     private ObjectMapper objectMapper;
@@ -200,4 +208,36 @@ public class AuthenticationControllerTest {
         verifyZeroInteractions(userProfileService);
     }
 
-}
\ No newline at end of file
+    @Test
+    public void shouldRevokeToken() throws Exception {
+        //given
+        Claims claims = Jwts.claims().setId("token-id").setSubject("1");
+        when(securityTokenService.verifyToken("token")).thenReturn(claims);
+
+        //when
+        MockHttpServletResponse response = mvc
+                .perform(delete("/api/auth/token").header("Authorization", "Bearer token"))
+                .andReturn()
+                .getResponse();
+
+        //then
+        assertThat(response.getStatus(), is(HttpStatus.NO_CONTENT.value()));
+        verify(tokenRevocationService).revoke(claims);
+    }
+
+    @Test
+    public void shouldNotRevokeInvalidToken() throws Exception {
+        //given
+        when(securityTokenService.verifyToken("token")).thenReturn(null);
+
+        //when
+        MockHttpServletResponse response = mvc
+                .perform(delete("/api/auth/token").header("Authorization", "Bearer token"))
+                .andReturn()
+                .getResponse();
+
+        //then
+        assertThat(response.getStatus(), is(HttpStatus.BAD_REQUEST.value()));
+        verifyZeroInteractions(tokenRevocationService);
+    }
+}
@@ -5,15 +5,18 @@ import com.ispirit.digitalsky.TestContext;
 import com.ispirit.digitalsky.domain.*;
 import com.ispirit.digitalsky.dto.Errors;
 import com.ispirit.digitalsky.exception.*;
+import com.ispirit.digitalsky.service.api.DroneDeviceRegistrationRecordService;
 import com.ispirit.digitalsky.service.api.DroneDeviceService;
 import com.ispirit.digitalsky.service.api.UserProfileService;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockHttpServletResponse;
@@ -21,6 +24,7 @@ import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.time.LocalDate;
+import java.util.List;
 
 import static com.ispirit.digitalsky.SecurityContextHelper.setUserSecurityContext;
 import static java.util.Arrays.asList;
@@ -48,6 +52,9 @@ public class DroneDeviceControllerTest {
     @MockBean
     UserProfileService userProfileService;
 
+    @MockBean
+    DroneDeviceRegistrationRecordService registrationRecordService;
+
     private UserPrincipal userPrincipal;
 
     @Autowired
@@ -99,6 +106,97 @@ public class DroneDeviceControllerTest {
         assertThat(responsePayload.getResponseCode(), is(RegisterDroneResponseCode.REGISTERED));
     }
 
+    @Test
+    public void shouldReturnRecordedResponseForRetriedRegistration() throws Exception {
+        DroneDevice mockDrone = new DroneDevice("1.0","Beebop 800.0","1A29.0", "From manufacturer ", "eff217e740534fde89c1bfe62e08f316", "some value");
+        RegisterDroneRequestPayload requestPayload = new RegisterDroneRequestPayload(mockDrone, "", "");
+
+        RegisterDroneResponsePayload recordedPayload = new RegisterDroneResponsePayload();
+        recordedPayload.setTxn(mockDrone.getTxn());
+        recordedPayload.setResponseCode(RegisterDroneResponseCode.REGISTERED);
+        when(registrationRecordService.requestDigest(any(RegisterDroneRequestPayload.class))).thenReturn("digest");
+        when(registrationRecordService.claim("2ff217e740534fde89c1bfe62e08f317", mockDrone.getTxn(), "digest")).thenReturn(recordedPayload);
+
+        final String requestPayloadString = objectMapper.writeValueAsString(requestPayload);
+        MockHttpServletResponse response  =
+                mvc.perform(post("/api/droneDevice/register/2ff217e740534fde89c1bfe62e08f317")
+                        .content(requestPayloadString)
+                        .contentType(MediaType.APPLICATION_JSON_VALUE))
+                        .andReturn().getResponse();
+
+        RegisterDroneResponsePayload responsePayload = objectMapper.readValue(response.getContentAsString(), RegisterDroneResponsePayload.class);
+
+        assertThat(response.getStatus(), is(HttpStatus.CREATED.value()));
+        assertThat(responsePayload.getTxn(), is(mockDrone.getTxn()));
+        assertThat(responsePayload.getResponseCode(), is(RegisterDroneResponseCode.REGISTERED));
+        verify(droneDeviceService, never()).register(any(String.class), any(RegisterDroneRequestPayload.class));
+        verify(registrationRecordService, never()).record(any(String.class), any(String.class), any(RegisterDroneResponsePayload.class));
+    }
+
+    @Test
+    public void shouldRejectDifferentRequestReusingRecordedTransaction() throws Exception {
+        DroneDevice mockDrone = new DroneDevice("1.0","Beebop 800.0","1A29.0", "From manufacturer ", "eff217e740534fde89c1bfe62e08f316", "some value");
+        RegisterDroneRequestPayload requestPayload = new RegisterDroneRequestPayload(mockDrone, "", "");
+
+        when(registrationRecordService.requestDigest(any(RegisterDroneRequestPayload.class))).thenReturn("other digest");
+        when(registrationRecordService.claim("2ff217e740534fde89c1bfe62e08f317", mockDrone.getTxn(), "other digest")).thenThrow(new DroneDeviceRegistrationConflictException());
+
+        final String requestPayloadString = objectMapper.writeValueAsString(requestPayload);
+        MockHttpServletResponse response  =
+                mvc.perform(post("/api/droneDevice/register/2ff217e740534fde89c1bfe62e08f317")
+                        .content(requestPayloadString)
+                        .contentType(MediaType.APPLICATION_JSON_VALUE))
+                        .andReturn().getResponse();
+
+        RegisterDroneResponsePayload responsePayload = objectMapper.readValue(response.getContentAsString(), RegisterDroneResponsePayload.class);
+
+        assertThat(response.getStatus(), is(HttpStatus.CONFLICT.value()));
+        assertThat(responsePayload.getTxn(), is(mockDrone.getTxn()));
+        assertThat(responsePayload.getResponseCode(), is(RegisterDroneResponseCode.REGISTRATION_FAILED));
+        verify(droneDeviceService, never()).register(any(String.class), any(RegisterDroneRequestPayload.class));
+        verify(registrationRecordService, never()).record(any(String.class), any(String.class), any(RegisterDroneResponsePayload.class));
+    }
+
+    @Test
+    public void shouldRejectRegistrationWhileSameTransactionIsInProgress() throws Exception {
+        DroneDevice mockDrone = new DroneDevice("1.0","Beebop 800.0","1A29.0", "From manufacturer ", "eff217e740534fde89c1bfe62e08f316", "some value");
+        RegisterDroneRequestPayload requestPayload = new RegisterDroneRequestPayload(mockDrone, "", "");
+
+        when(registrationRecordService.requestDigest(any(RegisterDroneRequestPayload.class))).thenReturn("digest");
+        when(registrationRecordService.claim("2ff217e740534fde89c1bfe62e08f317", mockDrone.getTxn(), "digest")).thenThrow(new DroneDeviceRegistrationInProgressException());
+
+        final String requestPayloadString = objectMapper.writeValueAsString(requestPayload);
+        MockHttpServletResponse response  =
+                mvc.perform(post("/api/droneDevice/register/2ff217e740534fde89c1bfe62e08f317")
+                        .content(requestPayloadString)
+                        .contentType(MediaType.APPLICATION_JSON_VALUE))
+                        .andReturn().getResponse();
+
+        assertThat(response.getStatus(), is(HttpStatus.CONFLICT.value()));
+        verify(droneDeviceService, never()).register(any(String.class), any(RegisterDroneRequestPayload.class));
+        verify(registrationRecordService, never()).record(any(String.class), any(String.class), any(RegisterDroneResponsePayload.class));
+    }
+
+    @Test
+    public void shouldRecordRegistrationResponse() throws Exception {
+        DroneDevice mockDrone = new DroneDevice("1.0","Beebop 800.0","1A29.0", "From manufacturer ", "eff217e740534fde89c1bfe62e08f316", "some value");
+        RegisterDroneRequestPayload requestPayload = new RegisterDroneRequestPayload(mockDrone, "", "");
+
+        when(registrationRecordService.requestDigest(any(RegisterDroneRequestPayload.class))).thenReturn("digest");
+        when(droneDeviceService.register(eq("2ff217e740534fde89c1bfe62e08f317"),any(RegisterDroneRequestPayload.class))).thenThrow(new DroneDeviceAlreadyExistException());
+
+        final String requestPayloadString = objectMapper.writeValueAsString(requestPayload);
+        mvc.perform(post("/api/droneDevice/register/2ff217e740534fde89c1bfe62e08f317")
+                .content(requestPayloadString)
+                .contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andReturn().getResponse();
+
+        ArgumentCaptor<RegisterDroneResponsePayload> argumentCaptor = ArgumentCaptor.forClass(RegisterDroneResponsePayload.class);
+        verify(registrationRecordService).record(eq("2ff217e740534fde89c1bfe62e08f317"), eq("digest"), argumentCaptor.capture());
+        assertThat(argumentCaptor.getValue().getTxn(), is(mockDrone.getTxn()));
+        assertThat(argumentCaptor.getValue().getResponseCode(), is(RegisterDroneResponseCode.DRONE_ALREADY_REGISTERED));
+    }
+
     @Test
     public void shouldHandleInvalidDigitalSignatureExceptionBeforeRegisteringDrone() throws Exception {
         DroneDevice mockDrone = new DroneDevice("1.0","Beebop 800.0","1A29.0", "From manufacturer ", "eff217e740534fde89c1bfe62e08f316", "some value");
@@ -499,4 +597,70 @@ public class DroneDeviceControllerTest {
         verify(droneDeviceService, never()).getRegisteredDroneDeviceIds(any());
     }
 
+    @Test
+    public void shouldRegisterDronesInBatchKeepingRequestOrder() throws Exception {
+        //given
+        DroneDevice mockDrone = new DroneDevice("1.0","Beebop 800.0","1A29.0", "txn-2", "eff217e740534fde89c1bfe62e08f316", "some value");
+        List<RegisterDroneRequestPayload> requestPayloads = asList(new RegisterDroneRequestPayload(null, null, null), new RegisterDroneRequestPayload(mockDrone, "", ""));
+
+        RegisterDroneResponsePayload registered = new RegisterDroneResponsePayload();
+        registered.setResponseCode(RegisterDroneResponseCode.REGISTERED);
+        registered.setTxn("txn-2");
+        when(droneDeviceService.registerAll(eq("2ff217e740534fde89c1bfe62e08f317"), any(List.class))).thenReturn(asList(registered));
+
+        //when
+        MockHttpServletResponse response  =
+                mvc.perform(post("/api/droneDevice/batch/register/2ff217e740534fde89c1bfe62e08f317")
+                        .content(objectMapper.writeValueAsString(requestPayloads))
+                        .contentType(MediaType.APPLICATION_JSON_VALUE))
+                        .andReturn().getResponse();
+
+        //then
+        RegisterDroneResponsePayload[] responsePayloads = objectMapper.readValue(response.getContentAsString(), RegisterDroneResponsePayload[].class);
+        assertThat(response.getStatus(), is(HttpStatus.OK.value()));
+        assertThat(responsePayloads.length, is(2));
+        assertThat(responsePayloads[0].getResponseCode(), is(RegisterDroneResponseCode.BAD_REQUEST_PAYLOAD));
+        assertThat(responsePayloads[1].getResponseCode(), is(RegisterDroneResponseCode.REGISTERED));
+        assertThat(responsePayloads[1].getTxn(), is("txn-2"));
+    }
+
+    @Test
+    public void shouldFailWholeBatchWhenManufacturerIsNotFound() throws Exception {
+        //given
+        DroneDevice mockDrone = new DroneDevice("1.0","Beebop 800.0","1A29.0", "txn-1", "eff217e740534fde89c1bfe62e08f316", "some value");
+        when(droneDeviceService.deregisterAll(eq("2ff217e740534fde89c1bfe62e08f317"), any(List.class))).thenThrow(new ManufacturerNotFoundException());
+
+        //when
+        MockHttpServletResponse response  =
+                mvc.perform(patch("/api/droneDevice/batch/deregister/2ff217e740534fde89c1bfe62e08f317")
+                        .content(objectMapper.writeValueAsString(asList(new RegisterDroneRequestPayload(mockDrone, "", ""))))
+                        .contentType(MediaType.APPLICATION_JSON_VALUE))
+                        .andReturn().getResponse();
+
+        //then
+        RegisterDroneResponsePayload[] responsePayloads = objectMapper.readValue(response.getContentAsString(), RegisterDroneResponsePayload[].class);
+        assertThat(response.getStatus(), is(HttpStatus.BAD_REQUEST.value()));
+        assertThat(responsePayloads[0].getResponseCode(), is(RegisterDroneResponseCode.MANUFACTURER_BUSINESS_IDENTIFIER_INVALID));
+        assertThat(responsePayloads[0].getTxn(), is("txn-1"));
+    }
+
+    @Test
+    public void shouldFailWholeBatchWithConflictWhenDevicesAreRegisteredConcurrently() throws Exception {
+        //given
+        DroneDevice mockDrone = new DroneDevice("1.0","Beebop 800.0","1A29.0", "txn-1", "eff217e740534fde89c1bfe62e08f316", "some value");
+        when(droneDeviceService.registerAll(eq("2ff217e740534fde89c1bfe62e08f317"), any(List.class))).thenThrow(new DuplicateKeyException("duplicate"));
+
+        //when
+        MockHttpServletResponse response  =
+                mvc.perform(post("/api/droneDevice/batch/register/2ff217e740534fde89c1bfe62e08f317")
+                        .content(objectMapper.writeValueAsString(asList(new RegisterDroneRequestPayload(mockDrone, "", ""))))
+                        .contentType(MediaType.APPLICATION_JSON_VALUE))
+                        .andReturn().getResponse();
+
+        //then
+        RegisterDroneResponsePayload[] responsePayloads = objectMapper.readValue(response.getContentAsString(), RegisterDroneResponsePayload[].class);
+        assertThat(response.getStatus(), is(HttpStatus.CONFLICT.value()));
+        assertThat(responsePayloads[0].getResponseCode(), is(RegisterDroneResponseCode.REGISTRATION_FAILED));
+        assertThat(responsePayloads[0].getTxn(), is("txn-1"));
+    }
 }
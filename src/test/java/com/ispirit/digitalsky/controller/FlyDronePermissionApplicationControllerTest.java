@@ -4,7 +4,11 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.ispirit.digitalsky.TestContext;
 import com.ispirit.digitalsky.document.FlyDronePermissionApplication;
+import com.ispirit.digitalsky.document.LatLong;
 import com.ispirit.digitalsky.domain.*;
+import com.ispirit.digitalsky.dto.FlyAreaClassification;
+import com.ispirit.digitalsky.dto.PagedResponse;
+import com.ispirit.digitalsky.exception.PermissionArtifactNotReadyException;
 import com.ispirit.digitalsky.service.api.FlyDronePermissionApplicationService;
 import com.ispirit.digitalsky.service.api.OperatorDroneService;
 import com.ispirit.digitalsky.service.api.UserProfileService;
@@ -16,12 +20,18 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.security.util.InMemoryResource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -488,9 +498,196 @@ public class FlyDronePermissionApplicationControllerTest {
         assertThat(list.size(), is(3));
     }
 
+    @Test
+    public void shouldClassifyFlyAreasInBatch() throws Exception {
+        //given
+        List<List<LatLong>> flyAreas = asList(
+                asList(new LatLong(1, 1), new LatLong(1, 2), new LatLong(2, 2), new LatLong(1, 1)),
+                asList(new LatLong(3, 3), new LatLong(3, 4), new LatLong(4, 4), new LatLong(3, 3)));
+        when(service.classifyFlyAreas(any())).thenReturn(asList(
+                new FlyAreaClassification(1L, true, false, false),
+                new FlyAreaClassification(1L, false, false, true)));
+
+        //when
+        MockHttpServletResponse response = mvc.perform(
+                post(APPLICATION_RESOURCE_BASE_PATH + "/flyArea/classify")
+                        .content(objectMapper.writeValueAsString(flyAreas))
+                        .contentType(MediaType.APPLICATION_JSON)
+        ).andReturn().getResponse();
+
+        //then
+        assertThat(response.getStatus(), is(HttpStatus.OK.value()));
+        List<FlyAreaClassification> result = objectMapper.readValue(response.getContentAsString(), new TypeReference<List<FlyAreaClassification>>() {
+        });
+        assertThat(result.size(), is(2));
+        assertThat(result.get(1).isIntersectsRedZone(), is(true));
+    }
+
+    @Test
+    public void shouldRejectFlyAreaBatchAboveLimit() throws Exception {
+        //given
+        List<List<LatLong>> flyAreas = new ArrayList<>();
+        for (int index = 0; index <= FlyDronePermissionApplicationController.MAX_FLY_AREA_BATCH_SIZE; index++) {
+            flyAreas.add(asList(new LatLong(1, 1), new LatLong(1, 2), new LatLong(2, 2), new LatLong(1, 1)));
+        }
+
+        //when
+        MockHttpServletResponse response = mvc.perform(
+                post(APPLICATION_RESOURCE_BASE_PATH + "/flyArea/classify")
+                        .content(objectMapper.writeValueAsString(flyAreas))
+                        .contentType(MediaType.APPLICATION_JSON)
+        ).andReturn().getResponse();
+
+        //then
+        assertThat(response.getStatus(), is(HttpStatus.BAD_REQUEST.value()));
+        verifyZeroInteractions(service);
+    }
+
+    @Test
+    public void shouldPrecheckFlyArea() throws Exception {
+        //given
+        List<LatLong> flyArea = asList(new LatLong(1, 1), new LatLong(1, 2), new LatLong(2, 2), new LatLong(1, 1));
+        when(service.precheckFlyArea(any())).thenReturn(new FlyAreaClassification(1L, false, asList(3L), asList(4L, 5L)));
+
+        //when
+        MockHttpServletResponse response = mvc.perform(
+                post(APPLICATION_RESOURCE_BASE_PATH + "/flyArea/precheck")
+                        .content(objectMapper.writeValueAsString(flyArea))
+                        .contentType(MediaType.APPLICATION_JSON)
+        ).andReturn().getResponse();
+
+        //then
+        assertThat(response.getStatus(), is(HttpStatus.OK.value()));
+        FlyAreaClassification result = objectMapper.readValue(response.getContentAsString(), FlyAreaClassification.class);
+        assertThat(result.getRedZoneIds(), is(asList(4L, 5L)));
+        verifyZeroInteractions(operatorDroneService);
+    }
+
+    @Test
+    public void shouldListApplicationsInRegionPageByPage() throws Exception {
+        //given
+        FlyDronePermissionApplication application = new FlyDronePermissionApplication();
+        application.setId("1");
+        application.setStatus(ApplicationStatus.APPROVED);
+        when(service.getApplicationsInRegion(anyDouble(), anyDouble(), anyDouble(), anyDouble(), any(), any(), anyInt(), anyInt()))
+                .thenReturn(new PageImpl<>(asList(application), new PageRequest(2, 1), 5));
+
+        //when
+        MockHttpServletResponse response = mvc.perform(
+                get(APPLICATION_RESOURCE_BASE_PATH + "/region")
+                        .param("minLatitude", "10").param("minLongitude", "70")
+                        .param("maxLatitude", "20").param("maxLongitude", "80")
+                        .param("from", "01-08-2018 00:00:00").param("to", "31-08-2018 00:00:00")
+                        .param("page", "2").param("size", "1")
+        ).andReturn().getResponse();
+
+        //then
+        assertThat(response.getStatus(), is(HttpStatus.OK.value()));
+        verify(service).getApplicationsInRegion(10, 70, 20, 80, LocalDateTime.of(2018, 8, 1, 0, 0), LocalDateTime.of(2018, 8, 31, 0, 0), 2, 1);
+        PagedResponse<FlyDronePermissionApplication> result = objectMapper.readValue(response.getContentAsString(), new TypeReference<PagedResponse<FlyDronePermissionApplication>>() {
+        });
+        assertThat(result.getContent().size(), is(1));
+        assertThat(result.getContent().get(0).getId(), is("1"));
+        assertThat(result.getPage(), is(2));
+        assertThat(result.getTotalElements(), is(5L));
+    }
+
+    @Test
+    public void shouldReturnAcceptedWhilePermissionArtifactIsGenerated() throws Exception {
+        //given
+        FlyDronePermissionApplication application = new FlyDronePermissionApplication();
+        application.setId("1");
+        application.setApplicantId(userPrincipal.getId());
+        application.setStatus(ApplicationStatus.APPROVED);
+        when(service.get("1")).thenReturn(application);
+        when(service.getPermissionArtifact("1")).thenThrow(new PermissionArtifactNotReadyException());
+
+        //when
+        MockHttpServletResponse response = mvc.perform(
+                get(APPLICATION_RESOURCE_BASE_PATH + "/1/document/permissionArtifact")
+        ).andReturn().getResponse();
+
+        //then
+        assertThat(response.getStatus(), is(HttpStatus.ACCEPTED.value()));
+        assertThat(response.getHeader(HttpHeaders.RETRY_AFTER), is("5"));
+    }
+
+    @Test
+    public void shouldDownloadReadyPermissionArtifact() throws Exception {
+        //given
+        FlyDronePermissionApplication application = new FlyDronePermissionApplication();
+        application.setId("1");
+        application.setApplicantId(userPrincipal.getId());
+        application.setStatus(ApplicationStatus.APPROVED);
+        when(service.get("1")).thenReturn(application);
+        when(service.getPermissionArtifact("1")).thenReturn(new PermissionArtifact(new InMemoryResource("<artifact/>"), "abc"));
+
+        //when
+        MockHttpServletResponse response = mvc.perform(
+                get(APPLICATION_RESOURCE_BASE_PATH + "/1/document/permissionArtifact")
+        ).andReturn().getResponse();
+
+        //then
+        assertThat(response.getStatus(), is(HttpStatus.OK.value()));
+        assertThat(response.getContentAsString(), is("<artifact/>"));
+        assertThat(response.getHeader(HttpHeaders.ETAG), is("\"abc\""));
+    }
+
+    @Test
+    public void shouldNotReadPermissionArtifactWhenETagMatches() throws Exception {
+        //given
+        FlyDronePermissionApplication application = new FlyDronePermissionApplication();
+        application.setId("1");
+        application.setApplicantId(userPrincipal.getId());
+        application.setStatus(ApplicationStatus.APPROVED);
+        application.setPermissionArtifactStatus(PermissionArtifactStatus.READY);
+        application.setPermissionArtifactHash("abc");
+        when(service.get("1")).thenReturn(application);
+
+        //when
+        MockHttpServletResponse response = mvc.perform(
+                get(APPLICATION_RESOURCE_BASE_PATH + "/1/document/permissionArtifact")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"abc\"")
+        ).andReturn().getResponse();
+
+        //then
+        assertThat(response.getStatus(), is(HttpStatus.NOT_MODIFIED.value()));
+        assertThat(response.getHeader(HttpHeaders.ETAG), is("\"abc\""));
+        verify(service, never()).getPermissionArtifact(anyString());
+    }
+
+    @Test
+    public void shouldRejectExportWithInvertedApprovedDateRange() throws Exception {
+        //when
+        MockHttpServletResponse response = mvc.perform(
+                get(APPLICATION_RESOURCE_BASE_PATH + "/export/permissionArtifacts")
+                        .param("approvedFrom", "31-08-2018 00:00:00").param("approvedTo", "01-08-2018 00:00:00")
+        ).andReturn().getResponse();
+
+        //then
+        assertThat(response.getStatus(), is(HttpStatus.BAD_REQUEST.value()));
+        verifyZeroInteractions(service);
+    }
+
+    @Test
+    public void shouldRejectRegionQueryWithoutTimeRange() throws Exception {
+        //when
+        MockHttpServletResponse response = mvc.perform(
+                get(APPLICATION_RESOURCE_BASE_PATH + "/region")
+                        .param("minLatitude", "10").param("minLongitude", "70")
+                        .param("maxLatitude", "20").param("maxLongitude", "80")
+        ).andReturn().getResponse();
+
+        //then
+        assertThat(response.getStatus(), is(HttpStatus.BAD_REQUEST.value()));
+        verifyZeroInteractions(service);
+    }
+
     @Test
     public void shouldMakeSureOnlyAdminAccess() throws Exception {
         assertPreAuthorizeWithAdmin(patchMethod(mvc, APPLICATION_RESOURCE_BASE_PATH+"/approve/1", MediaType.APPLICATION_JSON));
+        assertPreAuthorizeWithAdmin(getMethod(mvc, APPLICATION_RESOURCE_BASE_PATH+"/region"));
+        assertPreAuthorizeWithAdmin(getMethod(mvc, APPLICATION_RESOURCE_BASE_PATH+"/export/permissionArtifacts"));
     }
 
 }
\ No newline at end of file
@@ -1,11 +1,16 @@
 package com.ispirit.digitalsky.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ispirit.digitalsky.SecurityContextHelper;
 import com.ispirit.digitalsky.TestContext;
 import com.ispirit.digitalsky.domain.Address;
 import com.ispirit.digitalsky.domain.Pilot;
 import com.ispirit.digitalsky.domain.UserPrincipal;
+import com.ispirit.digitalsky.domain.UserProfile;
+import com.ispirit.digitalsky.service.JwtTokenService;
 import com.ispirit.digitalsky.service.api.PilotService;
+import com.ispirit.digitalsky.service.api.UserProfileService;
+import io.jsonwebtoken.SignatureAlgorithm;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -14,11 +19,14 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.core.io.DefaultResourceLoader;
 import org.springframework.core.io.UrlResource;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
@@ -75,6 +83,35 @@ public class PilotControllerTest {
 
     }
 
+    @Test
+    public void shouldAddPilotWithEmailOfPrincipalBuiltFromTokenClaims() throws Exception {
+
+        //given
+        UserProfileService userProfileService = mock(UserProfileService.class);
+        when(userProfileService.profile(1)).thenReturn(new UserProfile(1, 0, 0, 0, 0, null, null, null));
+        JwtTokenService tokenService = new JwtTokenService(new DefaultResourceLoader(), 2, "classpath:keystore.jks", "cacms789", "jks", "tomcat-localhost", "cacms789", SignatureAlgorithm.RS256, userProfileService, true);
+        String token = tokenService.generateToken(new UsernamePasswordAuthenticationToken(new UserPrincipal(SecurityContextHelper.user()), null));
+        UserPrincipal claimsPrincipal = tokenService.principalFromClaims(tokenService.verifyToken(token));
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(claimsPrincipal, null, claimsPrincipal.getAuthorities()));
+
+        Address address = new Address("LineOne", "LineTwo", "City", "State", "Country", "560001");
+        Pilot pilotPayload = new Pilot(0, null, "Sample Name", "sample@email.com", "1234567", "India", LocalDate.of(1979, 10, 10), "Medium", asList(address));
+        when(pilotService.createNewPilot(any(Pilot.class))).thenAnswer(invocation -> invocation.getArguments()[0]);
+
+        //when
+        MockHttpServletResponse response = mvc.perform(
+                fileUpload("/api/pilot").param("pilotPayload", objectMapper.writeValueAsString(pilotPayload))
+        ).andReturn().getResponse();
+
+        //then
+        ArgumentCaptor<Pilot> argumentCaptor = ArgumentCaptor.forClass(Pilot.class);
+        verify(pilotService).createNewPilot(argumentCaptor.capture());
+        assertThat(argumentCaptor.getValue().getResourceOwnerId(), is(1L));
+        assertThat((String) ReflectionTestUtils.getField(argumentCaptor.getValue(), "name"), is("name"));
+        assertThat((String) ReflectionTestUtils.getField(argumentCaptor.getValue(), "email"), is("user@email.com"));
+        assertThat(response.getStatus(), is(HttpStatus.CREATED.value()));
+    }
+
     @Test
     public void shouldBeAbleToAddPilot() throws Exception {
 
@@ -3,11 +3,13 @@ package com.ispirit.digitalsky.service;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.ispirit.digitalsky.SecurityContextHelper;
 import com.ispirit.digitalsky.domain.AirspaceCategory;
+import com.ispirit.digitalsky.domain.AirspaceSnapshot;
 import com.ispirit.digitalsky.domain.UserPrincipal;
 import com.ispirit.digitalsky.exception.EntityNotFoundException;
 import com.ispirit.digitalsky.exception.ValidationException;
 import com.ispirit.digitalsky.repository.AirspaceCategoryRepository;
 import com.ispirit.digitalsky.service.api.AirspaceCategoryService;
+import com.ispirit.digitalsky.service.api.AirspaceImpactAnalysisService;
 import org.apache.commons.io.IOUtils;
 import org.geojson.FeatureCollection;
 import org.geojson.GeoJsonObject;
@@ -16,6 +18,7 @@ import org.junit.Test;
 import org.mockito.ArgumentCaptor;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -29,6 +32,7 @@ import static org.mockito.Mockito.*;
 public class AirspaceCategoryServiceImplTest {
 
     private AirspaceCategoryRepository repository;
+    private AirspaceImpactAnalysisService airspaceImpactAnalysisService;
     private AirspaceCategoryService airspaceCategoryService;
     private UserPrincipal userPrincipal;
 
@@ -36,7 +40,9 @@ public class AirspaceCategoryServiceImplTest {
     public void setUp() throws Exception {
         userPrincipal = SecurityContextHelper.setUserSecurityContext();
         repository = mock(AirspaceCategoryRepository.class);
-        airspaceCategoryService = new AirspaceCategoryServiceImpl(repository);
+        airspaceImpactAnalysisService = mock(AirspaceImpactAnalysisService.class);
+        airspaceCategoryService = new AirspaceCategoryServiceImpl(repository, airspaceImpactAnalysisService);
+        when(repository.findAll()).thenReturn(new ArrayList<>());
     }
 
     @Test
@@ -205,4 +211,108 @@ public class AirspaceCategoryServiceImplTest {
         assertThat(((FeatureCollection) geoJsonMapByType.get(AirspaceCategory.Type.RED)).getFeatures().size(),is(1));
 
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldBuildAirspaceSnapshotOnceAndReuseIt() throws Exception {
+        //given
+        String geoJson = IOUtils.toString(this.getClass().getResourceAsStream("/geoJsonPolygon.json"), "UTF-8");
+        when(repository.findAll()).thenReturn(asList(new AirspaceCategory("Sample1", AirspaceCategory.Type.RED, geoJson)));
+
+        //when
+        AirspaceSnapshot first = airspaceCategoryService.airspaceSnapshot();
+        AirspaceSnapshot second = airspaceCategoryService.airspaceSnapshot();
+
+        //then
+        assertThat(first, is(second));
+        assertThat(first.getIndex().size(AirspaceCategory.Type.RED), is(1));
+        assertThat(first.getIndex().size(AirspaceCategory.Type.GREEN), is(0));
+        verify(repository, times(1)).findAll();
+    }
+
+    @Test
+    public void shouldPublishNewAirspaceSnapshotAfterSave() throws Exception {
+        //given
+        String geoJson = IOUtils.toString(this.getClass().getResourceAsStream("/geoJsonPolygon.json"), "UTF-8");
+        AirspaceCategory airspaceCategory = new AirspaceCategory("Sample", AirspaceCategory.Type.GREEN, geoJson);
+        AirspaceSnapshot before = airspaceCategoryService.airspaceSnapshot();
+        when(repository.findAll()).thenReturn(asList(airspaceCategory));
+
+        //when
+        airspaceCategoryService.createNewAirspaceCategory(airspaceCategory);
+
+        //then
+        AirspaceSnapshot after = airspaceCategoryService.airspaceSnapshot();
+        assertThat(after == before, is(false));
+        assertThat(after.getVersion() > before.getVersion(), is(true));
+        assertThat(after.getIndex().size(AirspaceCategory.Type.GREEN), is(1));
+    }
+
+    @Test
+    public void shouldIncreaseSnapshotVersionOnEveryPublish() throws Exception {
+        //given
+        String geoJson = IOUtils.toString(this.getClass().getResourceAsStream("/geoJsonPolygon.json"), "UTF-8");
+        AirspaceCategory airspaceCategory = new AirspaceCategory("Sample", AirspaceCategory.Type.GREEN, geoJson);
+        when(repository.findAll()).thenReturn(asList(airspaceCategory));
+        airspaceCategoryService.createNewAirspaceCategory(airspaceCategory);
+        AirspaceSnapshot before = airspaceCategoryService.airspaceSnapshot();
+
+        //when
+        airspaceCategoryService.createNewAirspaceCategory(airspaceCategory);
+
+        //then
+        AirspaceSnapshot after = airspaceCategoryService.airspaceSnapshot();
+        assertThat(after == before, is(false));
+        assertThat(after.getVersion() > before.getVersion(), is(true));
+    }
+
+    @Test
+    public void shouldNotMutateCategoriesWhenGroupingGeoJsonByType() throws Exception {
+        //given
+        String greenOne = "{\"type\":\"FeatureCollection\",\"features\":[{\"type\":\"Feature\",\"properties\":{},\"geometry\":{\"type\":\"Point\",\"coordinates\":[90.00,35.00]}}]}";
+        String greenTwo = "{\"type\":\"FeatureCollection\",\"features\":[{\"type\":\"Feature\",\"properties\":{},\"geometry\":{\"type\":\"Point\",\"coordinates\":[91.00,36.00]}}]}";
+        AirspaceCategory airspaceCategoryGreenOne = new AirspaceCategory("Sample1", AirspaceCategory.Type.GREEN, greenOne);
+        AirspaceCategory airspaceCategoryGreenTwo = new AirspaceCategory("Sample2", AirspaceCategory.Type.GREEN, greenTwo);
+        when(repository.findAll()).thenReturn(asList(airspaceCategoryGreenOne, airspaceCategoryGreenTwo));
+
+        //when
+        Map<AirspaceCategory.Type, GeoJsonObject> geoJsonMapByType = airspaceCategoryService.findGeoJsonMapByType();
+
+        //then
+        assertThat(((FeatureCollection) geoJsonMapByType.get(AirspaceCategory.Type.GREEN)).getFeatures().size(), is(2));
+        assertThat(((FeatureCollection) airspaceCategoryGreenOne.getGeoJson()).getFeatures().size(), is(1));
+    }
+
+    @Test
+    public void shouldAnalyseImpactOfRedrawnZoneAgainstPreviousGeometry() throws Exception {
+        //given
+        String previousGeoJson = IOUtils.toString(this.getClass().getResourceAsStream("/geoJsonPolygon.json"), "UTF-8");
+        String geoJson = IOUtils.toString(this.getClass().getResourceAsStream("/geoJsonGreenZones.json"), "UTF-8");
+        AirspaceCategory currentEntity = new AirspaceCategory("Sample", AirspaceCategory.Type.GREEN, previousGeoJson);
+        AirspaceCategory airspaceCategory = new AirspaceCategory("Sample", AirspaceCategory.Type.RED, geoJson);
+        when(repository.findOne(1L)).thenReturn(currentEntity);
+        when(repository.save(currentEntity)).thenReturn(currentEntity);
+
+        //when
+        airspaceCategoryService.updateAirspaceCategory(1L, airspaceCategory);
+
+        //then
+        ArgumentCaptor<AirspaceCategory> previousCaptor = ArgumentCaptor.forClass(AirspaceCategory.class);
+        verify(airspaceImpactAnalysisService).analyse(previousCaptor.capture(), eq(currentEntity), any(AirspaceSnapshot.class));
+        assertThat(previousCaptor.getValue().getType(), is(AirspaceCategory.Type.GREEN));
+        assertThat(previousCaptor.getValue().getGeoJson(), is(new ObjectMapper().readValue(previousGeoJson, GeoJsonObject.class)));
+    }
+
+    @Test
+    public void shouldAnalyseImpactOfNewZone() throws Exception {
+        //given
+        String geoJson = IOUtils.toString(this.getClass().getResourceAsStream("/geoJsonPolygon.json"), "UTF-8");
+        AirspaceCategory airspaceCategory = new AirspaceCategory("Sample", AirspaceCategory.Type.RED, geoJson);
+        when(repository.save(airspaceCategory)).thenReturn(airspaceCategory);
+
+        //when
+        airspaceCategoryService.createNewAirspaceCategory(airspaceCategory);
+
+        //then
+        verify(airspaceImpactAnalysisService).analyse(isNull(AirspaceCategory.class), eq(airspaceCategory), any(AirspaceSnapshot.class));
+    }
+}
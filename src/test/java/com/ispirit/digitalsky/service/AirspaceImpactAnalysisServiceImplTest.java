@@ -0,0 +1,178 @@
+package com.ispirit.digitalsky.service;
+
+import com.ispirit.digitalsky.document.AirspaceImpactReport;
+import com.ispirit.digitalsky.document.AirspaceImpactReportChunk;
+import com.ispirit.digitalsky.document.FlyDronePermissionApplication;
+import com.ispirit.digitalsky.document.LatLong;
+import com.ispirit.digitalsky.domain.AirspaceCategory;
+import com.ispirit.digitalsky.domain.AirspaceSnapshot;
+import com.ispirit.digitalsky.domain.ApplicationStatus;
+import com.ispirit.digitalsky.repository.AirspaceImpactReportChunkRepository;
+import com.ispirit.digitalsky.repository.AirspaceImpactReportRepository;
+import com.ispirit.digitalsky.repository.FlyDronePermissionApplicationRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.locationtech.jts.geom.Geometry;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Mockito.*;
+
+public class AirspaceImpactAnalysisServiceImplTest {
+
+    private AirspaceImpactReportRepository reportRepository;
+    private AirspaceImpactReportChunkRepository reportChunkRepository;
+    private FlyDronePermissionApplicationRepository applicationRepository;
+    private FlightConflictServiceImpl flightConflictService;
+    private AirspaceImpactAnalysisServiceImpl airspaceImpactAnalysisService;
+
+    @Before
+    public void setUp() throws Exception {
+        reportRepository = mock(AirspaceImpactReportRepository.class);
+        reportChunkRepository = mock(AirspaceImpactReportChunkRepository.class);
+        applicationRepository = mock(FlyDronePermissionApplicationRepository.class);
+        when(applicationRepository.findByStatus(ApplicationStatus.APPROVED)).thenReturn(emptyList());
+        when(reportRepository.insert(any(AirspaceImpactReport.class))).thenAnswer(invocation -> invocation.getArguments()[0]);
+        flightConflictService = new FlightConflictServiceImpl(applicationRepository, new FlightWindowServiceImpl());
+        airspaceImpactAnalysisService = new AirspaceImpactAnalysisServiceImpl(reportRepository, reportChunkRepository, applicationRepository, flightConflictService, Runnable::run);
+    }
+
+    @Test
+    public void shouldReportApprovedApplicationsIntersectingMovedRedZone() throws Exception {
+        //given
+        FlyDronePermissionApplication nowInRedZone = application("1", square(1, 1, 1));
+        FlyDronePermissionApplication untouched = application("2", square(20, 20, 1));
+        flightConflictService.register(nowInRedZone);
+        flightConflictService.register(untouched);
+        when(applicationRepository.findAll(asList("1"))).thenReturn(asList(nowInRedZone));
+
+        AirspaceCategory previous = category(AirspaceCategory.Type.RED, 10, 10, 2);
+        AirspaceCategory changed = category(AirspaceCategory.Type.RED, 0, 0, 3);
+        AirspaceSnapshot snapshot = AirspaceSnapshot.build(1, asList(category(AirspaceCategory.Type.GREEN, -50, -50, 100), changed));
+
+        //when
+        AirspaceImpactReport report = airspaceImpactAnalysisService.analyse(previous, changed, snapshot);
+
+        //then
+        assertThat(report.getStatus(), is(AirspaceImpactReport.Status.COMPLETED));
+        assertThat(report.getEvaluatedApplicationCount(), is(1L));
+        verify(applicationRepository, times(1)).findAll(anyListOf(String.class));
+        ArgumentCaptor<AirspaceImpactReportChunk> argumentCaptor = ArgumentCaptor.forClass(AirspaceImpactReportChunk.class);
+        verify(reportChunkRepository).insert(argumentCaptor.capture());
+        assertThat(argumentCaptor.getValue().getAffectedApplicationIds(), is(asList("1")));
+        assertThat(argumentCaptor.getValue().getChunkIndex(), is(0));
+    }
+
+    @Test
+    public void shouldNotReportApplicationsStillClearOfRedZone() throws Exception {
+        //given
+        FlyDronePermissionApplication clear = application("1", square(5, 5, 1));
+        flightConflictService.register(clear);
+        when(applicationRepository.findAll(asList("1"))).thenReturn(asList(clear));
+
+        AirspaceCategory previous = category(AirspaceCategory.Type.RED, 0, 0, 2);
+        AirspaceCategory changed = category(AirspaceCategory.Type.RED, 0, 0, 10);
+        AirspaceSnapshot snapshot = AirspaceSnapshot.build(1, asList(category(AirspaceCategory.Type.GREEN, -50, -50, 100), category(AirspaceCategory.Type.RED, 0, 0, 2)));
+
+        //when
+        AirspaceImpactReport report = airspaceImpactAnalysisService.analyse(previous, changed, snapshot);
+
+        //then
+        assertThat(report.getStatus(), is(AirspaceImpactReport.Status.COMPLETED));
+        assertThat(report.getEvaluatedApplicationCount(), is(1L));
+        verify(reportChunkRepository, never()).insert(any(AirspaceImpactReportChunk.class));
+    }
+
+    @Test
+    public void shouldMarkReportFailedWhenEvaluationFails() throws Exception {
+        //given
+        flightConflictService.register(application("1", square(1, 1, 1)));
+        when(applicationRepository.findAll(anyListOf(String.class))).thenThrow(new RuntimeException("mongo unavailable"));
+
+        AirspaceCategory changed = category(AirspaceCategory.Type.RED, 0, 0, 3);
+
+        //when
+        AirspaceImpactReport report = airspaceImpactAnalysisService.analyse(null, changed, AirspaceSnapshot.build(1, asList(changed)));
+
+        //then
+        assertThat(report.getStatus(), is(AirspaceImpactReport.Status.FAILED));
+        verify(reportRepository).save(report);
+    }
+
+    @Test
+    public void shouldAssembleReportsFromTheirChunks() throws Exception {
+        //given
+        AirspaceImpactReport first = new AirspaceImpactReport(1, AirspaceCategory.Type.RED, 1);
+        AirspaceImpactReport second = new AirspaceImpactReport(1, AirspaceCategory.Type.RED, 2);
+        ReflectionTestUtils.setField(first, "id", "first");
+        ReflectionTestUtils.setField(second, "id", "second");
+        when(reportRepository.findByAirspaceCategoryIdOrderByCreatedDateDesc(1)).thenReturn(asList(second, first));
+        when(reportChunkRepository.findByAirspaceCategoryIdOrderByChunkIndexAsc(1)).thenReturn(asList(
+                new AirspaceImpactReportChunk("first", 1, 0, asList("1", "2")),
+                new AirspaceImpactReportChunk("second", 1, 0, asList("3")),
+                new AirspaceImpactReportChunk("first", 1, 1, asList("4"))));
+
+        //when
+        List<AirspaceImpactReport> reports = airspaceImpactAnalysisService.reportsOf(1);
+
+        //then
+        assertThat(reports, is(asList(second, first)));
+        assertThat(first.getAffectedApplicationIds(), is(asList("1", "2", "4")));
+        assertThat(second.getAffectedApplicationIds(), is(asList("3")));
+    }
+
+    @Test
+    public void shouldOnlyConsiderTheRedrawnPartOfTheZone() throws Exception {
+        //when
+        Geometry region = AirspaceImpactAnalysisServiceImpl.changedRegion(category(AirspaceCategory.Type.RED, 0, 0, 2), category(AirspaceCategory.Type.RED, 0, 0, 3));
+
+        //then
+        assertThat(region.getArea(), is(5.0));
+    }
+
+    @Test
+    public void shouldConsiderWholeZoneWhenTypeChanges() throws Exception {
+        //when
+        Geometry region = AirspaceImpactAnalysisServiceImpl.changedRegion(category(AirspaceCategory.Type.GREEN, 0, 0, 2), category(AirspaceCategory.Type.RED, 0, 0, 2));
+
+        //then
+        assertThat(region.getArea(), is(4.0));
+    }
+
+    private FlyDronePermissionApplication application(String id, List<LatLong> flyArea) {
+        FlyDronePermissionApplication application = new FlyDronePermissionApplication();
+        application.setId(id);
+        application.setStatus(ApplicationStatus.APPROVED);
+        application.setFlyArea(flyArea);
+        application.setStartDateTime(LocalDateTime.of(2018, Month.AUGUST, 12, 10, 0));
+        application.setEndDateTime(LocalDateTime.of(2018, Month.AUGUST, 12, 12, 0));
+        return application;
+    }
+
+    private AirspaceCategory category(AirspaceCategory.Type type, double latitude, double longitude, double size) {
+        String ring = String.format("[%1$s,%2$s],[%3$s,%2$s],[%3$s,%4$s],[%1$s,%4$s],[%1$s,%2$s]", longitude, latitude, longitude + size, latitude + size);
+        String geoJson = "{\"type\":\"FeatureCollection\",\"features\":[{\"type\":\"Feature\",\"properties\":{},\"geometry\":{\"type\":\"Polygon\",\"coordinates\":[[" + ring + "]]}}]}";
+        AirspaceCategory category = new AirspaceCategory("Sample", type, geoJson);
+        category.setModifiedDate(LocalDateTime.now());
+        return category;
+    }
+
+    private List<LatLong> square(double latitude, double longitude, double size) {
+        return asList(
+                new LatLong(latitude, longitude),
+                new LatLong(latitude, longitude + size),
+                new LatLong(latitude + size, longitude + size),
+                new LatLong(latitude + size, longitude),
+                new LatLong(latitude, longitude));
+    }
+}
@@ -0,0 +1,132 @@
+package com.ispirit.digitalsky.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ispirit.digitalsky.domain.AirspaceCategory;
+import com.ispirit.digitalsky.domain.AirspaceSnapshot;
+import com.ispirit.digitalsky.domain.AirspaceTile;
+import com.ispirit.digitalsky.exception.ValidationException;
+import com.ispirit.digitalsky.service.api.AirspaceCategoryService;
+import org.apache.commons.io.IOUtils;
+import org.geojson.Feature;
+import org.geojson.FeatureCollection;
+import org.geojson.Polygon;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.time.LocalDateTime;
+import java.util.zip.GZIPInputStream;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class AirspaceTileServiceImplTest {
+
+    private AirspaceCategoryService airspaceCategoryService;
+    private AirspaceTileServiceImpl airspaceTileService;
+    private AirspaceCategory redZone;
+
+    @Before
+    public void setUp() throws Exception {
+        airspaceCategoryService = mock(AirspaceCategoryService.class);
+        airspaceTileService = new AirspaceTileServiceImpl(airspaceCategoryService);
+        String geoJson = IOUtils.toString(this.getClass().getResourceAsStream("/geoJsonPolygon.json"), "UTF-8");
+        redZone = new AirspaceCategory("Sample", AirspaceCategory.Type.RED, geoJson);
+        redZone.setModifiedDate(LocalDateTime.of(2018, 8, 12, 10, 0));
+        when(airspaceCategoryService.airspaceSnapshot()).thenReturn(AirspaceSnapshot.build(1, asList(redZone)));
+    }
+
+    @Test
+    public void shouldRenderZonesIntersectingTile() throws Exception {
+        //when
+        FeatureCollection tile = read(airspaceTileService.tile(0, 0, 0));
+
+        //then
+        assertThat(tile.getFeatures().size(), is(1));
+        assertThat(tile.getFeatures().get(0).getProperty("type"), is("RED"));
+        assertThat(tile.getFeatures().get(0).getProperty("name"), is("Sample"));
+    }
+
+    @Test
+    public void shouldRenderEmptyTileAwayFromZones() throws Exception {
+        //when
+        FeatureCollection tile = read(airspaceTileService.tile(1, 0, 0));
+
+        //then
+        assertThat(tile.getFeatures().isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldSimplifyGeometryAtLowZoom() throws Exception {
+        //given
+        AirspaceCategory circle = new AirspaceCategory("Circle", AirspaceCategory.Type.AMBER, circle(22, 30, 10, 360));
+        when(airspaceCategoryService.airspaceSnapshot()).thenReturn(AirspaceSnapshot.build(1, asList(circle)));
+
+        //when
+        Feature coarse = read(airspaceTileService.tile(0, 0, 0)).getFeatures().get(0);
+        Feature detailed = read(airspaceTileService.tile(3, 4, 3)).getFeatures().get(0);
+
+        //then
+        assertThat(((Polygon) coarse.getGeometry()).getExteriorRing().size() < ((Polygon) detailed.getGeometry()).getExteriorRing().size(), is(true));
+    }
+
+    @Test
+    public void shouldReuseRenderedTileForSameSnapshot() throws Exception {
+        //when
+        AirspaceTile first = airspaceTileService.tile(0, 0, 0);
+        AirspaceTile second = airspaceTileService.tile(0, 0, 0);
+
+        //then
+        assertThat(first == second, is(true));
+    }
+
+    @Test
+    public void shouldKeepETagWhenTileContentDoesNotChangeAcrossSnapshots() throws Exception {
+        //given
+        AirspaceTile before = airspaceTileService.tile(0, 0, 0);
+        redZone.setModifiedDate(LocalDateTime.of(2018, 8, 13, 10, 0));
+        when(airspaceCategoryService.airspaceSnapshot()).thenReturn(AirspaceSnapshot.build(1, asList(redZone)));
+
+        //when
+        AirspaceTile after = airspaceTileService.tile(0, 0, 0);
+
+        //then
+        assertThat(after == before, is(false));
+        assertThat(after.getETag(), is(before.getETag()));
+    }
+
+    @Test
+    public void shouldRejectTileOutsideZoomRange() throws Exception {
+        try {
+            airspaceTileService.tile(2, 4, 0);
+            fail("should have thrown ValidationException");
+        } catch (ValidationException e) {
+        }
+        try {
+            airspaceTileService.tile(AirspaceTileServiceImpl.MAX_ZOOM + 1, 0, 0);
+            fail("should have thrown ValidationException");
+        } catch (ValidationException e) {
+        }
+    }
+
+    private String circle(double longitude, double latitude, double radius, int vertices) {
+        StringBuilder ring = new StringBuilder();
+        for (int index = 0; index <= vertices; index++) {
+            double angle = 2 * Math.PI * (index % vertices) / vertices;
+            if (index > 0) ring.append(",");
+            ring.append("[").append(longitude + radius * Math.cos(angle)).append(",").append(latitude + radius * Math.sin(angle)).append("]");
+        }
+        return "{\"type\":\"FeatureCollection\",\"features\":[{\"type\":\"Feature\",\"properties\":{},\"geometry\":{\"type\":\"Polygon\",\"coordinates\":[[" + ring + "]]}}]}";
+    }
+
+    private FeatureCollection read(AirspaceTile tile) throws Exception {
+        FeatureCollection plain = new ObjectMapper().readValue(tile.getContent(), FeatureCollection.class);
+        FeatureCollection gzipped = new ObjectMapper().readValue(new GZIPInputStream(new ByteArrayInputStream(tile.getGzippedContent())), FeatureCollection.class);
+        assertThat(gzipped, is(plain));
+        return plain;
+    }
+}
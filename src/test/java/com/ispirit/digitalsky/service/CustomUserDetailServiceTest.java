@@ -45,6 +45,7 @@ public class CustomUserDetailServiceTest {
     private DroneAcquisitionApplicationService localDroneService;
     private DroneAcquisitionApplicationService importDroneService;
     private UAOPApplicationService uaopApplicationService;
+    private UserPrincipalCache userPrincipalCache;
     private CustomUserDetailService service;
 
     @Before
@@ -54,12 +55,13 @@ public class CustomUserDetailServiceTest {
         localDroneService = mock(DroneAcquisitionApplicationService.class);
         importDroneService = mock(DroneAcquisitionApplicationService.class);
         uaopApplicationService = mock(UAOPApplicationService.class);
+        userPrincipalCache = mock(UserPrincipalCache.class);
         service = new CustomUserDetailService(
                 userRepository,
                 emailService,
                 localDroneService,
                 importDroneService,
-                uaopApplicationService, "/resetPassword", "/accountVerify");
+                uaopApplicationService, "/resetPassword", "/accountVerify", userPrincipalCache);
     }
 
     @Test
@@ -185,6 +187,7 @@ public class CustomUserDetailServiceTest {
         verify(userRepository).save(argumentCaptor.capture());
         assertThat(argumentCaptor.getValue().getResetPasswordToken(), nullValue());
         assertThat(argumentCaptor.getValue().getPassword(), is(newPasswordHash));
+        verify(userPrincipalCache).invalidate(1);
     }
 
     @Test
@@ -216,6 +219,7 @@ public class CustomUserDetailServiceTest {
         verify(userRepository).save(argumentCaptor.capture());
         assertThat(argumentCaptor.getValue().getAccountVerificationToken(), nullValue());
         assertThat(argumentCaptor.getValue().isAccountVerified(), is(true));
+        verify(userPrincipalCache).invalidate(1);
     }
 
     @Test
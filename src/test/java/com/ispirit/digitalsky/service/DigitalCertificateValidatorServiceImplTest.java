@@ -6,6 +6,9 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.security.cert.X509Certificate;
 
 import static junit.framework.TestCase.assertTrue;
@@ -75,5 +78,23 @@ public class DigitalCertificateValidatorServiceImplTest {
         }
     }
 
+    @Test
+    public void shouldReuseParsedTrustedCertificateChainUntilInvalidated() throws Exception {
+        clientCertificate = DigitalSignatureVerifierForTest.generateX509CertificateFromBase64EncodedString(DigitalSignatureVerifierForTest.getValidCertificateString());
+        Path chain = Files.createTempFile("trustedCertificateChain", ".pem");
+        Files.copy(new File("src/test/resources/trustedCertificateChain.pem").toPath(), chain, StandardCopyOption.REPLACE_EXISTING);
+        manufacturerCertificateChainPath = chain.toString();
+
+        assertTrue(digitalCertificateValidatorService.isValidCertificate(clientCertificate, manufacturerCertificateChainPath));
+        Files.delete(chain);
+        assertTrue(digitalCertificateValidatorService.isValidCertificate(clientCertificate, manufacturerCertificateChainPath));
+
+        digitalCertificateValidatorService.invalidateTrustedCertificateChain(manufacturerCertificateChainPath);
+        try {
+            digitalCertificateValidatorService.isValidCertificate(clientCertificate, manufacturerCertificateChainPath);
+            fail("should throw InvalidDigitalCertificateException");
+        } catch(InvalidDigitalCertificateException e) {
 
+        }
+    }
 }
@@ -6,12 +6,24 @@ import org.junit.Test;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
 import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
-import java.io.InputStream;
+import javax.xml.crypto.dsig.XMLSignature;
+import javax.xml.crypto.dsig.XMLSignatureFactory;
+import javax.xml.crypto.dsig.dom.DOMValidateContext;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -19,22 +31,24 @@ public class DigitalSignServiceImplTest {
 
     private ResourceLoader resourceLoader;
     private DigitalSignServiceImpl digitalSignService;
+    private DigitalSignMetrics metrics;
 
     @Before
     public void setUp() throws Exception {
         resourceLoader = mock(ResourceLoader.class);
-        InputStream certStream = this.getClass().getResourceAsStream("/cert.pem");
-        InputStream privateKeyStream = this.getClass().getResourceAsStream("/key.pem");
+        mockResource("privateKey", "/key.pem");
+        mockResource("publicCertificate", "/cert.pem");
+        mockResource("ecPrivateKey", "/ecKey.pem");
+        mockResource("ecCertificate", "/ecCert.pem");
 
-        Resource privateKeyResource = mock(Resource.class);
-        when(resourceLoader.getResource("privateKey")).thenReturn(privateKeyResource);
-        when(privateKeyResource.getInputStream()).thenReturn(privateKeyStream);
-
-        Resource certificateResource = mock(Resource.class);
-        when(resourceLoader.getResource("publicCertificate")).thenReturn(certificateResource);
-        when(certificateResource.getInputStream()).thenReturn(certStream);
+        metrics = new DigitalSignMetrics();
+        digitalSignService = new DigitalSignServiceImpl(resourceLoader,"privateKey","publicCertificate", XmlSignatureAlgorithm.RSA_SHA1, metrics);
+    }
 
-        digitalSignService = new DigitalSignServiceImpl(resourceLoader,"privateKey","publicCertificate");
+    private void mockResource(String name, String path) throws Exception {
+        Resource resource = mock(Resource.class);
+        when(resourceLoader.getResource(name)).thenReturn(resource);
+        when(resource.getInputStream()).thenAnswer(invocation -> this.getClass().getResourceAsStream(path));
     }
 
     @Test
@@ -47,6 +61,100 @@ public class DigitalSignServiceImplTest {
         Document document = XmlUtil.fromString(signedDocument);
         NodeList signatureNodes = document.getElementsByTagName("Signature");
         assertThat(signatureNodes.getLength(), is(1));
+        assertThat(metrics.getSignCount(), is(1L));
+        assertThat(metrics.getFailureCount(), is(0L));
+    }
+
+    @Test
+    public void shouldSignDocumentInPlace() throws Exception {
+        //given
+        Document document = XmlUtil.fromString("<test><node>value</node></test>");
+
+        //when
+        digitalSignService.sign(document);
+
+        //then
+        assertThat(document.getElementsByTagName("Signature").getLength(), is(1));
+        assertThat(document.getElementsByTagName("node").item(0).getTextContent(), is("value"));
+    }
+
+    @Test
+    public void shouldSignDocumentsConcurrentlyWithSharedSignatureStructures() throws Exception {
+        //given
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        List<Future<String>> results = new ArrayList<>();
+
+        //when
+        for (int index = 0; index < 50; index++) {
+            String xml = "<test><node>value-" + index + "</node></test>";
+            results.add(callers.submit(() -> digitalSignService.sign(xml)));
+        }
+
+        //then
+        for (int index = 0; index < results.size(); index++) {
+            Document document = XmlUtil.fromString(results.get(index).get());
+            assertThat(document.getElementsByTagName("Signature").getLength(), is(1));
+            assertThat(document.getElementsByTagName("node").item(0).getTextContent(), is("value-" + index));
+        }
+        assertThat(metrics.getSignCount(), is(50L));
+        callers.shutdown();
+    }
+
+    @Test
+    public void shouldRecordFailedSigning() throws Exception {
+        //when
+        try {
+            digitalSignService.sign(XmlUtil.newDocument());
+            fail("expected signing to fail");
+        } catch (RuntimeException e) {
+            //expected
+        }
+
+        //then
+        assertThat(metrics.getSignCount(), is(1L));
+        assertThat(metrics.getFailureCount(), is(1L));
+    }
+
+    @Test
+    public void shouldSignWithRsaSha256() throws Exception {
+        //given
+        DigitalSignServiceImpl service = new DigitalSignServiceImpl(resourceLoader, "privateKey", "publicCertificate", XmlSignatureAlgorithm.RSA_SHA256, metrics);
+
+        //when
+        Document document = XmlUtil.fromString(service.sign("<test><node>value</node></test>"));
+
+        //then
+        assertThat(signatureMethodOf(document), is(XmlSignatureAlgorithm.RSA_SHA256.getSignatureMethod()));
+        assertThat(isValidSignature(document), is(true));
+    }
+
+    @Test
+    public void shouldSignWithEcdsaSha256() throws Exception {
+        //given
+        DigitalSignServiceImpl service = new DigitalSignServiceImpl(resourceLoader, "ecPrivateKey", "ecCertificate", XmlSignatureAlgorithm.ECDSA_SHA256, metrics);
+
+        //when
+        Document document = XmlUtil.fromString(service.sign("<test><node>value</node></test>"));
+
+        //then
+        assertThat(signatureMethodOf(document), is(XmlSignatureAlgorithm.ECDSA_SHA256.getSignatureMethod()));
+        assertThat(isValidSignature(document), is(true));
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void shouldRejectAlgorithmNotMatchingCertificateKey() throws Exception {
+        new DigitalSignServiceImpl(resourceLoader, "privateKey", "publicCertificate", XmlSignatureAlgorithm.ECDSA_SHA256, metrics);
+    }
+
+    private String signatureMethodOf(Document document) {
+        return ((Element) document.getElementsByTagName("SignatureMethod").item(0)).getAttribute("Algorithm");
+    }
 
+    private boolean isValidSignature(Document document) throws Exception {
+        X509Certificate certificate = (X509Certificate) CertificateFactory.getInstance("X.509").generateCertificate(
+                this.getClass().getResourceAsStream(signatureMethodOf(document).contains("ecdsa") ? "/ecCert.pem" : "/cert.pem"));
+        Node signature = document.getElementsByTagNameNS(XMLSignature.XMLNS, "Signature").item(0);
+        XMLSignature xmlSignature = XMLSignatureFactory.getInstance("DOM").unmarshalXMLSignature(new DOMValidateContext(certificate.getPublicKey(), signature));
+        return xmlSignature.validate(new DOMValidateContext(certificate.getPublicKey(), signature));
     }
-}
\ No newline at end of file
+}
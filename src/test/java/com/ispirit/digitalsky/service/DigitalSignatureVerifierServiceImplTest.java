@@ -1,6 +1,9 @@
 package com.ispirit.digitalsky.service;
 
+import com.ispirit.digitalsky.domain.DroneDevice;
+import com.ispirit.digitalsky.domain.Manufacturer;
 import com.ispirit.digitalsky.domain.RegisterDroneRequestPayload;
+import com.ispirit.digitalsky.domain.SigningPayloadFormat;
 import com.ispirit.digitalsky.exception.InvalidDigitalCertificateException;
 import com.ispirit.digitalsky.exception.InvalidManufacturerException;
 import com.ispirit.digitalsky.helper.DigitalSignatureVerifierForTest;
@@ -9,9 +12,16 @@ import org.junit.Before;
 import org.junit.Test;
 
 
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
 import java.security.SignatureException;
 import java.security.cert.X509Certificate;
 
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
 import static junit.framework.Assert.assertTrue;
 import static junit.framework.TestCase.fail;
 import static org.mockito.Matchers.any;
@@ -30,7 +40,7 @@ public class DigitalSignatureVerifierServiceImplTest {
         manufacturerAttributeNameInCertificate = "cn";
         digitalCertificateValidatorService = mock(DigitalCertificateValidatorService.class);
         digitalCertificateValidationEnabled = true;
-        digitalSignatureVerifierService = new DigitalSignatureVerifierServiceImpl(digitalCertificateValidatorService, manufacturerAttributeNameInCertificate, digitalCertificateValidationEnabled);
+        digitalSignatureVerifierService = new DigitalSignatureVerifierServiceImpl(digitalCertificateValidatorService, manufacturerAttributeNameInCertificate, digitalCertificateValidationEnabled, 60000);
     }
 
     @Test
@@ -39,7 +49,7 @@ public class DigitalSignatureVerifierServiceImplTest {
         RegisterDroneRequestPayload payload = new RegisterDroneRequestPayload(null, "", "");
 
         try {
-            digitalSignatureVerifierService.isValidSignature(payload, "", "");
+            digitalSignatureVerifierService.isValidSignature(payload, manufacturer(1, ""), "");
             fail("should throw InvalidDigitalCertificateException");
         } catch(InvalidDigitalCertificateException e) {
 
@@ -52,7 +62,7 @@ public class DigitalSignatureVerifierServiceImplTest {
         RegisterDroneRequestPayload payload = new RegisterDroneRequestPayload(DigitalSignatureVerifierForTest.getValidDroneDevice(), DigitalSignatureVerifierForTest.getValidSignatureString().replace("=","a"), DigitalSignatureVerifierForTest.getValidCertificateString());
 
         try {
-            boolean val = digitalSignatureVerifierService.isValidSignature(payload, "", "");
+            boolean val = digitalSignatureVerifierService.isValidSignature(payload, manufacturer(1, ""), "");
             fail("should throw SignatureException");
         } catch(SignatureException e) {
 
@@ -65,7 +75,7 @@ public class DigitalSignatureVerifierServiceImplTest {
         RegisterDroneRequestPayload requestPayload = new RegisterDroneRequestPayload(DigitalSignatureVerifierForTest.getValidDroneDevice(), DigitalSignatureVerifierForTest.getValidSignatureString(), DigitalSignatureVerifierForTest.getValidCertificateString());
         when(digitalCertificateValidatorService.isValidCertificate(any(X509Certificate.class), anyString())).thenReturn(true);
 
-        boolean val = digitalSignatureVerifierService.isValidSignature(requestPayload, "digitalsky-uat.centralindia.cloudapp.azure.com", "/src/resources/trustedCertificateChain.pem");
+        boolean val = digitalSignatureVerifierService.isValidSignature(requestPayload, manufacturer(1, "digitalsky-uat.centralindia.cloudapp.azure.com"), "/src/resources/trustedCertificateChain.pem");
 
         verify(digitalCertificateValidatorService).isValidCertificate(any(X509Certificate.class), anyString());
     }
@@ -76,7 +86,7 @@ public class DigitalSignatureVerifierServiceImplTest {
         when(digitalCertificateValidatorService.isValidCertificate(any(X509Certificate.class), anyString())).thenReturn(true);
 
         try {
-            boolean val = digitalSignatureVerifierService.isValidSignature(requestPayload, "digitalsky", "/src/resources/trustedCertificateChain.pem");
+            boolean val = digitalSignatureVerifierService.isValidSignature(requestPayload, manufacturer(1, "digitalsky"), "/src/resources/trustedCertificateChain.pem");
 
             fail("should throw InvalidManufacturerException");
         } catch (InvalidManufacturerException e) {
@@ -90,7 +100,7 @@ public class DigitalSignatureVerifierServiceImplTest {
         RegisterDroneRequestPayload requestPayload = new RegisterDroneRequestPayload(DigitalSignatureVerifierForTest.getValidDroneDevice(), DigitalSignatureVerifierForTest.getValidSignatureString(), DigitalSignatureVerifierForTest.getValidCertificateString());
         when(digitalCertificateValidatorService.isValidCertificate(any(X509Certificate.class), anyString())).thenReturn(true);
 
-        boolean val = digitalSignatureVerifierService.isValidSignature(requestPayload, "digitalsky-uat.centralindia.cloudapp.azure.com", "/src/resources/trustedCertificateChain.pem");
+        boolean val = digitalSignatureVerifierService.isValidSignature(requestPayload, manufacturer(1, "digitalsky-uat.centralindia.cloudapp.azure.com"), "/src/resources/trustedCertificateChain.pem");
 
         assertTrue(val);
         verify(digitalCertificateValidatorService).isValidCertificate(any(X509Certificate.class), anyString());
@@ -99,24 +109,24 @@ public class DigitalSignatureVerifierServiceImplTest {
     @Test
     public void shouldNotValidateCertificateIfValidationAttributeIsDisabled() throws SignatureException {
         digitalCertificateValidationEnabled = false;
-        digitalSignatureVerifierService = new DigitalSignatureVerifierServiceImpl(digitalCertificateValidatorService, manufacturerAttributeNameInCertificate, digitalCertificateValidationEnabled);
+        digitalSignatureVerifierService = new DigitalSignatureVerifierServiceImpl(digitalCertificateValidatorService, manufacturerAttributeNameInCertificate, digitalCertificateValidationEnabled, 60000);
         RegisterDroneRequestPayload requestPayload = new RegisterDroneRequestPayload(DigitalSignatureVerifierForTest.getValidDroneDevice(), DigitalSignatureVerifierForTest.getValidSignatureString(), DigitalSignatureVerifierForTest.getValidCertificateString());
         when(digitalCertificateValidatorService.isValidCertificate(any(X509Certificate.class), anyString())).thenReturn(false);
 
-        boolean val = digitalSignatureVerifierService.isValidSignature(requestPayload, "digitalsky-uat.centralindia.cloudapp.azure.com", "/src/resources/trustedCertificateChain.pem");
+        boolean val = digitalSignatureVerifierService.isValidSignature(requestPayload, manufacturer(1, "digitalsky-uat.centralindia.cloudapp.azure.com"), "/src/resources/trustedCertificateChain.pem");
 
         verify(digitalCertificateValidatorService, never()).isValidCertificate(any(X509Certificate.class), anyString());
     }
 
     @Test
     public void shouldThrowInvalidDigitalCertificateExceptionIfCertificateDoesNotContainTheOrganizationAttribute() {
-        digitalSignatureVerifierService = new DigitalSignatureVerifierServiceImpl(digitalCertificateValidatorService, "o", true);
+        digitalSignatureVerifierService = new DigitalSignatureVerifierServiceImpl(digitalCertificateValidatorService, "o", true, 60000);
         RegisterDroneRequestPayload requestPayload = new RegisterDroneRequestPayload(DigitalSignatureVerifierForTest.getValidDroneDevice(), DigitalSignatureVerifierForTest.getValidSignatureString(), DigitalSignatureVerifierForTest.getValidCertificateString());
 
         when(digitalCertificateValidatorService.isValidCertificate(any(X509Certificate.class), anyString())).thenReturn(true);
 
         try {
-            boolean val = digitalSignatureVerifierService.isValidSignature(requestPayload, "digitalsky-uat.centralindia.cloudapp.azure.com", "/src/resources/trustedCertificateChain.pem");
+            boolean val = digitalSignatureVerifierService.isValidSignature(requestPayload, manufacturer(1, "digitalsky-uat.centralindia.cloudapp.azure.com"), "/src/resources/trustedCertificateChain.pem");
 
             fail("should throw InvalidDigitalCertificateException");
         } catch(InvalidDigitalCertificateException e) {
@@ -126,4 +136,78 @@ public class DigitalSignatureVerifierServiceImplTest {
         }
     }
 
+    @Test
+    public void shouldReuseCertificateValidationForRepeatedRegistrations() throws SignatureException {
+        RegisterDroneRequestPayload requestPayload = new RegisterDroneRequestPayload(DigitalSignatureVerifierForTest.getValidDroneDevice(), DigitalSignatureVerifierForTest.getValidSignatureString(), DigitalSignatureVerifierForTest.getValidCertificateString());
+        when(digitalCertificateValidatorService.isValidCertificate(any(X509Certificate.class), anyString())).thenReturn(true);
+
+        assertTrue(digitalSignatureVerifierService.isValidSignature(requestPayload, manufacturer(1, "digitalsky-uat.centralindia.cloudapp.azure.com"), "/src/resources/trustedCertificateChain.pem"));
+        assertTrue(digitalSignatureVerifierService.isValidSignature(requestPayload, manufacturer(1, "digitalsky-uat.centralindia.cloudapp.azure.com"), "/src/resources/trustedCertificateChain.pem"));
+        verify(digitalCertificateValidatorService, times(1)).isValidCertificate(any(X509Certificate.class), anyString());
+
+        assertTrue(digitalSignatureVerifierService.isValidSignature(requestPayload, manufacturer(2, "digitalsky-uat.centralindia.cloudapp.azure.com"), "/src/resources/trustedCertificateChain.pem"));
+        verify(digitalCertificateValidatorService, times(2)).isValidCertificate(any(X509Certificate.class), anyString());
+    }
+
+    @Test
+    public void shouldNotReuseCertificateValidationAfterManufacturerIsRenamed() throws SignatureException {
+        RegisterDroneRequestPayload requestPayload = new RegisterDroneRequestPayload(DigitalSignatureVerifierForTest.getValidDroneDevice(), DigitalSignatureVerifierForTest.getValidSignatureString(), DigitalSignatureVerifierForTest.getValidCertificateString());
+        when(digitalCertificateValidatorService.isValidCertificate(any(X509Certificate.class), anyString())).thenReturn(true);
+        assertTrue(digitalSignatureVerifierService.isValidSignature(requestPayload, manufacturer(1, "digitalsky-uat.centralindia.cloudapp.azure.com"), "/src/resources/trustedCertificateChain.pem"));
+
+        try {
+            digitalSignatureVerifierService.isValidSignature(requestPayload, manufacturer(1, "digitalsky"), "/src/resources/trustedCertificateChain.pem");
+            fail("should throw InvalidManufacturerException");
+        } catch (InvalidManufacturerException e) {
+
+        }
+    }
+
+    @Test
+    public void shouldRevalidateCertificateAfterTrustedCertificatesAreInvalidated() throws SignatureException {
+        RegisterDroneRequestPayload requestPayload = new RegisterDroneRequestPayload(DigitalSignatureVerifierForTest.getValidDroneDevice(), DigitalSignatureVerifierForTest.getValidSignatureString(), DigitalSignatureVerifierForTest.getValidCertificateString());
+        when(digitalCertificateValidatorService.isValidCertificate(any(X509Certificate.class), anyString())).thenReturn(true);
+        digitalSignatureVerifierService.isValidSignature(requestPayload, manufacturer(1, "digitalsky-uat.centralindia.cloudapp.azure.com"), "/src/resources/trustedCertificateChain.pem");
+
+        digitalSignatureVerifierService.invalidateTrustedCertificates("/src/resources/trustedCertificateChain.pem");
+        digitalSignatureVerifierService.isValidSignature(requestPayload, manufacturer(1, "digitalsky-uat.centralindia.cloudapp.azure.com"), "/src/resources/trustedCertificateChain.pem");
+
+        verify(digitalCertificateValidatorService).invalidateTrustedCertificateChain("/src/resources/trustedCertificateChain.pem");
+        verify(digitalCertificateValidatorService, times(2)).isValidCertificate(any(X509Certificate.class), anyString());
+    }
+
+    @Test
+    public void shouldVerifyCanonicalJsonSigningPayload() throws Exception {
+        KeyPair keyPair = KeyPairGenerator.getInstance("RSA").generateKeyPair();
+        DroneDevice drone = new DroneDevice("device-1", "model \"x\"", "1.0", "txn-1", "hash", "op-1");
+        Signature signer = Signature.getInstance("SHA256withRSA");
+        signer.initSign(keyPair.getPrivate());
+        signer.update("{\"deviceId\":\"device-1\",\"deviceModelId\":\"model \\\"x\\\"\",\"idHash\":\"hash\",\"operatorBusinessIdentifier\":\"op-1\",\"txn\":\"txn-1\",\"version\":\"1.0\"}".getBytes(StandardCharsets.UTF_8));
+        byte[] signature = signer.sign();
+
+        Signature canonicalJson = Signature.getInstance("SHA256withRSA");
+        canonicalJson.initVerify(keyPair.getPublic());
+        SigningPayloadWriter.write(SigningPayloadFormat.CANONICAL_JSON_V1, drone, canonicalJson);
+        assertTrue(canonicalJson.verify(signature));
+
+        Signature javaSerialization = Signature.getInstance("SHA256withRSA");
+        javaSerialization.initVerify(keyPair.getPublic());
+        SigningPayloadWriter.write(SigningPayloadFormat.JAVA_SERIALIZATION, drone, javaSerialization);
+        assertFalse(javaSerialization.verify(signature));
+    }
+
+    @Test
+    public void shouldWriteNullsAndEscapeControlCharactersInCanonicalJson() throws Exception {
+        StringWriter writer = new StringWriter();
+
+        SigningPayloadWriter.writeCanonicalJson(new DroneDevice("a\tb\u0001", null, "1", "t", null), writer);
+
+        assertEquals("{\"deviceId\":\"a\\tb\\u0001\",\"deviceModelId\":null,\"idHash\":null,\"operatorBusinessIdentifier\":null,\"txn\":\"t\",\"version\":\"1\"}", writer.toString());
+    }
+
+    private Manufacturer manufacturer(long id, String name) {
+        Manufacturer manufacturer = new Manufacturer(1, null, name, null, null, null, null, null);
+        manufacturer.setId(id);
+        return manufacturer;
+    }
 }
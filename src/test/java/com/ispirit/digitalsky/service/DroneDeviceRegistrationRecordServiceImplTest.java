@@ -0,0 +1,304 @@
+package com.ispirit.digitalsky.service;
+
+import com.ispirit.digitalsky.domain.DroneDevice;
+import com.ispirit.digitalsky.domain.DroneDeviceRegistrationRecord;
+import com.ispirit.digitalsky.domain.RegisterDroneRequestPayload;
+import com.ispirit.digitalsky.domain.RegisterDroneResponseCode;
+import com.ispirit.digitalsky.domain.RegisterDroneResponsePayload;
+import com.ispirit.digitalsky.dto.Errors;
+import com.ispirit.digitalsky.exception.DroneDeviceRegistrationConflictException;
+import com.ispirit.digitalsky.exception.DroneDeviceRegistrationInProgressException;
+import com.ispirit.digitalsky.repository.DroneDeviceRegistrationRecordRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+public class DroneDeviceRegistrationRecordServiceImplTest {
+
+    private static final long TIME_TO_LIVE = TimeUnit.HOURS.toMillis(24);
+
+    private DroneDeviceRegistrationRecordRepository repository;
+
+    private Clock clock;
+
+    private DroneDeviceRegistrationRecordServiceImpl service;
+
+    @Before
+    public void setUp() throws Exception {
+        repository = mock(DroneDeviceRegistrationRecordRepository.class);
+        clock = Clock.fixed(Instant.parse("2018-08-12T10:00:00Z"), ZoneOffset.UTC);
+        service = new DroneDeviceRegistrationRecordServiceImpl(repository, 100, TIME_TO_LIVE, clock, 0);
+    }
+
+    @Test
+    public void shouldRecordRegisteredResponse() throws Exception {
+        //given
+        RegisterDroneResponsePayload response = response("txn-1", RegisterDroneResponseCode.REGISTERED, null);
+
+        //when
+        service.record("manufacturer", "digest", response);
+
+        //then
+        ArgumentCaptor<DroneDeviceRegistrationRecord> argumentCaptor = ArgumentCaptor.forClass(DroneDeviceRegistrationRecord.class);
+        verify(repository).save(argumentCaptor.capture());
+        DroneDeviceRegistrationRecord record = argumentCaptor.getValue();
+        assertThat(record.getManufacturerBusinessIdentifier(), is("manufacturer"));
+        assertThat(record.getTxn(), is("txn-1"));
+        assertThat(record.getRequestDigest(), is("digest"));
+        assertThat(record.getResponseCode(), is(RegisterDroneResponseCode.REGISTERED));
+        assertThat(record.getExpiresAt().getTime(), is(clock.millis() + TIME_TO_LIVE));
+    }
+
+    @Test
+    public void shouldNotRecordResponsesThatDependOnChangeableState() throws Exception {
+        //when
+        service.record("manufacturer", "digest", response("txn-1", RegisterDroneResponseCode.MANUFACTURER_TRUSTED_CERTIFICATE_NOT_FOUND, "Trusted certificate not found"));
+        service.record("manufacturer", "digest", response("txn-2", RegisterDroneResponseCode.BAD_REQUEST_PAYLOAD, "Invalid payload"));
+        service.record("manufacturer", "digest", response("txn-3", RegisterDroneResponseCode.INVALID_SIGNATURE, "Invalid/Missing digital signature"));
+
+        //then
+        verify(repository, never()).save(any(DroneDeviceRegistrationRecord.class));
+        verify(repository).deleteClaim("manufacturer", "txn-1", "digest");
+    }
+
+    @Test
+    public void shouldNotOverwriteUnexpiredRecord() throws Exception {
+        //given
+        when(repository.find("manufacturer", "txn-1")).thenReturn(record("txn-1", RegisterDroneResponseCode.REGISTERED, null, clock.millis() + 1000));
+
+        //when
+        service.record("manufacturer", "digest", response("txn-1", RegisterDroneResponseCode.DRONE_ALREADY_REGISTERED, "Drone already registered"));
+
+        //then
+        verify(repository, never()).save(any(DroneDeviceRegistrationRecord.class));
+    }
+
+    @Test
+    public void shouldServeRecordedResponseFromCache() throws Exception {
+        //given
+        service.record("manufacturer", "digest", response("txn-1", RegisterDroneResponseCode.REGISTERED, null));
+
+        //when
+        RegisterDroneResponsePayload response = service.claim("manufacturer", "txn-1", "digest");
+
+        //then
+        assertThat(response.getResponseCode(), is(RegisterDroneResponseCode.REGISTERED));
+        verify(repository, times(1)).find("manufacturer", "txn-1");
+    }
+
+    @Test
+    public void shouldLoadRecordedErrorResponseFromRepository() throws Exception {
+        //given
+        when(repository.find("manufacturer", "txn-1")).thenReturn(record("txn-1", RegisterDroneResponseCode.DRONE_ALREADY_REGISTERED, "Drone already registered", clock.millis() + 1000));
+
+        //when
+        RegisterDroneResponsePayload response = service.claim("manufacturer", "txn-1", "digest");
+        service.claim("manufacturer", "txn-1", "digest");
+
+        //then
+        assertThat(response.getTxn(), is("txn-1"));
+        assertThat(response.getResponseCode(), is(RegisterDroneResponseCode.DRONE_ALREADY_REGISTERED));
+        assertThat(response.getError().getErrors().get(0), is("Drone already registered"));
+        verify(repository, times(1)).find("manufacturer", "txn-1");
+    }
+
+    @Test
+    public void shouldRejectDifferentRequestForRecordedTransaction() throws Exception {
+        //given
+        when(repository.find("manufacturer", "txn-1")).thenReturn(record("txn-1", RegisterDroneResponseCode.REGISTERED, null, clock.millis() + 1000));
+
+        //when
+        try {
+            service.claim("manufacturer", "txn-1", "other digest");
+            fail("should throw DroneDeviceRegistrationConflictException");
+        } catch (DroneDeviceRegistrationConflictException e) {
+            //expected
+        }
+
+        //then
+        assertThat(service.claim("manufacturer", "txn-1", "digest").getResponseCode(), is(RegisterDroneResponseCode.REGISTERED));
+    }
+
+    @Test
+    public void shouldRejectDifferentRequestForCachedTransaction() throws Exception {
+        //given
+        service.record("manufacturer", "digest", response("txn-1", RegisterDroneResponseCode.REGISTERED, null));
+
+        //when
+        try {
+            service.claim("manufacturer", "txn-1", "other digest");
+            fail("should throw DroneDeviceRegistrationConflictException");
+        } catch (DroneDeviceRegistrationConflictException e) {
+            //expected
+        }
+    }
+
+    @Test
+    public void shouldDigestSignatureCertificateAndDrone() throws Exception {
+        //given
+        DroneDevice drone = new DroneDevice("1.0", "Beebop 800.0", "1A29.0", "txn-1", "eff217e740534fde89c1bfe62e08f316", "some value");
+        DroneDevice otherDrone = new DroneDevice("1.0", "Beebop 800.0", "1A29.0", "txn-1", "eff217e740534fde89c1bfe62e08f316", "other value");
+
+        //when
+        String digest = service.requestDigest(new RegisterDroneRequestPayload(drone, "signature", "certificate"));
+
+        //then
+        assertThat(digest.length(), is(64));
+        assertThat(service.requestDigest(new RegisterDroneRequestPayload(drone, "signature", "certificate")), is(digest));
+        assertThat(service.requestDigest(new RegisterDroneRequestPayload(drone, "other signature", "certificate")).equals(digest), is(false));
+        assertThat(service.requestDigest(new RegisterDroneRequestPayload(drone, "signature", "other certificate")).equals(digest), is(false));
+        assertThat(service.requestDigest(new RegisterDroneRequestPayload(otherDrone, "signature", "certificate")).equals(digest), is(false));
+    }
+
+    @Test
+    public void shouldIgnoreExpiredRecord() throws Exception {
+        //given
+        when(repository.find("manufacturer", "txn-1")).thenReturn(record("txn-1", RegisterDroneResponseCode.REGISTERED, null, clock.millis()));
+
+        //when
+        RegisterDroneResponsePayload response = service.claim("manufacturer", "txn-1", "digest");
+
+        //then
+        assertThat(response, nullValue());
+        verify(repository).deleteIfExpired(0, new Date(clock.millis()));
+        verify(repository).save(any(DroneDeviceRegistrationRecord.class));
+    }
+
+    @Test
+    public void shouldClaimUnrecordedTransaction() throws Exception {
+        //when
+        RegisterDroneResponsePayload response = service.claim("manufacturer", "txn-1", "digest");
+
+        //then
+        assertThat(response, nullValue());
+        ArgumentCaptor<DroneDeviceRegistrationRecord> argumentCaptor = ArgumentCaptor.forClass(DroneDeviceRegistrationRecord.class);
+        verify(repository).save(argumentCaptor.capture());
+        DroneDeviceRegistrationRecord claim = argumentCaptor.getValue();
+        assertThat(claim.isPending(), is(true));
+        assertThat(claim.getRequestDigest(), is("digest"));
+        assertThat(claim.getExpiresAt().getTime(), is(clock.millis() + DroneDeviceRegistrationRecordServiceImpl.CLAIM_LEASE_IN_MILLIS));
+    }
+
+    @Test
+    public void shouldReplayWinnerAfterLosingClaim() throws Exception {
+        //given
+        when(repository.find("manufacturer", "txn-1")).thenReturn(null, record("txn-1", RegisterDroneResponseCode.REGISTERED, null, clock.millis() + 1000));
+        when(repository.save(any(DroneDeviceRegistrationRecord.class))).thenThrow(new DataIntegrityViolationException("duplicate"));
+
+        //when
+        RegisterDroneResponsePayload response = service.claim("manufacturer", "txn-1", "digest");
+
+        //then
+        assertThat(response.getResponseCode(), is(RegisterDroneResponseCode.REGISTERED));
+    }
+
+    @Test
+    public void shouldWaitForPendingClaimOfSameRequest() throws Exception {
+        //given
+        DroneDeviceRegistrationRecord pending = record("txn-1", null, null, clock.millis() + 1000);
+        when(repository.find("manufacturer", "txn-1")).thenReturn(pending, pending, record("txn-1", RegisterDroneResponseCode.DRONE_ALREADY_REGISTERED, "Drone already registered", clock.millis() + 1000));
+
+        //when
+        RegisterDroneResponsePayload response = service.claim("manufacturer", "txn-1", "digest");
+
+        //then
+        assertThat(response.getResponseCode(), is(RegisterDroneResponseCode.DRONE_ALREADY_REGISTERED));
+        verify(repository, times(3)).find("manufacturer", "txn-1");
+        verify(repository, never()).save(any(DroneDeviceRegistrationRecord.class));
+    }
+
+    @Test(expected = DroneDeviceRegistrationConflictException.class)
+    public void shouldRejectDifferentRequestForPendingClaim() throws Exception {
+        //given
+        when(repository.find("manufacturer", "txn-1")).thenReturn(record("txn-1", null, null, clock.millis() + 1000));
+
+        //when
+        service.claim("manufacturer", "txn-1", "other digest");
+    }
+
+    @Test
+    public void shouldStopWaitingForClaimThatDoesNotComplete() throws Exception {
+        //given
+        when(repository.find("manufacturer", "txn-1")).thenReturn(record("txn-1", null, null, clock.millis() + 1000));
+
+        //when
+        try {
+            service.claim("manufacturer", "txn-1", "digest");
+            fail("should throw DroneDeviceRegistrationInProgressException");
+        } catch (DroneDeviceRegistrationInProgressException e) {
+            //expected
+        }
+
+        //then
+        verify(repository, times(DroneDeviceRegistrationRecordServiceImpl.CLAIM_POLLS + 1)).find("manufacturer", "txn-1");
+    }
+
+    @Test
+    public void shouldCompletePendingClaim() throws Exception {
+        //given
+        DroneDeviceRegistrationRecord pending = record("txn-1", null, null, clock.millis() + 1000);
+        when(repository.find("manufacturer", "txn-1")).thenReturn(pending);
+
+        //when
+        service.record("manufacturer", "digest", response("txn-1", RegisterDroneResponseCode.REGISTERED, null));
+
+        //then
+        verify(repository).save(pending);
+        assertThat(pending.isPending(), is(false));
+        assertThat(pending.getExpiresAt().getTime(), is(clock.millis() + TIME_TO_LIVE));
+    }
+
+    @Test
+    public void shouldScopeRecordsByManufacturer() throws Exception {
+        //given
+        service.record("manufacturer", "digest", response("txn-1", RegisterDroneResponseCode.REGISTERED, null));
+
+        //when
+        RegisterDroneResponsePayload response = service.claim("other manufacturer", "txn-1", "digest");
+
+        //then
+        assertThat(response, nullValue());
+    }
+
+    @Test
+    public void shouldDeleteExpiredRecords() throws Exception {
+        //given
+        when(repository.deleteExpired(new Date(clock.millis()))).thenReturn(3);
+
+        //when
+        int deleted = service.deleteExpired();
+
+        //then
+        assertThat(deleted, is(3));
+    }
+
+    private RegisterDroneResponsePayload response(String txn, RegisterDroneResponseCode responseCode, String errorMessage) {
+        RegisterDroneResponsePayload response = new RegisterDroneResponsePayload();
+        response.setTxn(txn);
+        response.setResponseCode(responseCode);
+        if (errorMessage != null) response.setError(new Errors(errorMessage));
+        return response;
+    }
+
+    private DroneDeviceRegistrationRecord record(String txn, RegisterDroneResponseCode responseCode, String errorMessage, long expiresAt) {
+        DroneDeviceRegistrationRecord record = new DroneDeviceRegistrationRecord("manufacturer", txn, "digest");
+        record.setResponseCode(responseCode);
+        record.setErrorMessage(errorMessage);
+        record.setExpiresAt(new Date(expiresAt));
+        return record;
+    }
+}
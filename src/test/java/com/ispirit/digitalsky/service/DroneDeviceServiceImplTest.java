@@ -16,8 +16,10 @@ import org.mockito.ArgumentCaptor;
 import java.security.SignatureException;
 import java.time.LocalDate;
 import java.util.Collection;
+import java.util.List;
 
 import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
 import static junit.framework.TestCase.fail;
 import static org.hamcrest.core.Is.is;
 import static org.hamcrest.core.IsNull.notNullValue;
@@ -51,7 +53,7 @@ public class DroneDeviceServiceImplTest {
 
         userPrincipal = SecurityContextHelper.setUserSecurityContext();
 
-        droneDeviceService = new DroneDeviceServiceImpl(droneDeviceRepository, signatureVerifierService, individualOperatorRepository, organizationOperatorRepository, operatorDroneService, manufacturerService);
+        droneDeviceService = new DroneDeviceServiceImpl(droneDeviceRepository, signatureVerifierService, individualOperatorRepository, organizationOperatorRepository, operatorDroneService, manufacturerService, Runnable::run);
     }
 
     @Test
@@ -96,7 +98,7 @@ public class DroneDeviceServiceImplTest {
 
         when(manufacturerService.loadByBusinessIdentifier(eq("eff217e740534fde89c1bfe62e08f316"))).thenReturn(manufacturer);
         when(manufacturerService.getCAAndTrustedCertificatePath(anyLong())).thenReturn(certificatePath);
-        when(signatureVerifierService.isValidSignature(any(RegisterDroneRequestPayload.class),anyString(),eq(certificatePath))).thenReturn(false);
+        when(signatureVerifierService.isValidSignature(any(RegisterDroneRequestPayload.class),any(Manufacturer.class),eq(certificatePath))).thenReturn(false);
 
         try {
             droneDeviceService.register("eff217e740534fde89c1bfe62e08f316", new RegisterDroneRequestPayload());
@@ -116,7 +118,7 @@ public class DroneDeviceServiceImplTest {
 
         when(manufacturerService.loadByBusinessIdentifier(eq("eff217e740534fde89c1bfe62e08f316"))).thenReturn(manufacturer);
         when(manufacturerService.getCAAndTrustedCertificatePath(anyLong())).thenReturn(certificatePath);
-        doThrow(new SignatureException()).when(signatureVerifierService).isValidSignature(any(RegisterDroneRequestPayload.class),anyString(),eq(certificatePath));
+        doThrow(new SignatureException()).when(signatureVerifierService).isValidSignature(any(RegisterDroneRequestPayload.class),any(Manufacturer.class),eq(certificatePath));
 
         try {
             droneDeviceService.register("eff217e740534fde89c1bfe62e08f316", new RegisterDroneRequestPayload());
@@ -135,7 +137,7 @@ public class DroneDeviceServiceImplTest {
 
         when(manufacturerService.loadByBusinessIdentifier(eq("eff217e740534fde89c1bfe62e08f316"))).thenReturn(manufacturer);
         when(manufacturerService.getCAAndTrustedCertificatePath(anyLong())).thenReturn(certificatePath);
-        doThrow(new InvalidManufacturerException()).when(signatureVerifierService).isValidSignature(any(RegisterDroneRequestPayload.class),anyString(),eq(certificatePath));
+        doThrow(new InvalidManufacturerException()).when(signatureVerifierService).isValidSignature(any(RegisterDroneRequestPayload.class),any(Manufacturer.class),eq(certificatePath));
 
         try {
             droneDeviceService.register("eff217e740534fde89c1bfe62e08f316", new RegisterDroneRequestPayload());
@@ -154,7 +156,7 @@ public class DroneDeviceServiceImplTest {
 
         when(manufacturerService.loadByBusinessIdentifier(eq("eff217e740534fde89c1bfe62e08f316"))).thenReturn(manufacturer);
         when(manufacturerService.getCAAndTrustedCertificatePath(anyLong())).thenReturn(certificatePath);
-        doThrow(new InvalidDigitalCertificateException()).when(signatureVerifierService).isValidSignature(any(RegisterDroneRequestPayload.class),anyString(),eq(certificatePath));
+        doThrow(new InvalidDigitalCertificateException()).when(signatureVerifierService).isValidSignature(any(RegisterDroneRequestPayload.class),any(Manufacturer.class),eq(certificatePath));
 
         try {
             droneDeviceService.register("eff217e740534fde89c1bfe62e08f316", new RegisterDroneRequestPayload());
@@ -173,7 +175,7 @@ public class DroneDeviceServiceImplTest {
 
         when(manufacturerService.loadByBusinessIdentifier(eq("eff217e740534fde89c1bfe62e08f316"))).thenReturn(manufacturer);
         when(manufacturerService.getCAAndTrustedCertificatePath(anyLong())).thenReturn(certificatePath);
-        when(signatureVerifierService.isValidSignature(any(RegisterDroneRequestPayload.class),anyString(),eq(certificatePath))).thenReturn(true);
+        when(signatureVerifierService.isValidSignature(any(RegisterDroneRequestPayload.class),any(Manufacturer.class),eq(certificatePath))).thenReturn(true);
         when(droneDeviceRepository.findByDeviceId("beebopeff292929")).thenReturn(new DroneDevice() );
         when(droneDeviceRepository.save(any(DroneDevice.class))).thenReturn(null);
 
@@ -195,7 +197,7 @@ public class DroneDeviceServiceImplTest {
 
         when(manufacturerService.loadByBusinessIdentifier(eq("eff217e740534fde89c1bfe62e08f316"))).thenReturn(manufacturer);
         when(manufacturerService.getCAAndTrustedCertificatePath(anyLong())).thenReturn(certificatePath);
-        when(signatureVerifierService.isValidSignature(any(RegisterDroneRequestPayload.class),anyString(),eq(certificatePath))).thenReturn(true);
+        when(signatureVerifierService.isValidSignature(any(RegisterDroneRequestPayload.class),any(Manufacturer.class),eq(certificatePath))).thenReturn(true);
         when(droneDeviceRepository.findByDeviceId("beebopeff292929")).thenReturn(null);
         when(droneDeviceRepository.save(any(DroneDevice.class))).thenReturn(null);
 
@@ -217,7 +219,7 @@ public class DroneDeviceServiceImplTest {
 
         when(manufacturerService.loadByBusinessIdentifier(eq("eff217e740534fde89c1bfe62e08f316"))).thenReturn(manufacturer);
         when(manufacturerService.getCAAndTrustedCertificatePath(anyLong())).thenReturn(certificatePath);
-        when(signatureVerifierService.isValidSignature(any(RegisterDroneRequestPayload.class),anyString(),eq(certificatePath))).thenReturn(true);
+        when(signatureVerifierService.isValidSignature(any(RegisterDroneRequestPayload.class),any(Manufacturer.class),eq(certificatePath))).thenReturn(true);
         when(droneDeviceRepository.findByDeviceId("beebopeff292929")).thenReturn(null);
         when(droneDeviceRepository.save(any(DroneDevice.class))).thenReturn(null);
         when(organizationOperatorRepository.loadByBusinessIdentifier(eq("2ff217e740534fde89c1bfe62e08f316"))).thenReturn(null);
@@ -241,7 +243,7 @@ public class DroneDeviceServiceImplTest {
 
         when(manufacturerService.loadByBusinessIdentifier(eq("eff217e740534fde89c1bfe62e08f316"))).thenReturn(manufacturer);
         when(manufacturerService.getCAAndTrustedCertificatePath(anyLong())).thenReturn(certificatePath);
-        when(signatureVerifierService.isValidSignature(any(RegisterDroneRequestPayload.class),anyString(),eq(certificatePath))).thenReturn(true);
+        when(signatureVerifierService.isValidSignature(any(RegisterDroneRequestPayload.class),any(Manufacturer.class),eq(certificatePath))).thenReturn(true);
         when(droneDeviceRepository.findByDeviceId("beebopeff292929")).thenReturn(null);
         when(droneDeviceRepository.save(any(DroneDevice.class))).thenReturn(null);
         when(organizationOperatorRepository.loadByBusinessIdentifier(eq("2ff217e740534fde89c1bfe62e08f316"))).thenReturn(new OrganizationOperator(1,"","","","","","",null));
@@ -261,7 +263,7 @@ public class DroneDeviceServiceImplTest {
 
         when(manufacturerService.loadByBusinessIdentifier(eq("eff217e740534fde89c1bfe62e08f316"))).thenReturn(manufacturer);
         when(manufacturerService.getCAAndTrustedCertificatePath(anyLong())).thenReturn(certificatePath);
-        when(signatureVerifierService.isValidSignature(any(RegisterDroneRequestPayload.class),anyString(),eq(certificatePath))).thenReturn(true);
+        when(signatureVerifierService.isValidSignature(any(RegisterDroneRequestPayload.class),any(Manufacturer.class),eq(certificatePath))).thenReturn(true);
         when(droneDeviceRepository.findByDeviceId("beebopeff292929")).thenReturn(null);
         when(droneDeviceRepository.save(any(DroneDevice.class))).thenReturn(null);
         when(organizationOperatorRepository.loadByBusinessIdentifier(eq("2ff217e740534fde89c1bfe62e08f316"))).thenReturn(new OrganizationOperator(1,"","","","","","",null));
@@ -322,7 +324,7 @@ public class DroneDeviceServiceImplTest {
 
         when(manufacturerService.loadByBusinessIdentifier(eq("eff217e740534fde89c1bfe62e08f316"))).thenReturn(manufacturer);
         when(manufacturerService.getCAAndTrustedCertificatePath(anyLong())).thenReturn(certificatePath);
-        when(signatureVerifierService.isValidSignature(any(RegisterDroneRequestPayload.class),anyString(),eq(certificatePath))).thenReturn(false);
+        when(signatureVerifierService.isValidSignature(any(RegisterDroneRequestPayload.class),any(Manufacturer.class),eq(certificatePath))).thenReturn(false);
 
         try {
             droneDeviceService.deregister("eff217e740534fde89c1bfe62e08f316", new RegisterDroneRequestPayload());
@@ -341,7 +343,7 @@ public class DroneDeviceServiceImplTest {
 
         when(manufacturerService.loadByBusinessIdentifier(eq("eff217e740534fde89c1bfe62e08f316"))).thenReturn(manufacturer);
         when(manufacturerService.getCAAndTrustedCertificatePath(anyLong())).thenReturn(certificatePath);
-        doThrow(new SignatureException()).when(signatureVerifierService).isValidSignature(any(RegisterDroneRequestPayload.class),anyString(),eq(certificatePath));
+        doThrow(new SignatureException()).when(signatureVerifierService).isValidSignature(any(RegisterDroneRequestPayload.class),any(Manufacturer.class),eq(certificatePath));
 
         try {
             droneDeviceService.deregister("eff217e740534fde89c1bfe62e08f316", new RegisterDroneRequestPayload());
@@ -360,7 +362,7 @@ public class DroneDeviceServiceImplTest {
 
         when(manufacturerService.loadByBusinessIdentifier(eq("eff217e740534fde89c1bfe62e08f316"))).thenReturn(manufacturer);
         when(manufacturerService.getCAAndTrustedCertificatePath(anyLong())).thenReturn(certificatePath);
-        doThrow(new InvalidManufacturerException()).when(signatureVerifierService).isValidSignature(any(RegisterDroneRequestPayload.class),anyString(),eq(certificatePath));
+        doThrow(new InvalidManufacturerException()).when(signatureVerifierService).isValidSignature(any(RegisterDroneRequestPayload.class),any(Manufacturer.class),eq(certificatePath));
 
         try {
             droneDeviceService.deregister("eff217e740534fde89c1bfe62e08f316", new RegisterDroneRequestPayload());
@@ -379,7 +381,7 @@ public class DroneDeviceServiceImplTest {
 
         when(manufacturerService.loadByBusinessIdentifier(eq("eff217e740534fde89c1bfe62e08f316"))).thenReturn(manufacturer);
         when(manufacturerService.getCAAndTrustedCertificatePath(anyLong())).thenReturn(certificatePath);
-        doThrow(new InvalidDigitalCertificateException()).when(signatureVerifierService).isValidSignature(any(RegisterDroneRequestPayload.class),anyString(),eq(certificatePath));
+        doThrow(new InvalidDigitalCertificateException()).when(signatureVerifierService).isValidSignature(any(RegisterDroneRequestPayload.class),any(Manufacturer.class),eq(certificatePath));
 
         try {
             droneDeviceService.deregister("eff217e740534fde89c1bfe62e08f316", new RegisterDroneRequestPayload());
@@ -398,7 +400,7 @@ public class DroneDeviceServiceImplTest {
 
         when(manufacturerService.loadByBusinessIdentifier(eq("eff217e740534fde89c1bfe62e08f316"))).thenReturn(manufacturer);
         when(manufacturerService.getCAAndTrustedCertificatePath(anyLong())).thenReturn(certificatePath);
-        when(signatureVerifierService.isValidSignature(any(RegisterDroneRequestPayload.class),anyString(),eq(certificatePath))).thenReturn(true);
+        when(signatureVerifierService.isValidSignature(any(RegisterDroneRequestPayload.class),any(Manufacturer.class),eq(certificatePath))).thenReturn(true);
         when(droneDeviceRepository.findByDeviceId("beebopeff292929")).thenReturn(null);
         when(droneDeviceRepository.save(any(DroneDevice.class))).thenReturn(null);
 
@@ -422,7 +424,7 @@ public class DroneDeviceServiceImplTest {
 
         when(manufacturerService.loadByBusinessIdentifier(eq("eff217e740534fde89c1bfe62e08f316"))).thenReturn(manufacturer);
         when(manufacturerService.getCAAndTrustedCertificatePath(anyLong())).thenReturn(certificatePath);
-        when(signatureVerifierService.isValidSignature(any(RegisterDroneRequestPayload.class),anyString(),eq(certificatePath))).thenReturn(true);
+        when(signatureVerifierService.isValidSignature(any(RegisterDroneRequestPayload.class),any(Manufacturer.class),eq(certificatePath))).thenReturn(true);
 
         when(droneDeviceRepository.findByDeviceId("beebopeff292929")).thenReturn(droneDevice);
         when(droneDeviceRepository.save(any(DroneDevice.class))).thenReturn(null);
@@ -447,7 +449,7 @@ public class DroneDeviceServiceImplTest {
 
         when(manufacturerService.loadByBusinessIdentifier(eq("eff217e740534fde89c1bfe62e08f316"))).thenReturn(manufacturer);
         when(manufacturerService.getCAAndTrustedCertificatePath(anyLong())).thenReturn(certificatePath);
-        when(signatureVerifierService.isValidSignature(any(RegisterDroneRequestPayload.class),anyString(),eq(certificatePath))).thenReturn(true);
+        when(signatureVerifierService.isValidSignature(any(RegisterDroneRequestPayload.class),any(Manufacturer.class),eq(certificatePath))).thenReturn(true);
         when(droneDeviceRepository.findByDeviceId("beebopeff292929")).thenReturn(droneDevice);
         when(droneDeviceRepository.save(any(DroneDevice.class))).thenReturn(null);
         RegisterDroneRequestPayload payload = new RegisterDroneRequestPayload(droneDevice,"","");
@@ -479,4 +481,97 @@ public class DroneDeviceServiceImplTest {
         assertEquals (deviceIds.toArray()[0], "Beebop199ef45");
     }
 
+    @Test
+    public void shouldRegisterDronesInBatchWithPerItemResponseCodes() throws SignatureException {
+        //given
+        Manufacturer manufacturer = new Manufacturer(1,null,null,null,null,null,null, null);
+        String certificatePath = "/Users/trustedCertificateChain.pem";
+        when(manufacturerService.loadByBusinessIdentifier(eq("eff217e740534fde89c1bfe62e08f316"))).thenReturn(manufacturer);
+        when(manufacturerService.getCAAndTrustedCertificatePath(anyLong())).thenReturn(certificatePath);
+
+        RegisterDroneRequestPayload registered = new RegisterDroneRequestPayload(new DroneDevice("device-1","model","1.0","txn-1","","op-1"),"","");
+        RegisterDroneRequestPayload invalidSignature = new RegisterDroneRequestPayload(new DroneDevice("device-2","model","1.0","txn-2","","op-1"),"","");
+        RegisterDroneRequestPayload existing = new RegisterDroneRequestPayload(new DroneDevice("device-3","model","1.0","txn-3","","op-1"),"","");
+        RegisterDroneRequestPayload repeated = new RegisterDroneRequestPayload(new DroneDevice("DEVICE-1","model","1.0","txn-4","","op-1"),"","");
+        RegisterDroneRequestPayload unknownOperator = new RegisterDroneRequestPayload(new DroneDevice("device-5","model","1.0","txn-5","","op-2"),"","");
+        RegisterDroneRequestPayload missingOperator = new RegisterDroneRequestPayload(new DroneDevice("device-6","model","1.0","txn-6",""),"","");
+
+        when(signatureVerifierService.isValidSignature(any(RegisterDroneRequestPayload.class),any(Manufacturer.class),eq(certificatePath))).thenReturn(true);
+        when(signatureVerifierService.isValidSignature(eq(invalidSignature),any(Manufacturer.class),eq(certificatePath))).thenReturn(false);
+        when(droneDeviceRepository.findByLowerCaseDeviceIds(anyCollection())).thenReturn(asList(new DroneDevice("Device-3","model","1.0","txn","","op-1")));
+        when(individualOperatorRepository.findLowerCaseBusinessIdentifiers(anyCollection())).thenReturn(asList("op-1"));
+        when(organizationOperatorRepository.findLowerCaseBusinessIdentifiers(anyCollection())).thenReturn(emptyList());
+
+        //when
+        List<RegisterDroneResponsePayload> responses = droneDeviceService.registerAll("eff217e740534fde89c1bfe62e08f316", asList(registered, invalidSignature, existing, repeated, unknownOperator, missingOperator));
+
+        //then
+        assertThat(responses.size(), is(6));
+        assertThat(responses.get(0).getResponseCode(), is(RegisterDroneResponseCode.REGISTERED));
+        assertThat(responses.get(0).getTxn(), is("txn-1"));
+        assertThat(responses.get(1).getResponseCode(), is(RegisterDroneResponseCode.INVALID_SIGNATURE));
+        assertThat(responses.get(2).getResponseCode(), is(RegisterDroneResponseCode.DRONE_ALREADY_REGISTERED));
+        assertThat(responses.get(3).getResponseCode(), is(RegisterDroneResponseCode.DRONE_ALREADY_REGISTERED));
+        assertThat(responses.get(4).getResponseCode(), is(RegisterDroneResponseCode.OPERATOR_BUSINESS_IDENTIFIER_INVALID));
+        assertThat(responses.get(5).getResponseCode(), is(RegisterDroneResponseCode.OPERATOR_BUSINESS_IDENTIFIER_MISSING));
+
+        ArgumentCaptor<List> argumentCaptor = ArgumentCaptor.forClass(List.class);
+        verify(droneDeviceRepository).insertAll(argumentCaptor.capture());
+        List<DroneDevice> inserted = argumentCaptor.getValue();
+        assertThat(inserted.size(), is(1));
+        assertThat(inserted.get(0).getDeviceId(), is("device-1"));
+        assertThat(inserted.get(0).getManufacturerBusinessIdentifier(), is("eff217e740534fde89c1bfe62e08f316"));
+        assertThat(inserted.get(0).getRegistrationStatus(), is(DroneDeviceRegistrationStatus.REGISTERED));
+        verify(droneDeviceRepository, never()).save(any(DroneDevice.class));
+    }
+
+    @Test
+    public void shouldDeregisterDronesInBatchWithPerItemResponseCodes() throws SignatureException {
+        //given
+        Manufacturer manufacturer = new Manufacturer(1,null,null,null,null,null,null, null);
+        String certificatePath = "/Users/trustedCertificateChain.pem";
+        when(manufacturerService.loadByBusinessIdentifier(eq("eff217e740534fde89c1bfe62e08f316"))).thenReturn(manufacturer);
+        when(manufacturerService.getCAAndTrustedCertificatePath(anyLong())).thenReturn(certificatePath);
+        when(signatureVerifierService.isValidSignature(any(RegisterDroneRequestPayload.class),any(Manufacturer.class),eq(certificatePath))).thenReturn(true);
+
+        DroneDevice registeredDrone = new DroneDevice("device-1","model","1.0","txn","","op-1");
+        registeredDrone.setRegistrationStatus(DroneDeviceRegistrationStatus.REGISTERED);
+        DroneDevice deregisteredDrone = new DroneDevice("device-3","model","1.0","txn","","op-1");
+        deregisteredDrone.setRegistrationStatus(DroneDeviceRegistrationStatus.DEREGISTERED);
+        when(droneDeviceRepository.findByLowerCaseDeviceIds(anyCollection())).thenReturn(asList(registeredDrone, deregisteredDrone));
+
+        //when
+        List<RegisterDroneResponsePayload> responses = droneDeviceService.deregisterAll("eff217e740534fde89c1bfe62e08f316", asList(
+                new RegisterDroneRequestPayload(new DroneDevice("DEVICE-1","model","1.0","txn-1","",""),"",""),
+                new RegisterDroneRequestPayload(new DroneDevice("device-2","model","1.0","txn-2","",""),"",""),
+                new RegisterDroneRequestPayload(new DroneDevice("device-3","model","1.0","txn-3","",""),"","")));
+
+        //then
+        assertThat(responses.get(0).getResponseCode(), is(RegisterDroneResponseCode.DEREGISTERED));
+        assertThat(responses.get(1).getResponseCode(), is(RegisterDroneResponseCode.DRONE_NOT_FOUND));
+        assertThat(responses.get(2).getResponseCode(), is(RegisterDroneResponseCode.DRONE_NOT_REGISTERED));
+
+        ArgumentCaptor<List> argumentCaptor = ArgumentCaptor.forClass(List.class);
+        verify(droneDeviceRepository).updateRegistrationStatuses(argumentCaptor.capture());
+        List<DroneDevice> updated = argumentCaptor.getValue();
+        assertThat(updated.size(), is(1));
+        assertThat(updated.get(0), is(registeredDrone));
+        assertThat(registeredDrone.getRegistrationStatus(), is(DroneDeviceRegistrationStatus.DEREGISTERED));
+        assertThat(registeredDrone.getLastModifiedDate(), notNullValue());
+    }
+
+    @Test
+    public void shouldThrowManufacturerNotFoundExceptionForBatchRegistration() {
+        when(manufacturerService.loadByBusinessIdentifier(eq("eff217e740534fde89c1bfe62e08f316"))).thenReturn(null);
+
+        try {
+            droneDeviceService.registerAll("eff217e740534fde89c1bfe62e08f316", asList(new RegisterDroneRequestPayload()));
+            fail("should have thrown ManufacturerNotFoundException");
+        } catch(ManufacturerNotFoundException e) {
+
+        }
+
+        verifyZeroInteractions(signatureVerifierService);
+        verifyZeroInteractions(droneDeviceRepository);
+    }
 }
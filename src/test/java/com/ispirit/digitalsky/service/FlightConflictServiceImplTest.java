@@ -0,0 +1,188 @@
+package com.ispirit.digitalsky.service;
+
+import com.ispirit.digitalsky.document.FlyDronePermissionApplication;
+import com.ispirit.digitalsky.document.LatLong;
+import com.ispirit.digitalsky.domain.ApplicationStatus;
+import com.ispirit.digitalsky.repository.FlyDronePermissionApplicationRepository;
+import com.ispirit.digitalsky.util.GeometryUtil;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.*;
+
+public class FlightConflictServiceImplTest {
+
+    private FlyDronePermissionApplicationRepository repository;
+    private FlightConflictServiceImpl flightConflictService;
+
+    @Before
+    public void setUp() throws Exception {
+        repository = mock(FlyDronePermissionApplicationRepository.class);
+        when(repository.findByStatus(ApplicationStatus.APPROVED)).thenReturn(emptyList());
+        flightConflictService = new FlightConflictServiceImpl(repository, new FlightWindowServiceImpl());
+    }
+
+    @Test
+    public void shouldReportApprovedFlightOverlappingInSpaceAndTime() throws Exception {
+        //given
+        FlyDronePermissionApplication approved = application("1", square(0, 0, 2), LocalDateTime.of(2018, Month.AUGUST, 12, 10, 0), LocalDateTime.of(2018, Month.AUGUST, 12, 12, 0));
+        flightConflictService.register(approved);
+
+        FlyDronePermissionApplication candidate = application(null, square(1, 1, 2), LocalDateTime.of(2018, Month.AUGUST, 12, 11, 0), LocalDateTime.of(2018, Month.AUGUST, 12, 13, 0));
+
+        //when
+        List<String> conflicts = flightConflictService.findConflicts(candidate);
+
+        //then
+        assertThat(conflicts, is(asList("1")));
+    }
+
+    @Test
+    public void shouldNotReportFlightsDisjointInTimeOrSpace() throws Exception {
+        //given
+        flightConflictService.register(application("1", square(0, 0, 2), LocalDateTime.of(2018, Month.AUGUST, 12, 10, 0), LocalDateTime.of(2018, Month.AUGUST, 12, 12, 0)));
+        flightConflictService.register(application("2", square(10, 10, 2), LocalDateTime.of(2018, Month.AUGUST, 12, 11, 0), LocalDateTime.of(2018, Month.AUGUST, 12, 12, 0)));
+
+        FlyDronePermissionApplication candidate = application(null, square(1, 1, 2), LocalDateTime.of(2018, Month.AUGUST, 12, 12, 0), LocalDateTime.of(2018, Month.AUGUST, 12, 13, 0));
+
+        //when
+        List<String> conflicts = flightConflictService.findConflicts(candidate);
+
+        //then
+        assertThat(conflicts.isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldExpandRecurringWindowsWhenCheckingConflicts() throws Exception {
+        //given
+        FlyDronePermissionApplication recurring = application("1", square(0, 0, 2), LocalDateTime.of(2018, Month.AUGUST, 1, 0, 0), LocalDateTime.of(2018, Month.AUGUST, 31, 0, 0));
+        recurring.setRecurringTimeExpression("0 0 9 * * ?");
+        recurring.setRecurringTimeDurationInMinutes(60L);
+        flightConflictService.register(recurring);
+
+        FlyDronePermissionApplication morning = application(null, square(1, 1, 2), LocalDateTime.of(2018, Month.AUGUST, 12, 9, 30), LocalDateTime.of(2018, Month.AUGUST, 12, 9, 45));
+        FlyDronePermissionApplication evening = application(null, square(1, 1, 2), LocalDateTime.of(2018, Month.AUGUST, 12, 18, 0), LocalDateTime.of(2018, Month.AUGUST, 12, 19, 0));
+
+        //then
+        assertThat(flightConflictService.findConflicts(morning), is(asList("1")));
+        assertThat(flightConflictService.findConflicts(evening).isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldStopReportingUnregisteredFlight() throws Exception {
+        //given
+        flightConflictService.register(application("1", square(0, 0, 2), LocalDateTime.of(2018, Month.AUGUST, 12, 10, 0), LocalDateTime.of(2018, Month.AUGUST, 12, 12, 0)));
+        FlyDronePermissionApplication candidate = application(null, square(1, 1, 2), LocalDateTime.of(2018, Month.AUGUST, 12, 11, 0), LocalDateTime.of(2018, Month.AUGUST, 12, 13, 0));
+
+        //when
+        flightConflictService.unregister("1");
+
+        //then
+        assertThat(flightConflictService.findConflicts(candidate).isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldStopReportingFlightNoLongerApproved() throws Exception {
+        //given
+        FlyDronePermissionApplication approved = application("1", square(0, 0, 2), LocalDateTime.of(2018, Month.AUGUST, 12, 10, 0), LocalDateTime.of(2018, Month.AUGUST, 12, 12, 0));
+        flightConflictService.register(approved);
+        FlyDronePermissionApplication candidate = application(null, square(1, 1, 2), LocalDateTime.of(2018, Month.AUGUST, 12, 11, 0), LocalDateTime.of(2018, Month.AUGUST, 12, 13, 0));
+
+        //when
+        approved.setStatus(ApplicationStatus.REJECTED);
+        flightConflictService.register(approved);
+
+        //then
+        assertThat(flightConflictService.findConflicts(candidate).isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldLoadApprovedFlightsOnFirstUse() throws Exception {
+        //given
+        FlyDronePermissionApplication approved = application("1", square(0, 0, 2), LocalDateTime.of(2018, Month.AUGUST, 12, 10, 0), LocalDateTime.of(2018, Month.AUGUST, 12, 12, 0));
+        when(repository.findByStatus(ApplicationStatus.APPROVED)).thenReturn(asList(approved));
+        FlyDronePermissionApplication candidate = application(null, square(1, 1, 2), LocalDateTime.of(2018, Month.AUGUST, 12, 11, 0), LocalDateTime.of(2018, Month.AUGUST, 12, 13, 0));
+
+        //when
+        flightConflictService.findConflicts(candidate);
+        List<String> conflicts = flightConflictService.findConflicts(candidate);
+
+        //then
+        assertThat(conflicts, is(asList("1")));
+        verify(repository, times(1)).findByStatus(ApplicationStatus.APPROVED);
+    }
+
+    @Test
+    public void shouldRegisterOnlyFirstOfOverlappingSubmissions() throws Exception {
+        //given
+        FlyDronePermissionApplication first = application("1", square(0, 0, 2), LocalDateTime.of(2018, Month.AUGUST, 12, 10, 0), LocalDateTime.of(2018, Month.AUGUST, 12, 12, 0));
+        FlyDronePermissionApplication second = application("2", square(1, 1, 2), LocalDateTime.of(2018, Month.AUGUST, 12, 11, 0), LocalDateTime.of(2018, Month.AUGUST, 12, 13, 0));
+        first.setStatus(ApplicationStatus.SUBMITTED);
+        second.setStatus(ApplicationStatus.SUBMITTED);
+
+        //when
+        List<String> firstConflicts = flightConflictService.registerIfNoConflicts(first);
+        List<String> secondConflicts = flightConflictService.registerIfNoConflicts(second);
+
+        //then
+        assertThat(firstConflicts.isEmpty(), is(true));
+        assertThat(secondConflicts, is(asList("1")));
+        FlyDronePermissionApplication candidate = application(null, square(2.5, 2.5, 1), LocalDateTime.of(2018, Month.AUGUST, 12, 11, 0), LocalDateTime.of(2018, Month.AUGUST, 12, 13, 0));
+        assertThat(flightConflictService.findConflicts(candidate).isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldReportShortFlightInsideLongerOneAcrossDurationClasses() throws Exception {
+        //given
+        flightConflictService.register(application("1", square(0, 0, 2), LocalDateTime.of(2018, Month.AUGUST, 1, 0, 0), LocalDateTime.of(2018, Month.AUGUST, 31, 0, 0)));
+        flightConflictService.register(application("2", square(0, 0, 2), LocalDateTime.of(2018, Month.AUGUST, 12, 11, 0), LocalDateTime.of(2018, Month.AUGUST, 12, 11, 5)));
+
+        FlyDronePermissionApplication candidate = application(null, square(1, 1, 2), LocalDateTime.of(2018, Month.AUGUST, 12, 11, 1), LocalDateTime.of(2018, Month.AUGUST, 12, 11, 2));
+
+        //when
+        List<String> conflicts = flightConflictService.findConflicts(candidate);
+
+        //then
+        assertThat(conflicts, is(asList("1", "2")));
+    }
+
+    @Test
+    public void shouldFindApprovedFlightsIntersectingRegion() throws Exception {
+        //given
+        flightConflictService.register(application("1", square(0, 0, 2), LocalDateTime.of(2018, Month.AUGUST, 12, 10, 0), LocalDateTime.of(2018, Month.AUGUST, 12, 12, 0)));
+        flightConflictService.register(application("2", square(10, 10, 2), LocalDateTime.of(2018, Month.AUGUST, 12, 10, 0), LocalDateTime.of(2018, Month.AUGUST, 12, 12, 0)));
+
+        //when
+        List<String> result = flightConflictService.findApprovedIntersecting(GeometryUtil.toPolygon(square(1, 1, 1)));
+
+        //then
+        assertThat(result, is(asList("1")));
+    }
+
+    private FlyDronePermissionApplication application(String id, List<LatLong> flyArea, LocalDateTime start, LocalDateTime end) {
+        FlyDronePermissionApplication application = new FlyDronePermissionApplication();
+        application.setId(id);
+        application.setStatus(ApplicationStatus.APPROVED);
+        application.setFlyArea(flyArea);
+        application.setStartDateTime(start);
+        application.setEndDateTime(end);
+        return application;
+    }
+
+    private List<LatLong> square(double latitude, double longitude, double size) {
+        return asList(
+                new LatLong(latitude, longitude),
+                new LatLong(latitude, longitude + size),
+                new LatLong(latitude + size, longitude + size),
+                new LatLong(latitude + size, longitude),
+                new LatLong(latitude, longitude));
+    }
+}
@@ -0,0 +1,144 @@
+package com.ispirit.digitalsky.service;
+
+import com.ispirit.digitalsky.document.FlyDronePermissionApplication;
+import com.ispirit.digitalsky.domain.FlightWindow;
+import com.ispirit.digitalsky.exception.ValidationException;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.List;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.*;
+
+public class FlightWindowServiceImplTest {
+
+    private FlightWindowServiceImpl flightWindowService;
+
+    @Before
+    public void setUp() throws Exception {
+        flightWindowService = new FlightWindowServiceImpl();
+    }
+
+    @Test
+    public void shouldUseWholePeriodAsSingleWindowWhenNotRecurring() throws Exception {
+        //given
+        FlyDronePermissionApplication application = application(LocalDateTime.of(2018, Month.AUGUST, 12, 10, 0), LocalDateTime.of(2018, Month.AUGUST, 12, 12, 0));
+
+        //when
+        List<FlightWindow> windows = flightWindowService.windows(application);
+
+        //then
+        assertThat(windows.size(), is(1));
+        assertThat(windows.get(0).getStart(), is(application.getStartDateTime()));
+        assertThat(windows.get(0).getEnd(), is(application.getEndDateTime()));
+    }
+
+    @Test
+    public void shouldExpandRecurringExpressionIntoWindows() throws Exception {
+        //given
+        FlyDronePermissionApplication application = application(LocalDateTime.of(2018, Month.AUGUST, 1, 0, 0), LocalDateTime.of(2018, Month.AUGUST, 11, 0, 0));
+        application.setRecurringTimeExpression("0 0 9 * * ?");
+        application.setRecurringTimeDurationInMinutes(90L);
+
+        //when
+        List<FlightWindow> windows = flightWindowService.windows(application);
+
+        //then
+        assertThat(windows.size(), is(10));
+        assertThat(windows.get(0).getStart(), is(LocalDateTime.of(2018, Month.AUGUST, 1, 9, 0)));
+        assertThat(windows.get(0).getEnd(), is(LocalDateTime.of(2018, Month.AUGUST, 1, 10, 30)));
+        assertThat(windows.get(9).getStart(), is(LocalDateTime.of(2018, Month.AUGUST, 10, 9, 0)));
+    }
+
+    @Test
+    public void shouldMaterializeWindowsOncePerPermission() throws Exception {
+        //given
+        FlyDronePermissionApplication application = application(LocalDateTime.of(2018, Month.AUGUST, 1, 0, 0), LocalDateTime.of(2018, Month.AUGUST, 11, 0, 0));
+        application.setRecurringTimeExpression("0 0 9 * * ?");
+        application.setRecurringTimeDurationInMinutes(90L);
+
+        //when
+        List<FlightWindow> first = flightWindowService.windows(application);
+        List<FlightWindow> second = flightWindowService.windows(application);
+
+        //then
+        assertThat(first == second, is(true));
+    }
+
+    @Test
+    public void shouldTellIfPermissionIsActiveAtInstant() throws Exception {
+        //given
+        FlyDronePermissionApplication application = application(LocalDateTime.of(2018, Month.AUGUST, 1, 0, 0), LocalDateTime.of(2018, Month.AUGUST, 11, 0, 0));
+        application.setRecurringTimeExpression("0 0 9 * * ?");
+        application.setRecurringTimeDurationInMinutes(90L);
+
+        //then
+        assertThat(flightWindowService.isActiveAt(application, LocalDateTime.of(2018, Month.AUGUST, 5, 9, 0)), is(true));
+        assertThat(flightWindowService.isActiveAt(application, LocalDateTime.of(2018, Month.AUGUST, 5, 10, 29)), is(true));
+        assertThat(flightWindowService.isActiveAt(application, LocalDateTime.of(2018, Month.AUGUST, 5, 10, 30)), is(false));
+        assertThat(flightWindowService.isActiveAt(application, LocalDateTime.of(2018, Month.AUGUST, 5, 8, 59)), is(false));
+        assertThat(flightWindowService.isActiveAt(application, LocalDateTime.of(2018, Month.AUGUST, 12, 9, 30)), is(false));
+    }
+
+    @Test(expected = ValidationException.class)
+    public void shouldRejectRecurrenceWithTooManyOccurrences() throws Exception {
+        //given
+        FlyDronePermissionApplication application = application(LocalDateTime.of(2018, Month.AUGUST, 1, 0, 0), LocalDateTime.of(2018, Month.SEPTEMBER, 1, 0, 0));
+        application.setRecurringTimeExpression("0 * * * * ?");
+        application.setRecurringTimeDurationInMinutes(1L);
+
+        //when
+        flightWindowService.windows(application);
+    }
+
+    @Test
+    public void shouldTellIfRecurrenceWithTooManyOccurrencesIsActiveAtInstant() throws Exception {
+        //given
+        FlyDronePermissionApplication application = application(LocalDateTime.of(2018, Month.AUGUST, 1, 0, 0), LocalDateTime.of(2018, Month.SEPTEMBER, 1, 0, 0));
+        application.setRecurringTimeExpression("0 0/2 * * * ?");
+        application.setRecurringTimeDurationInMinutes(1L);
+
+        //then
+        assertThat(flightWindowService.isActiveAt(application, LocalDateTime.of(2018, Month.AUGUST, 30, 9, 34, 30)), is(true));
+        assertThat(flightWindowService.isActiveAt(application, LocalDateTime.of(2018, Month.AUGUST, 30, 9, 35, 30)), is(false));
+    }
+
+    @Test
+    public void shouldExpandRecurrenceWithTooManyOccurrencesOnlyOnce() throws Exception {
+        //given
+        FlightWindowServiceImpl service = spy(flightWindowService);
+        FlyDronePermissionApplication application = application(LocalDateTime.of(2018, Month.AUGUST, 1, 0, 0), LocalDateTime.of(2018, Month.SEPTEMBER, 1, 0, 0));
+        application.setRecurringTimeExpression("0 0/2 * * * ?");
+        application.setRecurringTimeDurationInMinutes(1L);
+
+        //when
+        service.isActiveAt(application, LocalDateTime.of(2018, Month.AUGUST, 30, 9, 34, 30));
+        service.isActiveAt(application, LocalDateTime.of(2018, Month.AUGUST, 30, 9, 35, 30));
+
+        //then
+        verify(service, times(1)).expand(application);
+    }
+
+    @Test
+    public void shouldNotTreatExecutionBeforePeriodAsActiveWindow() throws Exception {
+        //given
+        FlyDronePermissionApplication application = application(LocalDateTime.of(2018, Month.AUGUST, 1, 0, 0, 30), LocalDateTime.of(2018, Month.SEPTEMBER, 1, 0, 0));
+        application.setRecurringTimeExpression("0 0/2 * * * ?");
+        application.setRecurringTimeDurationInMinutes(1L);
+
+        //then
+        assertThat(flightWindowService.isActiveAt(application, LocalDateTime.of(2018, Month.AUGUST, 1, 0, 0, 45)), is(false));
+        assertThat(flightWindowService.isActiveAt(application, LocalDateTime.of(2018, Month.AUGUST, 1, 0, 2, 45)), is(true));
+    }
+
+    private FlyDronePermissionApplication application(LocalDateTime start, LocalDateTime end) {
+        FlyDronePermissionApplication application = new FlyDronePermissionApplication();
+        application.setStartDateTime(start);
+        application.setEndDateTime(end);
+        return application;
+    }
+}
@@ -3,30 +3,48 @@ package com.ispirit.digitalsky.service;
 import com.ispirit.digitalsky.SecurityContextHelper;
 import com.ispirit.digitalsky.document.FlyDronePermissionApplication;
 import com.ispirit.digitalsky.document.LatLong;
+import com.ispirit.digitalsky.document.PermissionArtifactJob;
 import com.ispirit.digitalsky.domain.*;
 import com.ispirit.digitalsky.dto.Errors;
+import com.ispirit.digitalsky.dto.FlyAreaClassification;
 import com.ispirit.digitalsky.exception.ApplicationNotFoundException;
 import com.ispirit.digitalsky.exception.ApplicationNotInSubmittedStatusException;
+import com.ispirit.digitalsky.exception.PermissionArtifactNotReadyException;
 import com.ispirit.digitalsky.exception.StorageFileNotFoundException;
 import com.ispirit.digitalsky.exception.ValidationException;
 import com.ispirit.digitalsky.repository.FlyDronePermissionApplicationRepository;
+import com.ispirit.digitalsky.repository.PermissionArtifactJobRepository;
+import com.ispirit.digitalsky.repository.storage.StorageContentWriter;
 import com.ispirit.digitalsky.repository.storage.StorageService;
 import com.ispirit.digitalsky.service.api.*;
-import freemarker.template.Configuration;
-import freemarker.template.TemplateExceptionHandler;
+import com.ispirit.digitalsky.util.XmlUtil;
 import org.apache.commons.io.IOUtils;
-import org.geojson.FeatureCollection;
-import org.geojson.GeoJsonObject;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.locationtech.jts.geom.Polygon;
+import org.locationtech.jts.geom.TopologyException;
 import org.mockito.ArgumentCaptor;
 import org.springframework.core.io.Resource;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.geo.Point;
+import org.springframework.data.mongodb.core.geo.GeoJsonPolygon;
 import org.springframework.security.util.InMemoryResource;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.security.MessageDigest;
 import java.time.LocalDateTime;
 import java.time.Month;
 import java.time.ZoneId;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
 import static com.ispirit.digitalsky.service.FlyDronePermissionApplicationServiceImpl.PERMISSION_ARTIFACT_XML;
 import static java.util.Arrays.asList;
@@ -48,7 +66,9 @@ public class FlyDronePermissionApplicationServiceImplTest {
     private OperatorDroneService operatorDroneService;
     private UserProfileService userProfileService;
     private PilotService pilotService;
-    private Configuration freemarkerConfiguration;
+    private FlightConflictService flightConflictService;
+    private PermissionArtifactJobRepository permissionArtifactJobRepository;
+    private ExecutorService exportExecutor;
 
     @Before
     public void setUp() throws Exception {
@@ -59,11 +79,18 @@ public class FlyDronePermissionApplicationServiceImplTest {
         operatorDroneService = mock(OperatorDroneService.class);
         userProfileService = mock(UserProfileService.class);
         pilotService = mock(PilotService.class);
-        freemarkerConfiguration = freemarkerConfiguration();
-        service = spy(new FlyDronePermissionApplicationServiceImpl(repository, storageService, airspaceCategoryService, digitalSignService, operatorDroneService, userProfileService, pilotService, freemarkerConfiguration));
+        flightConflictService = mock(FlightConflictService.class);
+        permissionArtifactJobRepository = mock(PermissionArtifactJobRepository.class);
+        exportExecutor = Executors.newFixedThreadPool(2);
+        service = spy(new FlyDronePermissionApplicationServiceImpl(repository, storageService, airspaceCategoryService, digitalSignService, operatorDroneService, userProfileService, pilotService, flightConflictService, permissionArtifactJobRepository, exportExecutor));
         userPrincipal = SecurityContextHelper.setUserSecurityContext();
     }
 
+    @After
+    public void tearDown() throws Exception {
+        exportExecutor.shutdownNow();
+    }
+
     @Test
     public void shouldCreateApplication() throws Exception {
         //given
@@ -71,7 +98,7 @@ public class FlyDronePermissionApplicationServiceImplTest {
         application.setPilotBusinessIdentifier("1");
         application.setDroneId(1);
         application.setFlyArea(asList(new LatLong(1, 1), new LatLong(2, 2)));
-        doNothing().when(service).validateFlyArea(application);
+        doNothing().when(service).validateFlyArea(eq(application), any(AirspaceSnapshot.class));
         when(operatorDroneService.find(application.getDroneId())).thenReturn(new OperatorDrone());
         when(pilotService.findByBusinessIdentifier("1")).thenReturn(new Pilot(1L));
         //when
@@ -95,9 +122,8 @@ public class FlyDronePermissionApplicationServiceImplTest {
         application.setDroneId(1);
         application.setFlyArea(asList(new LatLong(1, 1), new LatLong(2, 2)));
         application.setStatus(ApplicationStatus.SUBMITTED);
-        doNothing().when(service).validateFlyArea(application);
-        doNothing().when(service).handleSubmit(application);
-        doNothing().when(service).generatePermissionArtifact(any());
+        doNothing().when(service).validateFlyArea(eq(application), any(AirspaceSnapshot.class));
+        doNothing().when(service).handleSubmit(eq(application), any(AirspaceSnapshot.class));
         when(operatorDroneService.find(application.getDroneId())).thenReturn(new OperatorDrone());
         when(pilotService.findByBusinessIdentifier("1")).thenReturn(new Pilot(2));
         //when
@@ -107,8 +133,9 @@ public class FlyDronePermissionApplicationServiceImplTest {
         ArgumentCaptor<FlyDronePermissionApplication> argumentCaptor = ArgumentCaptor.forClass(FlyDronePermissionApplication.class);
         verify(repository).insert(argumentCaptor.capture());
         assertThat(argumentCaptor.getValue().getSubmittedDate(), notNullValue());
-        verify(service).handleSubmit(application);
-        verify(service).generatePermissionArtifact(any());
+        verify(service).handleSubmit(eq(application), any(AirspaceSnapshot.class));
+        verify(service).enqueuePermissionArtifact(any(FlyDronePermissionApplication.class));
+        verify(service, never()).generatePermissionArtifact(any());
     }
 
     @Test
@@ -133,7 +160,7 @@ public class FlyDronePermissionApplicationServiceImplTest {
         application.setApplicantId(1);
 
         when(repository.findById("1")).thenReturn(application);
-        doNothing().when(service).validateFlyArea(application);
+        doNothing().when(service).validateFlyArea(eq(application), any(AirspaceSnapshot.class));
         when(pilotService.findByBusinessIdentifier("2")).thenReturn(new Pilot(2L));
         //when
         service.updateApplication("1", applicationPayload);
@@ -176,14 +203,13 @@ public class FlyDronePermissionApplicationServiceImplTest {
         application.setLastModifiedDate(Date.from(dateTime.atZone(ZoneId.systemDefault()).toInstant()));
         application.setApplicantId(1);
 
-        HashMap<AirspaceCategory.Type, GeoJsonObject> airspaceCategoryMap = new HashMap<>();
-        airspaceCategoryMap.put(AirspaceCategory.Type.AMBER, new FeatureCollection());
+        AirspaceSnapshot airspaceSnapshot = AirspaceSnapshot.build(1, new ArrayList<>());
+        AirspaceIndex airspaceIndex = airspaceSnapshot.getIndex();
 
         when(repository.findById("1")).thenReturn(application);
-        when(airspaceCategoryService.findGeoJsonMapByType()).thenReturn(airspaceCategoryMap);
-        doNothing().when(service).validateFlyArea(application);
-        doReturn(false).when(service).isFlyAreaIntersects(anyString(), eq(applicationPayload.getFlyArea()));
-        doNothing().when(service).generatePermissionArtifact(application);
+        when(airspaceCategoryService.airspaceSnapshot()).thenReturn(airspaceSnapshot);
+        doNothing().when(service).validateFlyArea(eq(application), any(AirspaceSnapshot.class));
+        doReturn(false).when(service).isFlyAreaIntersects(airspaceIndex, AirspaceCategory.Type.AMBER, applicationPayload.getFlyArea());
         when(pilotService.findByBusinessIdentifier("2")).thenReturn(new Pilot(2));
         //when
         service.updateApplication("1", applicationPayload);
@@ -193,7 +219,11 @@ public class FlyDronePermissionApplicationServiceImplTest {
         verify(repository).save(argumentCaptor.capture());
         assertThat(argumentCaptor.getValue().getSubmittedDate(), notNullValue());
         assertThat(argumentCaptor.getValue().getStatus(), is(ApplicationStatus.APPROVED));
-        verify(service).generatePermissionArtifact(application);
+        assertThat(argumentCaptor.getValue().getPermissionArtifactStatus(), is(PermissionArtifactStatus.PENDING));
+        ArgumentCaptor<PermissionArtifactJob> jobCaptor = ArgumentCaptor.forClass(PermissionArtifactJob.class);
+        verify(permissionArtifactJobRepository).insert(jobCaptor.capture());
+        assertThat(jobCaptor.getValue().getApplicationId(), is("1"));
+        verify(service, never()).generatePermissionArtifact(application);
 
     }
 
@@ -236,6 +266,7 @@ public class FlyDronePermissionApplicationServiceImplTest {
         assertThat(argumentCaptor.getValue().getApprovedDate(), notNullValue());
         assertThat(argumentCaptor.getValue().getApproverComments(), is(approveRequestBody.getComments()));
         assertThat(argumentCaptor.getValue().getStatus(), is(ApplicationStatus.APPROVED));
+        verify(flightConflictService).register(application);
     }
 
     @Test
@@ -321,38 +352,212 @@ public class FlyDronePermissionApplicationServiceImplTest {
 
     @Test
     public void shouldGetFile() throws Exception {
+        //given
+        FlyDronePermissionApplication application = new FlyDronePermissionApplication();
+        application.setPermissionArtifactStatus(PermissionArtifactStatus.READY);
+        application.setPermissionArtifactHash("abc");
+        doReturn(application).when(service).get("1");
+        InMemoryResource resource = new InMemoryResource("");
+        when(storageService.loadAsResource("1", PERMISSION_ARTIFACT_XML)).thenReturn(resource);
 
         //when
-        service.getPermissionArtifact("1");
+        PermissionArtifact result = service.getPermissionArtifact("1");
 
         //then
-        verify(storageService).loadAsResource("1", PERMISSION_ARTIFACT_XML);
+        assertThat(result.getResource(), is(resource));
+        assertThat(result.getContentHash(), is("abc"));
+        verify(repository, never()).save(any(FlyDronePermissionApplication.class));
     }
 
     @Test
-    public void shouldGetRegenerateArtifactIfNotFound() throws Exception {
+    public void shouldBackfillContentHashOfArtifactStoredWithoutOne() throws Exception {
+        //given
+        FlyDronePermissionApplication application = new FlyDronePermissionApplication();
+        application.setId("1");
+        application.setStatus(ApplicationStatus.APPROVED);
+        doReturn(application).when(service).get("1");
+        when(storageService.loadAsResource("1", PERMISSION_ARTIFACT_XML)).thenReturn(new InMemoryResource("<artifact/>"));
 
         //when
+        PermissionArtifact result = service.getPermissionArtifact("1");
+
+        //then
+        assertThat(result.getContentHash(), is("6243bf6cac68ed973e74370b503b7d7b29837bd54e6f14e313fd006300bc3577"));
+        verify(repository).updatePermissionArtifactStatus("1", PermissionArtifactStatus.READY, result.getContentHash());
+        verify(repository, never()).save(any(FlyDronePermissionApplication.class));
+    }
+
+    @Test
+    public void shouldNotQueueArtifactTwiceWhenJobAlreadyExists() throws Exception {
+        //given
         FlyDronePermissionApplication application = new FlyDronePermissionApplication();
-        InMemoryResource resource = new InMemoryResource("");
-        when(storageService.loadAsResource("1", PERMISSION_ARTIFACT_XML))
-                .thenThrow(new StorageFileNotFoundException("")).thenReturn(resource);
+        application.setId("1");
+        application.setStatus(ApplicationStatus.APPROVED);
+        when(permissionArtifactJobRepository.insert(any(PermissionArtifactJob.class))).thenThrow(new DuplicateKeyException("duplicate"));
+
+        //when
+        service.enqueuePermissionArtifact(application);
+
+        //then
+        verify(permissionArtifactJobRepository).insert(any(PermissionArtifactJob.class));
+        verify(permissionArtifactJobRepository, never()).save(any(PermissionArtifactJob.class));
+    }
+
+    @Test
+    public void shouldNotLoadArtifactWhileGenerationIsPending() throws Exception {
+        //given
+        FlyDronePermissionApplication application = new FlyDronePermissionApplication();
+        application.setPermissionArtifactStatus(PermissionArtifactStatus.PENDING);
+        doReturn(application).when(service).get("1");
+
+        //when
+        try {
+            service.getPermissionArtifact("1");
+            fail("should have thrown PermissionArtifactNotReadyException");
+        } catch (PermissionArtifactNotReadyException e) {
+            //expected
+        }
+
+        //then
+        verify(storageService, never()).loadAsResource(anyString(), anyString());
+        verify(permissionArtifactJobRepository, never()).insert(any(PermissionArtifactJob.class));
+    }
 
+    @Test
+    public void shouldQueueArtifactGenerationIfNotFound() throws Exception {
+        //given
+        FlyDronePermissionApplication application = new FlyDronePermissionApplication();
+        application.setId("1");
+        application.setStatus(ApplicationStatus.APPROVED);
+        when(storageService.loadAsResource("1", PERMISSION_ARTIFACT_XML)).thenThrow(new StorageFileNotFoundException(""));
         doReturn(application).when(service).get("1");
-        doNothing().when(service).generatePermissionArtifact(application);
 
         //when
-        Resource result = service.getPermissionArtifact("1");
+        try {
+            service.getPermissionArtifact("1");
+            fail("should have thrown PermissionArtifactNotReadyException");
+        } catch (PermissionArtifactNotReadyException e) {
+            //expected
+        }
 
         //then
-        assertThat(result, is(resource));
+        verify(repository).updatePermissionArtifactStatus("1", PermissionArtifactStatus.PENDING, null);
+        verify(repository, never()).save(any(FlyDronePermissionApplication.class));
+        verify(permissionArtifactJobRepository).insert(any(PermissionArtifactJob.class));
+        verify(service, never()).generatePermissionArtifact(application);
+    }
+
+    @Test
+    public void shouldGenerateQueuedPermissionArtifact() throws Exception {
+        //given
+        FlyDronePermissionApplication application = new FlyDronePermissionApplication();
+        application.setId("1");
+        application.setStatus(ApplicationStatus.APPROVED);
+        application.setPermissionArtifactStatus(PermissionArtifactStatus.PENDING);
+        when(permissionArtifactJobRepository.claimNext(any(Date.class), any(Date.class))).thenReturn(new PermissionArtifactJob("1"));
+        when(repository.findById("1")).thenReturn(application);
+        doReturn("abc").when(service).generatePermissionArtifact(application);
+
+        //when
+        boolean processed = service.processNextPermissionArtifactJob();
+
+        //then
+        assertThat(processed, is(true));
         verify(service).generatePermissionArtifact(application);
+        verify(repository).updatePermissionArtifactStatus("1", PermissionArtifactStatus.READY, "abc");
+        verify(repository, never()).save(any(FlyDronePermissionApplication.class));
+        verify(permissionArtifactJobRepository).delete("1");
+    }
+
+    @Test
+    public void shouldRescheduleFailedPermissionArtifactJob() throws Exception {
+        //given
+        FlyDronePermissionApplication application = new FlyDronePermissionApplication();
+        application.setId("1");
+        application.setStatus(ApplicationStatus.APPROVED);
+        application.setPermissionArtifactStatus(PermissionArtifactStatus.PENDING);
+        PermissionArtifactJob job = new PermissionArtifactJob("1");
+        when(permissionArtifactJobRepository.claimNext(any(Date.class), any(Date.class))).thenReturn(job);
+        when(repository.findById("1")).thenReturn(application);
+        doThrow(new RuntimeException("signing failed")).when(service).generatePermissionArtifact(application);
+
+        //when
+        service.processNextPermissionArtifactJob();
+
+        //then
+        assertThat(application.getPermissionArtifactStatus(), is(PermissionArtifactStatus.PENDING));
+        verify(permissionArtifactJobRepository).save(job);
+        assertThat(job.getStatus(), is(PermissionArtifactJob.Status.QUEUED));
+        assertThat(job.getLastError(), is("signing failed"));
+        assertThat(job.getAvailableAt().after(new Date()), is(true));
+        verify(permissionArtifactJobRepository, never()).delete(anyString());
+    }
+
+    @Test
+    public void shouldExportStoredArtifactsAsZipAndQueueMissingOnes() throws Exception {
+        //given
+        FlyDronePermissionApplication stored = approvedApplication("1");
+        FlyDronePermissionApplication missing = approvedApplication("2");
+        Date from = new Date(0);
+        Date to = new Date();
+        when(repository.streamApprovedBetween(from, to)).thenReturn(Stream.of(stored, missing));
+        when(storageService.loadAsResource("1", PERMISSION_ARTIFACT_XML)).thenReturn(new InMemoryResource("<one/>"));
+        when(storageService.loadAsResource("2", PERMISSION_ARTIFACT_XML)).thenThrow(new StorageFileNotFoundException(""));
+
+        //when
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        service.exportPermissionArtifacts(from, to, outputStream);
+
+        //then
+        Map<String, String> entries = unzip(outputStream.toByteArray());
+        assertThat(entries.size(), is(2));
+        assertThat(entries.get("1.xml"), is("<one/>"));
+        assertThat(entries.get("failedApplicationIds.txt"), is("2"));
+        verify(service, never()).generatePermissionArtifact(any(FlyDronePermissionApplication.class));
+        verify(repository).updatePermissionArtifactStatus("2", PermissionArtifactStatus.PENDING, null);
+        verify(permissionArtifactJobRepository).insert(any(PermissionArtifactJob.class));
+    }
+
+    @Test
+    public void shouldListArtifactsThatCouldNotBeExported() throws Exception {
+        //given
+        FlyDronePermissionApplication pending = approvedApplication("1");
+        pending.setPermissionArtifactStatus(PermissionArtifactStatus.PENDING);
+        Date from = new Date(0);
+        Date to = new Date();
+        when(repository.streamApprovedBetween(from, to)).thenReturn(Stream.of(pending));
+
+        //when
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        service.exportPermissionArtifacts(from, to, outputStream);
+
+        //then
+        Map<String, String> entries = unzip(outputStream.toByteArray());
+        assertThat(entries.size(), is(1));
+        assertThat(entries.get("failedApplicationIds.txt"), is("1"));
+        verify(storageService, never()).loadAsResource(anyString(), anyString());
+        verify(service, never()).generatePermissionArtifact(any(FlyDronePermissionApplication.class));
+    }
+
+    @Test(expected = ValidationException.class)
+    public void shouldRejectExportWithInvalidApprovedDateRange() throws Exception {
+        service.exportPermissionArtifacts(new Date(), new Date(0), new ByteArrayOutputStream());
+    }
+
+    @Test
+    public void shouldReturnFalseWhenNoPermissionArtifactJobIsQueued() throws Exception {
+        //when
+        boolean processed = service.processNextPermissionArtifactJob();
+
+        //then
+        assertThat(processed, is(false));
+        verify(repository, never()).findById(anyString());
     }
 
     @Test
     public void shouldFindFlyAreaWithinGreenZones() throws Exception {
         //given
-        String greenZones = IOUtils.toString(this.getClass().getResourceAsStream("/geoJsonGreenZones.json"), "UTF-8");
+        AirspaceIndex greenZones = airspaceIndex(AirspaceCategory.Type.GREEN, "/geoJsonGreenZones.json");
         LatLong one = new LatLong(12.232654837013484, 75.87158203125);
         LatLong two = new LatLong(11.802834233547687, 76.168212890625);
         LatLong three = new LatLong(11.77057019562524, 76.761474609375);
@@ -371,7 +576,7 @@ public class FlyDronePermissionApplicationServiceImplTest {
     @Test
     public void shouldNotFindFlyAreaWithinGreenZones() throws Exception {
         //given
-        String greenZones = IOUtils.toString(this.getClass().getResourceAsStream("/geoJsonGreenZones.json"), "UTF-8");
+        AirspaceIndex greenZones = airspaceIndex(AirspaceCategory.Type.GREEN, "/geoJsonGreenZones.json");
         LatLong one = new LatLong(11.630715737981486, 68.88427734374999);
         LatLong two = new LatLong(7.18810087117902, 68.70849609375);
         LatLong three = new LatLong(11.695272733029402, 77.89306640625);
@@ -389,7 +594,7 @@ public class FlyDronePermissionApplicationServiceImplTest {
     @Test
     public void shouldValidateIfFlyAreaWithinGreenZones() throws Exception {
         //given
-        service = spy(new FlyDronePermissionApplicationServiceImpl(repository, storageService, airspaceCategoryService, digitalSignService, operatorDroneService, userProfileService, pilotService, freemarkerConfiguration));
+        service = spy(new FlyDronePermissionApplicationServiceImpl(repository, storageService, airspaceCategoryService, digitalSignService, operatorDroneService, userProfileService, pilotService, flightConflictService, permissionArtifactJobRepository, exportExecutor));
         LatLong one = new LatLong(11.630715737981486, 68.88427734374999);
         LatLong two = new LatLong(7.18810087117902, 68.70849609375);
         LatLong three = new LatLong(11.695272733029402, 77.89306640625);
@@ -397,25 +602,27 @@ public class FlyDronePermissionApplicationServiceImplTest {
         LatLong five = new LatLong(11.630715737981486, 68.88427734374999);
         List<LatLong> flyArea = asList(one, two, three, four, five);
 
-        doThrow(new ValidationException(new Errors())).when(service).validateFlyAreaWithin(anyString(), eq(flyArea));
+        AirspaceSnapshot airspaceSnapshot = AirspaceSnapshot.build(1, new ArrayList<>());
+        AirspaceIndex airspaceIndex = airspaceSnapshot.getIndex();
+        doThrow(new ValidationException(new Errors())).when(service).validateFlyAreaWithin(airspaceIndex, flyArea);
         FlyDronePermissionApplication application = new FlyDronePermissionApplication();
         application.setFlyArea(flyArea);
 
-        when(airspaceCategoryService.findGeoJsonMapByType()).thenReturn(new HashMap<>());
+        when(airspaceCategoryService.airspaceSnapshot()).thenReturn(airspaceSnapshot);
 
 
         //when
         try {
-            service.validateFlyArea(application);
+            service.validateFlyArea(application, airspaceSnapshot);
         } catch (ValidationException e) {
         }
-        verify(service).validateFlyAreaWithin(anyString(), eq(flyArea));
+        verify(service).validateFlyAreaWithin(airspaceIndex, flyArea);
     }
 
     @Test
     public void shouldValidateIfFlyAreaIntersectWithRedZones() throws Exception {
         //given
-        service = spy(new FlyDronePermissionApplicationServiceImpl(repository, storageService, airspaceCategoryService, digitalSignService, operatorDroneService, userProfileService, pilotService, freemarkerConfiguration));
+        service = spy(new FlyDronePermissionApplicationServiceImpl(repository, storageService, airspaceCategoryService, digitalSignService, operatorDroneService, userProfileService, pilotService, flightConflictService, permissionArtifactJobRepository, exportExecutor));
         LatLong one = new LatLong(11.630715737981486, 68.88427734374999);
         LatLong two = new LatLong(7.18810087117902, 68.70849609375);
         LatLong three = new LatLong(11.695272733029402, 77.89306640625);
@@ -423,26 +630,46 @@ public class FlyDronePermissionApplicationServiceImplTest {
         LatLong five = new LatLong(11.630715737981486, 68.88427734374999);
         List<LatLong> flyArea = asList(one, two, three, four, five);
 
-        doNothing().when(service).validateFlyAreaWithin(anyString(), eq(flyArea));
-        doThrow(new ValidationException(new Errors())).when(service).validateFlyAreaIntersectsRedZones(anyString(), eq(flyArea));
+        AirspaceSnapshot airspaceSnapshot = AirspaceSnapshot.build(1, new ArrayList<>());
+        AirspaceIndex airspaceIndex = airspaceSnapshot.getIndex();
+        doNothing().when(service).validateFlyAreaWithin(airspaceIndex, flyArea);
+        doThrow(new ValidationException(new Errors())).when(service).validateFlyAreaIntersectsRedZones(airspaceIndex, flyArea);
         FlyDronePermissionApplication application = new FlyDronePermissionApplication();
         application.setFlyArea(flyArea);
 
-        when(airspaceCategoryService.findGeoJsonMapByType()).thenReturn(new HashMap<>());
+        when(airspaceCategoryService.airspaceSnapshot()).thenReturn(airspaceSnapshot);
 
 
         //when
         try {
-            service.validateFlyArea(application);
+            service.validateFlyArea(application, airspaceSnapshot);
         } catch (ValidationException e) {
         }
-        verify(service).validateFlyAreaIntersectsRedZones(anyString(), eq(flyArea));
+        verify(service).validateFlyAreaIntersectsRedZones(airspaceIndex, flyArea);
+    }
+
+    @Test
+    public void shouldRecordAirspaceSnapshotVersionWhenFlyAreaIsValid() throws Exception {
+        //given
+        List<LatLong> flyArea = asList(new LatLong(1, 1), new LatLong(1, 2), new LatLong(2, 2), new LatLong(1, 1));
+        AirspaceCategory greenZone = new AirspaceCategory("Sample", AirspaceCategory.Type.GREEN, IOUtils.toString(this.getClass().getResourceAsStream("/geoJsonPolygon.json"), "UTF-8"));
+        AirspaceSnapshot airspaceSnapshot = AirspaceSnapshot.build(1, asList(greenZone));
+        doNothing().when(service).validateFlyAreaWithin(airspaceSnapshot.getIndex(), flyArea);
+        doNothing().when(service).validateFlyAreaIntersectsRedZones(airspaceSnapshot.getIndex(), flyArea);
+        FlyDronePermissionApplication application = new FlyDronePermissionApplication();
+        application.setFlyArea(flyArea);
+
+        //when
+        service.validateFlyArea(application, airspaceSnapshot);
+
+        //then
+        assertThat(application.getAirspaceSnapshotVersion(), is(airspaceSnapshot.getVersion()));
     }
 
     @Test
     public void handleSubmitShouldCheckIfFlyAreaIntersectWithAmberZones() throws Exception {
         //given
-        service = spy(new FlyDronePermissionApplicationServiceImpl(repository, storageService, airspaceCategoryService, digitalSignService, operatorDroneService, userProfileService, pilotService, freemarkerConfiguration));
+        service = spy(new FlyDronePermissionApplicationServiceImpl(repository, storageService, airspaceCategoryService, digitalSignService, operatorDroneService, userProfileService, pilotService, flightConflictService, permissionArtifactJobRepository, exportExecutor));
         LatLong one = new LatLong(11.630715737981486, 68.88427734374999);
         LatLong two = new LatLong(7.18810087117902, 68.70849609375);
         LatLong three = new LatLong(11.695272733029402, 77.89306640625);
@@ -450,27 +677,29 @@ public class FlyDronePermissionApplicationServiceImplTest {
         LatLong five = new LatLong(11.630715737981486, 68.88427734374999);
         List<LatLong> flyArea = asList(one, two, three, four, five);
 
-        doReturn(true).when(service).isFlyAreaIntersects(anyString(), eq(flyArea));
+        AirspaceSnapshot airspaceSnapshot = AirspaceSnapshot.build(1, new ArrayList<>());
+        AirspaceIndex airspaceIndex = airspaceSnapshot.getIndex();
+        doReturn(true).when(service).isFlyAreaIntersects(airspaceIndex, AirspaceCategory.Type.AMBER, flyArea);
 
         FlyDronePermissionApplication application = new FlyDronePermissionApplication();
         application.setFlyArea(flyArea);
 
-        when(airspaceCategoryService.findGeoJsonMapByType()).thenReturn(new HashMap<>());
+        when(airspaceCategoryService.airspaceSnapshot()).thenReturn(airspaceSnapshot);
 
 
         //when
         try {
-            service.handleSubmit(application);
+            service.handleSubmit(application, airspaceSnapshot);
         } catch (ValidationException e) {
         }
-        verify(service).isFlyAreaIntersects(anyString(), eq(flyArea));
+        verify(service).isFlyAreaIntersects(airspaceIndex, AirspaceCategory.Type.AMBER, flyArea);
     }
 
     @Test
     public void shouldApproveApplicationAfterSubmit() throws Exception {
         //given
         FlyDronePermissionApplication application = new FlyDronePermissionApplication();
-        service = spy(new FlyDronePermissionApplicationServiceImpl(repository, storageService, airspaceCategoryService, digitalSignService, operatorDroneService, userProfileService, pilotService, freemarkerConfiguration));
+        service = spy(new FlyDronePermissionApplicationServiceImpl(repository, storageService, airspaceCategoryService, digitalSignService, operatorDroneService, userProfileService, pilotService, flightConflictService, permissionArtifactJobRepository, exportExecutor));
         LatLong one = new LatLong(11.630715737981486, 68.88427734374999);
         LatLong two = new LatLong(7.18810087117902, 68.70849609375);
         LatLong three = new LatLong(11.695272733029402, 77.89306640625);
@@ -479,12 +708,15 @@ public class FlyDronePermissionApplicationServiceImplTest {
         List<LatLong> flyArea = asList(one, two, three, four, five);
         application.setFlyArea(flyArea);
 
-        doReturn(false).when(service).isFlyAreaIntersects(anyString(), eq(flyArea));
+        AirspaceSnapshot airspaceSnapshot = AirspaceSnapshot.build(1, new ArrayList<>());
+        AirspaceIndex airspaceIndex = airspaceSnapshot.getIndex();
+        when(airspaceCategoryService.airspaceSnapshot()).thenReturn(airspaceSnapshot);
+        doReturn(false).when(service).isFlyAreaIntersects(airspaceIndex, AirspaceCategory.Type.AMBER, flyArea);
 
 
         //when
         try {
-            service.handleSubmit(application);
+            service.handleSubmit(application, airspaceSnapshot);
         } catch (ValidationException e) {
         }
         assertThat(application.getStatus(), is(ApplicationStatus.APPROVED));
@@ -493,11 +725,50 @@ public class FlyDronePermissionApplicationServiceImplTest {
         assertThat(application.getApproverComments(), is("Self approval, within green zone"));
     }
 
+    @Test
+    public void shouldNotSelfApproveWhenApprovedFlightsConflict() throws Exception {
+        //given
+        FlyDronePermissionApplication application = new FlyDronePermissionApplication();
+        List<LatLong> flyArea = asList(new LatLong(1, 1), new LatLong(1, 2), new LatLong(2, 2), new LatLong(1, 1));
+        application.setFlyArea(flyArea);
+        application.setStatus(ApplicationStatus.SUBMITTED);
+        AirspaceSnapshot airspaceSnapshot = AirspaceSnapshot.build(1, new ArrayList<>());
+        doReturn(false).when(service).isFlyAreaIntersects(airspaceSnapshot.getIndex(), AirspaceCategory.Type.AMBER, flyArea);
+        when(flightConflictService.registerIfNoConflicts(application)).thenReturn(asList("2"));
+
+        //when
+        service.handleSubmit(application, airspaceSnapshot);
+
+        //then
+        assertThat(application.getStatus(), is(ApplicationStatus.SUBMITTED));
+        assertThat(application.getConflictingApplicationIds(), is(asList("2")));
+    }
+
+    @Test
+    public void shouldOnlyReportConflictsWhenFlyAreaNeedsApproval() throws Exception {
+        //given
+        FlyDronePermissionApplication application = new FlyDronePermissionApplication();
+        List<LatLong> flyArea = asList(new LatLong(1, 1), new LatLong(1, 2), new LatLong(2, 2), new LatLong(1, 1));
+        application.setFlyArea(flyArea);
+        application.setStatus(ApplicationStatus.SUBMITTED);
+        AirspaceSnapshot airspaceSnapshot = AirspaceSnapshot.build(1, new ArrayList<>());
+        doReturn(true).when(service).isFlyAreaIntersects(airspaceSnapshot.getIndex(), AirspaceCategory.Type.AMBER, flyArea);
+        when(flightConflictService.findConflicts(application)).thenReturn(asList("2"));
+
+        //when
+        service.handleSubmit(application, airspaceSnapshot);
+
+        //then
+        assertThat(application.getStatus(), is(ApplicationStatus.SUBMITTED));
+        assertThat(application.getConflictingApplicationIds(), is(asList("2")));
+        verify(flightConflictService, never()).registerIfNoConflicts(application);
+    }
+
     @Test
     public void shouldFindFlyAreaIntersectWithGivenZones() throws Exception {
 
         //given
-        String zones = IOUtils.toString(this.getClass().getResourceAsStream("/geoJsonGreenZones.json"), "UTF-8");
+        AirspaceIndex zones = airspaceIndex(AirspaceCategory.Type.GREEN, "/geoJsonGreenZones.json");
         LatLong one = new LatLong(11.630715737981486, 68.88427734374999);
         LatLong two = new LatLong(7.18810087117902, 68.70849609375);
         LatLong three = new LatLong(11.695272733029402, 77.89306640625);
@@ -505,14 +776,14 @@ public class FlyDronePermissionApplicationServiceImplTest {
         LatLong five = new LatLong(11.630715737981486, 68.88427734374999);
 
         //intersects with given zone
-        assertThat(service.isFlyAreaIntersects(zones, asList(one, two, three, four, five)), is(true));
+        assertThat(service.isFlyAreaIntersects(zones, AirspaceCategory.Type.GREEN, asList(one, two, three, four, five)), is(true));
     }
 
     @Test
     public void shouldFindFlyAreaIntersectWithGivenZonesWhenWithinZone() throws Exception {
 
         //given
-        String zones = IOUtils.toString(this.getClass().getResourceAsStream("/geoJsonGreenZones.json"), "UTF-8");
+        AirspaceIndex zones = airspaceIndex(AirspaceCategory.Type.GREEN, "/geoJsonGreenZones.json");
         LatLong one = new LatLong(12.232654837013484, 75.87158203125);
         LatLong two = new LatLong(11.802834233547687, 76.168212890625);
         LatLong three = new LatLong(11.77057019562524, 76.761474609375);
@@ -521,7 +792,7 @@ public class FlyDronePermissionApplicationServiceImplTest {
         LatLong six = new LatLong(12.232654837013484, 75.87158203125);
 
         //within given zone
-        assertThat(service.isFlyAreaIntersects(zones, asList(one, two, three, four, five, six)), is(true));
+        assertThat(service.isFlyAreaIntersects(zones, AirspaceCategory.Type.GREEN, asList(one, two, three, four, five, six)), is(true));
     }
 
     @Test
@@ -547,26 +818,295 @@ public class FlyDronePermissionApplicationServiceImplTest {
 
         when(userProfileService.resolveOperatorBusinessIdentifier(application.getApplicantType(), application.getOperatorId())).thenReturn("xyz");
 
+        String contentHash = service.generatePermissionArtifact(application);
+
+        ArgumentCaptor<org.w3c.dom.Document> documentCaptor = ArgumentCaptor.forClass(org.w3c.dom.Document.class);
+        verify(digitalSignService).sign(documentCaptor.capture());
+        String expected = IOUtils.toString(this.getClass().getResourceAsStream("/expectedPermissionArtefact"), "UTF-8").replaceAll(">\\s+<", "><").trim();
+        assertThat(XmlUtil.fromString(expected).getDocumentElement().isEqualNode(documentCaptor.getValue().getDocumentElement()), is(true));
+
+        ArgumentCaptor<StorageContentWriter> writerCaptor = ArgumentCaptor.forClass(StorageContentWriter.class);
+        verify(storageService).store(eq(PERMISSION_ARTIFACT_XML), writerCaptor.capture(), eq(application.getId()));
+        ByteArrayOutputStream storedContent = new ByteArrayOutputStream();
+        writerCaptor.getValue().writeTo(storedContent);
+        assertThat(XmlUtil.fromString(storedContent.toString("UTF-8")).getDocumentElement().isEqualNode(documentCaptor.getValue().getDocumentElement()), is(true));
+        StringBuilder expectedHash = new StringBuilder();
+        for (byte b : MessageDigest.getInstance("SHA-256").digest(storedContent.toByteArray())) {
+            expectedHash.append(String.format("%02x", b));
+        }
+        assertThat(contentHash, is(expectedHash.toString()));
+    }
+
+    @Test
+    public void shouldEscapeFreeTextInPermissionArtifact() throws Exception {
+        FlyDronePermissionApplication application = new FlyDronePermissionApplication();
+        application.setStatus(ApplicationStatus.APPROVED);
+        application.setPilotBusinessIdentifier("1234");
+        application.setDroneId(1);
+        application.setStartDateTime(LocalDateTime.of(2018, Month.AUGUST, 18, 0, 0));
+        application.setEndDateTime(LocalDateTime.of(2018, Month.AUGUST, 18, 1, 0));
+        application.setPayloadWeightInKg(1.5);
+        application.setFlightPurpose("survey <north> & \"south\"");
+        application.setPayloadDetails("camera");
+        application.setFlyArea(asList(new LatLong(1, 1), new LatLong(2, 2)));
+
+        OperatorDrone operatorDrone = new OperatorDrone();
+        operatorDrone.setUinApplicationId("sdsd");
+        when(operatorDroneService.find(application.getDroneId())).thenReturn(operatorDrone);
+        when(userProfileService.resolveOperatorBusinessIdentifier(any(), anyLong())).thenReturn("xyz");
+
         service.generatePermissionArtifact(application);
 
-        ArgumentCaptor<String> argumentCaptor = ArgumentCaptor.forClass(String.class);
-        verify(digitalSignService).sign(argumentCaptor.capture());
-        assertThat(argumentCaptor.getValue(), is(IOUtils.toString(this.getClass().getResourceAsStream("/expectedPermissionArtefact"), "UTF-8")));
-        verify(storageService).store(anyString(), anyString(), anyString());
+        ArgumentCaptor<StorageContentWriter> writerCaptor = ArgumentCaptor.forClass(StorageContentWriter.class);
+        verify(storageService).store(eq(PERMISSION_ARTIFACT_XML), writerCaptor.capture(), any());
+        ByteArrayOutputStream storedContent = new ByteArrayOutputStream();
+        writerCaptor.getValue().writeTo(storedContent);
+        org.w3c.dom.Document stored = XmlUtil.fromString(storedContent.toString("UTF-8"));
+        assertThat(((org.w3c.dom.Element) stored.getElementsByTagName("FlightPurpose").item(0)).getAttribute("shortDesc"), is("survey <north> & \"south\""));
+        assertThat(((org.w3c.dom.Element) stored.getElementsByTagName("PayloadDetails").item(0)).getAttribute("payLoadWeightInKg"), is("1.5"));
     }
 
-    private FlyDronePermissionApplication application(LocalDateTime dateTime) {
+    @Test
+    public void shouldNotFindFlyAreaIntersectWhenZonesOfTypeAbsent() throws Exception {
+
+        //given
+        AirspaceIndex zones = airspaceIndex(AirspaceCategory.Type.GREEN, "/geoJsonGreenZones.json");
+        LatLong one = new LatLong(12.232654837013484, 75.87158203125);
+        LatLong two = new LatLong(11.802834233547687, 76.168212890625);
+        LatLong three = new LatLong(11.77057019562524, 76.761474609375);
+        LatLong four = new LatLong(12.232654837013484, 75.87158203125);
+
+        //no red zones indexed
+        assertThat(service.isFlyAreaIntersects(zones, AirspaceCategory.Type.RED, asList(one, two, three, four)), is(false));
+    }
+
+    @Test
+    public void shouldClassifyFlyAreasAgainstSingleSnapshot() throws Exception {
+        //given
+        String greenZones = IOUtils.toString(this.getClass().getResourceAsStream("/geoJsonGreenZones.json"), "UTF-8");
+        AirspaceSnapshot airspaceSnapshot = AirspaceSnapshot.build(1, asList(new AirspaceCategory("green", AirspaceCategory.Type.GREEN, greenZones)));
+        when(airspaceCategoryService.airspaceSnapshot()).thenReturn(airspaceSnapshot);
+
+        List<LatLong> withinGreen = asList(
+                new LatLong(12.232654837013484, 75.87158203125),
+                new LatLong(11.802834233547687, 76.168212890625),
+                new LatLong(11.77057019562524, 76.761474609375),
+                new LatLong(12.302435369557129, 77.003173828125),
+                new LatLong(12.538477567560662, 76.4044189453125),
+                new LatLong(12.232654837013484, 75.87158203125));
+        List<LatLong> outsideGreen = asList(
+                new LatLong(11.630715737981486, 68.88427734374999),
+                new LatLong(7.18810087117902, 68.70849609375),
+                new LatLong(11.695272733029402, 77.89306640625),
+                new LatLong(14.817370620155254, 77.58544921874999),
+                new LatLong(11.630715737981486, 68.88427734374999));
+        List<LatLong> invalid = asList(new LatLong(1, 1), new LatLong(2, 2));
+
+        //when
+        List<FlyAreaClassification> result = service.classifyFlyAreas(asList(withinGreen, outsideGreen, invalid));
+
+        //then
+        assertThat(result.size(), is(3));
+        assertThat(result.get(0).isWithinGreenZone(), is(true));
+        assertThat(result.get(0).isIntersectsRedZone(), is(false));
+        assertThat(result.get(1).isWithinGreenZone(), is(false));
+        assertThat(result.get(2).getError(), notNullValue());
+        verify(airspaceCategoryService, times(1)).airspaceSnapshot();
+    }
+
+    @Test
+    public void shouldReportFlyAreaFailingTopologyAsInvalid() throws Exception {
+        //given
+        AirspaceIndex airspaceIndex = mock(AirspaceIndex.class);
+        AirspaceSnapshot airspaceSnapshot = mock(AirspaceSnapshot.class);
+        when(airspaceSnapshot.getIndex()).thenReturn(airspaceIndex);
+        when(airspaceCategoryService.airspaceSnapshot()).thenReturn(airspaceSnapshot);
+        when(airspaceIndex.isWithin(eq(AirspaceCategory.Type.GREEN), any(Polygon.class)))
+                .thenThrow(new TopologyException("side location conflict"))
+                .thenReturn(true);
+        List<LatLong> flyArea = asList(new LatLong(1, 1), new LatLong(1, 2), new LatLong(2, 2), new LatLong(1, 1));
+
+        //when
+        List<FlyAreaClassification> result = service.classifyFlyAreas(asList(flyArea, flyArea));
+
+        //then
+        assertThat(result.size(), is(2));
+        assertThat(result.stream().filter(classification -> classification.getError() != null).count(), is(1L));
+    }
+
+    @Test
+    public void shouldPrecheckFlyAreaAndReportOffendingZones() throws Exception {
+        //given
+        String zones = IOUtils.toString(this.getClass().getResourceAsStream("/geoJsonGreenZones.json"), "UTF-8");
+        AirspaceCategory redZone = new AirspaceCategory("red", AirspaceCategory.Type.RED, zones);
+        AirspaceSnapshot airspaceSnapshot = AirspaceSnapshot.build(1, asList(redZone));
+        when(airspaceCategoryService.airspaceSnapshot()).thenReturn(airspaceSnapshot);
+        List<LatLong> flyArea = asList(
+                new LatLong(12.232654837013484, 75.87158203125),
+                new LatLong(11.802834233547687, 76.168212890625),
+                new LatLong(11.77057019562524, 76.761474609375),
+                new LatLong(12.232654837013484, 75.87158203125));
+
+        //when
+        FlyAreaClassification result = service.precheckFlyArea(flyArea);
+
+        //then
+        assertThat(result.isIntersectsRedZone(), is(true));
+        assertThat(result.getRedZoneIds(), is(asList(redZone.getId())));
+        assertThat(result.getAmberZoneIds().isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldServeNearIdenticalPrecheckFromCache() throws Exception {
+        //given
+        AirspaceSnapshot airspaceSnapshot = AirspaceSnapshot.build(1, new ArrayList<>());
+        when(airspaceCategoryService.airspaceSnapshot()).thenReturn(airspaceSnapshot);
+        List<LatLong> flyArea = asList(new LatLong(1, 1), new LatLong(1, 2), new LatLong(2, 2), new LatLong(1, 1));
+        List<LatLong> redrawnFlyArea = asList(new LatLong(1.000000001, 1), new LatLong(1, 2.000000001), new LatLong(2, 2), new LatLong(1.000000001, 1));
+
+        //when
+        FlyAreaClassification first = service.precheckFlyArea(flyArea);
+        FlyAreaClassification second = service.precheckFlyArea(redrawnFlyArea);
+
+        //then
+        assertThat(second == first, is(true));
+        verify(service, times(1)).classifyFlyArea(eq(airspaceSnapshot), anyListOf(LatLong.class));
+    }
+
+    @Test
+    public void shouldStoreFlyAreaAsGeoJsonPolygonForGeospatialIndex() throws Exception {
+        //given
         FlyDronePermissionApplication application = new FlyDronePermissionApplication();
-        application.setLastModifiedDate(Date.from(dateTime.atZone(ZoneId.systemDefault()).toInstant()));
+        application.setPilotBusinessIdentifier("1");
+        application.setDroneId(1);
+        application.setFlyArea(asList(new LatLong(1, 1), new LatLong(1, 2), new LatLong(2, 2), new LatLong(2, 1), new LatLong(1, 1)));
+        doNothing().when(service).validateFlyArea(eq(application), any(AirspaceSnapshot.class));
+        when(operatorDroneService.find(application.getDroneId())).thenReturn(new OperatorDrone());
+        when(pilotService.findByBusinessIdentifier("1")).thenReturn(new Pilot(1L));
+
+        //when
+        service.createApplication(application);
+
+        //then
+        ArgumentCaptor<FlyDronePermissionApplication> argumentCaptor = ArgumentCaptor.forClass(FlyDronePermissionApplication.class);
+        verify(repository).insert(argumentCaptor.capture());
+        GeoJsonPolygon flyAreaGeometry = argumentCaptor.getValue().getFlyAreaGeometry();
+        assertThat(flyAreaGeometry.getPoints().size(), is(5));
+        assertThat(flyAreaGeometry.getPoints().get(1), is(new Point(2, 1)));
+    }
+
+    @Test
+    public void shouldNotIndexSelfIntersectingFlyArea() throws Exception {
+        //given
+        FlyDronePermissionApplication application = new FlyDronePermissionApplication();
+        application.setPilotBusinessIdentifier("1");
+        application.setDroneId(1);
+        application.setFlyArea(asList(new LatLong(1, 1), new LatLong(2, 2), new LatLong(1, 2), new LatLong(2, 1), new LatLong(1, 1)));
+        doNothing().when(service).validateFlyArea(eq(application), any(AirspaceSnapshot.class));
+        when(operatorDroneService.find(application.getDroneId())).thenReturn(new OperatorDrone());
+        when(pilotService.findByBusinessIdentifier("1")).thenReturn(new Pilot(1L));
+
+        //when
+        service.createApplication(application);
+
+        //then
+        ArgumentCaptor<FlyDronePermissionApplication> argumentCaptor = ArgumentCaptor.forClass(FlyDronePermissionApplication.class);
+        verify(repository).insert(argumentCaptor.capture());
+        assertThat(argumentCaptor.getValue().getFlyAreaGeometry() == null, is(true));
+    }
+
+    @Test
+    public void shouldQueryApplicationsInRegionNewestFirst() throws Exception {
+        //given
+        LocalDateTime from = LocalDateTime.of(2018, Month.AUGUST, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2018, Month.AUGUST, 31, 0, 0);
+
+        //when
+        service.getApplicationsInRegion(10, 70, 20, 80, from, to, 3, 50);
+
+        //then
+        ArgumentCaptor<GeoJsonPolygon> regionCaptor = ArgumentCaptor.forClass(GeoJsonPolygon.class);
+        ArgumentCaptor<Pageable> pageableCaptor = ArgumentCaptor.forClass(Pageable.class);
+        verify(repository).findInRegion(regionCaptor.capture(), eq(from), eq(to), pageableCaptor.capture());
+        assertThat(regionCaptor.getValue().getPoints(), is(asList(new Point(70, 10), new Point(80, 10), new Point(80, 20), new Point(70, 20), new Point(70, 10))));
+        assertThat(pageableCaptor.getValue().getPageNumber(), is(3));
+        assertThat(pageableCaptor.getValue().getPageSize(), is(50));
+        assertThat(pageableCaptor.getValue().getSort().getOrderFor("lastModifiedDate").getDirection(), is(Sort.Direction.DESC));
+    }
+
+    @Test
+    public void shouldRejectInvalidRegionQuery() throws Exception {
+        LocalDateTime from = LocalDateTime.of(2018, Month.AUGUST, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2018, Month.AUGUST, 31, 0, 0);
+        try {
+            service.getApplicationsInRegion(20, 70, 10, 80, from, to, 0, 50);
+            fail("should have thrown ValidationException");
+        } catch (ValidationException e) {
+        }
+        try {
+            service.getApplicationsInRegion(10, 70, 20, 80, to, from, 0, 50);
+            fail("should have thrown ValidationException");
+        } catch (ValidationException e) {
+        }
+        try {
+            service.getApplicationsInRegion(10, 70, 20, 80, from, to, 0, FlyDronePermissionApplicationServiceImpl.MAX_REGION_PAGE_SIZE + 1);
+            fail("should have thrown ValidationException");
+        } catch (ValidationException e) {
+        }
+        verifyZeroInteractions(repository);
+    }
+
+    @Test
+    public void shouldBackfillMissingFlyAreaGeometries() throws Exception {
+        //given
+        FlyDronePermissionApplication valid = new FlyDronePermissionApplication();
+        valid.setId("valid");
+        valid.setFlyArea(asList(new LatLong(1, 1), new LatLong(1, 2), new LatLong(2, 2), new LatLong(2, 1), new LatLong(1, 1)));
+        FlyDronePermissionApplication invalid = new FlyDronePermissionApplication();
+        invalid.setId("invalid");
+        invalid.setFlyArea(asList(new LatLong(1, 1), new LatLong(2, 2)));
+        when(repository.streamByFlyAreaGeometryIsNullAndFlyAreaIsNotNull()).thenReturn(asList(valid, invalid).stream());
+        when(repository.updateFlyAreaGeometries(anyMapOf(String.class, GeoJsonPolygon.class))).thenReturn(1);
+
+        //when
+        long updated = service.backfillFlyAreaGeometries();
+
+        //then
+        assertThat(updated, is(1L));
+        ArgumentCaptor<Map> geometriesCaptor = ArgumentCaptor.forClass(Map.class);
+        verify(repository).updateFlyAreaGeometries(geometriesCaptor.capture());
+        Map<String, GeoJsonPolygon> geometries = geometriesCaptor.getValue();
+        assertThat(geometries.keySet(), is(Collections.singleton("valid")));
+        assertThat(geometries.get("valid").getPoints().size(), is(5));
+        verify(repository, never()).save(anyListOf(FlyDronePermissionApplication.class));
+    }
+
+    private AirspaceIndex airspaceIndex(AirspaceCategory.Type type, String geoJsonResource) throws Exception {
+        String geoJson = IOUtils.toString(this.getClass().getResourceAsStream(geoJsonResource), "UTF-8");
+        return AirspaceIndex.build(asList(new AirspaceCategory("zones", type, geoJson)));
+    }
+
+    private FlyDronePermissionApplication approvedApplication(String id) {
+        FlyDronePermissionApplication application = new FlyDronePermissionApplication();
+        application.setId(id);
+        application.setStatus(ApplicationStatus.APPROVED);
         return application;
     }
 
-    public freemarker.template.Configuration freemarkerConfiguration() {
-        freemarker.template.Configuration cfg = new freemarker.template.Configuration(freemarker.template.Configuration.VERSION_2_3_20);
-        cfg.setClassForTemplateLoading(this.getClass(), "/templates");
-        cfg.setDefaultEncoding("UTF-8");
-        cfg.setLocalizedLookup(false);
-        cfg.setTemplateExceptionHandler(TemplateExceptionHandler.RETHROW_HANDLER);
-        return cfg;
+    private Map<String, String> unzip(byte[] content) throws Exception {
+        Map<String, String> entries = new HashMap<>();
+        try (ZipInputStream zipInputStream = new ZipInputStream(new ByteArrayInputStream(content))) {
+            ZipEntry entry;
+            while ((entry = zipInputStream.getNextEntry()) != null) {
+                entries.put(entry.getName(), IOUtils.toString(zipInputStream, "UTF-8"));
+            }
+        }
+        return entries;
+    }
+
+    private FlyDronePermissionApplication application(LocalDateTime dateTime) {
+        FlyDronePermissionApplication application = new FlyDronePermissionApplication();
+        application.setLastModifiedDate(Date.from(dateTime.atZone(ZoneId.systemDefault()).toInstant()));
+        return application;
     }
 }
\ No newline at end of file
@@ -5,6 +5,7 @@ import com.ispirit.digitalsky.domain.OrganizationOperator;
 import com.ispirit.digitalsky.exception.OperatorProfileAlreadyExist;
 import com.ispirit.digitalsky.repository.IndividualOperatorRepository;
 import com.ispirit.digitalsky.repository.OrganizationOperatorRepository;
+import com.ispirit.digitalsky.service.api.TokenRevocationService;
 import org.hamcrest.core.Is;
 import org.junit.Assert;
 import org.junit.Before;
@@ -26,13 +27,17 @@ public class IndividualOperatorServiceImplTest {
 
     private IndividualOperatorRepository individualOperatorRepository;
     private OrganizationOperatorRepository organizationOperatorRepository;
+    private TokenRevocationService tokenRevocationService;
+    private UserPrincipalCache userPrincipalCache;
     private IndividualOperatorServiceImpl service;
 
     @Before
     public void setUp() throws Exception {
         individualOperatorRepository = mock(IndividualOperatorRepository.class);
         organizationOperatorRepository = mock(OrganizationOperatorRepository.class);
-        service = new IndividualOperatorServiceImpl(individualOperatorRepository, organizationOperatorRepository);
+        tokenRevocationService = mock(TokenRevocationService.class);
+        userPrincipalCache = mock(UserPrincipalCache.class);
+        service = new IndividualOperatorServiceImpl(individualOperatorRepository, organizationOperatorRepository, tokenRevocationService, userPrincipalCache);
     }
 
     @Test
@@ -74,6 +79,8 @@ public class IndividualOperatorServiceImplTest {
 
         //then
         verify(individualOperatorRepository).save(individualOperator);
+        verify(tokenRevocationService).revokeClaims(individualOperator.getResourceOwnerId());
+        verify(userPrincipalCache).invalidate(individualOperator.getResourceOwnerId());
     }
 
     @Test
@@ -2,16 +2,26 @@ package com.ispirit.digitalsky.service;
 
 import com.ispirit.digitalsky.domain.User;
 import com.ispirit.digitalsky.domain.UserPrincipal;
+import com.ispirit.digitalsky.domain.UserProfile;
+import com.ispirit.digitalsky.domain.UserRole;
+import com.ispirit.digitalsky.service.api.UserProfileService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
 import org.junit.Before;
 import org.junit.Test;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 
-import java.io.InputStream;
+import java.util.HashMap;
 
 import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
 import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.notNullValue;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.hamcrest.core.IsSame.sameInstance;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -25,12 +35,16 @@ public class JwtTokenServiceTest {
     public void setUp() throws Exception {
         resourceLoader = mock(ResourceLoader.class);
 
-        InputStream keyStoreStream = this.getClass().getResourceAsStream("/keystore.jks");
-        Resource keystoreResource = mock(Resource.class);
-        when(resourceLoader.getResource("keystore.jks")).thenReturn(keystoreResource);
-        when(keystoreResource.getInputStream()).thenReturn(keyStoreStream);
+        mockResource("keystore.jks");
+        mockResource("ecKeystore.jks");
 
-        service = new JwtTokenService(resourceLoader,2,"keystore.jks","cacms789","jks","tomcat-localhost","cacms789");
+        service = new JwtTokenService(resourceLoader,2,"keystore.jks","cacms789","jks","tomcat-localhost","cacms789", SignatureAlgorithm.RS256);
+    }
+
+    private void mockResource(String name) throws Exception {
+        Resource resource = mock(Resource.class);
+        when(resourceLoader.getResource(name)).thenReturn(resource);
+        when(resource.getInputStream()).thenAnswer(invocation -> this.getClass().getResourceAsStream("/" + name));
     }
 
     @Test
@@ -60,4 +74,121 @@ public class JwtTokenServiceTest {
         assertThat(id, is(String.valueOf(user.getId())));
 
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldReturnVerifiedClaims() throws Exception {
+        //given
+        User user = new User(1,"name","email","", emptyList());
+        String token = service.generateToken(new UsernamePasswordAuthenticationToken(new UserPrincipal(user), null));
+
+        //when
+        Claims claims = service.verifyToken(token);
+
+        //then
+        assertThat(claims.getSubject(), is(String.valueOf(user.getId())));
+        assertThat(claims.getExpiration(), notNullValue());
+    }
+
+    @Test
+    public void shouldVerifyTokenOnlyOnce() throws Exception {
+        //given
+        User user = new User(1,"name","email","", emptyList());
+        String token = service.generateToken(new UsernamePasswordAuthenticationToken(new UserPrincipal(user), null));
+
+        //when
+        Claims claims = service.verifyToken(token);
+
+        //then
+        assertThat(service.verifyToken(token), sameInstance(claims));
+    }
+
+    @Test
+    public void shouldNotVerifyTamperedToken() throws Exception {
+        //given
+        User user = new User(1,"name","email","", emptyList());
+        String token = service.generateToken(new UsernamePasswordAuthenticationToken(new UserPrincipal(user), null));
+        String otherToken = service.generateToken(new UsernamePasswordAuthenticationToken(new UserPrincipal(new User(2,"name","email","", emptyList())), null));
+        String tamperedToken = otherToken.substring(0, otherToken.lastIndexOf('.')) + token.substring(token.lastIndexOf('.'));
+
+        //when
+        Claims claims = service.verifyToken(tamperedToken);
+
+        //then
+        assertThat(claims, nullValue());
+        assertThat(service.verifyToken(""), nullValue());
+    }
+
+    @Test
+    public void shouldGenerateAndValidateEs256Token() throws Exception {
+        //given
+        JwtTokenService ecService = new JwtTokenService(resourceLoader,2,"ecKeystore.jks","cacms789","jks","es256","cacms789", SignatureAlgorithm.ES256);
+        User user = new User(1,"name","email","", emptyList());
+        String token = ecService.generateToken(new UsernamePasswordAuthenticationToken(new UserPrincipal(user), null));
+
+        //when
+        boolean isValidToken = ecService.validateToken(token);
+
+        //then
+        assertThat(isValidToken, is(true));
+        assertThat(ecService.getUserIdFromJWT(token), is(String.valueOf(user.getId())));
+        assertThat(service.validateToken(token), is(false));
+    }
+
+    @Test
+    public void shouldBuildPrincipalFromProfileClaims() throws Exception {
+        //given
+        UserProfileService userProfileService = mock(UserProfileService.class);
+        when(userProfileService.profile(1)).thenReturn(new UserProfile(1, 0, 3, 0, 4, null, "operator", "manufacturer"));
+        JwtTokenService profileClaimsService = new JwtTokenService(resourceLoader,2,"keystore.jks","cacms789","jks","tomcat-localhost","cacms789", SignatureAlgorithm.RS256, userProfileService, true);
+        User user = new User(1,"name","email","", singletonList(new UserRole(1, "ROLE_ADMIN")));
+        String token = profileClaimsService.generateToken(new UsernamePasswordAuthenticationToken(new UserPrincipal(user), null));
+
+        //when
+        UserPrincipal principal = profileClaimsService.principalFromClaims(profileClaimsService.verifyToken(token));
+
+        //then
+        assertThat(principal.getId(), is(1L));
+        assertThat(principal.getUsername(), is("name"));
+        assertThat(principal.getEmail(), is("email"));
+        assertThat(principal.isAdmin(), is(true));
+        assertThat(principal.getProfile().getIndividualOperatorId(), is(3L));
+        assertThat(principal.getProfile().getManufacturerId(), is(4L));
+        assertThat(principal.getProfile().getPilotBusinessIdentifier(), nullValue());
+        assertThat(principal.getProfile().getOperatorBusinessIdentifier(), is("operator"));
+        assertThat(principal.getProfile().getManufacturerBusinessIdentifier(), is("manufacturer"));
+    }
+
+    @Test
+    public void shouldNotBuildPrincipalWithoutProfileClaims() throws Exception {
+        //given
+        User user = new User(1,"name","email","", emptyList());
+        String token = service.generateToken(new UsernamePasswordAuthenticationToken(new UserPrincipal(user), null));
+
+        //when
+        Claims claims = service.verifyToken(token);
+
+        //then
+        assertThat(claims.getId(), notNullValue());
+        assertThat(service.principalFromClaims(claims), nullValue());
+    }
+
+    @Test
+    public void shouldNotBuildPrincipalFromClaimsIssuedWithoutEmail() throws Exception {
+        //given
+        Claims claims = Jwts.claims().setSubject("1");
+        claims.put("name", "name");
+        claims.put("roles", emptyList());
+        claims.put("profile", new HashMap<>());
+
+        //when
+        UserPrincipal principal = service.principalFromClaims(claims);
+
+        //then
+        assertThat(principal, nullValue());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectAlgorithmNotMatchingKey() throws Exception {
+        new JwtTokenService(resourceLoader,2,"keystore.jks","cacms789","jks","tomcat-localhost","cacms789", SignatureAlgorithm.ES256);
+    }
+}
@@ -5,6 +5,7 @@ import com.ispirit.digitalsky.domain.OrganizationOperator;
 import com.ispirit.digitalsky.exception.OperatorProfileAlreadyExist;
 import com.ispirit.digitalsky.repository.IndividualOperatorRepository;
 import com.ispirit.digitalsky.repository.OrganizationOperatorRepository;
+import com.ispirit.digitalsky.service.api.TokenRevocationService;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
@@ -22,13 +23,17 @@ public class OrganizationOperatorServiceImplTest {
 
     private IndividualOperatorRepository individualOperatorRepository;
     private OrganizationOperatorRepository organizationOperatorRepository;
+    private TokenRevocationService tokenRevocationService;
+    private UserPrincipalCache userPrincipalCache;
     private OrganizationOperatorServiceImpl service;
 
     @Before
     public void setUp() throws Exception {
         individualOperatorRepository = mock(IndividualOperatorRepository.class);
         organizationOperatorRepository = mock(OrganizationOperatorRepository.class);
-        service = new OrganizationOperatorServiceImpl(organizationOperatorRepository, individualOperatorRepository);
+        tokenRevocationService = mock(TokenRevocationService.class);
+        userPrincipalCache = mock(UserPrincipalCache.class);
+        service = new OrganizationOperatorServiceImpl(organizationOperatorRepository, individualOperatorRepository, tokenRevocationService, userPrincipalCache);
     }
 
     @Test
@@ -70,6 +75,8 @@ public class OrganizationOperatorServiceImplTest {
 
         //then
         verify(organizationOperatorRepository).save(organizationOperator);
+        verify(tokenRevocationService).revokeClaims(organizationOperator.getResourceOwnerId());
+        verify(userPrincipalCache).invalidate(organizationOperator.getResourceOwnerId());
     }
 
     @Test
@@ -4,6 +4,7 @@ import com.ispirit.digitalsky.domain.Pilot;
 import com.ispirit.digitalsky.exception.PilotProfileAlreadyExist;
 import com.ispirit.digitalsky.repository.PilotRepository;
 import com.ispirit.digitalsky.repository.storage.StorageService;
+import com.ispirit.digitalsky.service.api.TokenRevocationService;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
@@ -21,13 +22,17 @@ public class PilotServiceImplTest {
 
     private StorageService storageService;
     private PilotRepository repository;
+    private TokenRevocationService tokenRevocationService;
+    private UserPrincipalCache userPrincipalCache;
     private PilotServiceImpl service;
 
     @Before
     public void setUp() throws Exception {
         storageService = mock(StorageService.class);
         repository = mock(PilotRepository.class);
-        service = new PilotServiceImpl(repository, storageService);
+        tokenRevocationService = mock(TokenRevocationService.class);
+        userPrincipalCache = mock(UserPrincipalCache.class);
+        service = new PilotServiceImpl(repository, storageService, tokenRevocationService, userPrincipalCache);
     }
 
     @Test
@@ -57,6 +62,8 @@ public class PilotServiceImplTest {
 
         //then
         verify(repository).save(pilot);
+        verify(tokenRevocationService).revokeClaims(2L);
+        verify(userPrincipalCache).invalidate(2L);
     }
 
     @Test
@@ -0,0 +1,108 @@
+package com.ispirit.digitalsky.service;
+
+import com.ispirit.digitalsky.domain.User;
+import com.ispirit.digitalsky.domain.UserPrincipal;
+import com.ispirit.digitalsky.util.XmlUtil;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+
+import javax.xml.crypto.dsig.XMLSignature;
+import javax.xml.crypto.dsig.XMLSignatureFactory;
+import javax.xml.crypto.dsig.dom.DOMValidateContext;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.PublicKey;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.util.concurrent.Callable;
+
+import static java.util.Collections.emptyList;
+
+/**
+ * Throughput comparison of the supported artifact and token signature algorithms, run with the test classpath:
+ * <pre>mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.ispirit.digitalsky.service.SignatureAlgorithmBenchmark</pre>
+ * Not a unit test, so surefire leaves it alone.
+ */
+public class SignatureAlgorithmBenchmark {
+
+    private static final int WARM_UP_ITERATIONS = 200;
+
+    private static final int MEASURED_ITERATIONS = 2000;
+
+    private static final String ARTIFACT = "<UAPermission lastUpdated=\"\" ttl=\"\" txnId=\"\" permissionArtifactId=\"\">"
+            + "<Permission><Owner operatorID=\"1\"><Pilot uaplNo=\"\" validTo=\"\"/></Owner>"
+            + "<FlightDetails><UADetails uinNo=\"UIN0001\"/><FlightPurpose shortDesc=\"survey\" frequency=\"\"/>"
+            + "<PayloadDetails payloadWeight=\"2.5\" payloadDetails=\"camera\"/>"
+            + "<FlightParams numberOfFlights=\"\" maxTargetAltitude=\"200\" adcNumber=\"\" ficNumber=\"\">"
+            + "<Coordinates><Coordinate latitude=\"12.9716\" longitude=\"77.5946\"/><Coordinate latitude=\"12.9816\" longitude=\"77.5946\"/>"
+            + "<Coordinate latitude=\"12.9816\" longitude=\"77.6046\"/><Coordinate latitude=\"12.9716\" longitude=\"77.5946\"/></Coordinates>"
+            + "</FlightParams></FlightDetails></Permission></UAPermission>";
+
+    public static void main(String[] args) throws Exception {
+        ResourceLoader resourceLoader = new DefaultResourceLoader();
+        DigitalSignMetrics metrics = new DigitalSignMetrics();
+
+        DigitalSignServiceImpl rsaSha1 = new DigitalSignServiceImpl(resourceLoader, "classpath:key.pem", "classpath:cert.pem", XmlSignatureAlgorithm.RSA_SHA1, metrics);
+        DigitalSignServiceImpl rsaSha256 = new DigitalSignServiceImpl(resourceLoader, "classpath:key.pem", "classpath:cert.pem", XmlSignatureAlgorithm.RSA_SHA256, metrics);
+        DigitalSignServiceImpl ecdsaSha256 = new DigitalSignServiceImpl(resourceLoader, "classpath:ecKey.pem", "classpath:ecCert.pem", XmlSignatureAlgorithm.ECDSA_SHA256, metrics);
+
+        report("xml " + XmlSignatureAlgorithm.RSA_SHA1, () -> { rsaSha1.sign(XmlUtil.fromString(ARTIFACT)); return null; });
+        report("xml " + XmlSignatureAlgorithm.RSA_SHA256, () -> { rsaSha256.sign(XmlUtil.fromString(ARTIFACT)); return null; });
+        report("xml " + XmlSignatureAlgorithm.ECDSA_SHA256, () -> { ecdsaSha256.sign(XmlUtil.fromString(ARTIFACT)); return null; });
+
+        //artifacts are signed once and verified the way a consumer would, parsing the signed document on every iteration
+        report("xml verify " + XmlSignatureAlgorithm.RSA_SHA1, verification(rsaSha1.sign(ARTIFACT), "/cert.pem"));
+        report("xml verify " + XmlSignatureAlgorithm.RSA_SHA256, verification(rsaSha256.sign(ARTIFACT), "/cert.pem"));
+        report("xml verify " + XmlSignatureAlgorithm.ECDSA_SHA256, verification(ecdsaSha256.sign(ARTIFACT), "/ecCert.pem"));
+
+        JwtTokenService rs256 = new JwtTokenService(resourceLoader, 30, "classpath:keystore.jks", "cacms789", "jks", "tomcat-localhost", "cacms789", SignatureAlgorithm.RS256);
+        JwtTokenService es256 = new JwtTokenService(resourceLoader, 30, "classpath:ecKeystore.jks", "cacms789", "jks", "es256", "cacms789", SignatureAlgorithm.ES256);
+        Authentication authentication = new UsernamePasswordAuthenticationToken(new UserPrincipal(new User(1, "name", "email", "", emptyList())), null);
+
+        report("jwt sign " + SignatureAlgorithm.RS256, () -> rs256.generateToken(authentication));
+        report("jwt sign " + SignatureAlgorithm.ES256, () -> es256.generateToken(authentication));
+        //verified tokens are cached, so each iteration verifies a freshly issued one
+        report("jwt sign+verify " + SignatureAlgorithm.RS256, () -> rs256.validateToken(rs256.generateToken(authentication)));
+        report("jwt sign+verify " + SignatureAlgorithm.ES256, () -> es256.validateToken(es256.generateToken(authentication)));
+    }
+
+    private static Callable<Boolean> verification(String signedArtifact, String certificatePath) throws Exception {
+        X509Certificate certificate = (X509Certificate) CertificateFactory.getInstance("X.509")
+                .generateCertificate(SignatureAlgorithmBenchmark.class.getResourceAsStream(certificatePath));
+        PublicKey publicKey = certificate.getPublicKey();
+        XMLSignatureFactory signatureFactory = XMLSignatureFactory.getInstance("DOM");
+        //signature validation needs the namespaces, which the artifact parser does not keep
+        DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
+        documentBuilderFactory.setNamespaceAware(true);
+        DocumentBuilder documentBuilder = documentBuilderFactory.newDocumentBuilder();
+        byte[] signedBytes = signedArtifact.getBytes(StandardCharsets.UTF_8);
+        return () -> {
+            Document document = documentBuilder.parse(new ByteArrayInputStream(signedBytes));
+            Node signature = document.getElementsByTagNameNS(XMLSignature.XMLNS, "Signature").item(0);
+            DOMValidateContext validateContext = new DOMValidateContext(publicKey, signature);
+            if (!signatureFactory.unmarshalXMLSignature(validateContext).validate(validateContext)) {
+                throw new IllegalStateException("Signed artifact did not verify");
+            }
+            return true;
+        };
+    }
+
+    private static void report(String name, Callable<?> operation) throws Exception {
+        for (int index = 0; index < WARM_UP_ITERATIONS; index++) {
+            operation.call();
+        }
+        long start = System.nanoTime();
+        for (int index = 0; index < MEASURED_ITERATIONS; index++) {
+            operation.call();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println(String.format("%-24s %10.1f ops/s %10.3f ms/op", name, MEASURED_ITERATIONS / seconds, seconds * 1000 / MEASURED_ITERATIONS));
+    }
+}
@@ -0,0 +1,131 @@
+package com.ispirit.digitalsky.service;
+
+import com.ispirit.digitalsky.domain.UserActiveSession;
+import com.ispirit.digitalsky.repository.UserActiveSessionRepository;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.*;
+
+public class TokenRevocationServiceImplTest {
+
+    private static final long TOKEN_TIME_TO_LIVE = TimeUnit.DAYS.toMillis(30);
+
+    private UserActiveSessionRepository repository;
+
+    private Clock clock;
+
+    private TokenRevocationServiceImpl service;
+
+    @Before
+    public void setUp() throws Exception {
+        repository = mock(UserActiveSessionRepository.class);
+        clock = Clock.fixed(Instant.parse("2018-08-12T10:00:00Z"), ZoneOffset.UTC);
+        service = new TokenRevocationServiceImpl(repository, TOKEN_TIME_TO_LIVE, clock);
+    }
+
+    @Test
+    public void shouldRevokeToken() throws Exception {
+        //given
+        Claims claims = claims(1, "token-1", clock.millis() - 1000);
+
+        //when
+        service.revoke(claims);
+
+        //then
+        ArgumentCaptor<UserActiveSession> argumentCaptor = ArgumentCaptor.forClass(UserActiveSession.class);
+        verify(repository).save(argumentCaptor.capture());
+        UserActiveSession session = argumentCaptor.getValue();
+        assertThat(session.getUserId(), is(1L));
+        assertThat(session.getToken(), is("token-1"));
+        assertThat(session.getIssuedBefore(), nullValue());
+        assertThat(session.getValidity(), is(claims.getExpiration()));
+        assertThat(service.isRevoked(claims), is(true));
+        assertThat(service.isRevoked(claims(1, "token-2", clock.millis() - 1000)), is(false));
+    }
+
+    @Test
+    public void shouldNotRevokeTokenWithoutId() throws Exception {
+        //given
+        Claims claims = claims(1, null, clock.millis() - 1000);
+
+        //when
+        service.revoke(claims);
+
+        //then
+        verify(repository, never()).save(any(UserActiveSession.class));
+        assertThat(service.isRevoked(claims), is(false));
+    }
+
+    @Test
+    public void shouldRevokeClaimsOfTokensIssuedUntilNow() throws Exception {
+        //when
+        service.revokeClaims(1);
+
+        //then
+        ArgumentCaptor<UserActiveSession> argumentCaptor = ArgumentCaptor.forClass(UserActiveSession.class);
+        verify(repository).save(argumentCaptor.capture());
+        UserActiveSession session = argumentCaptor.getValue();
+        assertThat(session.getToken(), nullValue());
+        assertThat(session.getIssuedBefore().getTime(), is(clock.millis()));
+        assertThat(session.getValidity().getTime(), is(clock.millis() + TOKEN_TIME_TO_LIVE));
+        assertThat(service.hasRevokedClaims(claims(1, "token-1", clock.millis() - 1000)), is(true));
+        assertThat(service.hasRevokedClaims(claims(1, "token-2", clock.millis())), is(true));
+        assertThat(service.hasRevokedClaims(claims(1, "token-3", clock.millis() + 1000)), is(false));
+        assertThat(service.hasRevokedClaims(claims(2, "token-4", clock.millis() - 1000)), is(false));
+    }
+
+    @Test
+    public void shouldLoadRevocationsOnRefresh() throws Exception {
+        //given
+        Date now = new Date(clock.millis());
+        Date validity = new Date(clock.millis() + 1000);
+        when(repository.findUnexpired(now)).thenReturn(asList(
+                new UserActiveSession(1, "token-1", null, validity),
+                new UserActiveSession(2, null, new Date(clock.millis() - 5000), validity),
+                new UserActiveSession(2, null, new Date(clock.millis() - 2000), validity)));
+
+        //when
+        service.refresh();
+
+        //then
+        verify(repository).deleteExpired(now);
+        assertThat(service.isRevoked(claims(1, "token-1", clock.millis())), is(true));
+        assertThat(service.hasRevokedClaims(claims(2, "token-2", clock.millis() - 3000)), is(true));
+        assertThat(service.hasRevokedClaims(claims(2, "token-3", clock.millis() - 1000)), is(false));
+    }
+
+    @Test
+    public void shouldDropRevocationsNoLongerStoredOnRefresh() throws Exception {
+        //given
+        Claims claims = claims(1, "token-1", clock.millis());
+        service.revoke(claims);
+
+        //when
+        service.refresh();
+
+        //then
+        assertThat(service.isRevoked(claims), is(false));
+    }
+
+    private Claims claims(long userId, String tokenId, long issuedAt) {
+        return Jwts.claims()
+                .setId(tokenId)
+                .setSubject(String.valueOf(userId))
+                .setIssuedAt(new Date(issuedAt))
+                .setExpiration(new Date(issuedAt + TOKEN_TIME_TO_LIVE));
+    }
+}
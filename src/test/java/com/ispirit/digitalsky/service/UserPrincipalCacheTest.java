@@ -0,0 +1,71 @@
+package com.ispirit.digitalsky.service;
+
+import com.ispirit.digitalsky.domain.User;
+import com.ispirit.digitalsky.domain.UserPrincipal;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.actuate.metrics.Metric;
+
+import java.util.Collection;
+
+import static java.util.Collections.emptyList;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class UserPrincipalCacheTest {
+
+    private UserPrincipalCache cache;
+
+    @Before
+    public void setUp() throws Exception {
+        cache = new UserPrincipalCache(100, 60000);
+    }
+
+    @Test
+    public void shouldReturnCachedPrincipal() throws Exception {
+        //given
+        UserPrincipal principal = new UserPrincipal(new User(1, "name", "email", null, emptyList()));
+        cache.put(principal);
+
+        //when
+        UserPrincipal cached = cache.get(1);
+
+        //then
+        assertThat(cached.getId(), is(1L));
+        assertThat(cached.getEmail(), is("email"));
+    }
+
+    @Test
+    public void shouldDropInvalidatedPrincipal() throws Exception {
+        //given
+        cache.put(new UserPrincipal(new User(1, "name", "email", null, emptyList())));
+
+        //when
+        cache.invalidate(1);
+
+        //then
+        assertThat(cache.get(1), nullValue());
+    }
+
+    @Test
+    public void shouldExposeHitAndMissMetrics() throws Exception {
+        //given
+        cache.put(new UserPrincipal(new User(1, "name", "email", null, emptyList())));
+        cache.get(1);
+        cache.get(1);
+        cache.get(2);
+
+        //when
+        Collection<Metric<?>> metrics = cache.metrics();
+
+        //then
+        assertThat(value(metrics, "userPrincipalCache.hits"), is(2L));
+        assertThat(value(metrics, "userPrincipalCache.misses"), is(1L));
+        assertThat(value(metrics, "userPrincipalCache.size"), is(1L));
+    }
+
+    private long value(Collection<Metric<?>> metrics, String name) {
+        return metrics.stream().filter(metric -> metric.getName().equals(name)).findFirst().get().getValue().longValue();
+    }
+}
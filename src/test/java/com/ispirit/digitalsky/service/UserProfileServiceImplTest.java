@@ -6,10 +6,13 @@ import com.ispirit.digitalsky.repository.ManufacturerRepository;
 import com.ispirit.digitalsky.repository.OrganizationOperatorRepository;
 import com.ispirit.digitalsky.repository.PilotRepository;
 import org.hamcrest.core.Is;
+import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mockito;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
 
 import java.time.LocalDate;
 
@@ -17,6 +20,7 @@ import static java.util.Collections.emptyList;
 import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 public class UserProfileServiceImplTest {
@@ -39,6 +43,11 @@ public class UserProfileServiceImplTest {
                 pilotRepository, individualOperatorRepository, organizationOperatorRepository, manufacturerRepository);
     }
 
+    @After
+    public void tearDown() throws Exception {
+        SecurityContextHolder.clearContext();
+    }
+
     @Test
     public void shouldLoadUserIndividualOperatorProfileById() throws Exception {
         //given
@@ -115,4 +124,19 @@ public class UserProfileServiceImplTest {
         //then
         assertThat(result, is(organizationOperator.getBusinessIdentifier()));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldUseProfileCarriedByAuthenticatedToken() throws Exception {
+        //given
+        UserProfile tokenProfile = new UserProfile(1, 2, 3, 0, 0, "pilot", "operator", null);
+        UserPrincipal principal = new UserPrincipal(1, "name", "email", emptyList(), tokenProfile);
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+
+        //when
+        UserProfile userProfile = service.profile(1);
+
+        //then
+        assertThat(userProfile, is(tokenProfile));
+        verifyZeroInteractions(pilotRepository, individualOperatorRepository, organizationOperatorRepository, manufacturerRepository);
+    }
+}